@@ -0,0 +1,244 @@
+/*
+ * Stand-in for the AaroniaRTSAAPI shared library with the same exported functions:
+ * every call succeeds at once, the output queue always holds QUEUE_DEPTH packets and
+ * every packet carries the same payload. The config tree is a root group holding
+ * CONFIG_ITEMS synthetic items, large enough for tree walks to show the cost of
+ * decoding item info. Benchmarks load it through the direct and the interface JNA
+ * bindings to measure the per-call cost of each without hardware.
+ *
+ * Behaves like StubLibrary; built by the native-stub profile of the benchmarks pom.
+ */
+#include <stdbool.h>
+#include <stdint.h>
+#include <string.h>
+#include <wchar.h>
+
+#define OK          0x00000000u
+#define EMPTY       0x00000001u
+#define RUNNING     0x10000004u
+
+#define QUEUE_DEPTH    16
+#define PACKET_SAMPLES 1024
+#define SAMPLE_RATE    1e6
+#define CONFIG_ITEMS   4096
+
+#define TYPE_GROUP  1
+#define TYPE_NUMBER 3
+#define TYPE_BOOL   4
+#define TYPE_ENUM   5
+#define TYPE_STRING 6
+
+typedef uint32_t AARTSAAPI_Result;
+
+typedef struct { void *d; } AARTSAAPI_Handle;
+typedef struct { void *d; } AARTSAAPI_Device;
+typedef struct { void *d; } AARTSAAPI_Config;
+
+typedef struct {
+    int64_t cbsize;
+    wchar_t serialNumber[120];
+    bool ready, boost, superspeed, active;
+} AARTSAAPI_DeviceInfo;
+
+typedef struct {
+    int64_t cbsize;
+    wchar_t name[80];
+    wchar_t title[120];
+    int32_t type;
+    double minValue, maxValue, stepValue;
+    wchar_t unit[10];
+    wchar_t options[1000];
+    uint64_t disabledOptions;
+} AARTSAAPI_ConfigInfo;
+
+typedef struct {
+    int64_t cbsize;
+    uint64_t streamID;
+    uint64_t flags;
+    double startTime, endTime;
+    double startFrequency, stepFrequency, spanFrequency, rbwFrequency;
+    int64_t num, total, size, stride;
+    float *fp32;
+    int64_t interleave;
+} AARTSAAPI_Packet;
+
+static float payload[2 * PACKET_SAMPLES];
+static double stream_time;
+static wchar_t enum_options[1000];
+
+/* The root group's handle points at the payload; item i (1-based) has handle i. */
+static intptr_t item_index(const AARTSAAPI_Config *config) {
+    intptr_t i = (intptr_t) config->d;
+    return i >= 1 && i <= CONFIG_ITEMS ? i : 0;
+}
+
+AARTSAAPI_Result AARTSAAPI_Init(uint32_t memory) { (void) memory; return OK; }
+AARTSAAPI_Result AARTSAAPI_Init_With_Path(uint32_t memory, const wchar_t *path) { (void) memory; (void) path; return OK; }
+AARTSAAPI_Result AARTSAAPI_Shutdown(void) { return OK; }
+uint32_t AARTSAAPI_Version(void) { return 0x00010000u; }
+
+AARTSAAPI_Result AARTSAAPI_Open(AARTSAAPI_Handle *handle) { handle->d = payload; return OK; }
+AARTSAAPI_Result AARTSAAPI_Close(AARTSAAPI_Handle *handle) { handle->d = 0; return OK; }
+
+AARTSAAPI_Result AARTSAAPI_RescanDevices(AARTSAAPI_Handle *handle, int32_t timeout) { (void) handle; (void) timeout; return OK; }
+AARTSAAPI_Result AARTSAAPI_ResetDevices(AARTSAAPI_Handle *handle) { (void) handle; return OK; }
+
+AARTSAAPI_Result AARTSAAPI_EnumDevice(AARTSAAPI_Handle *handle, const wchar_t *type, int32_t index, AARTSAAPI_DeviceInfo *dinfo) {
+    (void) handle; (void) type;
+    if (index != 0) return EMPTY;
+    wcsncpy(dinfo->serialNumber, L"STUB0001", 120);
+    dinfo->ready = true;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_OpenDevice(AARTSAAPI_Handle *handle, AARTSAAPI_Device *dhandle, const wchar_t *type, const wchar_t *serial) {
+    (void) handle; (void) type; (void) serial;
+    dhandle->d = payload;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_CloseDevice(AARTSAAPI_Handle *handle, AARTSAAPI_Device *dhandle) { (void) handle; dhandle->d = 0; return OK; }
+AARTSAAPI_Result AARTSAAPI_ConnectDevice(AARTSAAPI_Device *dhandle) { (void) dhandle; return OK; }
+AARTSAAPI_Result AARTSAAPI_DisconnectDevice(AARTSAAPI_Device *dhandle) { (void) dhandle; return OK; }
+AARTSAAPI_Result AARTSAAPI_StartDevice(AARTSAAPI_Device *dhandle) { (void) dhandle; return OK; }
+AARTSAAPI_Result AARTSAAPI_StopDevice(AARTSAAPI_Device *dhandle) { (void) dhandle; return OK; }
+AARTSAAPI_Result AARTSAAPI_GetDeviceState(AARTSAAPI_Device *dhandle) { (void) dhandle; return RUNNING; }
+
+AARTSAAPI_Result AARTSAAPI_AvailPackets(AARTSAAPI_Device *dhandle, int32_t channel, int32_t *num) {
+    (void) dhandle; (void) channel;
+    *num = QUEUE_DEPTH;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_GetPacket(AARTSAAPI_Device *dhandle, int32_t channel, int32_t index, AARTSAAPI_Packet *packet) {
+    (void) dhandle; (void) channel;
+    if (index >= QUEUE_DEPTH) return EMPTY;
+    packet->streamID = 0;
+    packet->flags = 0;
+    packet->startTime = stream_time;
+    packet->endTime = stream_time + PACKET_SAMPLES / SAMPLE_RATE;
+    packet->startFrequency = 1000e6 - SAMPLE_RATE / 2;
+    packet->stepFrequency = SAMPLE_RATE;
+    packet->spanFrequency = SAMPLE_RATE;
+    packet->rbwFrequency = 0;
+    packet->num = PACKET_SAMPLES;
+    packet->total = PACKET_SAMPLES;
+    packet->size = 2;
+    packet->stride = 2;
+    packet->fp32 = payload;
+    packet->interleave = 0;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConsumePackets(AARTSAAPI_Device *dhandle, int32_t channel, int32_t num) {
+    (void) dhandle; (void) channel;
+    stream_time += num * PACKET_SAMPLES / SAMPLE_RATE;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device *dhandle, double *stime) {
+    (void) dhandle;
+    *stime = stream_time;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_SendPacket(AARTSAAPI_Device *dhandle, int32_t channel, const AARTSAAPI_Packet *packet) {
+    (void) dhandle; (void) channel; (void) packet;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigRoot(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config) { (void) dhandle; config->d = payload; return OK; }
+AARTSAAPI_Result AARTSAAPI_ConfigHealth(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config) { (void) dhandle; config->d = payload; return OK; }
+
+AARTSAAPI_Result AARTSAAPI_ConfigFirst(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *group, AARTSAAPI_Config *config) {
+    (void) dhandle;
+    if (group->d != payload) return EMPTY;
+    config->d = (void *) (intptr_t) 1;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigNext(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *group, AARTSAAPI_Config *config) {
+    (void) dhandle;
+    /* Like the simulator: the sibling of the item passed as group goes to config. */
+    intptr_t i = item_index(group);
+    if (i == 0 || i == CONFIG_ITEMS) return EMPTY;
+    config->d = (void *) (i + 1);
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigFind(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *group, AARTSAAPI_Config *config, const wchar_t *name) {
+    (void) dhandle; (void) group; (void) name;
+    config->d = (void *) (intptr_t) 1;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigGetName(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, wchar_t *name) {
+    (void) dhandle;
+    intptr_t i = item_index(config);
+    if (i == 0) name[0] = 0;
+    else swprintf(name, 80, L"item%04d", (int) i);
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, AARTSAAPI_ConfigInfo *cinfo) {
+    (void) dhandle;
+    static const int32_t types[] = { TYPE_NUMBER, TYPE_ENUM, TYPE_BOOL, TYPE_STRING };
+    int64_t cbsize = cinfo->cbsize;
+    memset(cinfo, 0, sizeof(*cinfo));
+    cinfo->cbsize = cbsize;
+
+    intptr_t i = item_index(config);
+    if (i == 0) {
+        cinfo->type = TYPE_GROUP;
+        return OK;
+    }
+    if (enum_options[0] == 0) {
+        size_t n = 0;
+        for (int k = 0; k < 32; k++) {
+            n += swprintf(enum_options + n, 1000 - n, k ? L";Option %d" : L"Option %d", k);
+        }
+    }
+    swprintf(cinfo->name, 80, L"item%04d", (int) i);
+    swprintf(cinfo->title, 120, L"Synthetic config item %d", (int) i);
+    cinfo->type = types[i % 4];
+    cinfo->minValue = 0;
+    cinfo->maxValue = 6e9;
+    cinfo->stepValue = 1;
+    wcsncpy(cinfo->unit, L"Hz", 10);
+    if (cinfo->type == TYPE_ENUM) wcsncpy(cinfo->options, enum_options, 1000);
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, double value) {
+    (void) dhandle; (void) config; (void) value;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, double *value) {
+    (void) dhandle; (void) config;
+    *value = 0;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigSetString(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, const wchar_t *value) {
+    (void) dhandle; (void) config; (void) value;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigGetString(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, wchar_t *value, int64_t *size) {
+    (void) dhandle; (void) config;
+    if (*size > 0) value[0] = 0;
+    *size = 1;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, int64_t value) {
+    (void) dhandle; (void) config; (void) value;
+    return OK;
+}
+
+AARTSAAPI_Result AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device *dhandle, AARTSAAPI_Config *config, int64_t *value) {
+    (void) dhandle; (void) config;
+    *value = 0;
+    return OK;
+}
@@ -0,0 +1,131 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.DeviceInfo;
+import com.aaronia.rtsa.MemorySize;
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.RtsaApi;
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.native_.AaroniaRtsaDirect;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.aaronia.rtsa.sim.RtsaSimulator;
+import com.sun.jna.Native;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The library and device a benchmark runs against.
+ * <p>
+ * {@code sim} builds an unpaced {@link RtsaSimulator} with no transition delays, so
+ * results measure the SDK rather than a sample rate or USB link. {@code direct} and
+ * {@code jna} load the native library and open the first device it finds.
+ * {@code stub-direct} and {@code stub-jna} load the stub library built from
+ * {@code src/main/c/rtsa_stub.c} through the same bindings, so the cost of each binding
+ * shows without hardware.
+ */
+final class Backend implements AutoCloseable {
+
+    static final String RECEIVER = "spectranv6/iqreceiver";
+    static final String TRANSMITTER = "spectranv6/iqtransmitter";
+
+    private static final String SIM_SERIAL = "SIM00001";
+    private static final String STUB_LIBRARY = "AaroniaRTSAStub";
+    private static final String STUB_PREFIX = "stub-";
+    private static final long START_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    final RtsaApi api;
+    final RtsaDevice device;
+    private boolean started;
+
+    private Backend(RtsaApi api, RtsaDevice device) {
+        this.api = api;
+        this.device = device;
+    }
+
+    /**
+     * Initialize the backend and open a device in the given mode.
+     *
+     * @param backend       {@code sim}, {@code direct}, {@code jna}, {@code stub-direct} or {@code stub-jna}
+     * @param mode          device type and mode, e.g. {@link #RECEIVER}
+     * @param packetSamples samples per packet of a simulated device
+     */
+    static Backend open(String backend, String mode, int packetSamples) {
+        RtsaApi api;
+        String serial;
+        if ("sim".equals(backend)) {
+            RtsaSimulator sim = new RtsaSimulator();
+            sim.addDevice(SIM_SERIAL)
+               .setPaced(false)
+               .setPacketSamples(packetSamples)
+               .setTransitionDelay(0, TimeUnit.MILLISECONDS)
+               .addTone(1e6, -30);
+            api = RtsaApi.init(sim, MemorySize.MEDIUM);
+            serial = SIM_SERIAL;
+        } else if (backend.startsWith(STUB_PREFIX)) {
+            api = RtsaApi.init(loadStub(backend.substring(STUB_PREFIX.length())), MemorySize.MEDIUM);
+            serial = api.enumDevices("spectranv6").get(0).getSerialNumber();
+        } else {
+            api = RtsaApi.init(AaroniaRtsaLibrary.load(AaroniaRtsaLibrary.LIB_NAME, backend), MemorySize.MEDIUM);
+            api.rescanDevices(2000);
+            List<DeviceInfo> devices = api.enumDevices("spectranv6");
+            if (devices.isEmpty()) {
+                api.close();
+                throw new IllegalStateException("No spectranv6 device found for backend " + backend);
+            }
+            serial = devices.get(0).getSerialNumber();
+        }
+        try {
+            return new Backend(api, api.openDevice(mode, serial));
+        } catch (RuntimeException e) {
+            api.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The stub library through the given binding. Unlike {@link AaroniaRtsaLibrary#load},
+     * does not fall back to the interface mapping, so a result is always for the binding asked for.
+     */
+    static AaroniaRtsaLibrary loadStub(String binding) {
+        try {
+            switch (binding) {
+                case "direct":
+                    return AaroniaRtsaDirect.load(STUB_LIBRARY);
+                case "jna":
+                    return Native.load(STUB_LIBRARY, AaroniaRtsaLibrary.class);
+                default:
+                    throw new IllegalArgumentException("Unknown stub binding: " + binding);
+            }
+        } catch (UnsatisfiedLinkError e) {
+            throw new IllegalStateException("Stub library not found; build the benchmarks with a C compiler "
+                    + "on Linux or macOS (profile native-stub)", e);
+        }
+    }
+
+    /**
+     * Connect and start the device and wait until it is running.
+     */
+    Backend start() {
+        device.connect();
+        device.start();
+        started = true;
+        long deadline = System.nanoTime() + START_TIMEOUT_NANOS;
+        while (device.getDeviceState() != ResultCode.RUNNING) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Device not running: " + ResultCode.toString(device.getDeviceState()));
+            }
+            Thread.onSpinWait();
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (started) {
+            device.stop();
+            device.disconnect();
+        }
+        device.close();
+        api.close();
+    }
+}
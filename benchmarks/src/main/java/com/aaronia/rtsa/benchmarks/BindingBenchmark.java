@@ -0,0 +1,110 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the native bindings: the same calls on the stub library through
+ * the direct-mapped binding and through the reflective interface mapping. The stub
+ * returns at once, so each score is the binding's own overhead.
+ * <p>
+ * JMH forks one JVM per parameter value, which the direct binding needs: it registers
+ * against one library per process.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindingBenchmark {
+
+    @Param({"stub-jna", "stub-direct"})
+    public String backend;
+
+    private AaroniaRtsaLibrary lib;
+    private AARTSAAPI_Handle handle;
+    private AARTSAAPI_Device device;
+    private AARTSAAPI_Config config;
+    private AARTSAAPI_Packet packet;
+    private final IntByReference available = new IntByReference();
+    private final DoubleByReference time = new DoubleByReference();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lib = Backend.loadStub(backend.substring("stub-".length()));
+        lib.AARTSAAPI_Init(0);
+        handle = new AARTSAAPI_Handle();
+        lib.AARTSAAPI_Open(handle);
+        device = new AARTSAAPI_Device();
+        lib.AARTSAAPI_OpenDevice(handle, device, new WString(Backend.RECEIVER), new WString("STUB0001"));
+        device.setAutoSynch(false);
+        config = new AARTSAAPI_Config();
+        AARTSAAPI_Config root = new AARTSAAPI_Config();
+        lib.AARTSAAPI_ConfigRoot(device, root);
+        lib.AARTSAAPI_ConfigFind(device, root, config, new WString("main/centerfreq"));
+        config.setAutoSynch(false);
+        packet = new AARTSAAPI_Packet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lib.AARTSAAPI_CloseDevice(handle, device);
+        lib.AARTSAAPI_Close(handle);
+        lib.AARTSAAPI_Shutdown();
+    }
+
+    /** No arguments: the floor of a call. */
+    @Benchmark
+    public int version() {
+        return lib.AARTSAAPI_Version();
+    }
+
+    /** Structure and by-reference cell, as in every availability poll. */
+    @Benchmark
+    public int availPackets() {
+        lib.AARTSAAPI_AvailPackets(device, 0, available);
+        return available.getValue();
+    }
+
+    @Benchmark
+    public double masterStreamTime() {
+        lib.AARTSAAPI_GetMasterStreamTime(device, time);
+        return time.getValue();
+    }
+
+    /** Packet fetch into a reused holder, header read without reflection. */
+    @Benchmark
+    public long getPacket() {
+        packet.prepareReceive();
+        lib.AARTSAAPI_GetPacket(device, 0, 0, packet);
+        packet.readReceived();
+        return packet.num;
+    }
+
+    @Benchmark
+    public int configSetFloat() {
+        return lib.AARTSAAPI_ConfigSetFloat(device, config, 1000e6);
+    }
+}
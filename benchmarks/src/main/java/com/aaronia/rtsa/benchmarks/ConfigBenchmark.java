@@ -0,0 +1,105 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.ConfigInfo;
+import com.aaronia.rtsa.ConfigSnapshot;
+import com.aaronia.rtsa.ConfigType;
+import com.aaronia.rtsa.DeviceInfo;
+import com.aaronia.rtsa.RtsaConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config tree access on an opened, idle receiver: lookups by path with and without
+ * the device's path cache, value get/set, item info, a whole-tree walk and device
+ * enumeration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigBenchmark {
+
+    private static final String PATH = "main/centerfreq";
+
+    @Param({"sim"})
+    public String backend;
+
+    private Backend rtsa;
+    private RtsaConfig item;
+    private double frequency = 1000e6;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rtsa = Backend.open(backend, Backend.RECEIVER, 4096);
+        item = rtsa.device.configFind(PATH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rtsa.close();
+    }
+
+    /** {@code configFind} served from the path cache. */
+    @Benchmark
+    public RtsaConfig findCached() {
+        return rtsa.device.configFind(PATH);
+    }
+
+    /** Native path resolution from a fresh root handle. */
+    @Benchmark
+    public RtsaConfig findUncached() {
+        return rtsa.device.configRoot().find(PATH);
+    }
+
+    @Benchmark
+    public double getFloatByPath() {
+        return rtsa.device.configFind(PATH).getFloat();
+    }
+
+    @Benchmark
+    public void setFloatByPath() {
+        frequency = frequency == 1000e6 ? 2000e6 : 1000e6;
+        rtsa.device.configSetFloat(PATH, frequency);
+    }
+
+    @Benchmark
+    public ConfigInfo getInfo() {
+        return item.getInfo();
+    }
+
+    /** Item info decoding only the type field. */
+    @Benchmark
+    public ConfigType getType() {
+        return item.getType();
+    }
+
+    /**
+     * Walk of the whole config tree reading every value. The simulator's tree is small;
+     * {@link ConfigTreeBenchmark} walks a large one.
+     */
+    @Benchmark
+    public ConfigSnapshot treeWalk() {
+        return rtsa.device.snapshotConfig();
+    }
+
+    @Benchmark
+    public List<DeviceInfo> enumDevices() {
+        return rtsa.api.enumDevices("spectranv6");
+    }
+}
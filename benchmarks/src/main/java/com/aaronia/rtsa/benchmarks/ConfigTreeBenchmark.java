@@ -0,0 +1,125 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.ConfigInfo;
+import com.aaronia.rtsa.ConfigSnapshot;
+import com.aaronia.rtsa.ConfigType;
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.WString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item info over the stub library's synthetic config tree of 4096 items, read the way a
+ * tree walk does: name and type of each item.
+ * <p>
+ * {@code eager} fills the info structure with JNA's reflective synchronization and
+ * copies every field, as {@code RtsaConfig.getInfo()} did before decoding became lazy;
+ * {@code lazy} writes only {@code cbsize} and decodes the two fields read, as it does
+ * now. The simulator is no use here: it fills the structure from Java and writes all
+ * of it back to native memory on every call, which hides the difference.
+ * {@code snapshot} walks the same tree through the SDK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigTreeBenchmark {
+
+    @Param({"stub-direct"})
+    public String backend;
+
+    @Param({"256", "4096"})
+    public int items;
+
+    private AaroniaRtsaLibrary lib;
+    private AARTSAAPI_Handle handle;
+    private AARTSAAPI_Device device;
+    private final List<AARTSAAPI_Config> configs = new ArrayList<>();
+    private Backend rtsa;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lib = Backend.loadStub(backend.substring("stub-".length()));
+        lib.AARTSAAPI_Init(0);
+        handle = new AARTSAAPI_Handle();
+        lib.AARTSAAPI_Open(handle);
+        device = new AARTSAAPI_Device();
+        lib.AARTSAAPI_OpenDevice(handle, device, new WString(Backend.RECEIVER), new WString("STUB0001"));
+
+        AARTSAAPI_Config root = new AARTSAAPI_Config();
+        lib.AARTSAAPI_ConfigRoot(device, root);
+        AARTSAAPI_Config item = new AARTSAAPI_Config();
+        int res = lib.AARTSAAPI_ConfigFirst(device, root, item);
+        while (res == ResultCode.OK && configs.size() < items) {
+            configs.add(item);
+            AARTSAAPI_Config next = new AARTSAAPI_Config();
+            res = lib.AARTSAAPI_ConfigNext(device, item, next);
+            item = next;
+        }
+        if (configs.size() < items) throw new IllegalStateException("Stub config tree has " + configs.size() + " items");
+
+        rtsa = Backend.open(backend, Backend.RECEIVER, 4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rtsa.close();
+        lib.AARTSAAPI_CloseDevice(handle, device);
+        lib.AARTSAAPI_Close(handle);
+    }
+
+    @Benchmark
+    public void eager(Blackhole bh) {
+        for (AARTSAAPI_Config config : configs) {
+            AARTSAAPI_ConfigInfo raw = new AARTSAAPI_ConfigInfo();
+            lib.AARTSAAPI_ConfigGetInfo(device, config, raw);
+            ConfigInfo info = new ConfigInfo(
+                raw.getName(), raw.getTitle(),
+                ConfigType.fromValue(raw.type),
+                raw.minValue, raw.maxValue, raw.stepValue,
+                raw.getUnit(), raw.getOptions(), raw.disabledOptions);
+            bh.consume(info.getName());
+            bh.consume(info.getType());
+        }
+    }
+
+    @Benchmark
+    public void lazy(Blackhole bh) {
+        for (AARTSAAPI_Config config : configs) {
+            AARTSAAPI_ConfigInfo raw = new AARTSAAPI_ConfigInfo();
+            raw.prepareLazy();
+            lib.AARTSAAPI_ConfigGetInfo(device, config, raw);
+            bh.consume(raw.readName());
+            bh.consume(ConfigType.fromValue(raw.readType()));
+        }
+    }
+
+    /** Whole-tree snapshot through the SDK, independent of {@code items}. */
+    @Benchmark
+    public ConfigSnapshot snapshot() {
+        return rtsa.device.snapshotConfig();
+    }
+}
@@ -0,0 +1,77 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.dsp.DspPipeline;
+import com.aaronia.rtsa.dsp.Resampler;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link DspPipeline} with worker count: a burst of packets spread over
+ * {@code channels} channels, each decimated by 8, until the pipeline is idle.
+ * The score is packets per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class DspPipelineBenchmark {
+
+    private static final int PACKETS = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"8"})
+    public int channels;
+
+    @Param({"16384"})
+    public int packetSamples;
+
+    private DspPipeline pipeline;
+    private AARTSAAPI_Packet packet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new DspPipeline(parallelism, PACKETS)
+            .addStage(channel -> Resampler.decimator(8));
+        packet = ResamplerBenchmark.iqPacket(packetSamples, 92e6);
+        Random random = new Random(1);
+        for (int k = 0; k < 2 * packetSamples; k++) {
+            packet.fp32.setFloat((long) k * Float.BYTES, (float) (0.1 * random.nextGaussian()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public void burst() throws InterruptedException {
+        for (int i = 0; i < PACKETS; i++) {
+            pipeline.submit(i % channels, packet);
+        }
+        if (!pipeline.awaitIdle(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Pipeline not idle", pipeline.getFailure());
+        }
+    }
+}
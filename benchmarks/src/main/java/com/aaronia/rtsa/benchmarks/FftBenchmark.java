@@ -0,0 +1,61 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.dsp.Fft;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complex FFT from 1k to 64k points. Each operation restores the input before the
+ * in-place transform so values stay bounded; the copy is small next to the transform.
+ * <p>
+ * Add {@code -jvmArgsAppend -Daaronia.rtsa.vector=false} to measure the scalar kernels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class FftBenchmark {
+
+    @Param({"1024", "4096", "16384", "65536"})
+    public int size;
+
+    private Fft fft;
+    private float[] inputRe, inputIm, re, im;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fft = new Fft(size);
+        Random random = new Random(1);
+        inputRe = new float[size];
+        inputIm = new float[size];
+        for (int i = 0; i < size; i++) {
+            inputRe[i] = (float) random.nextGaussian();
+            inputIm[i] = (float) random.nextGaussian();
+        }
+        re = new float[size];
+        im = new float[size];
+    }
+
+    @Benchmark
+    public float transform() {
+        System.arraycopy(inputRe, 0, re, 0, size);
+        System.arraycopy(inputIm, 0, im, 0, size);
+        fft.transform(re, im);
+        return re[1];
+    }
+}
@@ -0,0 +1,75 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.dsp.IqOps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-sample IQ kernels over one block of interleaved samples.
+ * <p>
+ * Add {@code -jvmArgsAppend -Daaronia.rtsa.vector=false} to measure the scalar kernels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class IqOpsBenchmark {
+
+    @Param({"4096", "65536"})
+    public int samples;
+
+    private float[] iq, i, q, out;
+    private short[] int16;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        iq = new float[2 * samples];
+        for (int k = 0; k < iq.length; k++) {
+            iq[k] = (float) (0.1 * random.nextGaussian());
+        }
+        i = new float[samples];
+        q = new float[samples];
+        out = new float[samples];
+        int16 = new short[2 * samples];
+    }
+
+    @Benchmark
+    public float power() {
+        IqOps.power(iq, 0, out, 0, samples);
+        return out[0];
+    }
+
+    @Benchmark
+    public float powerDbm() {
+        IqOps.powerDbm(iq, 0, out, 0, samples);
+        return out[0];
+    }
+
+    @Benchmark
+    public float deinterleave() {
+        IqOps.deinterleave(iq, 0, i, q, 0, samples);
+        return q[0];
+    }
+
+    @Benchmark
+    public short toInt16() {
+        IqOps.toInt16(iq, 0, int16, 0, iq.length, 1.0f);
+        return int16[0];
+    }
+}
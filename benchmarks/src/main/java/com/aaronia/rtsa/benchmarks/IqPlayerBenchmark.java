@@ -0,0 +1,113 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.record.IqPlayer;
+import com.aaronia.rtsa.record.IqRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playback of a temporary recording: index lookups, seek followed by a read, and
+ * sequential reads that wrap around at the end of the file.
+ * <p>
+ * The recordings are 1 and 4 GiB, so they span several 1 GiB mapping windows and
+ * random seeks miss the page cache's read-ahead. The temporary directory needs room
+ * for the larger file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IqPlayerBenchmark {
+
+    private static final double SAMPLE_RATE = 1e6;
+    private static final int SEEK_TIMES = 4096;
+
+    @Param({"1", "4"})
+    public int gigabytes;
+
+    @Param({"4096"})
+    public int packetSamples;
+
+    private Path directory;
+    private IqPlayer player;
+    private double[] seekTimes;
+    private int nextSeek;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rtsa-bench");
+        Path file = directory.resolve("capture.iq");
+        AARTSAAPI_Packet packet = ResamplerBenchmark.iqPacket(packetSamples, SAMPLE_RATE);
+        double duration = packetSamples / SAMPLE_RATE;
+        long packets = ((long) gigabytes << 30) / (packetSamples * 2L * Float.BYTES);
+        try (IqRecorder recorder = IqRecorder.create(file)) {
+            for (long i = 0; i < packets; i++) {
+                packet.startTime = 100 + i * duration;
+                packet.endTime = packet.startTime + duration;
+                recorder.write(packet);
+            }
+        }
+        player = IqPlayer.open(file);
+
+        Random random = new Random(1);
+        seekTimes = new double[SEEK_TIMES];
+        for (int i = 0; i < SEEK_TIMES; i++) {
+            seekTimes[i] = player.getStartTime() + random.nextDouble() * (player.getEndTime() - player.getStartTime());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        player.close();
+        try (var files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /** Index lookup and reposition only. */
+    @Benchmark
+    public int seek() {
+        player.seek(seekTimes[nextSeek++ & (SEEK_TIMES - 1)]);
+        return player.position();
+    }
+
+    /** Random access: seek, then read the packet at that time. */
+    @Benchmark
+    public AARTSAAPI_Packet seekRead() throws IOException {
+        player.seek(seekTimes[nextSeek++ & (SEEK_TIMES - 1)]);
+        return player.next();
+    }
+
+    @Benchmark
+    public AARTSAAPI_Packet sequential() throws IOException {
+        AARTSAAPI_Packet packet = player.next();
+        if (packet == null) {
+            player.seekPacket(0);
+            packet = player.next();
+        }
+        return packet;
+    }
+}
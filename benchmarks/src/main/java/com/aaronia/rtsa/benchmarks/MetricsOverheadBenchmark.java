@@ -0,0 +1,103 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.MemorySize;
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.RtsaApi;
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.metrics.RtsaMetrics;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics layer on the receive loop: poll the queue, fetch one packet
+ * into a holder and consume it, against a {@link StubLibrary} so that only the SDK's
+ * own work is measured.
+ * <ul>
+ * <li>{@code raw}: the same calls made straight on the binding, the floor for any
+ * wrapper;</li>
+ * <li>{@code off}: {@link RtsaDevice} on the plain binding, as without
+ * {@code aaronia.rtsa.metrics};</li>
+ * <li>{@code on}: {@link RtsaDevice} on an {@linkplain RtsaMetrics#instrument instrumented}
+ * binding.</li>
+ * </ul>
+ * {@code off} should match {@code raw} within the error bounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    private static final String SERIAL = "STUB0001";
+
+    @Param({"raw", "off", "on"})
+    public String metrics;
+
+    private StubLibrary stub;
+    private RtsaApi api;
+    private RtsaDevice device;
+    private AARTSAAPI_Handle rawHandle;
+    private AARTSAAPI_Device rawDevice;
+    private final IntByReference available = new IntByReference();
+    private final AARTSAAPI_Packet holder = new AARTSAAPI_Packet();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stub = new StubLibrary();
+        if (metrics.equals("raw")) {
+            rawHandle = new AARTSAAPI_Handle();
+            rawDevice = new AARTSAAPI_Device();
+            stub.AARTSAAPI_OpenDevice(rawHandle, rawDevice, new WString(Backend.RECEIVER), new WString(SERIAL));
+        } else {
+            AaroniaRtsaLibrary lib = metrics.equals("on") ? new RtsaMetrics().instrument(stub) : stub;
+            api = RtsaApi.init(lib, MemorySize.MEDIUM);
+            device = api.openDevice(Backend.RECEIVER, SERIAL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (device != null) {
+            device.close();
+            api.close();
+        }
+    }
+
+    @Benchmark
+    public long receive() {
+        if (device == null) {
+            stub.AARTSAAPI_AvailPackets(rawDevice, 0, available);
+            if (available.getValue() == 0) return 0;
+            holder.prepareReceive();
+            if (stub.AARTSAAPI_GetPacket(rawDevice, 0, 0, holder) != ResultCode.OK) return 0;
+            holder.readReceived();
+            stub.AARTSAAPI_ConsumePackets(rawDevice, 0, 1);
+            return holder.num;
+        }
+        if (device.availablePackets(0) == 0) return 0;
+        if (!device.getPacket(0, 0, holder)) return 0;
+        device.consumePackets(0, 1);
+        return holder.num;
+    }
+}
@@ -0,0 +1,118 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Receive-queue access: one packet per call versus batches of {@code batch} packets.
+ * <p>
+ * Every benchmark fetches and consumes packets; the {@code packets} counter reports
+ * packets per second so batch sizes compare directly. Run with {@code -prof gc} to
+ * check that the holder paths stay at 0 B/op.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PacketFetchBenchmark {
+
+    @Param({"sim"})
+    public String backend;
+
+    @Param({"1", "4", "16", "64"})
+    public int batch;
+
+    @Param({"4096"})
+    public int packetSamples;
+
+    private Backend rtsa;
+    private AARTSAAPI_Packet holder;
+    private AARTSAAPI_Packet[] holders;
+    private long sink;
+    private final Consumer<AARTSAAPI_Packet> handler = packet -> sink += packet.num;
+
+    /** Packets fetched, reported per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long packets;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            packets = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rtsa = Backend.open(backend, Backend.RECEIVER, packetSamples).start();
+        holder = new AARTSAAPI_Packet();
+        holders = new AARTSAAPI_Packet[batch];
+        for (int i = 0; i < batch; i++) {
+            holders[i] = new AARTSAAPI_Packet();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rtsa.close();
+    }
+
+    /** {@code getPacket} into a reused holder, then consume; {@code batch} is ignored. */
+    @Benchmark
+    public void single(Counters counters, Blackhole bh) {
+        if (rtsa.device.getPacket(0, 0, holder)) {
+            bh.consume(holder.num);
+            rtsa.device.consumePackets(0, 1);
+            counters.packets++;
+        }
+    }
+
+    /** {@code getPacket} allocating a new packet structure per call; {@code batch} is ignored. */
+    @Benchmark
+    public void singleAllocating(Counters counters, Blackhole bh) {
+        AARTSAAPI_Packet packet = rtsa.device.getPacket(0, 0);
+        if (packet != null) {
+            bh.consume(packet.num);
+            rtsa.device.consumePackets(0, 1);
+            counters.packets++;
+        }
+    }
+
+    /** {@code getPackets} into {@code batch} holders, consumed with one call. */
+    @Benchmark
+    public void batched(Counters counters, Blackhole bh) {
+        int n = rtsa.device.getPackets(0, holders);
+        for (int i = 0; i < n; i++) {
+            bh.consume(holders[i].num);
+        }
+        if (n > 0) rtsa.device.consumePackets(0, n);
+        counters.packets += n;
+    }
+
+    /** {@code processPackets} with a handler over {@code batch} holders. */
+    @Benchmark
+    public long processBatch(Counters counters) {
+        counters.packets += rtsa.device.processPackets(0, holders, handler);
+        return sink;
+    }
+}
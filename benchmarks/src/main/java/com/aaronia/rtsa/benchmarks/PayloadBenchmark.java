@@ -0,0 +1,113 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.PacketView;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload access of one received packet: copying into a Java array versus reading
+ * through a zero-copy view. Each operation fetches, reads and consumes one packet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    @Param({"sim"})
+    public String backend;
+
+    @Param({"1024", "16384"})
+    public int packetSamples;
+
+    private Backend rtsa;
+    private AARTSAAPI_Packet holder;
+    private float[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rtsa = Backend.open(backend, Backend.RECEIVER, packetSamples).start();
+        holder = new AARTSAAPI_Packet();
+        buffer = new float[2 * packetSamples];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rtsa.close();
+    }
+
+    /** {@code readFloats}: a new array per packet. */
+    @Benchmark
+    public float readFloats() {
+        if (!rtsa.device.getPacket(0, 0, holder)) return 0;
+        float[] samples = holder.readFloats(0, (int) holder.payloadFloats());
+        rtsa.device.consumePackets(0, 1);
+        return samples[samples.length - 1];
+    }
+
+    /** Bulk copy into a reused array. */
+    @Benchmark
+    public float copyReused() {
+        if (!rtsa.device.getPacket(0, 0, holder)) return 0;
+        int n = (int) holder.payloadFloats();
+        holder.fp32.read(0, buffer, 0, n);
+        rtsa.device.consumePackets(0, 1);
+        return buffer[n - 1];
+    }
+
+    /** {@link PacketView#copyTo} into a reused array. */
+    @Benchmark
+    public float viewCopyTo() {
+        PacketView view = rtsa.device.getPacketView(0, 0);
+        if (view == null) return 0;
+        int n = view.length();
+        view.copyTo(0, buffer, 0, n);
+        rtsa.device.consumePackets(0, 1);
+        return buffer[n - 1];
+    }
+
+    /** Sum of the I components read in place through {@link PacketView#uncheckedFloats()}. */
+    @Benchmark
+    public float viewInPlace() {
+        PacketView view = rtsa.device.getPacketView(0, 0);
+        if (view == null) return 0;
+        FloatBuffer floats = view.uncheckedFloats();
+        float sum = 0;
+        for (int i = 0, n = floats.limit(); i < n; i += 2) {
+            sum += floats.get(i);
+        }
+        rtsa.device.consumePackets(0, 1);
+        return sum;
+    }
+
+    /** The same sum over a bulk copy, for comparison with {@link #viewInPlace()}. */
+    @Benchmark
+    public float copySum() {
+        if (!rtsa.device.getPacket(0, 0, holder)) return 0;
+        int n = (int) holder.payloadFloats();
+        holder.fp32.read(0, buffer, 0, n);
+        rtsa.device.consumePackets(0, 1);
+        float sum = 0;
+        for (int i = 0; i < n; i += 2) {
+            sum += buffer[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,71 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.dsp.Resampler;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decimation of one packet from native memory into native memory.
+ * The score is per packet; divide by {@code packetSamples} for the cost per input sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class ResamplerBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int factor;
+
+    @Param({"16384"})
+    public int packetSamples;
+
+    private Resampler resampler;
+    private AARTSAAPI_Packet in, out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resampler = Resampler.decimator(factor);
+        in = iqPacket(packetSamples, 92e6);
+        Random random = new Random(1);
+        for (int k = 0; k < 2 * packetSamples; k++) {
+            in.fp32.setFloat((long) k * Float.BYTES, (float) (0.1 * random.nextGaussian()));
+        }
+        out = iqPacket((int) resampler.maxOutputSamples(packetSamples), 92e6);
+    }
+
+    @Benchmark
+    public int decimate() {
+        return resampler.process(in, out);
+    }
+
+    static AARTSAAPI_Packet iqPacket(int samples, double sampleRate) {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = new Memory(2L * samples * Float.BYTES);
+        packet.num = samples;
+        packet.total = samples;
+        packet.size = 2;
+        packet.stride = 2;
+        packet.stepFrequency = sampleRate;
+        packet.spanFrequency = sampleRate;
+        packet.startFrequency = 1000e6 - sampleRate / 2;
+        return packet;
+    }
+}
@@ -0,0 +1,126 @@
+package com.aaronia.rtsa.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare two JMH result files written with {@code -rf csv}.
+ * <p>
+ * Rows are matched by benchmark, mode and parameters. A change is flagged when the
+ * scores differ by more than their combined error; the sign accounts for the mode,
+ * so a flagged throughput drop and a flagged latency rise both read as regressions.
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.aaronia.rtsa.benchmarks.ResultDiff base.csv current.csv
+ * </pre>
+ * Exits with status 1 if any benchmark regressed.
+ */
+public final class ResultDiff {
+
+    private ResultDiff() {
+    }
+
+    private record Row(String key, double score, double error, String unit, boolean higherIsBetter) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ResultDiff <base.csv> <current.csv>");
+            System.exit(2);
+        }
+        Map<String, Row> base = read(Paths.get(args[0]));
+        Map<String, Row> current = read(Paths.get(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %8s%n", "Benchmark", "Base", "Current", "Change");
+        for (Row row : current.values()) {
+            Row before = base.get(row.key());
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %8s  %s%n", row.key(), "-", row.score(), "new", row.unit());
+                continue;
+            }
+            double change = (row.score() - before.score()) / before.score() * 100;
+            String verdict = "";
+            if (Math.abs(row.score() - before.score()) > row.error() + before.error()) {
+                boolean better = (row.score() > before.score()) == row.higherIsBetter();
+                verdict = better ? "  improved" : "  REGRESSED";
+                if (!better) regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+7.1f%%  %s%s%n",
+                row.key(), before.score(), row.score(), change, row.unit(), verdict);
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-80s %14.3f %14s %8s%n", key, base.get(key).score(), "-", "removed");
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s)");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Row> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty()) throw new IOException("Empty result file: " + file);
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        int error = -1;
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).startsWith("Score Error")) error = i;
+        }
+        if (benchmark < 0 || mode < 0 || score < 0 || unit < 0) {
+            throw new IOException("Not a JMH CSV result file: " + file);
+        }
+
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            List<String> cells = split(line);
+            StringBuilder key = new StringBuilder(cells.get(benchmark)).append(' ').append(cells.get(mode));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < cells.size() && !cells.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(cells.get(i));
+                }
+            }
+            double errorValue = error < 0 ? 0 : parse(cells.get(error));
+            String m = cells.get(mode);
+            rows.put(key.toString(), new Row(key.toString(), parse(cells.get(score)), errorValue,
+                cells.get(unit), m.equals("thrpt")));
+        }
+        return rows;
+    }
+
+    private static double parse(String value) {
+        if (value.isEmpty() || value.equals("NaN")) return 0;
+        return Double.parseDouble(value.replace(',', '.'));
+    }
+
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,221 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_DeviceInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+
+/**
+ * Binding that does nothing: every call succeeds at once, the output queue is always
+ * full and every packet carries the same payload. Leaves only the cost of the SDK
+ * around the calls to measure.
+ */
+final class StubLibrary implements AaroniaRtsaLibrary {
+
+    static final int QUEUE_DEPTH = 16;
+    static final int PACKET_SAMPLES = 1024;
+    static final double SAMPLE_RATE = 1e6;
+
+    private final Memory payload = new Memory(2L * PACKET_SAMPLES * Float.BYTES);
+    private final AARTSAAPI_Packet template = new AARTSAAPI_Packet();
+    private double time;
+
+    StubLibrary() {
+        payload.clear();
+        template.num = PACKET_SAMPLES;
+        template.total = PACKET_SAMPLES;
+        template.size = 2;
+        template.stride = 2;
+        template.stepFrequency = SAMPLE_RATE;
+        template.spanFrequency = SAMPLE_RATE;
+        template.startFrequency = 1000e6 - SAMPLE_RATE / 2;
+    }
+
+    @Override
+    public int AARTSAAPI_Init(int memory) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Init_With_Path(int memory, WString pathXmlLocation) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Shutdown() {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Version() {
+        return 0x00010000;
+    }
+
+    @Override
+    public int AARTSAAPI_Open(AARTSAAPI_Handle handle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Close(AARTSAAPI_Handle handle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_RescanDevices(AARTSAAPI_Handle handle, int timeout) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ResetDevices(AARTSAAPI_Handle handle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_EnumDevice(AARTSAAPI_Handle handle, WString type, int index, AARTSAAPI_DeviceInfo dinfo) {
+        return index == 0 ? ResultCode.OK : ResultCode.EMPTY;
+    }
+
+    @Override
+    public int AARTSAAPI_OpenDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle, WString type, WString serialNumber) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_CloseDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConnectDevice(AARTSAAPI_Device dhandle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_DisconnectDevice(AARTSAAPI_Device dhandle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_StartDevice(AARTSAAPI_Device dhandle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_StopDevice(AARTSAAPI_Device dhandle) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_GetDeviceState(AARTSAAPI_Device dhandle) {
+        return ResultCode.RUNNING;
+    }
+
+    @Override
+    public int AARTSAAPI_AvailPackets(AARTSAAPI_Device dhandle, int channel, IntByReference num) {
+        num.setValue(QUEUE_DEPTH);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_GetPacket(AARTSAAPI_Device dhandle, int channel, int index, AARTSAAPI_Packet packet) {
+        if (index >= QUEUE_DEPTH) return ResultCode.EMPTY;
+        template.startTime = time;
+        template.endTime = time + PACKET_SAMPLES / SAMPLE_RATE;
+        packet.copyHeaderFrom(template);
+        packet.fp32 = payload;
+        packet.writeReceived();
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConsumePackets(AARTSAAPI_Device dhandle, int channel, int num) {
+        time += num * PACKET_SAMPLES / SAMPLE_RATE;
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device dhandle, DoubleByReference stime) {
+        stime.setValue(time);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_SendPacket(AARTSAAPI_Device dhandle, int channel, AARTSAAPI_Packet packet) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigRoot(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigHealth(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFirst(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        return ResultCode.EMPTY;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigNext(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        return ResultCode.EMPTY;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFind(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config, WString name) {
+        return ResultCode.ERROR_INVALID_CONFIG;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetName(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] name) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, AARTSAAPI_ConfigInfo cinfo) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, double value) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, DoubleByReference value) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, WString value) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] value, LongByReference size) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, long value) {
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, LongByReference value) {
+        return ResultCode.OK;
+    }
+}
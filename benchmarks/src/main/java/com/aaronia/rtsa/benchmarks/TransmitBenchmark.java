@@ -0,0 +1,97 @@
+package com.aaronia.rtsa.benchmarks;
+
+import com.aaronia.rtsa.TransmitBuffer;
+import com.aaronia.rtsa.TransmitBufferPool;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmit path on a running transmitter: {@code sendPacket} with a fixed payload,
+ * with a pooled buffer filled from a Java array, and the pool's lease/release cycle.
+ * <p>
+ * Packets carry an {@code endTime} in the past so pooled buffers are reclaimed on the
+ * next lease instead of piling up in flight.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransmitBenchmark {
+
+    @Param({"sim"})
+    public String backend;
+
+    @Param({"1024", "16384"})
+    public int packetSamples;
+
+    private Backend rtsa;
+    private TransmitBufferPool pool;
+    private AARTSAAPI_Packet packet;
+    private Memory payload;
+    private float[] samples;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rtsa = Backend.open(backend, Backend.TRANSMITTER, packetSamples).start();
+        pool = rtsa.device.transmitBufferPool();
+        samples = new float[2 * packetSamples];
+        for (int i = 0; i < packetSamples; i++) {
+            samples[2 * i] = (float) Math.cos(0.01 * i);
+            samples[2 * i + 1] = (float) Math.sin(0.01 * i);
+        }
+        payload = new Memory((long) samples.length * Float.BYTES);
+        payload.write(0, samples, 0, samples.length);
+
+        packet = new AARTSAAPI_Packet();
+        packet.startFrequency = 2420e6;
+        packet.spanFrequency = 20e6;
+        packet.stepFrequency = 20e6;
+        packet.num = packetSamples;
+        packet.total = packetSamples;
+        packet.size = 2;
+        packet.stride = 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rtsa.close();
+    }
+
+    /** {@code sendPacket} of a payload that is already in native memory. */
+    @Benchmark
+    public void send() {
+        packet.fp32 = payload;
+        rtsa.device.sendPacket(0, packet);
+    }
+
+    /** Lease a pooled buffer, fill it from a Java array and send it. */
+    @Benchmark
+    public void sendPooled() {
+        TransmitBuffer buffer = pool.lease(samples.length);
+        buffer.write(0, samples, 0, samples.length);
+        rtsa.device.sendPacket(0, packet, buffer);
+    }
+
+    /** Pool overhead alone: lease and release without sending. */
+    @Benchmark
+    public void leaseRelease() {
+        pool.lease(samples.length).release();
+    }
+}
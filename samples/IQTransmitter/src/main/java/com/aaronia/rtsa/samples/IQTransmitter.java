@@ -4,12 +4,11 @@ import java.util.List;
 
 import com.aaronia.rtsa.DeviceInfo;
 import com.aaronia.rtsa.MemorySize;
-import com.aaronia.rtsa.PacketFlags;
 import com.aaronia.rtsa.ResultCode;
 import com.aaronia.rtsa.RtsaApi;
 import com.aaronia.rtsa.RtsaDevice;
 import com.aaronia.rtsa.RtsaException;
-import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.TransmitScheduler;
 import com.sun.jna.Memory;
 
 /**
@@ -91,63 +90,28 @@ public class IQTransmitter {
         nativeIqBuffer.write(0, iqBuffer, 0, iqBuffer.length);
         nativeRiqBuffer.write(0, riqBuffer, 0, riqBuffer.length);
 
-        // Prepare output packet
-        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
-        packet.startFrequency = 2430.0e6;
-        packet.stepFrequency = 1.0e6;
-
-        // Get current system time and schedule first packet 200ms ahead
-        double startTime = device.getMasterStreamTime();
-        packet.startTime = startTime + 0.2;
-        packet.size = 2;
-        packet.stride = 2;
-        packet.fp32 = nativeIqBuffer;
-        packet.num = NUM_SAMPLES;
+        // Schedule packets at 1 MS/s, keeping 45ms queued ahead of the device
+        TransmitScheduler scheduler = device.transmitScheduler(0, 2430.0e6, 1.0e6);
+        scheduler.setStartDelay(0.2);
+        scheduler.setQueueAhead(0.045);
 
         int numPackets = 100;
 
         for (int i = 0; i < numPackets; i++) {
-            // Calculate end time based on number of samples and sample rate
-            packet.endTime = packet.startTime + (double) packet.num / packet.stepFrequency;
-
             // Alternate sweep direction
-            packet.fp32 = (i % 2 != 0) ? nativeRiqBuffer : nativeIqBuffer;
-
-            // Wait for max queue fill level of 45ms
-            startTime = device.getMasterStreamTime();
-            while (startTime + 0.05 < packet.startTime) {
-                long sleepMs = (long) (1000 * (packet.startTime - startTime - 0.045));
-                if (sleepMs > 0) {
-                    Thread.sleep(sleepMs);
-                }
-                startTime = device.getMasterStreamTime();
-            }
+            Memory buffer = (i % 2 != 0) ? nativeRiqBuffer : nativeIqBuffer;
 
-            // Set start and end flags
-            if (i == 0) {
-                packet.flags = PacketFlags.SEGMENT_START | PacketFlags.STREAM_START;
-            } else if (i + 1 == numPackets) {
-                packet.flags = PacketFlags.SEGMENT_END | PacketFlags.STREAM_END;
+            // Stream and segment flags and packet times are set by the scheduler
+            if (i + 1 == numPackets) {
+                scheduler.sendFinal(buffer, NUM_SAMPLES);
             } else {
-                packet.flags = 0;
+                scheduler.send(buffer, NUM_SAMPLES);
             }
-
-            // Send the packet
-            packet.write();
-            device.sendPacket(0, packet);
-
-            // Advance packet time
-            packet.startTime = packet.endTime;
         }
 
         // Wait for the last packet to finish
-        startTime = device.getMasterStreamTime();
-        while (startTime < packet.startTime) {
-            long sleepMs = (long) (1000 * (packet.startTime - startTime));
-            if (sleepMs > 0) {
-                Thread.sleep(sleepMs);
-            }
-            startTime = device.getMasterStreamTime();
-        }
+        scheduler.awaitDrained();
+
+        System.out.println("Sent " + scheduler.getPacketsSent() + " packets, underruns: " + scheduler.getUnderruns());
     }
 }
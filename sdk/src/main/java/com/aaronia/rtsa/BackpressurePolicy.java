@@ -0,0 +1,16 @@
+package com.aaronia.rtsa;
+
+/**
+ * What a {@link PacketStream} does when its ring is full and another packet arrives.
+ */
+public enum BackpressurePolicy {
+    /** Stop draining and leave packets in the native queue until the consumer frees a slot. */
+    BLOCK,
+    /**
+     * Discard the oldest unread packet in the ring to make room. If the slot to be
+     * reused is still held by the consumer, the incoming packet is discarded instead.
+     */
+    DROP_OLDEST,
+    /** Discard the incoming packet. */
+    DROP_NEWEST
+}
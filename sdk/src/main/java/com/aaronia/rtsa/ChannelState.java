@@ -0,0 +1,76 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.metrics.ChannelMetrics;
+import com.aaronia.rtsa.metrics.DeviceMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-channel bookkeeping kept by {@link RtsaDevice} for its output queues.
+ */
+final class ChannelState {
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    final int channel;
+
+    /** Total packets consumed since the device was opened. */
+    final AtomicLong consumed = new AtomicLong();
+
+    /** Queue sequence of the next packet to be reported to metrics and Flight Recorder. */
+    long reported;
+    private ChannelMetrics metrics;
+    /** Timing monitor fed with each reported packet, null until requested. */
+    volatile PacketTimingMonitor timing;
+
+    /** Queue length seen by the last observation. */
+    private volatile int lastAvailable;
+    /** Time the queue was last seen to grow. */
+    private volatile long lastArrivalNanos = NEVER;
+    /** Smoothed time between packet arrivals, 0 until known. */
+    private volatile long interArrivalNanos;
+
+    ChannelState(int channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Record a queue length observation and update the inter-arrival estimate.
+     */
+    void observe(int available, long now) {
+        int previous = lastAvailable;
+        lastAvailable = available;
+        if (available <= previous) return;
+
+        long last = lastArrivalNanos;
+        lastArrivalNanos = now;
+        if (last == NEVER) return;
+
+        long perPacket = (now - last) / (available - previous);
+        long estimate = interArrivalNanos;
+        interArrivalNanos = estimate == 0 ? perPacket : estimate + (perPacket - estimate) / 8;
+    }
+
+    /**
+     * Metrics of this channel, looked up once.
+     */
+    ChannelMetrics metrics(DeviceMetrics device) {
+        ChannelMetrics m = metrics;
+        if (m == null) {
+            m = device.channel(channel);
+            metrics = m;
+        }
+        return m;
+    }
+
+    long interArrivalNanos() {
+        return interArrivalNanos;
+    }
+
+    /**
+     * Time the queue was last seen to grow, or {@code Long.MIN_VALUE} if never.
+     */
+    long lastArrivalNanos() {
+        return lastArrivalNanos;
+    }
+}
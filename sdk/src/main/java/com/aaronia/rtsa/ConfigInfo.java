@@ -0,0 +1,160 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Information about a configuration item in the device config tree.
+ * <p>
+ * Instances returned by {@link RtsaConfig#getInfo()} decode each field from the
+ * native structure on first access and keep the result, so reading only the type
+ * does not pay for copying the name, title, unit and options strings. Instances are
+ * safe to share between threads: every cached value is immutable or published through
+ * final fields, so a racing reader at worst decodes a field again.
+ */
+public class ConfigInfo {
+
+    private static final String OPTION_SEPARATOR = ";";
+
+    private final AARTSAAPI_ConfigInfo raw;
+
+    private String name;
+    private String title;
+    private ConfigType type;
+    private String unit;
+    private String options;
+    private Numbers numbers;
+    private List<String> optionList;
+
+    public ConfigInfo(String name, String title, ConfigType type,
+                      double minValue, double maxValue, double stepValue,
+                      String unit, String options, long disabledOptions) {
+        this.raw = null;
+        this.name = name;
+        this.title = title;
+        this.type = type;
+        this.unit = unit;
+        this.options = options;
+        this.numbers = new Numbers(minValue, maxValue, stepValue, disabledOptions);
+    }
+
+    /**
+     * Lazily decoding view of a filled native structure prepared with
+     * {@link AARTSAAPI_ConfigInfo#prepareLazy()}.
+     */
+    ConfigInfo(AARTSAAPI_ConfigInfo raw) {
+        this.raw = raw;
+    }
+
+    public String getName() {
+        String n = name;
+        if (n == null) name = n = raw.readName();
+        return n;
+    }
+
+    public String getTitle() {
+        String t = title;
+        if (t == null) title = t = raw.readTitle();
+        return t;
+    }
+
+    public ConfigType getType() {
+        ConfigType t = type;
+        if (t == null) type = t = ConfigType.fromValue(raw.readType());
+        return t;
+    }
+
+    public double getMinValue() {
+        return numbers().minValue;
+    }
+
+    public double getMaxValue() {
+        return numbers().maxValue;
+    }
+
+    public double getStepValue() {
+        return numbers().stepValue;
+    }
+
+    public String getUnit() {
+        String u = unit;
+        if (u == null) unit = u = raw.readUnit();
+        return u;
+    }
+
+    public String getOptions() {
+        String o = options;
+        if (o == null) options = o = raw.readOptions();
+        return o;
+    }
+
+    public long getDisabledOptions() {
+        return numbers().disabledOptions;
+    }
+
+    /**
+     * Enum options split into an indexed list, parsed once.
+     */
+    public List<String> getOptionList() {
+        List<String> list = optionList;
+        if (list == null) {
+            String all = getOptions();
+            List<String> parsed = new ArrayList<>();
+            if (!all.isEmpty()) {
+                for (String option : all.split(OPTION_SEPARATOR, -1)) parsed.add(option.trim());
+            }
+            optionList = list = List.copyOf(parsed);
+        }
+        return list;
+    }
+
+    /**
+     * Disabled enum options as a bit set indexed like {@link #getOptionList()}.
+     * Each call returns a new set the caller may modify; {@link #isOptionDisabled(int)}
+     * tests a single option without allocating.
+     */
+    public BitSet getDisabledOptionSet() {
+        return BitSet.valueOf(new long[]{getDisabledOptions()});
+    }
+
+    /**
+     * Whether the enum option at the given index is disabled.
+     */
+    public boolean isOptionDisabled(int index) {
+        return index >= 0 && index < Long.SIZE && (getDisabledOptions() & (1L << index)) != 0;
+    }
+
+    private Numbers numbers() {
+        Numbers n = numbers;
+        if (n == null) {
+            numbers = n = new Numbers(raw.readMinValue(), raw.readMaxValue(), raw.readStepValue(),
+                                      raw.readDisabledOptions());
+        }
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigInfo{name=" + getName() + ", title=" + getTitle() +
+               ", type=" + getType() + ", unit=" + getUnit() +
+               ", options=" + getOptions() + "}";
+    }
+
+    /** Numeric fields, decoded together and published through final fields. */
+    private static final class Numbers {
+        final double minValue;
+        final double maxValue;
+        final double stepValue;
+        final long disabledOptions;
+
+        Numbers(double minValue, double maxValue, double stepValue, long disabledOptions) {
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+            this.stepValue = stepValue;
+            this.disabledOptions = disabledOptions;
+        }
+    }
+}
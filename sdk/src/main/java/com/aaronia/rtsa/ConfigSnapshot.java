@@ -0,0 +1,208 @@
+package com.aaronia.rtsa;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the values in a device config tree.
+ * <p>
+ * Captured in one walk with {@link RtsaDevice#snapshotConfig()} or
+ * {@link RtsaDevice#snapshotHealth()}, keyed by slash-separated path in tree order.
+ * Only value-bearing items are kept: numbers, booleans, enums and strings.
+ * Snapshots can be written to and read from a compact binary form, compared with
+ * {@link #diff(ConfigSnapshot)} and applied with {@link RtsaDevice#applyConfig(ConfigSnapshot)}.
+ */
+public final class ConfigSnapshot {
+
+    private static final int MAGIC = 0x52544353; // "RTCS"
+    private static final int VERSION = 1;
+
+    private final Map<String, Entry> entries;
+
+    private ConfigSnapshot(Map<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Walk a config subtree and capture every value-bearing item below it.
+     */
+    static ConfigSnapshot capture(RtsaConfig root) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        walk(root, "", entries);
+        return new ConfigSnapshot(entries);
+    }
+
+    private static void walk(RtsaConfig group, String prefix, Map<String, Entry> entries) {
+        for (RtsaConfig item = group.first(); item != null; item = item.next()) {
+            String path = prefix + item.getName();
+            ConfigType type = item.getType();
+            switch (type) {
+                case GROUP:
+                    walk(item, path + "/", entries);
+                    break;
+                case NUMBER:
+                    entries.put(path, new Entry(path, type, item.getFloat(), 0, null));
+                    break;
+                case BOOL:
+                case ENUM:
+                    entries.put(path, new Entry(path, type, 0, item.getInteger(), null));
+                    break;
+                case STRING:
+                    entries.put(path, new Entry(path, type, 0, 0, item.getString()));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    public Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Entries of this snapshot whose value differs from, or is missing in, {@code base}.
+     *
+     * @param base snapshot to compare against
+     * @return changed entries in tree order
+     */
+    public List<Entry> diff(ConfigSnapshot base) {
+        List<Entry> changed = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            if (!e.sameValue(base.entries.get(e.path))) changed.add(e);
+        }
+        return changed;
+    }
+
+    // --- Serialization ---
+
+    /**
+     * Write the snapshot in its compact binary form.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(entries.size());
+        for (Entry e : entries.values()) {
+            data.writeUTF(e.path);
+            data.writeByte(e.type.getValue());
+            switch (e.type) {
+                case NUMBER: data.writeDouble(e.number); break;
+                case STRING: data.writeUTF(e.text); break;
+                default:     data.writeLong(e.integer); break;
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a snapshot written by {@link #writeTo(OutputStream)}.
+     */
+    public static ConfigSnapshot readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Not a config snapshot");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported config snapshot version: " + version);
+        int count = data.readInt();
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String path = data.readUTF();
+            ConfigType type = ConfigType.fromValue(data.readUnsignedByte());
+            switch (type) {
+                case NUMBER: entries.put(path, new Entry(path, type, data.readDouble(), 0, null)); break;
+                case STRING: entries.put(path, new Entry(path, type, 0, 0, data.readUTF())); break;
+                default:     entries.put(path, new Entry(path, type, 0, data.readLong(), null)); break;
+            }
+        }
+        return new ConfigSnapshot(entries);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{entries=" + entries.size() + "}";
+    }
+
+    /**
+     * A single captured config value.
+     */
+    public static final class Entry {
+
+        private final String path;
+        private final ConfigType type;
+        private final double number;
+        private final long integer;
+        private final String text;
+
+        Entry(String path, ConfigType type, double number, long integer, String text) {
+            this.path = path;
+            this.type = type;
+            this.number = number;
+            this.integer = integer;
+            this.text = text;
+        }
+
+        public String getPath()     { return path; }
+        public ConfigType getType() { return type; }
+        /** Value of a {@link ConfigType#NUMBER} item. */
+        public double getNumber()   { return number; }
+        /** Value of a {@link ConfigType#BOOL} or {@link ConfigType#ENUM} item. */
+        public long getInteger()    { return integer; }
+        /** Value of a {@link ConfigType#STRING} item. */
+        public String getText()     { return text; }
+
+        /**
+         * Write this value to a config item of the same type.
+         */
+        void applyTo(RtsaConfig config) {
+            switch (type) {
+                case NUMBER: config.setFloat(number); break;
+                case STRING: config.setString(text); break;
+                default:     config.setInteger(integer); break;
+            }
+        }
+
+        /**
+         * Read the current value of a config item into a new entry for the same path.
+         */
+        Entry readFrom(RtsaConfig config) {
+            switch (type) {
+                case NUMBER: return new Entry(path, type, config.getFloat(), 0, null);
+                case STRING: return new Entry(path, type, 0, 0, config.getString());
+                default:     return new Entry(path, type, 0, config.getInteger(), null);
+            }
+        }
+
+        boolean sameValue(Entry other) {
+            return other != null && other.type == type
+                && Double.compare(other.number, number) == 0
+                && other.integer == integer
+                && Objects.equals(other.text, text);
+        }
+
+        @Override
+        public String toString() {
+            String value = type == ConfigType.NUMBER ? String.valueOf(number)
+                         : type == ConfigType.STRING ? text
+                         : String.valueOf(integer);
+            return path + "=" + value;
+        }
+    }
+}
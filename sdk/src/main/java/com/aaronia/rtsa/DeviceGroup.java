@@ -0,0 +1,438 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent acquisition from several devices of the same type, merged into one
+ * stream ordered by packet start time.
+ * <p>
+ * {@link #start(long, TimeUnit)} brings all devices up in parallel: open, configure,
+ * connect, start and wait for {@link ResultCode#RUNNING}. Each device is then drained
+ * on its own thread into a {@link PacketStream}. {@link #poll(long, TimeUnit)} merges
+ * the streams: it returns the earliest packet held from any device, once every running
+ * device has a packet queued or the earliest one has waited for the maximum skew. A
+ * packet that arrives earlier than one already returned is still delivered, and
+ * counted per device as out of order.
+ * <p>
+ * Devices sharing a time base (e.g. GPS-disciplined) are merged on their master stream
+ * time as is. For free-running devices, {@link #setAlignClocks(boolean)} measures each
+ * device's stream time offset to the first device at start-up and shifts its packet
+ * times onto that time base.
+ * <p>
+ * Only one thread may poll. Returned packets stay valid until the next poll or close.
+ */
+public final class DeviceGroup implements AutoCloseable {
+
+    private static final long STATE_POLL_NANOS = 1_000_000;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final int ALIGN_SAMPLES = 8;
+
+    private final RtsaApi api;
+    private final String type;
+    private final List<Member> members;
+
+    private Consumer<RtsaDevice> configurer = d -> { };
+    private int channel = 0;
+    private int depth = 256;
+    private int slotFloats = 1 << 16;
+    private BackpressurePolicy policy = BackpressurePolicy.DROP_OLDEST;
+    private long maxSkewNanos = TimeUnit.MILLISECONDS.toNanos(20);
+    private boolean alignClocks = false;
+
+    private boolean started = false;
+    private boolean closed = false;
+    private double lastTime = Double.NEGATIVE_INFINITY;
+    private int lastDevice = -1;
+
+    /**
+     * @param api     initialized API
+     * @param type    device type with mode, e.g. "spectranv6/iqreceiver"
+     * @param serials serial numbers of the devices to acquire from
+     */
+    public DeviceGroup(RtsaApi api, String type, List<String> serials) {
+        if (serials.isEmpty()) throw new IllegalArgumentException("No serial numbers");
+        this.api = api;
+        this.type = type;
+        List<Member> list = new ArrayList<>(serials.size());
+        for (int i = 0; i < serials.size(); i++) list.add(new Member(i, serials.get(i)));
+        this.members = Collections.unmodifiableList(list);
+    }
+
+    // --- Settings, before start ---
+
+    /**
+     * Called for every opened device before it is connected, on that device's bring-up thread.
+     */
+    public DeviceGroup setConfigurer(Consumer<RtsaDevice> configurer) {
+        checkNotStarted();
+        this.configurer = configurer;
+        return this;
+    }
+
+    /**
+     * Output channel to drain and its ring size. Defaults: channel 0, 256 slots of 64 Ki floats,
+     * {@link BackpressurePolicy#DROP_OLDEST}.
+     */
+    public DeviceGroup setStream(int channel, int depth, int slotFloats, BackpressurePolicy policy) {
+        checkNotStarted();
+        this.channel = channel;
+        this.depth = depth;
+        this.slotFloats = slotFloats;
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * How long the earliest packet waits for devices with nothing queued before it is
+     * returned anyway. Default 20 ms.
+     */
+    public DeviceGroup setMaxSkew(long time, TimeUnit unit) {
+        this.maxSkewNanos = unit.toNanos(time);
+        return this;
+    }
+
+    /**
+     * Shift each device's packet times by its measured stream time offset to the first
+     * device. Default off.
+     */
+    public DeviceGroup setAlignClocks(boolean alignClocks) {
+        checkNotStarted();
+        this.alignClocks = alignClocks;
+        return this;
+    }
+
+    private void checkNotStarted() {
+        if (started) throw new IllegalStateException("Group already started");
+    }
+
+    // --- Bring-up ---
+
+    /**
+     * Open, configure, connect and start all devices in parallel and begin draining them.
+     * If any device fails to come up, all devices are closed again and the first failure
+     * is thrown with the others suppressed.
+     *
+     * @param timeout maximum time for each device to reach {@link ResultCode#RUNNING}
+     * @throws RtsaException if a device fails or does not reach RUNNING in time
+     */
+    public void start(long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotStarted();
+        if (closed) throw new IllegalStateException("Group closed");
+        started = true;
+
+        long timeoutNanos = unit.toNanos(timeout);
+        List<CompletableFuture<Void>> bringUps = new ArrayList<>(members.size());
+        ExecutorService pool = executor("rtsa-bringup-");
+        try {
+            for (Member m : members) {
+                bringUps.add(CompletableFuture.runAsync(() -> bringUp(m, timeoutNanos), pool));
+            }
+            RuntimeException failure = null;
+            for (CompletableFuture<Void> f : bringUps) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException r
+                        ? r : new RtsaException(e.getCause().toString(), ResultCode.ERROR);
+                    if (failure == null) failure = cause;
+                    else failure.addSuppressed(cause);
+                }
+            }
+            if (failure != null) {
+                closeAfter(failure);
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            // Bring-ups still queued are dropped and never complete; wait for the running ones.
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException again) {
+                e.addSuppressed(again);
+            }
+            closeAfter(e);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (alignClocks) {
+            for (Member m : members) m.clockOffset = measureOffset(members.get(0).device, m.device);
+        }
+        for (Member m : members) {
+            m.stream = m.device.openStream(channel, depth, slotFloats, policy);
+        }
+    }
+
+    private void bringUp(Member m, long timeoutNanos) {
+        long begin = System.nanoTime();
+        RtsaDevice device = api.openDevice(type, m.serial);
+        m.device = device;
+        configurer.accept(device);
+        device.connect();
+        device.start();
+
+        long deadline = begin + timeoutNanos;
+        int state;
+        while ((state = device.getDeviceState()) != ResultCode.RUNNING) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new RtsaException("Device " + m.serial + " did not reach RUNNING", state);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RtsaException("Device " + m.serial + " bring-up interrupted", state);
+            }
+            LockSupport.parkNanos(STATE_POLL_NANOS);
+        }
+        m.bringUpNanos = System.nanoTime() - begin;
+    }
+
+    /**
+     * Close the group after a failed start, attaching close failures to {@code failure}.
+     */
+    private void closeAfter(Throwable failure) {
+        try {
+            close();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Offset of {@code device}'s stream time to {@code reference}'s, from the tightest of
+     * several reference readings bracketing a device reading.
+     */
+    private static double measureOffset(RtsaDevice reference, RtsaDevice device) {
+        if (device == reference) return 0;
+        double best = Double.POSITIVE_INFINITY, offset = 0;
+        for (int i = 0; i < ALIGN_SAMPLES; i++) {
+            double before = reference.getMasterStreamTime();
+            double t = device.getMasterStreamTime();
+            double after = reference.getMasterStreamTime();
+            if (after - before < best) {
+                best = after - before;
+                offset = t - (before + after) / 2;
+            }
+        }
+        return offset;
+    }
+
+    private ExecutorService executor(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(members.size(), r -> {
+            Thread t = new Thread(r, prefix + n.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // --- Merged stream ---
+
+    /**
+     * Take the next packet of the merged stream, releasing the previously returned one.
+     * Packet times are shifted onto the common time base when clock alignment is on.
+     *
+     * @return the packet, or null if the timeout elapsed or every stream has stopped
+     * @throws IllegalStateException if the group is not started
+     */
+    public AARTSAAPI_Packet poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!started || closed) throw new IllegalStateException("Group not running");
+        if (lastDevice >= 0) {
+            members.get(lastDevice).head = null;
+            lastDevice = -1;
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            long now = System.nanoTime();
+            Member earliest = null;
+            boolean waiting = false;
+            for (Member m : members) {
+                if (m.head == null) {
+                    AARTSAAPI_Packet p = m.stream.isRunning() || m.stream.getOccupancy() > 0 ? m.stream.poll() : null;
+                    if (p == null) {
+                        waiting |= m.stream.isRunning();
+                        continue;
+                    }
+                    p.startTime -= m.clockOffset;
+                    p.endTime -= m.clockOffset;
+                    m.head = p;
+                    m.heldSince = now;
+                }
+                if (earliest == null || m.head.startTime < earliest.head.startTime) earliest = m;
+            }
+
+            if (earliest != null && (!waiting || now - earliest.heldSince >= maxSkewNanos)) {
+                return emit(earliest);
+            }
+            if (earliest == null && !waiting) return null;
+            if (now - deadline >= 0) return null;
+            if (Thread.interrupted()) throw new InterruptedException();
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private AARTSAAPI_Packet emit(Member m) {
+        AARTSAAPI_Packet p = m.head;
+        if (p.startTime < lastTime) m.outOfOrder++;
+        else lastTime = p.startTime;
+        m.packets++;
+        m.samples += p.num;
+        if ((p.flags & PacketFlags.WARN_DROPPED) != 0) m.droppedWarnings++;
+        if ((p.flags & PacketFlags.WARN_OVERFLOW) != 0) m.overflowWarnings++;
+        m.lastStartTime = p.startTime;
+        lastDevice = m.index;
+        return p;
+    }
+
+    /**
+     * Index into {@link #getMembers()} of the device that produced the last polled packet,
+     * or -1.
+     */
+    public int lastDevice() {
+        return lastDevice;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public Member getMember(int index) {
+        return members.get(index);
+    }
+
+    /**
+     * Stop draining and close all devices in parallel. Packets obtained from this group
+     * must not be used afterwards.
+     *
+     * @throws RuntimeException the first failure to shut a device down, with the others
+     *                          suppressed, once every device has been closed
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        ExecutorService pool = executor("rtsa-shutdown-");
+        RuntimeException failure = null;
+        try {
+            List<CompletableFuture<Void>> stops = new ArrayList<>(members.size());
+            for (Member m : members) stops.add(CompletableFuture.runAsync(m::shutdown, pool));
+            for (CompletableFuture<Void> f : stops) {
+                try {
+                    f.join();
+                } catch (CompletionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException r
+                        ? r : new RtsaException(e.getCause().toString(), ResultCode.ERROR);
+                    if (failure == null) failure = cause;
+                    else failure.addSuppressed(cause);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * One device of the group with its acquisition counters. Counters other than the
+     * bring-up time and clock offset are updated by the polling thread.
+     */
+    public static final class Member {
+
+        private final int index;
+        private final String serial;
+        private volatile RtsaDevice device;
+        private volatile PacketStream stream;
+        private volatile long bringUpNanos;
+        private volatile double clockOffset;
+
+        private AARTSAAPI_Packet head;
+        private long heldSince;
+        private volatile long packets;
+        private volatile long samples;
+        private volatile long outOfOrder;
+        private volatile long droppedWarnings;
+        private volatile long overflowWarnings;
+        private volatile double lastStartTime = Double.NaN;
+
+        Member(int index, String serial) {
+            this.index = index;
+            this.serial = serial;
+        }
+
+        public int getIndex()             { return index; }
+        public String getSerialNumber()   { return serial; }
+        /** The open device, or null before bring-up. */
+        public RtsaDevice getDevice()     { return device; }
+        /** The drain stream with its ring counters, or null before start completes. */
+        public PacketStream getStream()   { return stream; }
+        /** Time from open to RUNNING. */
+        public long getBringUpNanos()     { return bringUpNanos; }
+        /** Stream time offset to the first device subtracted from packet times, in seconds. */
+        public double getClockOffset()    { return clockOffset; }
+        /** Packets delivered by the merged stream. */
+        public long getPackets()          { return packets; }
+        /** Samples delivered by the merged stream. */
+        public long getSamples()          { return samples; }
+        /** Packets delivered after a later packet of another device. */
+        public long getOutOfOrder()       { return outOfOrder; }
+        /** Packets flagged {@link PacketFlags#WARN_DROPPED}. */
+        public long getDroppedWarnings()  { return droppedWarnings; }
+        /** Packets flagged {@link PacketFlags#WARN_OVERFLOW}. */
+        public long getOverflowWarnings() { return overflowWarnings; }
+        /** Start time of the last delivered packet. */
+        public double getLastStartTime()  { return lastStartTime; }
+
+        /**
+         * Device state, or {@link ResultCode#IDLE} when the device is not open.
+         */
+        public int getState() {
+            RtsaDevice d = device;
+            return d == null ? ResultCode.IDLE : d.getDeviceState();
+        }
+
+        /**
+         * Close the stream and stop, disconnect and close the device. Every step runs even
+         * if an earlier one fails; the first failure is thrown with the others suppressed.
+         */
+        private void shutdown() {
+            RtsaDevice d = device;
+            if (d == null) return;
+            PacketStream s = stream;
+            RuntimeException failure = null;
+            if (s != null) failure = step(s::close, failure);
+            failure = step(d::stop, failure);
+            failure = step(d::disconnect, failure);
+            failure = step(d::close, failure);
+            if (failure != null) throw failure;
+        }
+
+        private static RuntimeException step(Runnable step, RuntimeException failure) {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                if (failure == null) return e;
+                failure.addSuppressed(e);
+            }
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return "Member{serial=" + serial + ", packets=" + packets + ", samples=" + samples +
+                   ", outOfOrder=" + outOfOrder + ", dropped=" + droppedWarnings + "}";
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link Flow.Publisher} of the packets of one device output channel.
+ * <p>
+ * A single emitter thread delivers every packet to all current subscribers without
+ * copying: each subscriber receives the same reusable packet, valid only for the
+ * duration of {@code onNext}. A packet is taken from the native queue only when every
+ * subscriber has outstanding demand, so slow subscribers leave data in the native
+ * queue instead of forcing a copy. While there is no demand the emitter parks until
+ * {@link Flow.Subscription#request(long)} is called.
+ * <p>
+ * A packet flagged {@link PacketFlags#STREAM_END} completes all subscribers after
+ * delivery and detaches the publisher from its device; an {@link RtsaException} from
+ * the native queue is reported via {@code onError}. A subscriber whose {@code onNext}
+ * throws is cancelled and receives the exception via {@code onError}.
+ * <p>
+ * Obtain via {@link RtsaDevice#publisher(int)}.
+ */
+public final class PacketPublisher implements Flow.Publisher<AARTSAAPI_Packet>, AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final RtsaDevice device;
+    private final int channel;
+    private final List<PacketSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile Thread emitter;
+    private boolean closed = false;
+
+    PacketPublisher(RtsaDevice device, int channel) {
+        this.device = device;
+        this.channel = channel;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super AARTSAAPI_Packet> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        PacketSubscription subscription = new PacketSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        synchronized (this) {
+            if (!running) {
+                subscriber.onComplete();
+                return;
+            }
+            subscriptions.add(subscription);
+            if (emitter == null) {
+                Thread thread = new Thread(this::emit, "rtsa-publisher-" + channel);
+                thread.setDaemon(true);
+                emitter = thread;
+                thread.start();
+            }
+        }
+        wakeEmitter();
+    }
+
+    // --- Emitter thread ---
+
+    private void emit() {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        try {
+            while (running) {
+                long demand = minimumDemand();
+                if (demand == 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                int available = device.availablePackets(channel);
+                if (available == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                int count = (int) Math.min(available, demand);
+                int delivered = 0;
+                boolean streamEnd = false;
+                try {
+                    while (delivered < count && !streamEnd && running) {
+                        if (!device.getPacket(channel, delivered, packet)) break;
+                        for (PacketSubscription s : subscriptions) {
+                            s.deliver(packet);
+                        }
+                        delivered++;
+                        streamEnd = (packet.flags & PacketFlags.STREAM_END) != 0;
+                    }
+                } finally {
+                    if (delivered > 0) device.consumePackets(channel, delivered);
+                }
+
+                if (streamEnd) {
+                    terminate(null);
+                    device.detach(this);
+                    return;
+                }
+            }
+            // Closed; completes here when close() was called from onNext.
+            terminate(null);
+        } catch (Throwable t) {
+            terminate(t);
+            device.detach(this);
+        }
+    }
+
+    private long minimumDemand() {
+        long min = Long.MAX_VALUE;
+        boolean any = false;
+        for (PacketSubscription s : subscriptions) {
+            if (s.cancelled) {
+                subscriptions.remove(s);
+                continue;
+            }
+            if (s.invalidRequest) {
+                subscriptions.remove(s);
+                s.subscriber.onError(new IllegalArgumentException("request must be positive (Reactive Streams §3.9)"));
+                continue;
+            }
+            any = true;
+            min = Math.min(min, s.demand.get());
+        }
+        return any ? min : 0;
+    }
+
+    private void terminate(Throwable error) {
+        running = false;
+        for (PacketSubscription s : subscriptions) {
+            if (s.cancelled) continue;
+            s.cancelled = true;
+            if (error == null) s.subscriber.onComplete();
+            else s.subscriber.onError(error);
+        }
+        subscriptions.clear();
+    }
+
+    private void wakeEmitter() {
+        Thread thread = emitter;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stop emitting and complete all current subscribers. May be called from
+     * {@code onNext}; the emitter then stops after the current delivery.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            running = false;
+            thread = emitter;
+        }
+        if (thread == Thread.currentThread()) {
+            // Called from onNext: the emitter completes subscribers once the delivery returns.
+            device.detach(this);
+            return;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        terminate(null);
+        device.detach(this);
+    }
+
+    private final class PacketSubscription implements Flow.Subscription {
+
+        final Flow.Subscriber<? super AARTSAAPI_Packet> subscriber;
+        final AtomicLong demand = new AtomicLong();
+        volatile boolean cancelled;
+        volatile boolean invalidRequest;
+
+        PacketSubscription(Flow.Subscriber<? super AARTSAAPI_Packet> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void deliver(AARTSAAPI_Packet packet) {
+            if (cancelled || demand.get() <= 0) return;
+            demand.decrementAndGet();
+            try {
+                subscriber.onNext(packet);
+            } catch (Throwable t) {
+                // Reactive Streams §2.13: the subscription is cancelled and the error raised.
+                cancelled = true;
+                try {
+                    subscriber.onError(t);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = true;
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> {
+                    long sum = current + add;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            wakeEmitter();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            wakeEmitter();
+        }
+    }
+}
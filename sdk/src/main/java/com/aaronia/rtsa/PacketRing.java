@@ -0,0 +1,146 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer/single-consumer ring of packets with off-heap payload slots.
+ * The depth is rounded up to a power of two.
+ * <p>
+ * Each slot owns an {@link AARTSAAPI_Packet} whose {@code fp32} points into one shared
+ * native {@link Memory} block, so consumers can use the usual packet accessors on it.
+ * Sequences grow monotonically; slot {@code s & mask} holds sequence {@code s}.
+ * <p>
+ * The consumer claims a slot by publishing it in {@code held} and then advancing
+ * {@code head} with a CAS, which lets the producer steal the oldest unread slot for
+ * {@link BackpressurePolicy#DROP_OLDEST} without ever overwriting a slot being read.
+ */
+final class PacketRing {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final int depth;
+    private final int mask;
+    private final int slotFloats;
+    private final Memory memory;
+    private final AARTSAAPI_Packet[] slots;
+    /** Producer-side staging for the copy; reading a native block through a ByteBuffer view allocates the view. */
+    private final float[] scratch;
+
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private volatile long held = NONE;
+    private volatile long droppedOldest;
+    private volatile int highWater;
+
+    PacketRing(int depth, int slotFloats) {
+        if (depth <= 0 || depth > (1 << 30)) throw new IllegalArgumentException("depth: " + depth);
+        if (slotFloats <= 0) throw new IllegalArgumentException("slotFloats: " + slotFloats);
+        this.depth = depth == 1 ? 1 : Integer.highestOneBit(depth - 1) << 1;
+        this.mask = this.depth - 1;
+        this.slotFloats = slotFloats;
+
+        long slotBytes = (long) slotFloats * Float.BYTES;
+        this.memory = new Memory(slotBytes * this.depth);
+        this.slots = new AARTSAAPI_Packet[this.depth];
+        this.scratch = new float[slotFloats];
+        for (int i = 0; i < this.depth; i++) {
+            AARTSAAPI_Packet slot = new AARTSAAPI_Packet();
+            slot.fp32 = memory.share(i * slotBytes, slotBytes);
+            slots[i] = slot;
+        }
+    }
+
+    int capacity() {
+        return depth;
+    }
+
+    int slotFloats() {
+        return slotFloats;
+    }
+
+    // --- Producer side ---
+
+    /**
+     * Copy a packet into the next slot.
+     *
+     * @param src        received packet; its payload must fit in {@link #slotFloats()}
+     * @param dropOldest whether an unread packet may be discarded to make room
+     * @return true if stored, false if the ring is full
+     */
+    boolean offer(AARTSAAPI_Packet src, boolean dropOldest) {
+        long t = tail;
+        long previous = t - depth;
+        for (;;) {
+            long h = head.get();
+            if (previous >= h) {
+                if (!dropOldest) return false;
+                if (head.compareAndSet(previous, previous + 1)) {
+                    droppedOldest++;
+                }
+                continue;
+            }
+            if (held == previous) return false;
+            break;
+        }
+
+        int i = (int) (t & mask);
+        AARTSAAPI_Packet slot = slots[i];
+        slot.copyHeaderFrom(src);
+        int floats = (int) src.payloadFloats();
+        if (floats > 0) {
+            src.fp32.read(0, scratch, 0, floats);
+            slot.fp32.write(0, scratch, 0, floats);
+        }
+        tail = t + 1;
+
+        int occupancy = size();
+        if (occupancy > highWater) highWater = occupancy;
+        return true;
+    }
+
+    // --- Consumer side ---
+
+    /**
+     * Claim the oldest unread packet, releasing the previously claimed one.
+     *
+     * @return the packet, valid until the next poll or {@link #release()}, or null if empty
+     */
+    AARTSAAPI_Packet poll() {
+        held = NONE;
+        for (;;) {
+            long h = head.get();
+            if (h >= tail) return null;
+            held = h;
+            if (head.compareAndSet(h, h + 1)) {
+                return slots[(int) (h & mask)];
+            }
+            held = NONE;
+        }
+    }
+
+    void release() {
+        held = NONE;
+    }
+
+    // --- Counters ---
+
+    int size() {
+        long s = tail - head.get();
+        return s < 0 ? 0 : (int) Math.min(s, depth);
+    }
+
+    long droppedOldest() {
+        return droppedOldest;
+    }
+
+    int highWater() {
+        return highWater;
+    }
+
+    void free() {
+        memory.close();
+    }
+}
@@ -0,0 +1,244 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streaming receive mode for one device output channel.
+ * <p>
+ * A dedicated drain thread empties the native queue as fast as packets arrive and
+ * copies them into a preallocated off-heap {@link PacketRing}, so a slow consumer
+ * no longer backs up the native queue. When the ring is full the configured
+ * {@link BackpressurePolicy} decides what happens.
+ * <p>
+ * Exactly one thread may consume from a stream. Packets returned by {@link #poll()}
+ * are slots of the ring and stay valid until the next poll, {@link #release()} or
+ * {@link #close()}.
+ * <p>
+ * Obtain via {@link RtsaDevice#openStream(int, int, int, BackpressurePolicy)}.
+ */
+public final class PacketStream implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final long FULL_PARK_NANOS = 20_000;
+
+    private final RtsaDevice device;
+    private final int channel;
+    private final BackpressurePolicy policy;
+    private final PacketRing ring;
+    private final Thread drainThread;
+
+    private volatile boolean running = true;
+    private volatile Throwable failure;
+    private volatile Thread consumer;
+    private volatile boolean closed = false;
+
+    private volatile long drained;
+    private volatile long droppedNewest;
+    private volatile long droppedHeld;
+    private volatile long droppedOversize;
+
+    PacketStream(RtsaDevice device, int channel, int depth, int slotFloats, BackpressurePolicy policy) {
+        this.device = device;
+        this.channel = channel;
+        this.policy = policy;
+        this.ring = new PacketRing(depth, slotFloats);
+        this.drainThread = new Thread(this::drain, "rtsa-drain-" + channel);
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    // --- Consumer side ---
+
+    /**
+     * Take the oldest packet from the ring, releasing the previously returned one.
+     *
+     * @return the packet, or null if the ring is empty
+     * @throws IllegalStateException if the drain thread failed and the ring is empty
+     */
+    public AARTSAAPI_Packet poll() {
+        if (closed) return null;
+        AARTSAAPI_Packet packet = ring.poll();
+        if (packet == null && failure != null) {
+            throw new IllegalStateException("Packet stream drain failed", failure);
+        }
+        return packet;
+    }
+
+    /**
+     * Take the oldest packet from the ring, waiting up to the given time for one to arrive.
+     *
+     * @return the packet, or null if the timeout elapsed or the stream was closed
+     */
+    public AARTSAAPI_Packet poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            AARTSAAPI_Packet packet = poll();
+            if (packet != null || !running) return packet;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return null;
+            consumer = Thread.currentThread();
+            packet = poll();
+            if (packet != null) {
+                consumer = null;
+                return packet;
+            }
+            LockSupport.parkNanos(this, remaining);
+            consumer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Release the packet returned by the last poll without taking another one.
+     */
+    public void release() {
+        ring.release();
+    }
+
+    // --- Counters ---
+
+    /** Number of slots in the ring. */
+    public int getCapacity() {
+        return ring.capacity();
+    }
+
+    /** Largest payload, in floats, a slot can hold. */
+    public int getSlotFloats() {
+        return ring.slotFloats();
+    }
+
+    /** Packets currently waiting in the ring. */
+    public int getOccupancy() {
+        return ring.size();
+    }
+
+    /** Highest ring occupancy observed. */
+    public int getMaxOccupancy() {
+        return ring.highWater();
+    }
+
+    /** Packets removed from the native queue. */
+    public long getDrained() {
+        return drained;
+    }
+
+    /** Unread packets discarded by {@link BackpressurePolicy#DROP_OLDEST}. */
+    public long getDroppedOldest() {
+        return ring.droppedOldest();
+    }
+
+    /** Incoming packets discarded by {@link BackpressurePolicy#DROP_NEWEST}. */
+    public long getDroppedNewest() {
+        return droppedNewest;
+    }
+
+    /**
+     * Incoming packets discarded by {@link BackpressurePolicy#DROP_OLDEST} because the
+     * oldest slot was still held by the consumer and could not be overwritten.
+     */
+    public long getDroppedHeld() {
+        return droppedHeld;
+    }
+
+    /** Incoming packets discarded because their payload exceeds the slot size. */
+    public long getDroppedOversize() {
+        return droppedOversize;
+    }
+
+    public boolean isRunning() {
+        return running && drainThread.isAlive();
+    }
+
+    /**
+     * The error that stopped the drain thread, or null.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    // --- Drain thread ---
+
+    private void drain() {
+        AARTSAAPI_Packet rx = new AARTSAAPI_Packet();
+        boolean dropOldest = policy == BackpressurePolicy.DROP_OLDEST;
+        try {
+            while (running) {
+                int available = device.availablePackets(channel);
+                if (available == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                int taken = 0;
+                boolean full = false;
+                while (taken < available && running) {
+                    if (!device.getPacket(channel, taken, rx)) break;
+                    if (rx.payloadFloats() > ring.slotFloats()) {
+                        droppedOversize++;
+                    } else if (!ring.offer(rx, dropOldest)) {
+                        if (policy == BackpressurePolicy.BLOCK) {
+                            full = true;
+                            break;
+                        }
+                        if (dropOldest) droppedHeld++;
+                        else droppedNewest++;
+                    } else {
+                        signalConsumer();
+                    }
+                    taken++;
+                }
+
+                if (taken > 0) {
+                    device.consumePackets(channel, taken);
+                    drained += taken;
+                }
+                if (full) {
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+            running = false;
+        } finally {
+            signalConsumer();
+        }
+    }
+
+    private void signalConsumer() {
+        Thread waiter = consumer;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+
+    /**
+     * Stop the drain thread and free the ring. Packets obtained from this stream
+     * must not be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        running = false;
+        boolean interrupted = false;
+        while (drainThread.isAlive()) {
+            try {
+                drainThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        device.detach(this);
+        ring.free();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,557 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timestamp continuity and host latency analysis of one output channel.
+ * <p>
+ * For every {@code streamID} on the channel the monitor expects each packet to start
+ * where the previous one ended. A later start is a gap, quantified in seconds and in
+ * samples at the packet's own sample period; an earlier start is an overlap. Gaps are
+ * counted whether or not the device flagged them with {@link PacketFlags#WARN_DROPPED},
+ * and unflagged gaps are counted separately. A packet flagged
+ * {@link PacketFlags#STREAM_START} begins a new expectation.
+ * <p>
+ * Host latency is the master stream time when the packet was taken from the queue minus
+ * the packet's {@code endTime}: how far the consumer runs behind the device. A latency
+ * that keeps growing shows a consumer that cannot keep up long before the queue
+ * overflows. The monitor keeps its last, minimum and maximum value, an exponentially
+ * weighted mean, the interarrival jitter of RFC 3550 and the mean and maximum over a
+ * window of recent packets.
+ * <p>
+ * Obtain via {@link RtsaDevice#timingMonitor(int)} to be fed by every packet fetched
+ * from the channel, or construct one and call {@link #accept} from a receive loop. The
+ * monitor allocates nothing after construction. It is updated by one receiving thread;
+ * the getters may be called from any thread. Each update is bracketed by a version
+ * stamp, and a getter retries while an update is under way. It returns the value
+ * after some whole packet, never a torn or half-updated one. Separate getter calls
+ * may see different packets.
+ */
+public final class PacketTimingMonitor {
+
+    private static final int DEFAULT_MAX_STREAMS = 8;
+    private static final int DEFAULT_WINDOW = 256;
+    private static final double JITTER_GAIN = 1.0 / 16;
+    private static final double MEAN_GAIN = 1.0 / 64;
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(PacketTimingMonitor.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Odd while {@link #accept} updates the statistics; read through {@link #VERSION}. */
+    private long version;
+
+    private final Stream[] streams;
+    private final double[] window;
+    private int streamCount;
+    private Stream lastStream;
+
+    private volatile int latencyInterval = 1;
+    private int latencyCountdown;
+
+    private long packets;
+    private long untracked;
+
+    private long latencySamples;
+    private double latency = Double.NaN;
+    private double minLatency = Double.NaN;
+    private double maxLatency = Double.NaN;
+    private double meanLatency = Double.NaN;
+    private double jitter;
+    private int windowIndex;
+    private int windowFill;
+    private double windowSum;
+
+    public PacketTimingMonitor() {
+        this(DEFAULT_MAX_STREAMS, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param maxStreams number of distinct {@code streamID}s tracked; packets of further
+     *                   streams are only counted by {@link #getUntrackedPackets()}
+     * @param window     number of recent latency samples for the windowed statistics
+     */
+    public PacketTimingMonitor(int maxStreams, int window) {
+        if (maxStreams < 1) throw new IllegalArgumentException("maxStreams: " + maxStreams);
+        if (window < 1) throw new IllegalArgumentException("window: " + window);
+        this.streams = new Stream[maxStreams];
+        for (int i = 0; i < maxStreams; i++) streams[i] = new Stream(this);
+        this.window = new double[window];
+    }
+
+    // --- Settings ---
+
+    /**
+     * Measure the host latency of every n-th packet only. Each measurement reads the
+     * device's master stream time, one native call. Default 1.
+     */
+    public void setLatencyInterval(int packets) {
+        if (packets < 1) throw new IllegalArgumentException("packets: " + packets);
+        this.latencyInterval = packets;
+    }
+
+    public int getLatencyInterval() {
+        return latencyInterval;
+    }
+
+    // --- Update ---
+
+    /**
+     * Whether the next packet should be passed with a master stream time.
+     */
+    boolean latencyDue() {
+        return latencyCountdown == 0;
+    }
+
+    /**
+     * Account one packet.
+     *
+     * @param packet   the packet, with its header fields read
+     * @param hostTime master stream time when the packet was taken from the queue, or
+     *                 {@code NaN} to skip the latency measurement for this packet
+     */
+    public void accept(AARTSAAPI_Packet packet, double hostTime) {
+        long stamp = version;
+        VERSION.setOpaque(this, stamp + 1);
+        VarHandle.storeStoreFence();
+        packets++;
+        Stream stream = stream(packet.streamID);
+        if (stream == null) {
+            untracked++;
+        } else {
+            stream.accept(packet);
+        }
+        if (latencyCountdown > 0) {
+            latencyCountdown--;
+        } else if (!Double.isNaN(hostTime)) {
+            latency(hostTime - packet.endTime);
+            latencyCountdown = latencyInterval - 1;
+        }
+        VERSION.setRelease(this, stamp + 2);
+    }
+
+    /**
+     * Version at which a read starts, once no update is under way.
+     */
+    private long beginRead() {
+        long stamp;
+        while (((stamp = (long) VERSION.getAcquire(this)) & 1) != 0) Thread.onSpinWait();
+        return stamp;
+    }
+
+    /**
+     * Whether the values read since {@link #beginRead()} returned {@code stamp} are
+     * consistent, i.e. no update started in between.
+     */
+    private boolean validate(long stamp) {
+        VarHandle.acquireFence();
+        return (long) VERSION.getAcquire(this) == stamp;
+    }
+
+    private Stream stream(long streamId) {
+        Stream last = lastStream;
+        if (last != null && last.streamId == streamId) return last;
+        for (int i = 0; i < streamCount; i++) {
+            if (streams[i].streamId == streamId) return lastStream = streams[i];
+        }
+        if (streamCount == streams.length) return null;
+        Stream stream = streams[streamCount];
+        stream.streamId = streamId;
+        streamCount++;
+        return lastStream = stream;
+    }
+
+    private void latency(double value) {
+        if (latencySamples == 0) {
+            minLatency = value;
+            maxLatency = value;
+            meanLatency = value;
+        } else {
+            jitter += (Math.abs(value - latency) - jitter) * JITTER_GAIN;
+            if (value < minLatency) minLatency = value;
+            if (value > maxLatency) maxLatency = value;
+            meanLatency += (value - meanLatency) * MEAN_GAIN;
+        }
+        latency = value;
+        latencySamples++;
+
+        if (windowFill < window.length) {
+            windowFill++;
+        } else {
+            windowSum -= window[windowIndex];
+        }
+        window[windowIndex] = value;
+        windowSum += value;
+        if (++windowIndex == window.length) {
+            windowIndex = 0;
+            // Start each pass from an exact sum so rounding errors do not accumulate.
+            double sum = 0;
+            for (double v : window) sum += v;
+            windowSum = sum;
+        }
+    }
+
+    // --- Statistics ---
+
+    public long getPackets() {
+        for (;;) {
+            long stamp = beginRead();
+            long value = packets;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Packets of streams beyond the tracked maximum. */
+    public long getUntrackedPackets() {
+        for (;;) {
+            long stamp = beginRead();
+            long value = untracked;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Number of gaps over all streams. */
+    public long getGaps() {
+        for (;;) {
+            long stamp = beginRead();
+            long sum = 0;
+            for (int i = 0; i < streamCount; i++) sum += streams[i].gaps;
+            if (validate(stamp)) return sum;
+        }
+    }
+
+    /** Samples missing in gaps over all streams. */
+    public long getGapSamples() {
+        for (;;) {
+            long stamp = beginRead();
+            long sum = 0;
+            for (int i = 0; i < streamCount; i++) sum += streams[i].gapSamples;
+            if (validate(stamp)) return sum;
+        }
+    }
+
+    /** Stream time missing in gaps over all streams, in seconds. */
+    public double getGapSeconds() {
+        for (;;) {
+            long stamp = beginRead();
+            double sum = 0;
+            for (int i = 0; i < streamCount; i++) sum += streams[i].gapSeconds;
+            if (validate(stamp)) return sum;
+        }
+    }
+
+    /** Number of latency measurements. */
+    public long getLatencySamples() {
+        for (;;) {
+            long stamp = beginRead();
+            long value = latencySamples;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Host latency of the last measured packet in seconds, {@code NaN} before the first. */
+    public double getLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            double value = latency;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    public double getMinLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            double value = minLatency;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    public double getMaxLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            double value = maxLatency;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Exponentially weighted mean latency over roughly the last 64 measurements. */
+    public double getMeanLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            double value = meanLatency;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Smoothed variation of the latency between consecutive measurements, in seconds. */
+    public double getLatencyJitter() {
+        for (;;) {
+            long stamp = beginRead();
+            double value = jitter;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /** Mean latency over the window of recent measurements. */
+    public double getWindowMeanLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            int n = windowFill;
+            double value = n == 0 ? Double.NaN : windowSum / n;
+            if (validate(stamp)) return value;
+        }
+    }
+
+    /**
+     * Maximum latency over the window of recent measurements. Scans the window, again
+     * if a packet was accounted meanwhile.
+     */
+    public double getWindowMaxLatency() {
+        for (;;) {
+            long stamp = beginRead();
+            int n = windowFill;
+            double max = Double.NaN;
+            if (n > 0) {
+                max = window[0];
+                for (int i = 1; i < n; i++) max = Math.max(max, window[i]);
+            }
+            if (validate(stamp)) return max;
+        }
+    }
+
+    public int getWindowSize() {
+        return window.length;
+    }
+
+    /**
+     * Statistics of one stream, or null if it has not been seen or is not tracked.
+     */
+    public Stream getStream(long streamId) {
+        for (;;) {
+            long stamp = beginRead();
+            Stream found = null;
+            for (int i = 0; i < streamCount && found == null; i++) {
+                if (streams[i].streamId == streamId) found = streams[i];
+            }
+            if (validate(stamp)) return found;
+        }
+    }
+
+    /**
+     * Statistics of every tracked stream, in order of first appearance.
+     */
+    public List<Stream> getStreams() {
+        int n;
+        long stamp;
+        do {
+            stamp = beginRead();
+            n = streamCount;
+        } while (!validate(stamp));
+        List<Stream> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(streams[i]);
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PacketTimingMonitor[packets=%d, gaps=%d (%d samples, %.6f s), "
+                        + "latency=%.6f s (mean %.6f, max %.6f, jitter %.6f)]",
+                getPackets(), getGaps(), getGapSamples(), getGapSeconds(),
+                getLatency(), getMeanLatency(), getMaxLatency(), getLatencyJitter());
+    }
+
+    /**
+     * Continuity statistics of one {@code streamID}. Updated by its monitor.
+     */
+    public static final class Stream {
+
+        private long streamId;
+        private double expectedStart = Double.NaN;
+        private double samplePeriod = Double.NaN;
+        private double runStart = Double.NaN;
+        private long runSamples;
+
+        private long packets;
+        private long samples;
+        private long gaps;
+        private long unflaggedGaps;
+        private long gapSamples;
+        private double gapSeconds;
+        private double maxGapSeconds;
+        private long overlaps;
+        private double overlapSeconds;
+        private long flaggedDrops;
+
+        private final PacketTimingMonitor monitor;
+
+        private Stream(PacketTimingMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        void accept(AARTSAAPI_Packet packet) {
+            packets++;
+            samples += packet.num;
+            boolean flagged = (packet.flags & PacketFlags.WARN_DROPPED) != 0;
+            if (flagged) flaggedDrops++;
+
+            boolean continuous = false;
+            double expected = expectedStart;
+            if (!Double.isNaN(expected) && (packet.flags & PacketFlags.STREAM_START) == 0) {
+                double delta = packet.startTime - expected;
+                // Epoch timestamps resolve about 0.24 us, more than a sample at high rates;
+                // only a shift beyond both the rounding and half a sample counts.
+                double tolerance = 4 * Math.ulp(packet.startTime);
+                if (!Double.isNaN(samplePeriod)) tolerance = Math.max(tolerance, samplePeriod / 2);
+                if (delta > tolerance) {
+                    gaps++;
+                    if (!flagged) unflaggedGaps++;
+                    gapSeconds += delta;
+                    if (delta > maxGapSeconds) maxGapSeconds = delta;
+                    if (!Double.isNaN(samplePeriod)) gapSamples += Math.round(delta / samplePeriod);
+                } else if (delta < -tolerance) {
+                    overlaps++;
+                    overlapSeconds -= delta;
+                } else {
+                    continuous = true;
+                }
+            }
+            expectedStart = packet.endTime;
+
+            // The sample period of one packet is as coarse as its timestamps; measure it
+            // over the whole continuous run instead.
+            if (!continuous) {
+                runStart = packet.startTime;
+                runSamples = 0;
+            }
+            runSamples += packet.num;
+            double duration = packet.endTime - runStart;
+            if (runSamples > 0 && duration > 0) samplePeriod = duration / runSamples;
+        }
+
+        public long getStreamId() {
+            return streamId;
+        }
+
+        public long getPackets() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = packets;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        public long getSamples() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = samples;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Number of packets that started later than the previous packet ended. */
+        public long getGaps() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = gaps;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Gaps on packets without {@link PacketFlags#WARN_DROPPED}. */
+        public long getUnflaggedGaps() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = unflaggedGaps;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Samples missing in gaps, at each gap's packet sample period. */
+        public long getGapSamples() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = gapSamples;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Stream time missing in gaps, in seconds. */
+        public double getGapSeconds() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                double value = gapSeconds;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        public double getMaxGapSeconds() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                double value = maxGapSeconds;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Number of packets that started before the previous packet ended. */
+        public long getOverlaps() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = overlaps;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        public double getOverlapSeconds() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                double value = overlapSeconds;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Packets flagged {@link PacketFlags#WARN_DROPPED}. */
+        public long getFlaggedDrops() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                long value = flaggedDrops;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Sample rate of the last packet in samples per second, {@code NaN} if unknown. */
+        public double getSampleRate() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                double value = 1 / samplePeriod;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        /** Stream time at which the next packet is expected to start. */
+        public double getExpectedStartTime() {
+            for (;;) {
+                long stamp = monitor.beginRead();
+                double value = expectedStart;
+                if (monitor.validate(stamp)) return value;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stream[%d: packets=%d, gaps=%d (%d unflagged, %d samples, %.6f s), overlaps=%d]",
+                    getStreamId(), getPackets(), getGaps(), getUnflaggedGaps(), getGapSamples(),
+                    getGapSeconds(), getOverlaps());
+        }
+    }
+}
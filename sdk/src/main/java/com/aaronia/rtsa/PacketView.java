@@ -0,0 +1,121 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Zero-copy view of a received packet's IQ payload.
+ * <p>
+ * The samples are read straight from the native buffer owned by the device's
+ * output queue. A view stays valid until its packet is removed with
+ * {@link RtsaDevice#consumePackets(int, int)} or the device is closed; after that
+ * every accessor throws {@link IllegalStateException} instead of reading freed memory.
+ * Only {@link #uncheckedFloats()} escapes this check.
+ * <p>
+ * Obtain via {@link RtsaDevice#getPacketView(int, int)}.
+ */
+public final class PacketView {
+
+    private final RtsaDevice device;
+    private final int channel;
+    private final long sequence;
+    private final AARTSAAPI_Packet packet;
+    private final int length;
+    private FloatBuffer samples;
+
+    PacketView(RtsaDevice device, int channel, long sequence, AARTSAAPI_Packet packet) {
+        this.device = device;
+        this.channel = channel;
+        this.sequence = sequence;
+        this.packet = packet;
+        this.length = (int) packet.payloadFloats();
+    }
+
+    /**
+     * Packet metadata (times, frequencies, flags). The fields are copies and remain
+     * readable after the view becomes stale; the {@code fp32} pointer does not.
+     */
+    public AARTSAAPI_Packet packet() {
+        return packet;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * Whether the underlying native buffer is still held in the queue.
+     */
+    public boolean isValid() {
+        return device.isPacketHeld(channel, sequence);
+    }
+
+    /**
+     * Number of floats in the payload.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Read a single float from the payload.
+     *
+     * @param index float index, 0 &le; index &lt; {@link #length()}
+     */
+    public float get(int index) {
+        checkValid();
+        return buffer().get(index);
+    }
+
+    /**
+     * Copy a range of floats from the payload into an array.
+     */
+    public void copyTo(int offset, float[] dst, int dstOffset, int count) {
+        checkValid();
+        buffer().get(offset, dst, dstOffset, count);
+    }
+
+    /**
+     * Copy a range of floats from the payload into a buffer, advancing its position.
+     */
+    public void copyTo(int offset, FloatBuffer dst, int count) {
+        checkValid();
+        dst.put(dst.position(), buffer(), offset, count);
+        dst.position(dst.position() + count);
+    }
+
+    /**
+     * Read-only buffer over the whole payload, <b>without lifetime checks</b>.
+     * <p>
+     * Reads through the buffer go straight to native memory. Once the packet is consumed
+     * or the device closed they read freed memory, and may crash the JVM. Use it only
+     * for in-place processing that finishes before {@link RtsaDevice#consumePackets(int, int)},
+     * and never keep the buffer; the checked accessors are {@link #get(int)} and {@code copyTo}.
+     *
+     * @throws IllegalStateException if the view is already stale
+     */
+    public FloatBuffer uncheckedFloats() {
+        checkValid();
+        return buffer();
+    }
+
+    private FloatBuffer buffer() {
+        if (samples == null) {
+            samples = packet.floatView(0, length);
+        }
+        return samples;
+    }
+
+    private void checkValid() {
+        if (!isValid()) {
+            throw new IllegalStateException("Packet view is stale: packet was consumed or device closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PacketView{channel=" + channel + ", sequence=" + sequence +
+               ", length=" + length + ", valid=" + isValid() + "}";
+    }
+}
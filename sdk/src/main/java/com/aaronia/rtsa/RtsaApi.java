@@ -1,5 +1,9 @@
 package com.aaronia.rtsa;
 
+import com.aaronia.rtsa.jfr.TracedLibrary;
+import com.aaronia.rtsa.metrics.DeviceMetrics;
+import com.aaronia.rtsa.metrics.MeteredLibrary;
+import com.aaronia.rtsa.metrics.RtsaMetrics;
 import com.aaronia.rtsa.native_.*;
 import com.sun.jna.WString;
 
@@ -19,25 +23,43 @@ import java.util.List;
  *     }
  * }
  * </pre>
+ * With {@code -Daaronia.rtsa.jfr=true}, {@link #init(int)} and {@link #initWithPath(int, String)}
+ * wrap the binding in a {@link TracedLibrary} so that native calls emit the
+ * {@code com.aaronia.rtsa.NativeCall} Flight Recorder event; pass
+ * {@code new TracedLibrary(lib)} to trace an explicit binding. The other SDK events
+ * need no wrapper.
  */
 public class RtsaApi implements AutoCloseable {
 
-    private final AaroniaRtsaLibrary lib = AaroniaRtsaLibrary.INSTANCE;
+    private final AaroniaRtsaLibrary lib;
     private final AARTSAAPI_Handle handle;
     private boolean closed = false;
 
-    private RtsaApi(AARTSAAPI_Handle handle) {
+    private RtsaApi(AaroniaRtsaLibrary lib, AARTSAAPI_Handle handle) {
+        this.lib = lib;
         this.handle = handle;
     }
 
     /**
-     * Initialize the library and open an API handle.
+     * Initialize the library and open an API handle. With {@code -Daaronia.rtsa.metrics=true}
+     * the calls are measured into {@link RtsaMetrics#getDefault()}; with
+     * {@code -Daaronia.rtsa.jfr=true} they emit {@code NativeCall} events.
      *
      * @param memorySize one of {@link MemorySize} constants
      * @return initialized API instance
      */
     public static RtsaApi init(int memorySize) {
-        AaroniaRtsaLibrary lib = AaroniaRtsaLibrary.INSTANCE;
+        return init(defaultLibrary(), memorySize);
+    }
+
+    /**
+     * Initialize the given library binding and open an API handle.
+     *
+     * @param lib        native library binding, e.g. {@link AaroniaRtsaLibrary#INSTANCE}
+     * @param memorySize one of {@link MemorySize} constants
+     * @return initialized API instance
+     */
+    public static RtsaApi init(AaroniaRtsaLibrary lib, int memorySize) {
         int res = lib.AARTSAAPI_Init(memorySize);
         RtsaDevice.check(res, "AARTSAAPI_Init");
 
@@ -47,7 +69,7 @@ public class RtsaApi implements AutoCloseable {
             lib.AARTSAAPI_Shutdown();
             throw new RtsaException("AARTSAAPI_Open", res);
         }
-        return new RtsaApi(handle);
+        return new RtsaApi(lib, handle);
     }
 
     /**
@@ -58,7 +80,18 @@ public class RtsaApi implements AutoCloseable {
      * @return initialized API instance
      */
     public static RtsaApi initWithPath(int memorySize, String xmlLookupDir) {
-        AaroniaRtsaLibrary lib = AaroniaRtsaLibrary.INSTANCE;
+        return initWithPath(defaultLibrary(), memorySize, xmlLookupDir);
+    }
+
+    /**
+     * Initialize the given library binding with an XML path and open an API handle.
+     *
+     * @param lib              native library binding
+     * @param memorySize       one of {@link MemorySize} constants
+     * @param xmlLookupDir     path to XML configuration directory
+     * @return initialized API instance
+     */
+    public static RtsaApi initWithPath(AaroniaRtsaLibrary lib, int memorySize, String xmlLookupDir) {
         int res = lib.AARTSAAPI_Init_With_Path(memorySize, new WString(xmlLookupDir));
         RtsaDevice.check(res, "AARTSAAPI_Init_With_Path");
 
@@ -68,7 +101,13 @@ public class RtsaApi implements AutoCloseable {
             lib.AARTSAAPI_Shutdown();
             throw new RtsaException("AARTSAAPI_Open", res);
         }
-        return new RtsaApi(handle);
+        return new RtsaApi(lib, handle);
+    }
+
+    private static AaroniaRtsaLibrary defaultLibrary() {
+        AaroniaRtsaLibrary lib = AaroniaRtsaLibrary.INSTANCE;
+        if (RtsaMetrics.ENABLED) lib = RtsaMetrics.getDefault().instrument(lib);
+        return TracedLibrary.ENABLED ? new TracedLibrary(lib) : lib;
     }
 
     /**
@@ -129,7 +168,10 @@ public class RtsaApi implements AutoCloseable {
         AARTSAAPI_Device device = new AARTSAAPI_Device();
         int res = lib.AARTSAAPI_OpenDevice(handle, device, new WString(type), new WString(serialNumber));
         RtsaDevice.check(res, "OpenDevice");
-        return new RtsaDevice(handle, device);
+        AaroniaRtsaLibrary inner = lib instanceof TracedLibrary traced ? traced.delegate() : lib;
+        DeviceMetrics metrics = inner instanceof MeteredLibrary metered
+                ? metered.metrics().device(serialNumber) : null;
+        return new RtsaDevice(lib, handle, device, serialNumber, metrics);
     }
 
     @Override
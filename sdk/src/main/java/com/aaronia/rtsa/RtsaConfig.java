@@ -13,11 +13,14 @@ public class RtsaConfig {
 
     private final RtsaDevice device;
     private final AARTSAAPI_Config nativeConfig;
-    private final AaroniaRtsaLibrary lib = AaroniaRtsaLibrary.INSTANCE;
+    private final AaroniaRtsaLibrary lib;
 
     RtsaConfig(RtsaDevice device, AARTSAAPI_Config nativeConfig) {
         this.device = device;
         this.nativeConfig = nativeConfig;
+        this.lib = device.library();
+        // The handle is only read by native code from here on; skip JNA's reflective sync.
+        nativeConfig.setAutoSynch(false);
     }
 
     AARTSAAPI_Config nativeConfig() {
@@ -68,21 +71,18 @@ public class RtsaConfig {
     }
 
     /**
-     * Get full metadata for this config item.
+     * Get full metadata for this config item. Fields are decoded from the native
+     * structure only when first read.
      */
     public ConfigInfo getInfo() {
         AARTSAAPI_ConfigInfo info = new AARTSAAPI_ConfigInfo();
+        info.prepareLazy();
         lib.AARTSAAPI_ConfigGetInfo(device.nativeDevice(), nativeConfig, info);
-        return new ConfigInfo(
-            info.getName(), info.getTitle(),
-            ConfigType.fromValue(info.type),
-            info.minValue, info.maxValue, info.stepValue,
-            info.getUnit(), info.getOptions(), info.disabledOptions
-        );
+        return new ConfigInfo(info);
     }
 
     /**
-     * Get the config type directly.
+     * Get the config type directly. Only the type field is decoded.
      */
     public ConfigType getType() {
         return getInfo().getType();
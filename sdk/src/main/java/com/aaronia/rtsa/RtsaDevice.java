@@ -0,0 +1,652 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.jfr.DeviceStateEvent;
+import com.aaronia.rtsa.jfr.PacketReceivedEvent;
+import com.aaronia.rtsa.jfr.TransmitQueueEvent;
+import com.aaronia.rtsa.metrics.DeviceMetrics;
+import com.aaronia.rtsa.native_.*;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * High-level wrapper for an Aaronia RTSA device, providing configuration,
+ * data acquisition and transmission.
+ * <p>
+ * Obtain via {@link RtsaApi#openDevice(String, String)}.
+ * Must be closed via {@link #close()} or use try-with-resources.
+ */
+public class RtsaDevice implements AutoCloseable {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 20;
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+    private static final long MIN_PARK_NANOS = 1_000;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+    private static final int NO_STATE = Integer.MIN_VALUE;
+
+    private final AaroniaRtsaLibrary lib;
+    private final AARTSAAPI_Handle handle;
+    private final AARTSAAPI_Device device;
+    private final ConcurrentHashMap<Integer, ChannelState> channels = new ConcurrentHashMap<>();
+    private final AtomicReference<IntByReference> availCell = new AtomicReference<>(new IntByReference());
+    private final AtomicReference<DoubleByReference> timeCell = new AtomicReference<>(new DoubleByReference());
+    private final List<AutoCloseable> attachments = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, RtsaConfig> configCache = new ConcurrentHashMap<>();
+    private final String serialNumber;
+    private final DeviceMetrics metrics;
+    private volatile int observedState = NO_STATE;
+    private volatile boolean timed = false;
+    private volatile RtsaConfig cachedRoot;
+    private volatile boolean closed = false;
+
+    RtsaDevice(AaroniaRtsaLibrary lib, AARTSAAPI_Handle handle, AARTSAAPI_Device device,
+               String serialNumber, DeviceMetrics metrics) {
+        this.lib = lib;
+        this.handle = handle;
+        this.device = device;
+        this.serialNumber = serialNumber;
+        this.metrics = metrics;
+        // The handle is only read by native code from here on; skip JNA's reflective sync.
+        device.setAutoSynch(false);
+    }
+
+    AARTSAAPI_Device nativeDevice() {
+        return device;
+    }
+
+    AaroniaRtsaLibrary library() {
+        return lib;
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    // --- Connection lifecycle ---
+
+    public void connect() {
+        invalidateConfigCache();
+        check(lib.AARTSAAPI_ConnectDevice(device), "ConnectDevice");
+    }
+
+    public void disconnect() {
+        invalidateConfigCache();
+        lib.AARTSAAPI_DisconnectDevice(device);
+    }
+
+    public void start() {
+        check(lib.AARTSAAPI_StartDevice(device), "StartDevice");
+    }
+
+    public void stop() {
+        lib.AARTSAAPI_StopDevice(device);
+    }
+
+    /**
+     * Query the device state. A state that differs from the previous query is
+     * reported as a {@link DeviceStateEvent}.
+     */
+    public int getDeviceState() {
+        int state = lib.AARTSAAPI_GetDeviceState(device);
+        int previous = observedState;
+        if (state != previous) {
+            observedState = state;
+            DeviceStateEvent event = new DeviceStateEvent();
+            if (event.shouldCommit()) {
+                event.serialNumber = serialNumber;
+                event.previousState = previous == NO_STATE ? null : ResultCode.toString(previous);
+                event.state = ResultCode.toString(state);
+                event.commit();
+            }
+        }
+        return state;
+    }
+
+    // --- Configuration ---
+
+    /**
+     * Get the config root handle for this device.
+     */
+    public RtsaConfig configRoot() {
+        AARTSAAPI_Config config = new AARTSAAPI_Config();
+        check(lib.AARTSAAPI_ConfigRoot(device, config), "ConfigRoot");
+        return new RtsaConfig(this, config);
+    }
+
+    /**
+     * Get the health/status config root for this device.
+     */
+    public RtsaConfig configHealth() {
+        AARTSAAPI_Config config = new AARTSAAPI_Config();
+        check(lib.AARTSAAPI_ConfigHealth(device, config), "ConfigHealth");
+        return new RtsaConfig(this, config);
+    }
+
+    /**
+     * Find a config item by path from the config root.
+     * Path uses '/' separator (e.g. "device/receiverchannel").
+     * <p>
+     * Resolved items are cached by path, so repeated lookups and the {@code configSet*}
+     * shortcuts cost no native calls beyond the value access itself. The cache is
+     * cleared on {@link #connect()}, {@link #disconnect()} and {@link #close()}, so no
+     * handle outlives the tree it was resolved in.
+     *
+     * @return config item, or null if not found
+     */
+    public RtsaConfig configFind(String path) {
+        RtsaConfig cached = configCache.get(path);
+        if (cached != null) return cached;
+
+        RtsaConfig root = cachedRoot;
+        if (root == null) {
+            root = configRoot();
+            cachedRoot = root;
+        }
+        RtsaConfig found = root.find(path);
+        if (found != null) configCache.put(path, found);
+        return found;
+    }
+
+    /**
+     * Capture all values of the config tree in one walk.
+     */
+    public ConfigSnapshot snapshotConfig() {
+        return ConfigSnapshot.capture(configRoot());
+    }
+
+    /**
+     * Capture all values of the health/status tree in one walk.
+     */
+    public ConfigSnapshot snapshotHealth() {
+        return ConfigSnapshot.capture(configHealth());
+    }
+
+    /**
+     * Bring the device config to the values of a snapshot, setting only items whose
+     * current value differs. Each item costs one native read plus a set if changed;
+     * items not present on the device are skipped.
+     *
+     * @param target desired config values
+     * @return number of items set
+     */
+    public int applyConfig(ConfigSnapshot target) {
+        int sets = 0;
+        for (ConfigSnapshot.Entry entry : target.getEntries().values()) {
+            RtsaConfig config = configFind(entry.getPath());
+            if (config != null && !entry.sameValue(entry.readFrom(config))) {
+                entry.applyTo(config);
+                sets++;
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Bring the device config from a known state to the values of a snapshot, issuing
+     * only the sets in {@code target.diff(current)} and no reads.
+     *
+     * @param target  desired config values
+     * @param current values the device is known to hold, e.g. the last applied snapshot
+     * @return number of items set
+     */
+    public int applyConfig(ConfigSnapshot target, ConfigSnapshot current) {
+        int sets = 0;
+        for (ConfigSnapshot.Entry entry : target.diff(current)) {
+            RtsaConfig config = configFind(entry.getPath());
+            if (config != null) {
+                entry.applyTo(config);
+                sets++;
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Drop all cached config handles so that the next lookups resolve paths again.
+     */
+    public void invalidateConfigCache() {
+        cachedRoot = null;
+        configCache.clear();
+    }
+
+    /**
+     * Convenience: set a string config value by path.
+     */
+    public void configSetString(String path, String value) {
+        RtsaConfig cfg = configFind(path);
+        if (cfg != null) cfg.setString(value);
+    }
+
+    /**
+     * Convenience: set a float config value by path.
+     */
+    public void configSetFloat(String path, double value) {
+        RtsaConfig cfg = configFind(path);
+        if (cfg != null) cfg.setFloat(value);
+    }
+
+    /**
+     * Convenience: set an integer config value by path.
+     */
+    public void configSetInteger(String path, long value) {
+        RtsaConfig cfg = configFind(path);
+        if (cfg != null) cfg.setInteger(value);
+    }
+
+    // --- Data packets ---
+
+    /**
+     * Get the number of available packets on a channel.
+     */
+    public int availablePackets(int channel) {
+        IntByReference num = availCell.getAndSet(null);
+        if (num == null) num = new IntByReference();
+        int res = lib.AARTSAAPI_AvailPackets(device, channel, num);
+        int value = res == ResultCode.OK ? num.getValue() : 0;
+        availCell.set(num);
+        if (metrics != null) channelState(channel).metrics(metrics).queueDepth(value);
+        return value;
+    }
+
+    /**
+     * Wait until at least {@code min} packets are available on a channel.
+     * <p>
+     * Uses an adaptive strategy driven by the observed packet inter-arrival time:
+     * when the next packet is expected soon the caller spins, then yields, then parks
+     * with exponential backoff; when it is expected later the caller parks for most of
+     * the expected gap straight away. Parking happens outside of any monitor and each
+     * native poll is a short non-blocking call, so waiting on a virtual thread
+     * releases its carrier thread.
+     *
+     * @param channel output channel index
+     * @param min     number of packets to wait for
+     * @param timeout maximum time to wait
+     * @param unit    unit of {@code timeout}
+     * @return number of available packets; less than {@code min} if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int awaitPackets(int channel, int min, long timeout, TimeUnit unit) throws InterruptedException {
+        ChannelState state = channelState(channel);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        long backoff = MIN_PARK_NANOS;
+        for (;;) {
+            int available = availablePackets(channel);
+            long now = System.nanoTime();
+            state.observe(available, now);
+            if (available >= min) return available;
+
+            long remaining = deadline - now;
+            if (remaining <= 0) return available;
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            long expected = expectedWaitNanos(state, min - available, now);
+            if (expected > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(this, Math.min(expected / 2, remaining));
+            } else if (spins < SPIN_TRIES) {
+                spins++;
+                Thread.onSpinWait();
+            } else if (spins < SPIN_TRIES + YIELD_TRIES) {
+                spins++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, Math.min(backoff, remaining));
+                long cap = Math.max(MIN_PARK_NANOS, Math.min(MAX_PARK_NANOS, state.interArrivalNanos() / 2));
+                backoff = Math.min(backoff * 2, cap);
+            }
+        }
+    }
+
+    private static long expectedWaitNanos(ChannelState state, int missing, long now) {
+        long interArrival = state.interArrivalNanos();
+        long lastArrival = state.lastArrivalNanos();
+        if (interArrival == 0 || lastArrival == Long.MIN_VALUE) return 0;
+        return lastArrival + interArrival * missing - now;
+    }
+
+    /**
+     * Get a data packet from a channel's output queue.
+     *
+     * @param channel output channel index
+     * @param index   packet index in the queue
+     * @return the packet, or null if queue is empty
+     */
+    public AARTSAAPI_Packet getPacket(int channel, int index) {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        int res = lib.AARTSAAPI_GetPacket(device, channel, index, packet);
+        if (res == ResultCode.OK) {
+            received(channel, index, packet);
+            return packet;
+        }
+        if (res == ResultCode.EMPTY) return null;
+        check(res, "GetPacket");
+        return null;
+    }
+
+    /**
+     * Get a data packet from a channel's output queue into a caller-owned holder.
+     * <p>
+     * The holder is filled without JNA's reflective structure read and its payload
+     * pointer object is reused, so a receive loop that keeps one holder per channel
+     * produces no garbage in steady state.
+     *
+     * @param channel output channel index
+     * @param index   packet index in the queue
+     * @param packet  reusable packet holder
+     * @return true if the holder was filled, false if queue is empty
+     */
+    public boolean getPacket(int channel, int index, AARTSAAPI_Packet packet) {
+        packet.prepareReceive();
+        int res;
+        try {
+            res = lib.AARTSAAPI_GetPacket(device, channel, index, packet);
+        } catch (RuntimeException | Error e) {
+            packet.cancelReceive();
+            throw e;
+        }
+        if (res == ResultCode.OK) {
+            packet.readReceived();
+            received(channel, index, packet);
+            return true;
+        }
+        packet.cancelReceive();
+        if (res == ResultCode.EMPTY) return false;
+        check(res, "GetPacket");
+        return false;
+    }
+
+    /**
+     * Fetch up to {@code holders.length} packets from a channel's output queue in one pass.
+     * <p>
+     * Performs a single availability query and fills the holders in queue order with
+     * {@link #getPacket(int, int, AARTSAAPI_Packet)}. The packets stay queued so their
+     * payloads remain valid; call {@link #consumePackets(int, int)} once with the
+     * returned count when done with them.
+     *
+     * @param channel output channel index
+     * @param holders reusable packet holders
+     * @return number of holders filled
+     */
+    public int getPackets(int channel, AARTSAAPI_Packet[] holders) {
+        int available = Math.min(availablePackets(channel), holders.length);
+        int n = 0;
+        while (n < available && getPacket(channel, n, holders[n])) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Fetch a batch of packets, hand each to {@code handler} and consume the whole batch
+     * with a single call.
+     * <p>
+     * If the handler throws, only the packets it completed are consumed; the failing
+     * packet and the rest of the batch stay queued and are fetched again by the next call.
+     *
+     * @param channel output channel index
+     * @param holders reusable packet holders; the batch size is at most their count
+     * @param handler called for every packet in queue order; the packet is only valid
+     *                during the call
+     * @return number of packets processed and consumed
+     */
+    public int processPackets(int channel, AARTSAAPI_Packet[] holders, Consumer<AARTSAAPI_Packet> handler) {
+        int n = getPackets(channel, holders);
+        int done = 0;
+        try {
+            for (; done < n; done++) {
+                handler.accept(holders[done]);
+            }
+        } finally {
+            if (done > 0) consumePackets(channel, done);
+        }
+        return n;
+    }
+
+    /**
+     * Get a zero-copy view of a packet's payload from a channel's output queue.
+     * The view is valid until the packet is consumed.
+     *
+     * @param channel output channel index
+     * @param index   packet index in the queue
+     * @return the packet view, or null if queue is empty
+     */
+    public PacketView getPacketView(int channel, int index) {
+        AARTSAAPI_Packet packet = getPacket(channel, index);
+        if (packet == null) return null;
+        return new PacketView(this, channel, consumedCount(channel) + index, packet);
+    }
+
+    /**
+     * Consume (remove) packets from a channel's output queue.
+     */
+    public void consumePackets(int channel, int num) {
+        int res = lib.AARTSAAPI_ConsumePackets(device, channel, num);
+        if (!ResultCode.isError(res) && num > 0) {
+            channelState(channel).consumed.addAndGet(num);
+        }
+    }
+
+    /**
+     * Report a fetched packet to the channel metrics, timing monitor and as a
+     * {@link PacketReceivedEvent}, once however often it is read.
+     */
+    private void received(int channel, int index, AARTSAAPI_Packet packet) {
+        boolean traced = new PacketReceivedEvent().isEnabled();
+        if (metrics == null && !traced && !timed) return;
+        ChannelState state = channelState(channel);
+        long sequence = state.consumed.get() + index;
+        if (sequence < state.reported) return;
+        state.reported = sequence + 1;
+        if (metrics != null) state.metrics(metrics).received(packet);
+        double now = Double.NaN;
+        PacketTimingMonitor timing = state.timing;
+        if (timing != null) {
+            if (timing.latencyDue()) now = getMasterStreamTime();
+            timing.accept(packet, now);
+        }
+        if (!traced) return;
+        PacketReceivedEvent event = new PacketReceivedEvent();
+        if (event.shouldCommit()) {
+            if (Double.isNaN(now)) now = getMasterStreamTime();
+            event.channel = channel;
+            event.streamId = packet.streamID;
+            event.samples = packet.num;
+            event.flags = packet.flags;
+            event.streamTime = packet.startTime;
+            event.latency = (long) ((now - packet.endTime) * 1e9);
+            event.commit();
+        }
+    }
+
+    ChannelState channelState(int channel) {
+        return channels.computeIfAbsent(channel, ChannelState::new);
+    }
+
+    /**
+     * Total number of packets consumed on a channel since the device was opened.
+     */
+    long consumedCount(int channel) {
+        ChannelState state = channels.get(channel);
+        return state == null ? 0 : state.consumed.get();
+    }
+
+    /**
+     * Whether the packet with the given absolute queue sequence is still held natively.
+     */
+    boolean isPacketHeld(int channel, long sequence) {
+        return !closed && consumedCount(channel) <= sequence;
+    }
+
+    /**
+     * Start streaming a channel through a dedicated drain thread into an off-heap ring.
+     * While the stream is open the channel must not be read with {@link #getPacket}
+     * or {@link #consumePackets} directly.
+     *
+     * @param channel    output channel index
+     * @param depth      number of ring slots, rounded up to a power of two
+     * @param slotFloats largest payload per packet, in floats; larger packets are dropped
+     * @param policy     what to do when the ring is full
+     * @return the running stream; close it to stop draining
+     */
+    public PacketStream openStream(int channel, int depth, int slotFloats, BackpressurePolicy policy) {
+        PacketStream stream = new PacketStream(this, channel, depth, slotFloats, policy);
+        attachments.add(stream);
+        return stream;
+    }
+
+    /**
+     * Create a reactive publisher of a channel's packets. Emission starts with the
+     * first subscriber. While the publisher is active the channel must not be read
+     * directly.
+     *
+     * @param channel output channel index
+     * @return the publisher; close it to stop emitting and complete subscribers
+     */
+    public PacketPublisher publisher(int channel) {
+        PacketPublisher publisher = new PacketPublisher(this, channel);
+        attachments.add(publisher);
+        return publisher;
+    }
+
+    void detach(AutoCloseable attachment) {
+        attachments.remove(attachment);
+    }
+
+    /**
+     * Get the current master stream time in seconds since epoch.
+     */
+    public double getMasterStreamTime() {
+        DoubleByReference time = timeCell.getAndSet(null);
+        if (time == null) time = new DoubleByReference();
+        lib.AARTSAAPI_GetMasterStreamTime(device, time);
+        double value = time.getValue();
+        timeCell.set(time);
+        return value;
+    }
+
+    /**
+     * Send a packet to an inbound channel.
+     */
+    public void sendPacket(int channel, AARTSAAPI_Packet packet) {
+        check(lib.AARTSAAPI_SendPacket(device, channel, packet), "SendPacket");
+        if (metrics != null) channelState(channel).metrics(metrics).sent(packet);
+        if (new TransmitQueueEvent().isEnabled()) queued(channel, packet);
+    }
+
+    /**
+     * Report the stream time queued ahead of the device as a {@link TransmitQueueEvent}.
+     */
+    private void queued(int channel, AARTSAAPI_Packet packet) {
+        TransmitQueueEvent event = new TransmitQueueEvent();
+        if (event.shouldCommit()) {
+            double now = getMasterStreamTime();
+            event.channel = channel;
+            event.samples = packet.num;
+            event.queueLevel = (long) ((packet.endTime - now) * 1e9);
+            event.late = packet.startTime < now;
+            event.commit();
+        }
+    }
+
+    /**
+     * Send a packet whose payload is a pooled transmit buffer. The buffer is handed
+     * back to its pool once the stream time passes the packet's {@code endTime}, or
+     * released at once if sending fails.
+     */
+    public void sendPacket(int channel, AARTSAAPI_Packet packet, TransmitBuffer buffer) {
+        packet.fp32 = buffer.pointer();
+        try {
+            sendPacket(channel, packet);
+        } catch (RuntimeException | Error e) {
+            buffer.release();
+            throw e;
+        }
+        buffer.retire(packet.endTime);
+    }
+
+    /**
+     * Create a pool of native transmit buffers tied to this device's stream time.
+     * The pool is closed with the device.
+     */
+    public TransmitBufferPool transmitBufferPool() {
+        TransmitBufferPool pool = new TransmitBufferPool(this);
+        attachments.add(pool);
+        return pool;
+    }
+
+    /**
+     * Timestamp continuity and latency monitor of an output channel, created on first
+     * use. From then on every packet fetched from the channel by {@link #getPacket} or
+     * any reader built on it is accounted once, and its host latency measured against
+     * {@link #getMasterStreamTime()}.
+     *
+     * @param channel output channel index
+     * @return the channel's monitor
+     */
+    public PacketTimingMonitor timingMonitor(int channel) {
+        ChannelState state = channelState(channel);
+        synchronized (state) {
+            if (state.timing == null) {
+                state.timing = new PacketTimingMonitor();
+                timed = true;
+            }
+            return state.timing;
+        }
+    }
+
+    /**
+     * Create a paced transmit scheduler for an inbound channel.
+     *
+     * @param channel        input channel index
+     * @param startFrequency start frequency of the transmitted band in Hz
+     * @param sampleRate     IQ sample rate in samples per second
+     * @return the scheduler
+     */
+    public TransmitScheduler transmitScheduler(int channel, double startFrequency, double sampleRate) {
+        return new TransmitScheduler(this, channel, startFrequency, sampleRate);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stop all readers, close the native device, then free the transmit buffer pools:
+     * the device may read in-flight transmit buffers until it is closed.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            for (AutoCloseable attachment : attachments) {
+                if (!(attachment instanceof TransmitBufferPool)) closeQuietly(attachment);
+            }
+            closed = true;
+            invalidateConfigCache();
+            lib.AARTSAAPI_CloseDevice(handle, device);
+            for (AutoCloseable attachment : attachments) {
+                closeQuietly(attachment);
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable attachment) {
+        try {
+            attachment.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    static void check(int result, String operation) {
+        if (ResultCode.isError(result)) {
+            throw new RtsaException(operation, result);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.aaronia.rtsa;
+
+import com.sun.jna.Pointer;
+
+import java.lang.ref.Cleaner;
+
+/**
+ * A native transmit buffer leased from a {@link TransmitBufferPool}.
+ * <p>
+ * Fill it through {@link #pointer()} or {@link #write(long, float[], int, int)}, then
+ * either send it, which hands it back to the pool once the packet has played, or
+ * {@link #release()} it unsent. The handle is invalid after either.
+ */
+public final class TransmitBuffer {
+
+    private final TransmitBufferPool pool;
+    private final TransmitBufferPool.Slot slot;
+    private final long generation;
+    Cleaner.Cleanable cleanable;
+
+    TransmitBuffer(TransmitBufferPool pool, TransmitBufferPool.Slot slot, long generation) {
+        this.pool = pool;
+        this.slot = slot;
+        this.generation = generation;
+    }
+
+    /**
+     * Native address of the buffer.
+     */
+    public Pointer pointer() {
+        TransmitBufferPool.checkLeased(slot, generation);
+        return slot.memory;
+    }
+
+    /**
+     * Capacity in floats.
+     */
+    public long capacityFloats() {
+        return slot.memory.size() / Float.BYTES;
+    }
+
+    /**
+     * Copy floats into the buffer.
+     *
+     * @param offset destination offset in floats
+     */
+    public void write(long offset, float[] src, int srcOffset, int count) {
+        pointer().write(offset * Float.BYTES, src, srcOffset, count);
+    }
+
+    /**
+     * Return the buffer to the pool without sending it.
+     */
+    public void release() {
+        pool.release(slot, generation);
+        if (cleanable != null) cleanable.clean();
+    }
+
+    /**
+     * Hand the buffer back to the pool once the device's stream time passes {@code endTime}.
+     */
+    void retire(double endTime) {
+        pool.retire(slot, generation, endTime);
+        if (cleanable != null) cleanable.clean();
+    }
+}
@@ -0,0 +1,298 @@
+package com.aaronia.rtsa;
+
+import com.sun.jna.Memory;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Size-classed pool of native buffers for transmit payloads.
+ * <p>
+ * Buffers are leased with {@link #lease(long)}, filled, and sent with
+ * {@link RtsaDevice#sendPacket(int, com.aaronia.rtsa.native_.AARTSAAPI_Packet, TransmitBuffer)}
+ * or {@link TransmitScheduler#send(TransmitBuffer, long)}. A sent buffer is only reused
+ * after the device's stream time has passed the packet's {@code endTime}, so the device
+ * never reads memory that has been handed out again. Size classes are powers of two
+ * starting at 4 KiB.
+ * <p>
+ * With leak detection enabled ({@link #setLeakDetection(boolean)} or
+ * {@code -Daaronia.rtsa.leakDetection=true}), a leased buffer that becomes unreachable
+ * without being sent or released is counted as a leak and its memory returned to the
+ * pool. Detection registers every lease with a {@link Cleaner} and is off by default.
+ * <p>
+ * Obtain via {@link RtsaDevice#transmitBufferPool()}. Closing the pool or the device
+ * frees all native memory; buffers must not be used afterwards.
+ */
+public final class TransmitBufferPool implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int MIN_CLASS = 12;
+    private static final int MAX_CLASS = 40;
+
+    static final int LEASED = 0;
+    static final int IN_FLIGHT = 1;
+    static final int FREE = 2;
+
+    private final RtsaDevice device;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Slot>[] free = new ArrayDeque[MAX_CLASS + 1];
+    private final PriorityQueue<Slot> inFlight = new PriorityQueue<>(Comparator.comparingDouble((Slot s) -> s.endTime));
+
+    private boolean leakDetection = Boolean.getBoolean("aaronia.rtsa.leakDetection");
+    private boolean leakTracking = false;
+    private boolean closed = false;
+
+    private long allocatedBytes;
+    private long allocations;
+    private long leases;
+    private int leased;
+    private int freeCount;
+    private long leaks;
+    private Throwable lastLeakSite;
+
+    TransmitBufferPool(RtsaDevice device) {
+        this.device = device;
+        for (int i = MIN_CLASS; i <= MAX_CLASS; i++) {
+            free[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Lease a buffer that holds at least the given number of floats.
+     * Buffers whose packets have finished playing are reclaimed first.
+     */
+    public synchronized TransmitBuffer lease(long floats) {
+        if (closed) throw new IllegalStateException("Pool closed");
+        int sizeClass = sizeClass(floats * Float.BYTES);
+        Slot slot = free[sizeClass].pollFirst();
+        if (slot == null && !inFlight.isEmpty()) {
+            reclaim();
+            slot = free[sizeClass].pollFirst();
+        }
+        if (slot == null) {
+            slot = new Slot(new Memory(1L << sizeClass), sizeClass);
+            allocatedBytes += slot.memory.size();
+            allocations++;
+        } else {
+            freeCount--;
+        }
+        slot.state = LEASED;
+        slot.generation++;
+        slot.leaseSite = leakTracking ? new Throwable("Transmit buffer leased here") : null;
+        leased++;
+        leases++;
+
+        TransmitBuffer buffer = new TransmitBuffer(this, slot, slot.generation);
+        if (leakDetection) buffer.cleanable = CLEANER.register(buffer, new LeakCheck(this, slot, slot.generation));
+        return buffer;
+    }
+
+    /**
+     * Return all sent buffers whose end time has passed to the free lists.
+     *
+     * @return number of buffers reclaimed
+     */
+    public synchronized int reclaim() {
+        if (inFlight.isEmpty()) return 0;
+        double now = device.getMasterStreamTime();
+        int n = 0;
+        while (!inFlight.isEmpty() && inFlight.peek().endTime < now) {
+            toFree(inFlight.poll());
+            n++;
+        }
+        return n;
+    }
+
+    synchronized void retire(Slot slot, long generation, double endTime) {
+        checkLeased(slot, generation);
+        slot.state = IN_FLIGHT;
+        slot.endTime = endTime;
+        leased--;
+        inFlight.add(slot);
+    }
+
+    synchronized void release(Slot slot, long generation) {
+        checkLeased(slot, generation);
+        leased--;
+        toFree(slot);
+    }
+
+    synchronized void leaked(Slot slot, long generation) {
+        if (slot.state != LEASED || slot.generation != generation) return;
+        leaks++;
+        lastLeakSite = slot.leaseSite;
+        leased--;
+        toFree(slot);
+    }
+
+    static void checkLeased(Slot slot, long generation) {
+        if (slot.state != LEASED || slot.generation != generation) {
+            throw new IllegalStateException("Transmit buffer is no longer leased");
+        }
+    }
+
+    private void toFree(Slot slot) {
+        slot.state = FREE;
+        slot.leaseSite = null;
+        if (closed) {
+            slot.memory.close();
+            return;
+        }
+        free[slot.sizeClass].addFirst(slot);
+        freeCount++;
+    }
+
+    private static int sizeClass(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("size: " + bytes);
+        int c = 64 - Long.numberOfLeadingZeros(bytes - 1);
+        if (c > MAX_CLASS) throw new IllegalArgumentException("size too large: " + bytes);
+        return Math.max(c, MIN_CLASS);
+    }
+
+    // --- Settings and metrics ---
+
+    /**
+     * Detect leased buffers that become unreachable without being sent or released.
+     * Applies to buffers leased from now on. Costs one {@link Cleaner} registration
+     * per lease. Without it a leaked buffer stays counted as leased and its memory is
+     * only freed by the garbage collector.
+     */
+    public synchronized void setLeakDetection(boolean enabled) {
+        this.leakDetection = enabled;
+    }
+
+    public synchronized boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    /**
+     * Record where each buffer was leased so that {@link #getLastLeakSite()} can
+     * point at the code that leaked it. Costs one stack capture per lease; enables
+     * leak detection.
+     */
+    public synchronized void setLeakTracking(boolean enabled) {
+        this.leakTracking = enabled;
+        if (enabled) this.leakDetection = true;
+    }
+
+    /** Native bytes allocated by the pool. */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /** Native allocations performed, i.e. leases not served from a free list. */
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    /** Total leases. */
+    public synchronized long getLeases() {
+        return leases;
+    }
+
+    /** Buffers currently leased and not yet sent or released. */
+    public synchronized int getLeased() {
+        return leased;
+    }
+
+    /** Buffers sent and waiting for their end time to pass. */
+    public synchronized int getInFlight() {
+        return inFlight.size();
+    }
+
+    /** Buffers available for reuse. */
+    public synchronized int getFree() {
+        return freeCount;
+    }
+
+    /** Leased buffers that became unreachable without being sent or released. */
+    public synchronized long getLeaks() {
+        return leaks;
+    }
+
+    /**
+     * Lease site of the most recently detected leak, if leak tracking was enabled.
+     */
+    public synchronized Throwable getLastLeakSite() {
+        return lastLeakSite;
+    }
+
+    /**
+     * Free all pooled native memory. While the device is open, first waits until the
+     * stream time passes the end of the last sent packet, so the device never reads
+     * freed memory; the device closes its pools only after closing the native device.
+     * Leased buffers are freed when released.
+     */
+    @Override
+    public void close() {
+        double lastEnd = Double.NEGATIVE_INFINITY;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (int i = MIN_CLASS; i <= MAX_CLASS; i++) {
+                for (Slot slot : free[i]) slot.memory.close();
+                free[i].clear();
+            }
+            freeCount = 0;
+            for (Slot slot : inFlight) lastEnd = Math.max(lastEnd, slot.endTime);
+        }
+        if (lastEnd > Double.NEGATIVE_INFINITY && !device.isClosed()) {
+            awaitStreamTime(lastEnd);
+        }
+        synchronized (this) {
+            for (Slot slot : inFlight) slot.memory.close();
+            inFlight.clear();
+        }
+        device.detach(this);
+    }
+
+    /**
+     * Park until the device's stream time is past {@code endTime}, at most 10 s. The wait
+     * is computed once, so a device whose stream time stalls cannot hold it up.
+     */
+    private void awaitStreamTime(double endTime) {
+        long nanos = (long) Math.ceil((endTime - device.getMasterStreamTime()) * 1e9);
+        long deadline = System.nanoTime() + Math.min(nanos, TimeUnit.SECONDS.toNanos(10));
+        boolean interrupted = false;
+        for (long remaining; (remaining = deadline - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) interrupted = true;
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    static final class Slot {
+        final Memory memory;
+        final int sizeClass;
+        volatile int state = FREE;
+        volatile long generation;
+        double endTime;
+        Throwable leaseSite;
+
+        Slot(Memory memory, int sizeClass) {
+            this.memory = memory;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    private static final class LeakCheck implements Runnable {
+        private final TransmitBufferPool pool;
+        private final Slot slot;
+        private final long generation;
+
+        LeakCheck(TransmitBufferPool pool, Slot slot, long generation) {
+            this.pool = pool;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            pool.leaked(slot, generation);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Pointer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Real-time paced IQ transmission on one device input channel.
+ * <p>
+ * Each buffer passed to {@link #send(Pointer, long)} is stamped with consecutive
+ * {@code startTime}/{@code endTime} values derived from the sample rate and sent once
+ * the device's queue holds no more than the queue-ahead target, so the caller never
+ * has to poll {@link RtsaDevice#getMasterStreamTime()} or sleep. Stream and segment
+ * flags are set automatically: the first packet starts the stream, {@link #sendFinal}
+ * ends it, and a packet that would start in the past after an underrun is rescheduled
+ * as the start of a new segment.
+ * <p>
+ * The segment interrupted by an underrun is not closed with {@link PacketFlags#SEGMENT_END}.
+ * An underrun is only detected when the next buffer arrives after the stream time has
+ * passed the end of the queued data, and by then the old segment's last packet has been
+ * sent. Holding every packet back until its successor arrives would not help either: the
+ * held packet's own late successor is still unknown when the held packet has to go out.
+ * The device has played all queued samples at that point, so the old segment has already
+ * run out when {@link PacketFlags#SEGMENT_START} opens the next one.
+ * <p>
+ * Obtain via {@link RtsaDevice#transmitScheduler(int, double, double)}.
+ * Not thread-safe; use one sending thread per scheduler.
+ */
+public final class TransmitScheduler {
+
+    private final RtsaDevice device;
+    private final int channel;
+    private final double sampleRate;
+    private final AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+
+    private double queueAhead = 0.045;
+    private double startDelay = 0.2;
+
+    private boolean started = false;
+    private boolean ended = false;
+    private boolean segmentStart = true;
+    private double nextStartTime;
+
+    private long packetsSent;
+    private long samplesSent;
+    private long underruns;
+    private double underrunSeconds;
+    private double minimumLead = Double.MAX_VALUE;
+
+    TransmitScheduler(RtsaDevice device, int channel, double startFrequency, double sampleRate) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate: " + sampleRate);
+        this.device = device;
+        this.channel = channel;
+        this.sampleRate = sampleRate;
+        packet.startFrequency = startFrequency;
+        packet.stepFrequency = sampleRate;
+        packet.size = 2;
+        packet.stride = 2;
+    }
+
+    // --- Settings ---
+
+    /**
+     * Target amount of queued data, in seconds of stream time. Default 45 ms.
+     */
+    public void setQueueAhead(double seconds) {
+        this.queueAhead = seconds;
+    }
+
+    public double getQueueAhead() {
+        return queueAhead;
+    }
+
+    /**
+     * Delay between the current stream time and the start of a new stream or of a
+     * segment after an underrun, in seconds. Default 200 ms.
+     */
+    public void setStartDelay(double seconds) {
+        this.startDelay = seconds;
+    }
+
+    public double getStartDelay() {
+        return startDelay;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    // --- Transmission ---
+
+    /**
+     * Send an interleaved IQ buffer as the next packet of the stream, waiting until
+     * the device queue has room below the queue-ahead target.
+     *
+     * @param iq         native buffer of {@code 2 * numSamples} floats; must stay valid
+     *                   until the packet's end time has passed
+     * @param numSamples number of IQ samples in the buffer
+     * @return the stream time at which the packet starts
+     */
+    public double send(Pointer iq, long numSamples) throws InterruptedException {
+        return send(iq, numSamples, false);
+    }
+
+    /**
+     * Send the last buffer of the stream, flagged as the end of segment and stream.
+     *
+     * @return the stream time at which the packet starts
+     */
+    public double sendFinal(Pointer iq, long numSamples) throws InterruptedException {
+        return send(iq, numSamples, true);
+    }
+
+    /**
+     * Send a pooled buffer as the next packet of the stream. The buffer returns to its
+     * pool once the packet has played, or at once if sending fails or is interrupted.
+     *
+     * @return the stream time at which the packet starts
+     */
+    public double send(TransmitBuffer iq, long numSamples) throws InterruptedException {
+        return send(iq, numSamples, false);
+    }
+
+    /**
+     * Send a pooled buffer as the last packet of the stream.
+     *
+     * @return the stream time at which the packet starts
+     */
+    public double sendFinal(TransmitBuffer iq, long numSamples) throws InterruptedException {
+        return send(iq, numSamples, true);
+    }
+
+    private double send(TransmitBuffer iq, long numSamples, boolean last) throws InterruptedException {
+        Pointer payload = iq.pointer();
+        double startTime;
+        try {
+            startTime = send(payload, numSamples, last);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            iq.release();
+            throw e;
+        }
+        iq.retire(packet.endTime);
+        return startTime;
+    }
+
+    private double send(Pointer iq, long numSamples, boolean last) throws InterruptedException {
+        if (ended) throw new IllegalStateException("Stream already ended");
+
+        double now = device.getMasterStreamTime();
+        if (!started) {
+            nextStartTime = now + startDelay;
+        } else if (nextStartTime < now) {
+            // The previous packet already went out without SEGMENT_END; see the class doc.
+            underruns++;
+            underrunSeconds += now - nextStartTime;
+            nextStartTime = now + startDelay;
+            segmentStart = true;
+        }
+
+        now = waitUntil(nextStartTime - queueAhead, now);
+        minimumLead = Math.min(minimumLead, nextStartTime - now);
+
+        long flags = 0;
+        if (!started) flags |= PacketFlags.STREAM_START;
+        if (segmentStart) flags |= PacketFlags.SEGMENT_START;
+        if (last) flags |= PacketFlags.SEGMENT_END | PacketFlags.STREAM_END;
+
+        double startTime = nextStartTime;
+        packet.startTime = startTime;
+        packet.endTime = startTime + numSamples / sampleRate;
+        packet.num = numSamples;
+        packet.fp32 = iq;
+        packet.flags = flags;
+        device.sendPacket(channel, packet);
+
+        started = true;
+        segmentStart = false;
+        ended = last;
+        nextStartTime = packet.endTime;
+        packetsSent++;
+        samplesSent += numSamples;
+        return startTime;
+    }
+
+    /**
+     * Wait until the device's stream time has passed the end of the last sent packet.
+     */
+    public void awaitDrained() throws InterruptedException {
+        waitUntil(nextStartTime, device.getMasterStreamTime());
+    }
+
+    private double waitUntil(double streamTime, double now) throws InterruptedException {
+        while (now < streamTime) {
+            LockSupport.parkNanos(this, (long) ((streamTime - now) * 1e9));
+            if (Thread.interrupted()) throw new InterruptedException();
+            now = device.getMasterStreamTime();
+        }
+        return now;
+    }
+
+    // --- Statistics ---
+
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    public long getSamplesSent() {
+        return samplesSent;
+    }
+
+    /** Number of times the stream time overtook the next packet's start time. */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /** Total stream time lost to underruns, in seconds. */
+    public double getUnderrunSeconds() {
+        return underrunSeconds;
+    }
+
+    /** Smallest amount of queued stream time observed when a packet was sent, in seconds. */
+    public double getMinimumLead() {
+        return packetsSent == 0 ? 0 : minimumLead;
+    }
+
+    /** Stream time at which the next packet will start. */
+    public double getNextStartTime() {
+        return nextStartTime;
+    }
+
+    /** Currently queued stream time ahead of the device, in seconds. */
+    public double getQueueLevel() {
+        return started ? Math.max(0, nextStartTime - device.getMasterStreamTime()) : 0;
+    }
+}
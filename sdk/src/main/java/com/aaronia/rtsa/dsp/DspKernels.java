@@ -0,0 +1,50 @@
+package com.aaronia.rtsa.dsp;
+
+/**
+ * Inner loops of the DSP stages, implemented once with scalar code and once with
+ * the incubating Vector API. Arrays hold split real/imaginary parts.
+ */
+interface DspKernels {
+
+    /** {@code outRe[i] = re[i] * w[i]; outIm[i] = im[i] * w[i]} for {@code i < n}. */
+    void window(float[] re, float[] im, float[] w, float[] outRe, float[] outIm, int n);
+
+    /**
+     * One radix-2 decimation-in-time stage over all blocks of length {@code 2 * half}.
+     * Stage twiddles are {@code twRe/twIm[twOffset + j]} for {@code j < half}.
+     */
+    void butterflies(float[] re, float[] im, float[] twRe, float[] twIm, int twOffset, int half, int n);
+
+    /** {@code acc[i] += re[i]^2 + im[i]^2} for {@code i < n}. */
+    void accumulatePower(float[] re, float[] im, float[] acc, int n);
+
+    /**
+     * Real taps times complex samples: {@code out[0] = sum(taps[t + j] * re[x + j])},
+     * {@code out[1] = sum(taps[t + j] * im[x + j])} for {@code j < n}.
+     */
+    void dot(float[] taps, int t, float[] re, float[] im, int x, int n, float[] out);
+
+    /** Split {@code n} interleaved IQ pairs into {@code re/im[offset..]}. */
+    void deinterleave(float[] iq, int iqOffset, float[] re, float[] im, int offset, int n);
+
+    /** Merge {@code n} values of {@code re/im[offset..]} into interleaved IQ pairs. */
+    void interleave(float[] re, float[] im, int offset, float[] iq, int iqOffset, int n);
+
+    /** {@code out[k] = I^2 + Q^2} for {@code n} interleaved IQ pairs. */
+    void power(float[] iq, int iqOffset, float[] out, int offset, int n);
+
+    /** {@code out[k] = sqrt(I^2 + Q^2)} for {@code n} interleaved IQ pairs. */
+    void magnitude(float[] iq, int iqOffset, float[] out, int offset, int n);
+
+    /** {@code out[k] = 10 * log10(power[k] * 20)}; {@code out} may alias {@code power}. */
+    void toDbm(float[] power, int offset, float[] out, int outOffset, int n);
+
+    /** {@code data[k] *= gain} for {@code n} floats. */
+    void scale(float[] data, int offset, int n, float gain);
+
+    /** {@code dst[k] = round(clamp(src[k] * scale))} to the int16 range, halves away from zero. */
+    void toInt16(float[] src, int offset, short[] dst, int dstOffset, int n, float scale);
+
+    /** {@code dst[k] = src[k] * scale}. */
+    void fromInt16(short[] src, int offset, float[] dst, int dstOffset, int n, float scale);
+}
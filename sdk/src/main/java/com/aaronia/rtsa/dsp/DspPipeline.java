@@ -0,0 +1,422 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Multi-channel packet processing on a bounded fork-join pool.
+ * <p>
+ * Every channel runs its own chain of {@link DspStage}s followed by the sink. Chains
+ * of different channels run in parallel on the pool; within a channel, packets are
+ * processed one at a time in the order they were submitted, which for packets read
+ * from a device is {@code startTime} order within each {@code streamID}. To keep that
+ * order well defined, a channel accepts one submitting thread at a time: overlapping
+ * {@link #submit} calls for the same channel fail, and each channel can be read by
+ * only one {@link #start} reader. Packets whose source delivered them out of order are
+ * still processed, and counted by {@link #getOutOfOrder(int)}.
+ * <p>
+ * Submitted packets are copied into a fixed number of pooled blocks per channel with
+ * their own native payload. When a channel has no free block, {@link #submit} waits,
+ * so a slow chain stops its reader and the backlog stays in the device queue instead
+ * of growing on the heap.
+ * <p>
+ * Stages must be added before the first packet is submitted. Close the pipeline
+ * before closing the device it reads from.
+ */
+public final class DspPipeline implements AutoCloseable {
+
+    private static final int BATCH = 64;
+    private static final long IDLE_PARK_MILLIS = 10;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    /**
+     * Receives the processed packets of all channels. Calls for one channel never
+     * overlap; calls for different channels may run concurrently. The packet is only
+     * valid during the call.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(int channel, AARTSAAPI_Packet packet);
+    }
+
+    private final ForkJoinPool pool;
+    private final int blocksPerChannel;
+    private final List<IntFunction<? extends DspStage>> stageFactories = new ArrayList<>();
+    private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+    private final List<Thread> readers = new ArrayList<>();
+    private final Set<Integer> readChannels = new HashSet<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+
+    private volatile Sink sink = (channel, packet) -> {};
+    private volatile boolean closed = false;
+
+    /**
+     * @param parallelism      maximum number of worker threads
+     * @param blocksPerChannel packets buffered per channel before submitters wait
+     */
+    public DspPipeline(int parallelism, int blocksPerChannel) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism: " + parallelism);
+        if (blocksPerChannel < 1) throw new IllegalArgumentException("blocksPerChannel: " + blocksPerChannel);
+        this.blocksPerChannel = blocksPerChannel;
+        String prefix = "rtsa-dsp-" + POOL_COUNT.incrementAndGet() + "-";
+        this.pool = new ForkJoinPool(parallelism,
+            p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName(prefix + t.getPoolIndex());
+                return t;
+            },
+            null, true, 0, parallelism, 1, null, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Append a stage to every channel's chain.
+     *
+     * @param factory creates the stage instance for a channel
+     */
+    public DspPipeline addStage(IntFunction<? extends DspStage> factory) {
+        if (!lanes.isEmpty()) throw new IllegalStateException("Stages must be added before packets are submitted");
+        stageFactories.add(factory);
+        return this;
+    }
+
+    public DspPipeline setSink(Sink sink) {
+        this.sink = sink;
+        return this;
+    }
+
+    // --- Input ---
+
+    /**
+     * Copy a packet into the channel's chain, waiting while all its blocks are in use.
+     *
+     * @throws IllegalStateException if the pipeline is closed, a stage has failed, or
+     *                               another thread is submitting to the same channel
+     */
+    public void submit(int channel, AARTSAAPI_Packet packet) throws InterruptedException {
+        Lane lane = lane(channel);
+        Thread current = Thread.currentThread();
+        if (!lane.submitter.compareAndSet(null, current)) {
+            throw new IllegalStateException("Channel " + channel + " is being submitted by " + lane.submitter.get());
+        }
+        try {
+            Block block = lane.free.poll();
+            if (block == null) {
+                lane.stalls.incrementAndGet();
+                while (block == null) {
+                    checkOpen();
+                    block = lane.free.poll(IDLE_PARK_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            checkOpen();
+            lane.fill(block, packet);
+            pending.incrementAndGet();
+            lane.ready.add(block);
+        } finally {
+            lane.submitter.set(null);
+        }
+        lane.schedule();
+    }
+
+    /**
+     * Read the given device channels, one reader thread each, until the pipeline is
+     * closed. A reader whose chain is backed up stops consuming from the device.
+     *
+     * @throws IllegalStateException if a channel is already being read
+     */
+    public synchronized void start(RtsaDevice device, int... channels) {
+        checkOpen();
+        Set<Integer> added = new HashSet<>();
+        for (int channel : channels) {
+            if (readChannels.contains(channel) || !added.add(channel)) {
+                throw new IllegalStateException("Channel " + channel + " is already being read");
+            }
+        }
+        readChannels.addAll(added);
+        for (int channel : channels) {
+            Thread reader = new Thread(() -> read(device, channel), "rtsa-dsp-read-" + channel);
+            reader.setDaemon(true);
+            readers.add(reader);
+            reader.start();
+        }
+    }
+
+    private void read(RtsaDevice device, int channel) {
+        AARTSAAPI_Packet rx = new AARTSAAPI_Packet();
+        try {
+            while (!closed) {
+                int available = device.awaitPackets(channel, 1, IDLE_PARK_MILLIS, TimeUnit.MILLISECONDS);
+                int taken = 0;
+                while (taken < available && !closed && device.getPacket(channel, taken, rx)) {
+                    submit(channel, rx);
+                    taken++;
+                }
+                if (taken > 0) device.consumePackets(channel, taken);
+            }
+        } catch (InterruptedException e) {
+            // closing
+        } catch (IllegalStateException e) {
+            if (!closed && failure.get() == null) fail(e);
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private Lane lane(int channel) {
+        Lane lane = lanes.get(channel);
+        if (lane != null) return lane;
+        synchronized (this) {
+            return lanes.computeIfAbsent(channel, Lane::new);
+        }
+    }
+
+    private void checkOpen() {
+        Throwable t = failure.get();
+        if (t != null) throw new IllegalStateException("DSP pipeline failed", t);
+        if (closed) throw new IllegalStateException("DSP pipeline closed");
+    }
+
+    private void fail(Throwable t) {
+        failure.compareAndSet(null, t);
+    }
+
+    private void completed(int n) {
+        if (pending.addAndGet(-n) == 0) {
+            idleLock.lock();
+            try {
+                idle.signalAll();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait until every submitted packet has passed through its chain.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        idleLock.lock();
+        try {
+            while (pending.get() != 0) {
+                if (nanos <= 0) return false;
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    // --- Metrics ---
+
+    /** Packets of a channel that reached the sink. */
+    public long getProcessed(int channel) {
+        Lane lane = lanes.get(channel);
+        return lane == null ? 0 : lane.processed.get();
+    }
+
+    /** Packets of a channel dropped by a stage. */
+    public long getDropped(int channel) {
+        Lane lane = lanes.get(channel);
+        return lane == null ? 0 : lane.dropped.get();
+    }
+
+    /** Submissions on a channel that had to wait for a free block. */
+    public long getStalls(int channel) {
+        Lane lane = lanes.get(channel);
+        return lane == null ? 0 : lane.stalls.get();
+    }
+
+    /** Packets of a channel that were submitted after a later packet of the same stream. */
+    public long getOutOfOrder(int channel) {
+        Lane lane = lanes.get(channel);
+        return lane == null ? 0 : lane.outOfOrder;
+    }
+
+    /** Packets of a channel waiting to be processed. */
+    public int getQueued(int channel) {
+        Lane lane = lanes.get(channel);
+        return lane == null ? 0 : blocksPerChannel - lane.free.size();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /** First exception thrown by a stage, the sink or a reader, or null. */
+    public Throwable getFailure() {
+        return failure.get();
+    }
+
+    /**
+     * Stop the readers, discard queued packets and free all blocks. Threads calling
+     * {@link #submit} directly must have returned before the pipeline is closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        boolean interrupted = false;
+        for (Thread reader : readers) {
+            reader.interrupt();
+            while (reader.isAlive()) {
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        pool.shutdown();
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        for (Lane lane : lanes.values()) lane.freeAll();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Per-channel chain state. The {@code scheduled} flag keeps at most one drain task
+     * per channel on the pool, which serializes the channel's stages.
+     */
+    private final class Lane {
+        final int channel;
+        final DspStage[] stages;
+        final ArrayBlockingQueue<Block> free;
+        final ConcurrentLinkedQueue<Block> ready = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong stalls = new AtomicLong();
+        final List<Block> all = new ArrayList<>();
+        final AtomicReference<Thread> submitter = new AtomicReference<>();
+
+        // Only touched by the current submitter
+        volatile long outOfOrder;
+        long lastStreamID = -1;
+        double lastStartTime = Double.NEGATIVE_INFINITY;
+        /** Staging for the payload copy; reading a native block through a ByteBuffer view allocates the view. */
+        float[] scratch = new float[0];
+
+        Lane(int channel) {
+            this.channel = channel;
+            this.stages = new DspStage[stageFactories.size()];
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = stageFactories.get(i).apply(channel);
+            }
+            this.free = new ArrayBlockingQueue<>(blocksPerChannel);
+            for (int i = 0; i < blocksPerChannel; i++) {
+                Block block = new Block();
+                all.add(block);
+                free.add(block);
+            }
+        }
+
+        void fill(Block block, AARTSAAPI_Packet src) {
+            if (src.streamID == lastStreamID && src.startTime < lastStartTime) outOfOrder++;
+            lastStreamID = src.streamID;
+            lastStartTime = src.startTime;
+
+            int floats = Math.toIntExact(src.payloadFloats());
+            if (scratch.length < floats) scratch = new float[floats];
+            block.fill(src, scratch, floats);
+        }
+
+        void schedule() {
+            if (!ready.isEmpty() && scheduled.compareAndSet(false, true)) {
+                pool.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int n = 0;
+            Block block;
+            while (n < BATCH && (block = ready.poll()) != null) {
+                try {
+                    if (failure.get() == null && !closed) run(block.packet);
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    free.add(block);
+                    n++;
+                }
+            }
+            completed(n);
+            scheduled.set(false);
+            schedule();
+        }
+
+        private void run(AARTSAAPI_Packet packet) {
+            for (DspStage stage : stages) {
+                if (!stage.process(packet)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            sink.accept(channel, packet);
+            processed.incrementAndGet();
+        }
+
+        void freeAll() {
+            for (Block block : all) block.free();
+        }
+    }
+
+    /**
+     * Pooled packet with its own native payload, grown to the largest packet seen.
+     */
+    private static final class Block {
+        final AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        Memory memory;
+
+        void fill(AARTSAAPI_Packet src, float[] scratch, int floats) {
+            packet.copyHeaderFrom(src);
+            long bytes = (long) floats * Float.BYTES;
+            if (bytes > 0 && (memory == null || memory.size() < bytes)) {
+                if (memory != null) memory.close();
+                memory = new Memory(bytes);
+            }
+            packet.fp32 = memory;
+            if (floats > 0) {
+                src.fp32.read(0, scratch, 0, floats);
+                memory.write(0, scratch, 0, floats);
+            }
+        }
+
+        void free() {
+            if (memory != null) memory.close();
+            memory = null;
+        }
+    }
+}
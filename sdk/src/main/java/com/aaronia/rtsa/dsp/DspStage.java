@@ -0,0 +1,22 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+/**
+ * One processing step of a {@link DspPipeline}.
+ * <p>
+ * Each channel gets its own stage instance, which sees that channel's packets one at a
+ * time and in order, so stages may keep state across packets without synchronization.
+ * The packet's payload is owned by the pipeline and may be rewritten in place, e.g.
+ * with fewer samples after decimation, as long as the header is updated to match.
+ */
+@FunctionalInterface
+public interface DspStage {
+
+    /**
+     * Process one packet in place.
+     *
+     * @return false to drop the packet, skipping later stages and the sink
+     */
+    boolean process(AARTSAAPI_Packet packet);
+}
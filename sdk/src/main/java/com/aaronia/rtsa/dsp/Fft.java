@@ -0,0 +1,87 @@
+package com.aaronia.rtsa.dsp;
+
+import java.util.Arrays;
+
+/**
+ * In-place radix-2 complex FFT on split real/imaginary arrays.
+ * <p>
+ * Bit-reversal pairs and per-stage twiddle factors are computed once in the
+ * constructor; {@link #transform(float[], float[])} allocates nothing. Butterflies
+ * run on the Vector API when the {@code jdk.incubator.vector} module is available
+ * (see {@link #isVectorized()}) and on scalar code otherwise.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class Fft {
+
+    private final int size;
+    private final int[] swaps;
+    private final float[] twRe;
+    private final float[] twIm;
+    private final DspKernels kernels;
+
+    /**
+     * @param size transform length, a power of two of at least 2
+     */
+    public Fft(int size) {
+        this(size, Kernels.INSTANCE);
+    }
+
+    /** Transform on the given kernels, so that tests can check each implementation. */
+    Fft(int size, DspKernels kernels) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        this.kernels = kernels;
+
+        int bits = Integer.numberOfTrailingZeros(size);
+        int pairs = 0;
+        int[] tmp = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = Integer.reverse(i) >>> (32 - bits);
+            if (i < j) {
+                tmp[pairs++] = i;
+                tmp[pairs++] = j;
+            }
+        }
+        swaps = Arrays.copyOf(tmp, pairs);
+
+        // Stage with half-length h keeps its twiddles exp(-2*pi*i*j/(2h)) at offset h - 1.
+        twRe = new float[size - 1];
+        twIm = new float[size - 1];
+        for (int half = 1; half < size; half <<= 1) {
+            for (int j = 0; j < half; j++) {
+                double angle = -Math.PI * j / half;
+                twRe[half - 1 + j] = (float) Math.cos(angle);
+                twIm[half - 1 + j] = (float) Math.sin(angle);
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Forward transform of {@code size} complex values, in place.
+     */
+    public void transform(float[] re, float[] im) {
+        for (int k = 0; k < swaps.length; k += 2) {
+            int a = swaps[k];
+            int b = swaps[k + 1];
+            float t = re[a]; re[a] = re[b]; re[b] = t;
+            t = im[a]; im[a] = im[b]; im[b] = t;
+        }
+        for (int half = 1; half < size; half <<= 1) {
+            kernels.butterflies(re, im, twRe, twIm, half - 1, half, size);
+        }
+    }
+
+    /**
+     * Whether the DSP kernels run on the Vector API in this JVM.
+     */
+    public static boolean isVectorized() {
+        return Kernels.isVectorized();
+    }
+}
@@ -0,0 +1,108 @@
+package com.aaronia.rtsa.dsp;
+
+import java.util.Objects;
+
+/**
+ * Per-sample operations on interleaved IQ data in heap arrays.
+ * <p>
+ * Interleaved arrays hold {@code I, Q} float pairs as in a packet's {@code fp32}
+ * payload; counts are in IQ pairs unless noted otherwise. Power values use the SDK's
+ * IQ scale, where {@code |x|^2 = 1/20} is 0 dBm. The loops run on the Vector API when
+ * the {@code jdk.incubator.vector} module is available and on scalar code otherwise,
+ * with results equal to the scalar code except for the last bit of {@code log10}.
+ * For packet payloads and native buffers see {@link NativeIqOps}.
+ */
+public final class IqOps {
+
+    private static final DspKernels KERNELS = Kernels.INSTANCE;
+
+    private IqOps() {}
+
+    /** Whether these operations run on the Vector API in this JVM. */
+    public static boolean isVectorized() {
+        return Kernels.isVectorized();
+    }
+
+    /**
+     * Split {@code n} IQ pairs into separate I and Q arrays.
+     */
+    public static void deinterleave(float[] iq, int iqOffset, float[] i, float[] q, int offset, int n) {
+        Objects.checkFromIndexSize(iqOffset, 2 * n, iq.length);
+        Objects.checkFromIndexSize(offset, n, i.length);
+        Objects.checkFromIndexSize(offset, n, q.length);
+        KERNELS.deinterleave(iq, iqOffset, i, q, offset, n);
+    }
+
+    /**
+     * Merge separate I and Q arrays into {@code n} IQ pairs.
+     */
+    public static void interleave(float[] i, float[] q, int offset, float[] iq, int iqOffset, int n) {
+        Objects.checkFromIndexSize(offset, n, i.length);
+        Objects.checkFromIndexSize(offset, n, q.length);
+        Objects.checkFromIndexSize(iqOffset, 2 * n, iq.length);
+        KERNELS.interleave(i, q, offset, iq, iqOffset, n);
+    }
+
+    /**
+     * Linear power {@code I^2 + Q^2} of {@code n} IQ pairs.
+     */
+    public static void power(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        Objects.checkFromIndexSize(iqOffset, 2 * n, iq.length);
+        Objects.checkFromIndexSize(offset, n, out.length);
+        KERNELS.power(iq, iqOffset, out, offset, n);
+    }
+
+    /**
+     * Magnitude {@code sqrt(I^2 + Q^2)} of {@code n} IQ pairs.
+     */
+    public static void magnitude(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        Objects.checkFromIndexSize(iqOffset, 2 * n, iq.length);
+        Objects.checkFromIndexSize(offset, n, out.length);
+        KERNELS.magnitude(iq, iqOffset, out, offset, n);
+    }
+
+    /**
+     * Power of {@code n} IQ pairs in dBm.
+     */
+    public static void powerDbm(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        power(iq, iqOffset, out, offset, n);
+        KERNELS.toDbm(out, offset, out, offset, n);
+    }
+
+    /**
+     * Convert {@code n} linear power values to dBm; {@code out} may be {@code power}.
+     */
+    public static void toDbm(float[] power, int offset, float[] out, int outOffset, int n) {
+        Objects.checkFromIndexSize(offset, n, power.length);
+        Objects.checkFromIndexSize(outOffset, n, out.length);
+        KERNELS.toDbm(power, offset, out, outOffset, n);
+    }
+
+    /**
+     * Multiply {@code count} floats by a gain factor, in place.
+     */
+    public static void scale(float[] data, int offset, int count, float gain) {
+        Objects.checkFromIndexSize(offset, count, data.length);
+        KERNELS.scale(data, offset, count, gain);
+    }
+
+    /**
+     * Convert {@code count} floats to 16-bit integers, mapping {@code fullScale} to
+     * {@link Short#MAX_VALUE}. Values are rounded half away from zero and saturated.
+     */
+    public static void toInt16(float[] src, int offset, short[] dst, int dstOffset, int count, float fullScale) {
+        Objects.checkFromIndexSize(offset, count, src.length);
+        Objects.checkFromIndexSize(dstOffset, count, dst.length);
+        KERNELS.toInt16(src, offset, dst, dstOffset, count, Short.MAX_VALUE / fullScale);
+    }
+
+    /**
+     * Convert {@code count} 16-bit integers back to floats, mapping {@link Short#MAX_VALUE}
+     * to {@code fullScale}.
+     */
+    public static void fromInt16(short[] src, int offset, float[] dst, int dstOffset, int count, float fullScale) {
+        Objects.checkFromIndexSize(offset, count, src.length);
+        Objects.checkFromIndexSize(dstOffset, count, dst.length);
+        KERNELS.fromInt16(src, offset, dst, dstOffset, count, fullScale / Short.MAX_VALUE);
+    }
+}
@@ -0,0 +1,34 @@
+package com.aaronia.rtsa.dsp;
+
+/**
+ * Selects the {@link DspKernels} implementation once per JVM.
+ * <p>
+ * The Vector API implementation is used when the {@code jdk.incubator.vector} module
+ * is resolved (run with {@code --add-modules jdk.incubator.vector}) unless system
+ * property {@code aaronia.rtsa.vector} is {@code false}; otherwise the scalar code is used.
+ */
+final class Kernels {
+
+    static final DspKernels INSTANCE = select();
+
+    private Kernels() {}
+
+    static boolean isVectorized() {
+        return !(INSTANCE instanceof ScalarKernels);
+    }
+
+    private static DspKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty("aaronia.rtsa.vector", "true"))) {
+            return new ScalarKernels();
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            return (DspKernels) Class.forName("com.aaronia.rtsa.dsp.VectorKernels")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
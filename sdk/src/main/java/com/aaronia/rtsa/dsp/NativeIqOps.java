@@ -0,0 +1,183 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Pointer;
+
+import java.util.Objects;
+
+/**
+ * {@link IqOps} over packet payloads and native buffers.
+ * <p>
+ * Native data is copied once, in chunks, into a preallocated scratch buffer and
+ * processed there, so no per-call garbage is produced. Packet payloads with a stride
+ * other than 2 are compacted to IQ pairs while copying. Results of the packet methods
+ * have one entry per sample ({@code num}), or two for {@link #deinterleave} and
+ * {@link #toInt16(AARTSAAPI_Packet, short[], int, float)}.
+ * <p>
+ * Not thread-safe; use one instance per thread.
+ */
+public final class NativeIqOps {
+
+    private static final int DEFAULT_CHUNK = 4096;
+
+    private final DspKernels kernels = Kernels.INSTANCE;
+    private final int chunk;
+    private final float[] scratch;
+    private float[] strided = new float[0];
+
+    public NativeIqOps() {
+        this(DEFAULT_CHUNK);
+    }
+
+    /**
+     * @param chunk IQ pairs processed per native copy
+     */
+    public NativeIqOps(int chunk) {
+        if (chunk < 1) throw new IllegalArgumentException("chunk: " + chunk);
+        this.chunk = chunk;
+        this.scratch = new float[2 * chunk];
+    }
+
+    // --- Packet payloads ---
+
+    /**
+     * Linear power of each sample of a packet.
+     *
+     * @return number of samples written
+     */
+    public int power(AARTSAAPI_Packet packet, float[] out, int offset) {
+        int n = samples(packet, out.length, offset, 1);
+        for (int k = 0; k < n; k += chunk) {
+            int count = readIq(packet, k, Math.min(chunk, n - k));
+            kernels.power(scratch, 0, out, offset + k, count);
+        }
+        return n;
+    }
+
+    /**
+     * Magnitude of each sample of a packet.
+     *
+     * @return number of samples written
+     */
+    public int magnitude(AARTSAAPI_Packet packet, float[] out, int offset) {
+        int n = samples(packet, out.length, offset, 1);
+        for (int k = 0; k < n; k += chunk) {
+            int count = readIq(packet, k, Math.min(chunk, n - k));
+            kernels.magnitude(scratch, 0, out, offset + k, count);
+        }
+        return n;
+    }
+
+    /**
+     * Power of each sample of a packet in dBm.
+     *
+     * @return number of samples written
+     */
+    public int powerDbm(AARTSAAPI_Packet packet, float[] out, int offset) {
+        int n = power(packet, out, offset);
+        kernels.toDbm(out, offset, out, offset, n);
+        return n;
+    }
+
+    /**
+     * Split the samples of a packet into I and Q arrays.
+     *
+     * @return number of samples written to each array
+     */
+    public int deinterleave(AARTSAAPI_Packet packet, float[] i, float[] q, int offset) {
+        int n = samples(packet, Math.min(i.length, q.length), offset, 1);
+        for (int k = 0; k < n; k += chunk) {
+            int count = readIq(packet, k, Math.min(chunk, n - k));
+            kernels.deinterleave(scratch, 0, i, q, offset + k, count);
+        }
+        return n;
+    }
+
+    /**
+     * Convert the samples of a packet to interleaved 16-bit IQ pairs.
+     *
+     * @return number of shorts written, twice the number of samples
+     * @see IqOps#toInt16(float[], int, short[], int, int, float)
+     */
+    public int toInt16(AARTSAAPI_Packet packet, short[] dst, int offset, float fullScale) {
+        int n = samples(packet, dst.length, offset, 2);
+        float scale = Short.MAX_VALUE / fullScale;
+        for (int k = 0; k < n; k += chunk) {
+            int count = readIq(packet, k, Math.min(chunk, n - k));
+            kernels.toInt16(scratch, 0, dst, offset + 2 * k, 2 * count, scale);
+        }
+        return 2 * n;
+    }
+
+    private static int samples(AARTSAAPI_Packet packet, int length, int offset, int perSample) {
+        if (packet.fp32 == null || packet.num <= 0) return 0;
+        if (packet.size < 2) throw new IllegalArgumentException("Packet does not carry IQ samples: size=" + packet.size);
+        int n = Math.toIntExact(packet.num);
+        Objects.checkFromIndexSize(offset, perSample * n, length);
+        return n;
+    }
+
+    /**
+     * Copy samples {@code [first, first + count)} of a packet into the scratch buffer as IQ pairs.
+     */
+    private int readIq(AARTSAAPI_Packet packet, int first, int count) {
+        int stride = (int) packet.stride;
+        if (stride == 2) {
+            packet.fp32.read((long) first * 2 * Float.BYTES, scratch, 0, 2 * count);
+            return count;
+        }
+        int floats = (count - 1) * stride + 2;
+        if (strided.length < floats) strided = new float[(chunk - 1) * stride + 2];
+        packet.fp32.read((long) first * stride * Float.BYTES, strided, 0, floats);
+        for (int k = 0, p = 0; k < count; k++, p += stride) {
+            scratch[2 * k] = strided[p];
+            scratch[2 * k + 1] = strided[p + 1];
+        }
+        return count;
+    }
+
+    // --- Native buffers ---
+
+    /**
+     * Multiply {@code count} floats of a native buffer by a gain factor, in place.
+     */
+    public void scale(Pointer buffer, long count, float gain) {
+        for (long k = 0; k < count; k += scratch.length) {
+            int n = (int) Math.min(scratch.length, count - k);
+            buffer.read(k * Float.BYTES, scratch, 0, n);
+            kernels.scale(scratch, 0, n, gain);
+            buffer.write(k * Float.BYTES, scratch, 0, n);
+        }
+    }
+
+    /**
+     * Convert {@code count} floats of a native buffer to 16-bit integers.
+     *
+     * @see IqOps#toInt16(float[], int, short[], int, int, float)
+     */
+    public void toInt16(Pointer src, short[] dst, int offset, int count, float fullScale) {
+        Objects.checkFromIndexSize(offset, count, dst.length);
+        float scale = Short.MAX_VALUE / fullScale;
+        for (int k = 0; k < count; k += scratch.length) {
+            int n = Math.min(scratch.length, count - k);
+            src.read((long) k * Float.BYTES, scratch, 0, n);
+            kernels.toInt16(scratch, 0, dst, offset + k, n, scale);
+        }
+    }
+
+    /**
+     * Convert {@code count} 16-bit integers into floats in a native buffer, e.g. a
+     * {@link com.aaronia.rtsa.TransmitBuffer} to be sent.
+     *
+     * @see IqOps#fromInt16(short[], int, float[], int, int, float)
+     */
+    public void fromInt16(short[] src, int offset, int count, Pointer dst, float fullScale) {
+        Objects.checkFromIndexSize(offset, count, src.length);
+        float scale = fullScale / Short.MAX_VALUE;
+        for (int k = 0; k < count; k += scratch.length) {
+            int n = Math.min(scratch.length, count - k);
+            kernels.fromInt16(src, offset + k, scratch, 0, n, scale);
+            dst.write((long) k * Float.BYTES, scratch, 0, n);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.Arrays;
+
+/**
+ * Streaming rational resampler for IQ packets: an optional NCO frequency shift followed
+ * by a polyphase FIR filter that changes the sample rate by {@code interpolation / decimation}.
+ * <p>
+ * Filter history, polyphase position and NCO phase carry over from one packet to the
+ * next, so a stream cut into packets produces the same output as if processed in one
+ * piece. The state is reset when a packet is flagged {@link PacketFlags#SEGMENT_START}
+ * or {@link PacketFlags#TIME_DISCONTINUITY}, or when its sample rate or center frequency
+ * changes.
+ * <p>
+ * The output header describes the new stream: {@code stepFrequency} is the output rate,
+ * the center moves by the frequency shift, the span is limited to the filter passband,
+ * and {@code startTime}/{@code endTime} are those of the output samples, compensated for
+ * the filter's group delay. The payload is written as contiguous IQ pairs
+ * ({@code size = stride = 2}).
+ * <p>
+ * As a {@link DspStage} it rewrites the packet in place, which requires the payload to
+ * be writable and {@code interpolation <= decimation}; {@link DspPipeline} blocks are.
+ * No allocation happens per packet. Not thread-safe; use one instance per channel.
+ */
+public final class Resampler implements DspStage {
+
+    /** Fraction of the output rate kept as span; the rest is filter transition band. */
+    private static final double PASSBAND = 0.8;
+    private static final double KAISER_BETA = 8.0;
+    private static final int DEFAULT_TAPS_PER_BAND = 24;
+    private static final int CHUNK = 1024;
+    private static final long RESET_FLAGS = PacketFlags.SEGMENT_START | PacketFlags.TIME_DISCONTINUITY;
+
+    private final DspKernels kernels = Kernels.INSTANCE;
+    private final int interpolation;
+    private final int decimation;
+    private final int tapsPerPhase;
+    /** Phase {@code p} taps, reversed and scaled by the interpolation, at {@code p * tapsPerPhase}. */
+    private final float[] phaseTaps;
+    /** Group delay in input samples. */
+    private final double delay;
+
+    private final float[] bufRe;
+    private final float[] bufIm;
+    private final float[] raw;
+    private final float[] outIq = new float[2 * CHUNK];
+    private final float[] acc = new float[2];
+    private float[] strided = new float[0];
+
+    private double frequencyShift;
+
+    // Stream state
+    private double inputRate = Double.NaN;
+    private double inputCenter = Double.NaN;
+    private double segmentStartTime;
+    /** Absolute input index of {@code buf[0]}. */
+    private long base;
+    private int fill;
+    /** Input index and polyphase position of the next output. */
+    private long inputIndex;
+    private int phase;
+    private long outputs;
+    private double ncoPhase;
+
+    /**
+     * Resampler with a Kaiser-windowed sinc filter of 24 taps per band.
+     */
+    public Resampler(int interpolation, int decimation) {
+        this(interpolation, decimation, DEFAULT_TAPS_PER_BAND);
+    }
+
+    /**
+     * Resampler with a Kaiser-windowed sinc filter of
+     * {@code tapsPerBand * max(interpolation, decimation)} taps.
+     */
+    public Resampler(int interpolation, int decimation, int tapsPerBand) {
+        this(interpolation, decimation, lowpass(interpolation, decimation, tapsPerBand));
+    }
+
+    /**
+     * Resampler with a custom prototype filter, designed at {@code interpolation} times
+     * the input rate with unity DC gain.
+     */
+    public Resampler(int interpolation, int decimation, float[] prototype) {
+        int[] ratio = reduce(interpolation, decimation);
+        this.interpolation = ratio[0];
+        this.decimation = ratio[1];
+        if (prototype.length == 0) throw new IllegalArgumentException("Empty prototype filter");
+
+        int l = this.interpolation;
+        this.tapsPerPhase = (prototype.length + l - 1) / l;
+        this.phaseTaps = new float[l * tapsPerPhase];
+        for (int p = 0; p < l; p++) {
+            for (int j = 0; j < tapsPerPhase; j++) {
+                int k = p + j * l;
+                float h = k < prototype.length ? prototype[k] * l : 0f;
+                phaseTaps[p * tapsPerPhase + tapsPerPhase - 1 - j] = h;
+            }
+        }
+        this.delay = (prototype.length - 1) / (2.0 * l);
+
+        this.bufRe = new float[tapsPerPhase - 1 + CHUNK];
+        this.bufIm = new float[tapsPerPhase - 1 + CHUNK];
+        this.raw = new float[2 * CHUNK];
+        reset();
+    }
+
+    /**
+     * Decimate by an integer factor.
+     */
+    public static Resampler decimator(int factor) {
+        return new Resampler(1, factor);
+    }
+
+    private static int[] reduce(int interpolation, int decimation) {
+        if (interpolation < 1) throw new IllegalArgumentException("interpolation: " + interpolation);
+        if (decimation < 1) throw new IllegalArgumentException("decimation: " + decimation);
+        int a = interpolation, b = decimation;
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return new int[]{interpolation / a, decimation / a};
+    }
+
+    /**
+     * Kaiser-windowed sinc lowpass at the lower of the input and output Nyquist
+     * frequencies, at {@code interpolation} times the input rate.
+     */
+    static float[] lowpass(int interpolation, int decimation, int tapsPerBand) {
+        if (tapsPerBand < 1) throw new IllegalArgumentException("tapsPerBand: " + tapsPerBand);
+        int[] ratio = reduce(interpolation, decimation);
+        int bands = Math.max(ratio[0], ratio[1]);
+        int n = tapsPerBand * bands + 1;
+        double cutoff = 0.5 / bands;
+        double norm = bessel0(KAISER_BETA);
+        double[] h = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            double m = i - (n - 1) / 2.0;
+            double sinc = m == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * m) / (Math.PI * m);
+            double r = 2.0 * i / (n - 1) - 1;
+            h[i] = sinc * bessel0(KAISER_BETA * Math.sqrt(1 - r * r)) / norm;
+            sum += h[i];
+        }
+        float[] taps = new float[n];
+        for (int i = 0; i < n; i++) {
+            taps[i] = (float) (h[i] / sum);
+        }
+        return taps;
+    }
+
+    private static double bessel0(double x) {
+        double sum = 1, term = 1, q = x * x / 4;
+        for (int k = 1; k < 50 && term > 1e-12 * sum; k++) {
+            term *= q / ((double) k * k);
+            sum += term;
+        }
+        return sum;
+    }
+
+    // --- Settings ---
+
+    /**
+     * Shift the signal down by the given frequency before filtering, so that content at
+     * {@code center + shift} ends up at the output center. Takes effect with the next packet.
+     */
+    public Resampler setFrequencyShift(double hz) {
+        this.frequencyShift = hz;
+        return this;
+    }
+
+    public double getFrequencyShift() {
+        return frequencyShift;
+    }
+
+    public int getInterpolation() {
+        return interpolation;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /** Filter taps applied per output sample. */
+    public int getTapsPerPhase() {
+        return tapsPerPhase;
+    }
+
+    /**
+     * Upper bound of the output samples produced from a packet of the given size.
+     */
+    public long maxOutputSamples(long inputSamples) {
+        return (inputSamples * interpolation + decimation - 1) / decimation + 1;
+    }
+
+    // --- Processing ---
+
+    /**
+     * Resample a packet in place.
+     */
+    @Override
+    public boolean process(AARTSAAPI_Packet packet) {
+        if (interpolation > decimation) {
+            throw new IllegalStateException("In-place resampling cannot increase the sample rate");
+        }
+        process(packet, packet);
+        return true;
+    }
+
+    /**
+     * Resample the payload of {@code in} into {@code out} and fill the header of
+     * {@code out} for the output stream. {@code out} may be {@code in} if
+     * {@code interpolation <= decimation}.
+     *
+     * @param in  IQ packet with {@code size >= 2}
+     * @param out packet whose {@code fp32} buffer holds at least
+     *            {@code 2 * maxOutputSamples(in.num)} floats
+     * @return number of output samples
+     */
+    public int process(AARTSAAPI_Packet in, AARTSAAPI_Packet out) {
+        if (in.fp32 == null || in.num <= 0) {
+            long total = outputTotal(in, 0);
+            if (out != in) out.copyHeaderFrom(in);
+            out.num = 0;
+            out.total = total;
+            return 0;
+        }
+        if (in.size < 2) throw new IllegalArgumentException("Packet does not carry IQ samples: size=" + in.size);
+        if (in.stepFrequency <= 0) throw new IllegalArgumentException("Packet has no sample rate");
+
+        double center = in.startFrequency + in.spanFrequency / 2;
+        if ((in.flags & RESET_FLAGS) != 0 || in.stepFrequency != inputRate || center != inputCenter) {
+            reset();
+            inputRate = in.stepFrequency;
+            inputCenter = center;
+            segmentStartTime = in.startTime;
+        }
+
+        long firstOutput = outputs;
+        int stride = (int) in.stride;
+        int produced = 0;
+        for (long sample = 0; sample < in.num; ) {
+            int count = (int) Math.min(CHUNK, in.num - sample);
+            read(in, sample, count, stride);
+            mix(count);
+            fill += count;
+            sample += count;
+
+            int n = filter();
+            if (n > 0) {
+                out.fp32.write((long) produced * 2 * Float.BYTES, outIq, 0, 2 * n);
+                produced += n;
+            }
+        }
+        writeHeader(in, out, produced, firstOutput);
+        return produced;
+    }
+
+    /**
+     * Append {@code count} input samples at {@code buf[fill]}.
+     */
+    private void read(AARTSAAPI_Packet in, long sample, int count, int stride) {
+        if (stride == 2) {
+            in.fp32.read(sample * 2 * Float.BYTES, raw, 0, 2 * count);
+            kernels.deinterleave(raw, 0, bufRe, bufIm, fill, count);
+            return;
+        }
+        int floats = (count - 1) * stride + 2;
+        if (strided.length < floats) strided = new float[(CHUNK - 1) * stride + 2];
+        in.fp32.read(sample * stride * Float.BYTES, strided, 0, floats);
+        for (int k = 0, p = 0; k < count; k++, p += stride) {
+            bufRe[fill + k] = strided[p];
+            bufIm[fill + k] = strided[p + 1];
+        }
+    }
+
+    /**
+     * Multiply the appended samples by the NCO, {@code exp(-i * phase)}. The oscillator
+     * is restarted from the exact phase for every chunk to keep rounding from building up.
+     */
+    private void mix(int count) {
+        if (frequencyShift == 0) return;
+        double step = 2 * Math.PI * frequencyShift / inputRate;
+        float c = (float) Math.cos(ncoPhase), s = (float) -Math.sin(ncoPhase);
+        float dc = (float) Math.cos(step), ds = (float) -Math.sin(step);
+        for (int k = fill, end = fill + count; k < end; k++) {
+            float re = bufRe[k], im = bufIm[k];
+            bufRe[k] = re * c - im * s;
+            bufIm[k] = re * s + im * c;
+            float nc = c * dc - s * ds;
+            s = c * ds + s * dc;
+            c = nc;
+        }
+        ncoPhase = (ncoPhase + step * count) % (2 * Math.PI);
+    }
+
+    /**
+     * Produce every output whose input window is buffered, then drop consumed input.
+     *
+     * @return number of outputs written to {@code outIq}
+     */
+    private int filter() {
+        int n = 0;
+        long end = base + fill;
+        while (inputIndex < end) {
+            int x = (int) (inputIndex - base) - (tapsPerPhase - 1);
+            kernels.dot(phaseTaps, phase * tapsPerPhase, bufRe, bufIm, x, tapsPerPhase, acc);
+            outIq[2 * n] = acc[0];
+            outIq[2 * n + 1] = acc[1];
+            n++;
+            phase += decimation;
+            inputIndex += phase / interpolation;
+            phase %= interpolation;
+        }
+        outputs += n;
+
+        int drop = (int) Math.min(inputIndex - base - (tapsPerPhase - 1), fill);
+        if (drop > 0) {
+            fill -= drop;
+            System.arraycopy(bufRe, drop, bufRe, 0, fill);
+            System.arraycopy(bufIm, drop, bufIm, 0, fill);
+            base += drop;
+        }
+        return n;
+    }
+
+    private void writeHeader(AARTSAAPI_Packet in, AARTSAAPI_Packet out, int produced, long firstOutput) {
+        double outputRate = in.stepFrequency * interpolation / decimation;
+        double center = in.startFrequency + in.spanFrequency / 2 + frequencyShift;
+        double span = Math.min(in.spanFrequency, outputRate * PASSBAND);
+        double startTime = segmentStartTime + (firstOutput * (double) decimation / interpolation - delay) / in.stepFrequency;
+        long total = outputTotal(in, produced);
+
+        if (out != in) out.copyHeaderFrom(in);
+        out.startTime = startTime;
+        out.endTime = startTime + produced / outputRate;
+        out.stepFrequency = outputRate;
+        out.spanFrequency = span;
+        out.startFrequency = center - span / 2;
+        out.num = produced;
+        out.total = total;
+        out.size = 2;
+        out.stride = 2;
+    }
+
+    /**
+     * {@code total} of the output packet: the output sample count when the input packet
+     * holds the whole block, otherwise the input total at the output rate.
+     */
+    private long outputTotal(AARTSAAPI_Packet in, int produced) {
+        if (in.total == in.num) return produced;
+        return Math.round(in.total * (double) interpolation / decimation);
+    }
+
+    /**
+     * Clear the filter history and restart the polyphase position, NCO phase and
+     * output timing with the next packet.
+     */
+    public void reset() {
+        inputRate = Double.NaN;
+        base = -(tapsPerPhase - 1);
+        fill = tapsPerPhase - 1;
+        Arrays.fill(bufRe, 0, fill, 0f);
+        Arrays.fill(bufIm, 0, fill, 0f);
+        inputIndex = 0;
+        phase = 0;
+        outputs = 0;
+        ncoPhase = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package com.aaronia.rtsa.dsp;
+
+/**
+ * Portable scalar implementation of {@link DspKernels}.
+ */
+final class ScalarKernels implements DspKernels {
+
+    @Override
+    public void window(float[] re, float[] im, float[] w, float[] outRe, float[] outIm, int n) {
+        for (int i = 0; i < n; i++) {
+            outRe[i] = re[i] * w[i];
+            outIm[i] = im[i] * w[i];
+        }
+    }
+
+    @Override
+    public void butterflies(float[] re, float[] im, float[] twRe, float[] twIm, int twOffset, int half, int n) {
+        int len = half << 1;
+        for (int block = 0; block < n; block += len) {
+            butterflyRange(re, im, twRe, twIm, twOffset, block, half, 0, half);
+        }
+    }
+
+    static void butterflyRange(float[] re, float[] im, float[] twRe, float[] twIm,
+                               int twOffset, int block, int half, int from, int to) {
+        for (int j = from; j < to; j++) {
+            int a = block + j;
+            int b = a + half;
+            float wr = twRe[twOffset + j];
+            float wi = twIm[twOffset + j];
+            float tr = re[b] * wr - im[b] * wi;
+            float ti = re[b] * wi + im[b] * wr;
+            re[b] = re[a] - tr;
+            im[b] = im[a] - ti;
+            re[a] += tr;
+            im[a] += ti;
+        }
+    }
+
+    @Override
+    public void accumulatePower(float[] re, float[] im, float[] acc, int n) {
+        for (int i = 0; i < n; i++) {
+            acc[i] += re[i] * re[i] + im[i] * im[i];
+        }
+    }
+
+    @Override
+    public void dot(float[] taps, int t, float[] re, float[] im, int x, int n, float[] out) {
+        float sumRe = 0, sumIm = 0;
+        for (int j = 0; j < n; j++) {
+            sumRe += taps[t + j] * re[x + j];
+            sumIm += taps[t + j] * im[x + j];
+        }
+        out[0] = sumRe;
+        out[1] = sumIm;
+    }
+
+    @Override
+    public void deinterleave(float[] iq, int iqOffset, float[] re, float[] im, int offset, int n) {
+        for (int k = 0, p = iqOffset; k < n; k++, p += 2) {
+            re[offset + k] = iq[p];
+            im[offset + k] = iq[p + 1];
+        }
+    }
+
+    @Override
+    public void interleave(float[] re, float[] im, int offset, float[] iq, int iqOffset, int n) {
+        for (int k = 0, p = iqOffset; k < n; k++, p += 2) {
+            iq[p] = re[offset + k];
+            iq[p + 1] = im[offset + k];
+        }
+    }
+
+    @Override
+    public void power(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        for (int k = 0, p = iqOffset; k < n; k++, p += 2) {
+            out[offset + k] = iq[p] * iq[p] + iq[p + 1] * iq[p + 1];
+        }
+    }
+
+    @Override
+    public void magnitude(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        for (int k = 0, p = iqOffset; k < n; k++, p += 2) {
+            out[offset + k] = (float) Math.sqrt(iq[p] * iq[p] + iq[p + 1] * iq[p + 1]);
+        }
+    }
+
+    @Override
+    public void toDbm(float[] power, int offset, float[] out, int outOffset, int n) {
+        for (int k = 0; k < n; k++) {
+            out[outOffset + k] = 10f * (float) Math.log10(power[offset + k] * 20f);
+        }
+    }
+
+    @Override
+    public void scale(float[] data, int offset, int n, float gain) {
+        for (int k = offset, end = offset + n; k < end; k++) {
+            data[k] *= gain;
+        }
+    }
+
+    @Override
+    public void toInt16(float[] src, int offset, short[] dst, int dstOffset, int n, float scale) {
+        for (int k = 0; k < n; k++) {
+            dst[dstOffset + k] = roundToInt16(src[offset + k] * scale);
+        }
+    }
+
+    static short roundToInt16(float v) {
+        v = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v));
+        return (short) (v + (v < 0 ? -0.5f : 0.5f));
+    }
+
+    @Override
+    public void fromInt16(short[] src, int offset, float[] dst, int dstOffset, int n, float scale) {
+        for (int k = 0; k < n; k++) {
+            dst[dstOffset + k] = src[offset + k] * scale;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.aaronia.rtsa.dsp;
+
+/**
+ * Averaged power spectrum produced by {@link SpectrumEngine}.
+ * <p>
+ * Bins are ordered by frequency, lowest first, with the packet's center frequency at
+ * bin {@code size / 2}. Bin powers are normalized to the window's coherent gain, so a
+ * tone centered on a bin reads its own power; {@link #getDensityDbm(int)} gives the
+ * noise density instead. Powers use the SDK's IQ scale, where {@code |x|^2 = 1/20}
+ * is 0 dBm.
+ * <p>
+ * The engine reuses one instance and overwrites it with each new spectrum; copy
+ * values out inside the sink if they must outlive the call.
+ */
+public final class Spectrum {
+
+    /** {@code |x|^2} of a 0 dBm IQ sample is 1/20. */
+    private static final double MILLIWATTS_PER_UNIT = 20.0;
+
+    final float[] power;
+    double centerFrequency;
+    double sampleRate;
+    double noiseBandwidthBins;
+    double deviceRbw;
+    double startTime;
+    double endTime;
+    long streamID;
+    int averages;
+
+    Spectrum(int size, double noiseBandwidthBins) {
+        this.power = new float[size];
+        this.noiseBandwidthBins = noiseBandwidthBins;
+    }
+
+    public int size() {
+        return power.length;
+    }
+
+    /** Frequency of a bin, in Hz. */
+    public double frequency(int bin) {
+        return centerFrequency + (bin - power.length / 2) * getBinWidth();
+    }
+
+    public double getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    /** Sample rate of the analyzed IQ data, taken from the packets' {@code stepFrequency}. */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /** Bin spacing in Hz. */
+    public double getBinWidth() {
+        return sampleRate / power.length;
+    }
+
+    /** Resolution bandwidth of the FFT: bin width times the window's noise bandwidth. */
+    public double getResolutionBandwidth() {
+        return getBinWidth() * noiseBandwidthBins;
+    }
+
+    /** Resolution bandwidth reported by the device in the packets' {@code rbwFrequency}. */
+    public double getDeviceRbw() {
+        return deviceRbw;
+    }
+
+    /** Stream time of the first sample in the average. */
+    public double getStartTime() {
+        return startTime;
+    }
+
+    /** Stream time after the last sample in the average. */
+    public double getEndTime() {
+        return endTime;
+    }
+
+    public long getStreamID() {
+        return streamID;
+    }
+
+    /** Number of transforms averaged. */
+    public int getAverages() {
+        return averages;
+    }
+
+    /** Linear power of a bin in IQ units. */
+    public float getPower(int bin) {
+        return power[bin];
+    }
+
+    /** Power of a bin in dBm. */
+    public double getDbm(int bin) {
+        return 10 * Math.log10(power[bin] * MILLIWATTS_PER_UNIT);
+    }
+
+    /** Power density of a bin in dBm/Hz. */
+    public double getDensityDbm(int bin) {
+        return getDbm(bin) - 10 * Math.log10(getResolutionBandwidth());
+    }
+
+    /**
+     * Write all bin powers in dBm to {@code out}, which must hold {@link #size()} values.
+     */
+    public void toDbm(float[] out) {
+        IqOps.toDbm(power, 0, out, 0, power.length);
+    }
+
+    /** Index of the strongest bin. */
+    public int peakBin() {
+        int peak = 0;
+        for (int i = 1; i < power.length; i++) {
+            if (power[i] > power[peak]) peak = i;
+        }
+        return peak;
+    }
+
+    @Override
+    public String toString() {
+        return "Spectrum{size=" + power.length + ", center=" + centerFrequency +
+               ", binWidth=" + getBinWidth() + ", averages=" + averages + "}";
+    }
+}
@@ -0,0 +1,192 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streaming Welch power spectrum over IQ packets.
+ * <p>
+ * Samples are read straight from each packet's native payload into preallocated
+ * buffers and cut into overlapping segments of the FFT size. Each segment is
+ * windowed, transformed and its power accumulated; after the configured number of
+ * averages a {@link Spectrum} is handed to the sink. Segments carry over packet
+ * boundaries. A packet flagged {@link PacketFlags#SEGMENT_START} or
+ * {@link PacketFlags#TIME_DISCONTINUITY}, or one whose center frequency or sample
+ * rate differs from the previous one, discards the partial average.
+ * <p>
+ * Bins are labeled from the packet header: {@code stepFrequency} is the sample rate,
+ * the center frequency is {@code startFrequency + spanFrequency / 2}, and
+ * {@code rbwFrequency} is passed through as the device RBW.
+ * <p>
+ * No allocation happens per packet once the payload read buffer has grown to the
+ * packet stride. Not thread-safe; use one engine per channel.
+ */
+public final class SpectrumEngine {
+
+    private final int size;
+    private final int hop;
+    private final int averages;
+    private final Fft fft;
+    private final float[] window;
+    private final double powerScale;
+    private final DspKernels kernels = Kernels.INSTANCE;
+
+    private final float[] inRe;
+    private final float[] inIm;
+    private final float[] workRe;
+    private final float[] workIm;
+    private final float[] accumulator;
+    private final Spectrum spectrum;
+    private float[] payload = new float[0];
+
+    private int filled;
+    private int averaged;
+    private double bufferStartTime;
+    private double averageStartTime;
+    private double centerFrequency = Double.NaN;
+    private double sampleRate = Double.NaN;
+
+    /**
+     * @param size     FFT length, a power of two
+     * @param window   window applied to each segment
+     * @param overlap  fraction of a segment shared with the next one, in {@code [0, 1)}
+     * @param averages number of segments averaged per spectrum
+     */
+    public SpectrumEngine(int size, WindowFunction window, double overlap, int averages) {
+        if (overlap < 0 || overlap >= 1) throw new IllegalArgumentException("overlap: " + overlap);
+        if (averages < 1) throw new IllegalArgumentException("averages: " + averages);
+        this.fft = new Fft(size);
+        this.size = size;
+        this.hop = Math.max(1, (int) Math.round(size * (1 - overlap)));
+        this.averages = averages;
+        this.window = window.coefficients(size);
+
+        double gain = 0;
+        for (float w : this.window) gain += w;
+        this.powerScale = 1.0 / (gain * gain * averages);
+
+        inRe = new float[size];
+        inIm = new float[size];
+        workRe = new float[size];
+        workIm = new float[size];
+        accumulator = new float[size];
+        spectrum = new Spectrum(size, window.noiseBandwidth(size));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /** Samples between the starts of consecutive segments. */
+    public int getHop() {
+        return hop;
+    }
+
+    public int getAverages() {
+        return averages;
+    }
+
+    /**
+     * Feed the IQ payload of one packet.
+     *
+     * @param packet received packet with {@code size >= 2} floats per sample
+     * @param sink   receives each completed spectrum; the instance is reused
+     * @return number of spectra completed by this packet
+     */
+    public int accept(AARTSAAPI_Packet packet, Consumer<Spectrum> sink) {
+        if (packet.fp32 == null || packet.num <= 0) return 0;
+        if (packet.size < 2) throw new IllegalArgumentException("Packet does not carry IQ samples: size=" + packet.size);
+        if (packet.stepFrequency <= 0) throw new IllegalArgumentException("Packet has no sample rate");
+
+        double center = packet.startFrequency + packet.spanFrequency / 2;
+        if ((packet.flags & (PacketFlags.SEGMENT_START | PacketFlags.TIME_DISCONTINUITY)) != 0
+                || center != centerFrequency || packet.stepFrequency != sampleRate) {
+            reset();
+            centerFrequency = center;
+            sampleRate = packet.stepFrequency;
+        }
+        if (filled == 0) bufferStartTime = packet.startTime;
+        spectrum.deviceRbw = packet.rbwFrequency;
+        spectrum.streamID = packet.streamID;
+
+        int stride = (int) packet.stride;
+        int needed = (size - 1) * stride + 2;
+        if (payload.length < needed) payload = new float[needed];
+
+        int produced = 0;
+        long sample = 0;
+        while (sample < packet.num) {
+            int count = (int) Math.min(size - filled, packet.num - sample);
+            int floats = (count - 1) * stride + 2;
+            packet.fp32.read(sample * stride * Float.BYTES, payload, 0, floats);
+            if (stride == 2) {
+                kernels.deinterleave(payload, 0, inRe, inIm, filled, count);
+            } else {
+                for (int i = 0, p = 0; i < count; i++, p += stride) {
+                    inRe[filled + i] = payload[p];
+                    inIm[filled + i] = payload[p + 1];
+                }
+            }
+            filled += count;
+            sample += count;
+            if (filled == size && segment(sink)) produced++;
+        }
+        return produced;
+    }
+
+    /**
+     * Transform the full input buffer, then slide it by one hop.
+     *
+     * @return whether a spectrum was completed
+     */
+    private boolean segment(Consumer<Spectrum> sink) {
+        if (averaged == 0) averageStartTime = bufferStartTime;
+        kernels.window(inRe, inIm, window, workRe, workIm, size);
+        fft.transform(workRe, workIm);
+        kernels.accumulatePower(workRe, workIm, accumulator, size);
+        averaged++;
+
+        boolean complete = averaged == averages;
+        if (complete) publish(sink);
+
+        int keep = size - hop;
+        if (keep > 0) {
+            System.arraycopy(inRe, hop, inRe, 0, keep);
+            System.arraycopy(inIm, hop, inIm, 0, keep);
+            filled = keep;
+        } else {
+            filled = 0;
+        }
+        bufferStartTime += hop / sampleRate;
+        return complete;
+    }
+
+    private void publish(Consumer<Spectrum> sink) {
+        // FFT order puts DC at index 0; shift so that the lowest frequency comes first.
+        int half = size / 2;
+        float[] out = spectrum.power;
+        for (int i = 0; i < size; i++) {
+            out[i] = (float) (accumulator[(i + half) & (size - 1)] * powerScale);
+            accumulator[(i + half) & (size - 1)] = 0;
+        }
+        spectrum.centerFrequency = centerFrequency;
+        spectrum.sampleRate = sampleRate;
+        spectrum.startTime = averageStartTime;
+        spectrum.endTime = bufferStartTime + size / sampleRate;
+        spectrum.averages = averaged;
+        averaged = 0;
+        sink.accept(spectrum);
+    }
+
+    /**
+     * Discard buffered samples and the partial average.
+     */
+    public void reset() {
+        filled = 0;
+        averaged = 0;
+        Arrays.fill(accumulator, 0f);
+    }
+}
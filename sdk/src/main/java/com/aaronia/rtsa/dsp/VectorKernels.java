@@ -0,0 +1,240 @@
+package com.aaronia.rtsa.dsp;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link DspKernels} on the incubating Vector API. Only loaded when the
+ * {@code jdk.incubator.vector} module is present; see {@link Kernels}.
+ */
+final class VectorKernels implements DspKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Two-vector shuffles: indexes >= LANES select from the second operand.
+    private static final VectorShuffle<Float> EVEN = VectorShuffle.fromOp(SPECIES, i -> 2 * i);
+    private static final VectorShuffle<Float> ODD = VectorShuffle.fromOp(SPECIES, i -> 2 * i + 1);
+    private static final VectorShuffle<Float> ZIP_LOW =
+        VectorShuffle.fromOp(SPECIES, i -> (i & 1) == 0 ? i / 2 : LANES + i / 2);
+    private static final VectorShuffle<Float> ZIP_HIGH =
+        VectorShuffle.fromOp(SPECIES, i -> (i & 1) == 0 ? LANES / 2 + i / 2 : LANES + LANES / 2 + i / 2);
+
+    /** Shorts with the same lane count as {@link #SPECIES}, or null if no such shape exists. */
+    private static final VectorSpecies<Short> SHORTS = SPECIES.vectorBitSize() >= 128
+        ? VectorSpecies.of(short.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2))
+        : null;
+
+    private static final float LOG10_20 = (float) Math.log10(20);
+
+    @Override
+    public void window(float[] re, float[] im, float[] w, float[] outRe, float[] outIm, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            FloatVector wv = FloatVector.fromArray(SPECIES, w, i);
+            FloatVector.fromArray(SPECIES, re, i).mul(wv).intoArray(outRe, i);
+            FloatVector.fromArray(SPECIES, im, i).mul(wv).intoArray(outIm, i);
+        }
+        for (; i < n; i++) {
+            outRe[i] = re[i] * w[i];
+            outIm[i] = im[i] * w[i];
+        }
+    }
+
+    @Override
+    public void butterflies(float[] re, float[] im, float[] twRe, float[] twIm, int twOffset, int half, int n) {
+        int len = half << 1;
+        if (half < LANES) {
+            for (int block = 0; block < n; block += len) {
+                ScalarKernels.butterflyRange(re, im, twRe, twIm, twOffset, block, half, 0, half);
+            }
+            return;
+        }
+        int bound = SPECIES.loopBound(half);
+        for (int block = 0; block < n; block += len) {
+            int j = 0;
+            for (; j < bound; j += LANES) {
+                int a = block + j;
+                int b = a + half;
+                FloatVector wr = FloatVector.fromArray(SPECIES, twRe, twOffset + j);
+                FloatVector wi = FloatVector.fromArray(SPECIES, twIm, twOffset + j);
+                FloatVector br = FloatVector.fromArray(SPECIES, re, b);
+                FloatVector bi = FloatVector.fromArray(SPECIES, im, b);
+                FloatVector tr = br.mul(wr).sub(bi.mul(wi));
+                FloatVector ti = br.mul(wi).add(bi.mul(wr));
+                FloatVector ar = FloatVector.fromArray(SPECIES, re, a);
+                FloatVector ai = FloatVector.fromArray(SPECIES, im, a);
+                ar.sub(tr).intoArray(re, b);
+                ai.sub(ti).intoArray(im, b);
+                ar.add(tr).intoArray(re, a);
+                ai.add(ti).intoArray(im, a);
+            }
+            ScalarKernels.butterflyRange(re, im, twRe, twIm, twOffset, block, half, j, half);
+        }
+    }
+
+    @Override
+    public void accumulatePower(float[] re, float[] im, float[] acc, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            FloatVector r = FloatVector.fromArray(SPECIES, re, i);
+            FloatVector m = FloatVector.fromArray(SPECIES, im, i);
+            r.fma(r, m.mul(m)).add(FloatVector.fromArray(SPECIES, acc, i)).intoArray(acc, i);
+        }
+        for (; i < n; i++) {
+            acc[i] += re[i] * re[i] + im[i] * im[i];
+        }
+    }
+
+    @Override
+    public void dot(float[] taps, int t, float[] re, float[] im, int x, int n, float[] out) {
+        int j = 0;
+        float sumRe = 0, sumIm = 0;
+        if (n >= LANES) {
+            // Two accumulators per component to overlap the FMA latency
+            FloatVector re0 = FloatVector.zero(SPECIES), re1 = re0, im0 = re0, im1 = re0;
+            for (int bound = n - 2 * LANES; j <= bound; j += 2 * LANES) {
+                FloatVector h0 = FloatVector.fromArray(SPECIES, taps, t + j);
+                FloatVector h1 = FloatVector.fromArray(SPECIES, taps, t + j + LANES);
+                re0 = h0.fma(FloatVector.fromArray(SPECIES, re, x + j), re0);
+                im0 = h0.fma(FloatVector.fromArray(SPECIES, im, x + j), im0);
+                re1 = h1.fma(FloatVector.fromArray(SPECIES, re, x + j + LANES), re1);
+                im1 = h1.fma(FloatVector.fromArray(SPECIES, im, x + j + LANES), im1);
+            }
+            for (int bound = SPECIES.loopBound(n); j < bound; j += LANES) {
+                FloatVector h = FloatVector.fromArray(SPECIES, taps, t + j);
+                re0 = h.fma(FloatVector.fromArray(SPECIES, re, x + j), re0);
+                im0 = h.fma(FloatVector.fromArray(SPECIES, im, x + j), im0);
+            }
+            sumRe = re0.add(re1).reduceLanes(VectorOperators.ADD);
+            sumIm = im0.add(im1).reduceLanes(VectorOperators.ADD);
+        }
+        for (; j < n; j++) {
+            sumRe += taps[t + j] * re[x + j];
+            sumIm += taps[t + j] * im[x + j];
+        }
+        out[0] = sumRe;
+        out[1] = sumIm;
+    }
+
+    @Override
+    public void deinterleave(float[] iq, int iqOffset, float[] re, float[] im, int offset, int n) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n), p = iqOffset; k < bound; k += LANES, p += 2 * LANES) {
+            FloatVector a = FloatVector.fromArray(SPECIES, iq, p);
+            FloatVector b = FloatVector.fromArray(SPECIES, iq, p + LANES);
+            a.rearrange(EVEN, b).intoArray(re, offset + k);
+            a.rearrange(ODD, b).intoArray(im, offset + k);
+        }
+        for (int p = iqOffset + 2 * k; k < n; k++, p += 2) {
+            re[offset + k] = iq[p];
+            im[offset + k] = iq[p + 1];
+        }
+    }
+
+    @Override
+    public void interleave(float[] re, float[] im, int offset, float[] iq, int iqOffset, int n) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n), p = iqOffset; k < bound; k += LANES, p += 2 * LANES) {
+            FloatVector r = FloatVector.fromArray(SPECIES, re, offset + k);
+            FloatVector m = FloatVector.fromArray(SPECIES, im, offset + k);
+            r.rearrange(ZIP_LOW, m).intoArray(iq, p);
+            r.rearrange(ZIP_HIGH, m).intoArray(iq, p + LANES);
+        }
+        for (int p = iqOffset + 2 * k; k < n; k++, p += 2) {
+            iq[p] = re[offset + k];
+            iq[p + 1] = im[offset + k];
+        }
+    }
+
+    @Override
+    public void power(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n), p = iqOffset; k < bound; k += LANES, p += 2 * LANES) {
+            powerVector(iq, p).intoArray(out, offset + k);
+        }
+        for (int p = iqOffset + 2 * k; k < n; k++, p += 2) {
+            out[offset + k] = iq[p] * iq[p] + iq[p + 1] * iq[p + 1];
+        }
+    }
+
+    @Override
+    public void magnitude(float[] iq, int iqOffset, float[] out, int offset, int n) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n), p = iqOffset; k < bound; k += LANES, p += 2 * LANES) {
+            powerVector(iq, p).lanewise(VectorOperators.SQRT).intoArray(out, offset + k);
+        }
+        for (int p = iqOffset + 2 * k; k < n; k++, p += 2) {
+            out[offset + k] = (float) Math.sqrt(iq[p] * iq[p] + iq[p + 1] * iq[p + 1]);
+        }
+    }
+
+    private static FloatVector powerVector(float[] iq, int p) {
+        FloatVector a = FloatVector.fromArray(SPECIES, iq, p);
+        FloatVector b = FloatVector.fromArray(SPECIES, iq, p + LANES);
+        FloatVector i = a.rearrange(EVEN, b);
+        FloatVector q = a.rearrange(ODD, b);
+        return i.mul(i).add(q.mul(q));
+    }
+
+    @Override
+    public void toDbm(float[] power, int offset, float[] out, int outOffset, int n) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+            FloatVector.fromArray(SPECIES, power, offset + k)
+                .lanewise(VectorOperators.LOG10).add(LOG10_20).mul(10f)
+                .intoArray(out, outOffset + k);
+        }
+        for (; k < n; k++) {
+            out[outOffset + k] = 10f * (float) Math.log10(power[offset + k] * 20f);
+        }
+    }
+
+    @Override
+    public void scale(float[] data, int offset, int n, float gain) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+            FloatVector.fromArray(SPECIES, data, offset + k).mul(gain).intoArray(data, offset + k);
+        }
+        for (; k < n; k++) {
+            data[offset + k] *= gain;
+        }
+    }
+
+    @Override
+    public void toInt16(float[] src, int offset, short[] dst, int dstOffset, int n, float scale) {
+        int k = 0;
+        if (SHORTS != null) {
+            for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+                FloatVector v = FloatVector.fromArray(SPECIES, src, offset + k).mul(scale)
+                    .max(Short.MIN_VALUE).min(Short.MAX_VALUE);
+                VectorMask<Float> negative = v.compare(VectorOperators.LT, 0f);
+                v = v.add(FloatVector.broadcast(SPECIES, 0.5f).blend(-0.5f, negative));
+                ((ShortVector) v.convertShape(VectorOperators.F2S, SHORTS, 0)).intoArray(dst, dstOffset + k);
+            }
+        }
+        for (; k < n; k++) {
+            dst[dstOffset + k] = ScalarKernels.roundToInt16(src[offset + k] * scale);
+        }
+    }
+
+    @Override
+    public void fromInt16(short[] src, int offset, float[] dst, int dstOffset, int n, float scale) {
+        int k = 0;
+        if (SHORTS != null) {
+            for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+                ((FloatVector) ShortVector.fromArray(SHORTS, src, offset + k)
+                    .convertShape(VectorOperators.S2F, SPECIES, 0))
+                    .mul(scale).intoArray(dst, dstOffset + k);
+            }
+        }
+        for (; k < n; k++) {
+            dst[dstOffset + k] = src[offset + k] * scale;
+        }
+    }
+}
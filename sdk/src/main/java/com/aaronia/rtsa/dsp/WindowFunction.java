@@ -0,0 +1,49 @@
+package com.aaronia.rtsa.dsp;
+
+/**
+ * Window functions for spectral analysis, defined as generalized cosine sums and
+ * generated in periodic (DFT-even) form.
+ */
+public enum WindowFunction {
+    RECTANGULAR(1.0),
+    HANN(0.5, 0.5),
+    HAMMING(0.54, 0.46),
+    BLACKMAN_HARRIS(0.35875, 0.48829, 0.14128, 0.01168),
+    FLAT_TOP(0.21557895, 0.41663158, 0.277263158, 0.083578947, 0.006947368);
+
+    private final double[] terms;
+
+    WindowFunction(double... terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Window coefficients for a transform of the given size.
+     */
+    public float[] coefficients(int size) {
+        float[] w = new float[size];
+        for (int n = 0; n < size; n++) {
+            double x = 2 * Math.PI * n / size;
+            double v = 0;
+            for (int k = 0; k < terms.length; k++) {
+                double t = terms[k] * Math.cos(k * x);
+                v += (k & 1) == 0 ? t : -t;
+            }
+            w[n] = (float) v;
+        }
+        return w;
+    }
+
+    /**
+     * Equivalent noise bandwidth in bins: {@code N * sum(w^2) / sum(w)^2}.
+     */
+    public double noiseBandwidth(int size) {
+        float[] w = coefficients(size);
+        double sum = 0, sumSquares = 0;
+        for (float v : w) {
+            sum += v;
+            sumSquares += v * v;
+        }
+        return size * sumSquares / (sum * sum);
+    }
+}
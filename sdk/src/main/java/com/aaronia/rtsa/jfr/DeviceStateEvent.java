@@ -0,0 +1,28 @@
+package com.aaronia.rtsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Change of a device's state as seen by {@link com.aaronia.rtsa.RtsaDevice#getDeviceState()}.
+ */
+@Name("com.aaronia.rtsa.DeviceState")
+@Label("RTSA Device State")
+@Category({"Aaronia RTSA", "Device"})
+@Description("Device state differs from the previous observation")
+@StackTrace(false)
+public final class DeviceStateEvent extends Event {
+
+    @Label("Serial Number")
+    public String serialNumber;
+
+    @Label("Previous State")
+    public String previousState;
+
+    @Label("State")
+    public String state;
+}
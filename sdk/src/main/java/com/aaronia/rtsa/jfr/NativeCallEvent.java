@@ -0,0 +1,34 @@
+package com.aaronia.rtsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One call of a native API function, with its duration. Emitted by {@link TracedLibrary}.
+ * Disabled by default: a receive loop makes several calls per packet.
+ */
+@Name("com.aaronia.rtsa.NativeCall")
+@Label("RTSA Native Call")
+@Category({"Aaronia RTSA", "Native"})
+@Description("Call of a function of the native RTSA API")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("0 ms")
+public final class NativeCallEvent extends Event {
+
+    @Label("Operation")
+    @Description("Function name without the AARTSAAPI_ prefix")
+    public String operation;
+
+    @Label("Result Code")
+    public int resultCode;
+
+    @Label("Result")
+    public String result;
+}
@@ -0,0 +1,46 @@
+package com.aaronia.rtsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A packet taken from a device output queue, emitted once per packet by
+ * {@link com.aaronia.rtsa.RtsaDevice#getPacket}. Disabled by default; when enabled,
+ * each packet costs an extra master stream time query for the latency.
+ */
+@Name("com.aaronia.rtsa.PacketReceived")
+@Label("RTSA Packet Received")
+@Category({"Aaronia RTSA", "Receive"})
+@Description("Packet fetched from a device output queue")
+@Enabled(false)
+@StackTrace(false)
+public final class PacketReceivedEvent extends Event {
+
+    @Label("Channel")
+    public int channel;
+
+    @Label("Stream ID")
+    public long streamId;
+
+    @Label("Samples")
+    public long samples;
+
+    @Label("Flags")
+    @Description("PacketFlags bits")
+    public long flags;
+
+    @Label("Stream Time")
+    @Description("Stream time of the first sample, in seconds")
+    public double streamTime;
+
+    @Label("Latency")
+    @Description("Master stream time at receipt minus the packet's end time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long latency;
+}
@@ -0,0 +1,348 @@
+package com.aaronia.rtsa.jfr;
+
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.metrics.NativeCall;
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_DeviceInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+
+/**
+ * Library binding that emits a {@link NativeCallEvent} for every call of another
+ * binding. With {@code -Daaronia.rtsa.jfr=true}, {@link com.aaronia.rtsa.RtsaApi#init(int)}
+ * wraps the default binding; otherwise the binding is called directly and native calls
+ * are not traced.
+ * <p>
+ * While the event is disabled or no recording runs, each call costs one enabled check.
+ */
+public final class TracedLibrary implements AaroniaRtsaLibrary {
+
+    /** Whether {@code aaronia.rtsa.jfr} is set to {@code true}. */
+    public static final boolean ENABLED = Boolean.getBoolean("aaronia.rtsa.jfr");
+
+    private final AaroniaRtsaLibrary lib;
+
+    public TracedLibrary(AaroniaRtsaLibrary lib) {
+        this.lib = lib;
+    }
+
+    /**
+     * The wrapped binding.
+     */
+    public AaroniaRtsaLibrary delegate() {
+        return lib;
+    }
+
+    /**
+     * A started event, or null while the event is disabled. The enabled check uses its
+     * own instance, which never escapes and is not allocated.
+     */
+    private static NativeCallEvent begin() {
+        if (!new NativeCallEvent().isEnabled()) return null;
+        NativeCallEvent event = new NativeCallEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commit(NativeCallEvent event, NativeCall call, int result) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = call.getOperation();
+            event.resultCode = result;
+            event.result = ResultCode.toString(result);
+            event.commit();
+        }
+    }
+
+    // --- Lifecycle ---
+
+    @Override
+    public int AARTSAAPI_Init(int memory) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_Init(memory);
+        commit(event, NativeCall.INIT, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Init_With_Path(int memory, WString pathXmlLocation) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_Init_With_Path(memory, pathXmlLocation);
+        commit(event, NativeCall.INIT_WITH_PATH, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Shutdown() {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_Shutdown();
+        commit(event, NativeCall.SHUTDOWN, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Version() {
+        NativeCallEvent event = begin();
+        int version = lib.AARTSAAPI_Version();
+        commit(event, NativeCall.VERSION, ResultCode.OK);
+        return version;
+    }
+
+    // --- Handle management ---
+
+    @Override
+    public int AARTSAAPI_Open(AARTSAAPI_Handle handle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_Open(handle);
+        commit(event, NativeCall.OPEN, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Close(AARTSAAPI_Handle handle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_Close(handle);
+        commit(event, NativeCall.CLOSE, res);
+        return res;
+    }
+
+    // --- Device discovery ---
+
+    @Override
+    public int AARTSAAPI_RescanDevices(AARTSAAPI_Handle handle, int timeout) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_RescanDevices(handle, timeout);
+        commit(event, NativeCall.RESCAN_DEVICES, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ResetDevices(AARTSAAPI_Handle handle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ResetDevices(handle);
+        commit(event, NativeCall.RESET_DEVICES, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_EnumDevice(AARTSAAPI_Handle handle, WString type, int index, AARTSAAPI_DeviceInfo dinfo) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_EnumDevice(handle, type, index, dinfo);
+        commit(event, NativeCall.ENUM_DEVICE, res);
+        return res;
+    }
+
+    // --- Device lifecycle ---
+
+    @Override
+    public int AARTSAAPI_OpenDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle, WString type, WString serialNumber) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_OpenDevice(handle, dhandle, type, serialNumber);
+        commit(event, NativeCall.OPEN_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_CloseDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_CloseDevice(handle, dhandle);
+        commit(event, NativeCall.CLOSE_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConnectDevice(AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConnectDevice(dhandle);
+        commit(event, NativeCall.CONNECT_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_DisconnectDevice(AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_DisconnectDevice(dhandle);
+        commit(event, NativeCall.DISCONNECT_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_StartDevice(AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_StartDevice(dhandle);
+        commit(event, NativeCall.START_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_StopDevice(AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_StopDevice(dhandle);
+        commit(event, NativeCall.STOP_DEVICE, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetDeviceState(AARTSAAPI_Device dhandle) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_GetDeviceState(dhandle);
+        commit(event, NativeCall.GET_DEVICE_STATE, res);
+        return res;
+    }
+
+    // --- Data packets ---
+
+    @Override
+    public int AARTSAAPI_AvailPackets(AARTSAAPI_Device dhandle, int channel, IntByReference num) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_AvailPackets(dhandle, channel, num);
+        commit(event, NativeCall.AVAIL_PACKETS, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetPacket(AARTSAAPI_Device dhandle, int channel, int index, AARTSAAPI_Packet packet) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_GetPacket(dhandle, channel, index, packet);
+        commit(event, NativeCall.GET_PACKET, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConsumePackets(AARTSAAPI_Device dhandle, int channel, int num) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConsumePackets(dhandle, channel, num);
+        commit(event, NativeCall.CONSUME_PACKETS, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device dhandle, DoubleByReference stime) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_GetMasterStreamTime(dhandle, stime);
+        commit(event, NativeCall.GET_MASTER_STREAM_TIME, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_SendPacket(AARTSAAPI_Device dhandle, int channel, AARTSAAPI_Packet packet) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_SendPacket(dhandle, channel, packet);
+        commit(event, NativeCall.SEND_PACKET, res);
+        return res;
+    }
+
+    // --- Configuration ---
+
+    @Override
+    public int AARTSAAPI_ConfigRoot(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigRoot(dhandle, config);
+        commit(event, NativeCall.CONFIG_ROOT, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigHealth(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigHealth(dhandle, config);
+        commit(event, NativeCall.CONFIG_HEALTH, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFirst(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigFirst(dhandle, group, config);
+        commit(event, NativeCall.CONFIG_FIRST, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigNext(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigNext(dhandle, group, config);
+        commit(event, NativeCall.CONFIG_NEXT, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFind(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config, WString name) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigFind(dhandle, group, config, name);
+        commit(event, NativeCall.CONFIG_FIND, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetName(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] name) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigGetName(dhandle, config, name);
+        commit(event, NativeCall.CONFIG_GET_NAME, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, AARTSAAPI_ConfigInfo cinfo) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigGetInfo(dhandle, config, cinfo);
+        commit(event, NativeCall.CONFIG_GET_INFO, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, double value) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigSetFloat(dhandle, config, value);
+        commit(event, NativeCall.CONFIG_SET_FLOAT, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, DoubleByReference value) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigGetFloat(dhandle, config, value);
+        commit(event, NativeCall.CONFIG_GET_FLOAT, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, WString value) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigSetString(dhandle, config, value);
+        commit(event, NativeCall.CONFIG_SET_STRING, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] value, LongByReference size) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigGetString(dhandle, config, value, size);
+        commit(event, NativeCall.CONFIG_GET_STRING, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, long value) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigSetInteger(dhandle, config, value);
+        commit(event, NativeCall.CONFIG_SET_INTEGER, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, LongByReference value) {
+        NativeCallEvent event = begin();
+        int res = lib.AARTSAAPI_ConfigGetInteger(dhandle, config, value);
+        commit(event, NativeCall.CONFIG_GET_INTEGER, res);
+        return res;
+    }
+}
@@ -0,0 +1,39 @@
+package com.aaronia.rtsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Transmit queue level after a packet was handed to the device, emitted by
+ * {@link com.aaronia.rtsa.RtsaDevice#sendPacket}. Disabled by default; when enabled,
+ * each packet costs an extra master stream time query.
+ */
+@Name("com.aaronia.rtsa.TransmitQueue")
+@Label("RTSA Transmit Queue")
+@Category({"Aaronia RTSA", "Transmit"})
+@Description("Stream time queued ahead of the device after a packet was sent")
+@Enabled(false)
+@StackTrace(false)
+public final class TransmitQueueEvent extends Event {
+
+    @Label("Channel")
+    public int channel;
+
+    @Label("Samples")
+    public long samples;
+
+    @Label("Queue Level")
+    @Description("Packet end time minus the master stream time; negative if the packet ended in the past")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueLevel;
+
+    @Label("Late")
+    @Description("The packet's start time had already passed when it was sent")
+    public boolean late;
+}
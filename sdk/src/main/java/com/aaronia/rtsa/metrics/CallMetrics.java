@@ -0,0 +1,83 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.ResultCode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency of one native function.
+ */
+public final class CallMetrics implements CallMetricsMBean {
+
+    private final NativeCall call;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    CallMetrics(NativeCall call) {
+        this.call = call;
+    }
+
+    /**
+     * Record one call.
+     *
+     * @param nanos  time spent in the native function
+     * @param result its return value; error codes are counted
+     */
+    void record(long nanos, int result) {
+        calls.increment();
+        if (ResultCode.isError(result)) errors.increment();
+        latency.record(nanos);
+    }
+
+    public NativeCall getCall() {
+        return call;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Latency distribution since the metrics were created.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return latency.snapshot().getMean();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.snapshot().getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.snapshot().getMax();
+    }
+
+    @Override
+    public String toString() {
+        return call.getOperation() + ": calls=" + getCalls() + " errors=" + getErrors() + " " + latency.snapshot();
+    }
+}
@@ -0,0 +1,22 @@
+package com.aaronia.rtsa.metrics;
+
+/**
+ * JMX view of one native function, registered as
+ * {@code com.aaronia.rtsa:type=NativeCall,name=<operation>}.
+ */
+public interface CallMetricsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
@@ -0,0 +1,176 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic counters of one device channel: packets received and sent, their samples
+ * and payload bytes, warning flags and the depth of the output queue.
+ * <p>
+ * Counters are striped so that concurrent readers and writers do not contend.
+ * The per-second rates cover the last interval of {@link RtsaMetrics}' rate timer
+ * and stay 0 while the timer is not running.
+ */
+public final class ChannelMetrics implements ChannelMetricsMBean {
+
+    private final int channel;
+
+    private final LongAdder packets = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+    private final LongAdder discontinuities = new LongAdder();
+    private final LongAdder sentPackets = new LongAdder();
+    private final LongAdder sentSamples = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    private volatile int queueDepth;
+
+    private long rateNanos;
+    private long ratePackets;
+    private long rateBytes;
+    private long rateSentBytes;
+    private volatile double packetsPerSecond;
+    private volatile double bytesPerSecond;
+    private volatile double sentBytesPerSecond;
+
+    ChannelMetrics(int channel) {
+        this.channel = channel;
+        this.rateNanos = System.nanoTime();
+    }
+
+    /**
+     * Count a packet taken from the output queue.
+     */
+    public void received(AARTSAAPI_Packet packet) {
+        packets.increment();
+        samples.add(packet.num);
+        bytes.add(packet.payloadFloats() * Float.BYTES);
+        long flags = packet.flags;
+        if ((flags & (PacketFlags.WARN_DROPPED | PacketFlags.WARN_OVERFLOW | PacketFlags.TIME_DISCONTINUITY)) != 0) {
+            if ((flags & PacketFlags.WARN_DROPPED) != 0) dropped.increment();
+            if ((flags & PacketFlags.WARN_OVERFLOW) != 0) overflow.increment();
+            if ((flags & PacketFlags.TIME_DISCONTINUITY) != 0) discontinuities.increment();
+        }
+    }
+
+    /**
+     * Count a packet handed to the device for transmission.
+     */
+    public void sent(AARTSAAPI_Packet packet) {
+        sentPackets.increment();
+        sentSamples.add(packet.num);
+        sentBytes.add(packet.payloadFloats() * Float.BYTES);
+    }
+
+    /**
+     * Record the output queue length returned by an availability query.
+     */
+    public void queueDepth(int available) {
+        queueDepth = available;
+        maxQueueDepth.accumulate(available);
+    }
+
+    synchronized void updateRates(long now) {
+        long p = packets.sum(), b = bytes.sum(), s = sentBytes.sum();
+        if (now > rateNanos) {
+            double seconds = (now - rateNanos) / 1e9;
+            packetsPerSecond = (p - ratePackets) / seconds;
+            bytesPerSecond = (b - rateBytes) / seconds;
+            sentBytesPerSecond = (s - rateSentBytes) / seconds;
+        }
+        rateNanos = now;
+        ratePackets = p;
+        rateBytes = b;
+        rateSentBytes = s;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    @Override
+    public long getPackets() {
+        return packets.sum();
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getPacketsPerSecond() {
+        return packetsPerSecond;
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /** Packets flagged {@link PacketFlags#WARN_DROPPED}. */
+    @Override
+    public long getDroppedWarnings() {
+        return dropped.sum();
+    }
+
+    /** Packets flagged {@link PacketFlags#WARN_OVERFLOW}. */
+    @Override
+    public long getOverflowWarnings() {
+        return overflow.sum();
+    }
+
+    /** Packets flagged {@link PacketFlags#TIME_DISCONTINUITY}. */
+    @Override
+    public long getTimeDiscontinuities() {
+        return discontinuities.sum();
+    }
+
+    /** Queue length seen by the last availability query. */
+    @Override
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    @Override
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public long getSentPackets() {
+        return sentPackets.sum();
+    }
+
+    @Override
+    public long getSentSamples() {
+        return sentSamples.sum();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    @Override
+    public double getSentBytesPerSecond() {
+        return sentBytesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelMetrics{channel=" + channel + ", packets=" + getPackets() + ", samples=" + getSamples() +
+               ", dropped=" + getDroppedWarnings() + ", overflow=" + getOverflowWarnings() +
+               ", discontinuities=" + getTimeDiscontinuities() + ", queueDepth=" + queueDepth +
+               ", maxQueueDepth=" + getMaxQueueDepth() + ", sent=" + getSentPackets() + "}";
+    }
+}
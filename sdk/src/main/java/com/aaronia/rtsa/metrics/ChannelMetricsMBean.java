@@ -0,0 +1,34 @@
+package com.aaronia.rtsa.metrics;
+
+/**
+ * JMX view of one device channel, registered as
+ * {@code com.aaronia.rtsa:type=Channel,device=<serial>,channel=<index>}.
+ */
+public interface ChannelMetricsMBean {
+
+    long getPackets();
+
+    long getSamples();
+
+    long getBytes();
+
+    double getPacketsPerSecond();
+
+    double getBytesPerSecond();
+
+    long getDroppedWarnings();
+
+    long getOverflowWarnings();
+
+    long getTimeDiscontinuities();
+
+    int getQueueDepth();
+
+    long getMaxQueueDepth();
+
+    long getSentPackets();
+
+    long getSentSamples();
+
+    double getSentBytesPerSecond();
+}
@@ -0,0 +1,58 @@
+package com.aaronia.rtsa.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Channel metrics of one device, identified by serial number. Reopening the device
+ * keeps counting into the same instance.
+ */
+public final class DeviceMetrics {
+
+    private final RtsaMetrics owner;
+    private final String serialNumber;
+    private final ConcurrentHashMap<Integer, ChannelMetrics> channels = new ConcurrentHashMap<>();
+
+    DeviceMetrics(RtsaMetrics owner, String serialNumber) {
+        this.owner = owner;
+        this.serialNumber = serialNumber;
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    /**
+     * Metrics of a channel, created on first use.
+     */
+    public ChannelMetrics channel(int channel) {
+        ChannelMetrics metrics = channels.get(channel);
+        if (metrics != null) return metrics;
+        return channels.computeIfAbsent(channel, c -> {
+            ChannelMetrics created = new ChannelMetrics(c);
+            owner.added(this, created);
+            return created;
+        });
+    }
+
+    /**
+     * Channels seen so far, in index order.
+     */
+    public List<ChannelMetrics> getChannels() {
+        List<ChannelMetrics> list = new ArrayList<>(channels.values());
+        list.sort(Comparator.comparingInt(ChannelMetrics::getChannel));
+        return list;
+    }
+
+    Collection<ChannelMetrics> channels() {
+        return channels.values();
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceMetrics{serial=" + serialNumber + ", channels=" + getChannels() + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package com.aaronia.rtsa.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values below 32 ns have their own bucket; above that every power of two is split
+ * into 16 equal buckets, so any recorded value is reported within 1/16 (6.25%) of
+ * its true value. Values up to about 18 minutes are resolved; larger ones land in the
+ * last bucket. Recording is a few atomic increments with no allocation.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR = 32;
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 39;
+    static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record one value in nanoseconds. Negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(bucket(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Copy the current counts. Concurrent recording may be partly included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BITS;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value that falls into the given bucket.
+     */
+    static long highestValue(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int k = bucket - LINEAR;
+        int shift = k / SUB_BUCKETS + 1;
+        long low = (long) (k % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Mean in nanoseconds, or 0 if empty.
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Largest recorded value in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Value at or below which the given percentage of recordings fall, in
+         * nanoseconds, rounded up to the top of its bucket and capped at the maximum.
+         *
+         * @param percentile 0 to 100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValue(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * Recordings made between {@code base} and this snapshot. The maximum stays
+         * that of this snapshot.
+         */
+        public Snapshot minus(Snapshot base) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - base.counts[i];
+            }
+            return new Snapshot(delta, count - base.count, sum - base.sum, max);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns",
+                count, getMean(), getValueAtPercentile(50), getValueAtPercentile(99),
+                getValueAtPercentile(99.9), max);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_DeviceInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+
+/**
+ * Library binding that times every call of another binding into an {@link RtsaMetrics}
+ * registry. Obtain via {@link RtsaMetrics#instrument(AaroniaRtsaLibrary)}.
+ * <p>
+ * Each call adds two {@link System#nanoTime()} reads and a histogram update.
+ */
+public final class MeteredLibrary implements AaroniaRtsaLibrary {
+
+    private final AaroniaRtsaLibrary lib;
+    private final RtsaMetrics metrics;
+
+    MeteredLibrary(AaroniaRtsaLibrary lib, RtsaMetrics metrics) {
+        this.lib = lib;
+        this.metrics = metrics;
+    }
+
+    /**
+     * The wrapped binding.
+     */
+    public AaroniaRtsaLibrary delegate() {
+        return lib;
+    }
+
+    public RtsaMetrics metrics() {
+        return metrics;
+    }
+
+    private void record(NativeCall call, long start, int result) {
+        metrics.getCall(call).record(System.nanoTime() - start, result);
+    }
+
+    // --- Lifecycle ---
+
+    @Override
+    public int AARTSAAPI_Init(int memory) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_Init(memory);
+        record(NativeCall.INIT, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Init_With_Path(int memory, WString pathXmlLocation) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_Init_With_Path(memory, pathXmlLocation);
+        record(NativeCall.INIT_WITH_PATH, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Shutdown() {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_Shutdown();
+        record(NativeCall.SHUTDOWN, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Version() {
+        long start = System.nanoTime();
+        int version = lib.AARTSAAPI_Version();
+        record(NativeCall.VERSION, start, ResultCode.OK);
+        return version;
+    }
+
+    // --- Handle management ---
+
+    @Override
+    public int AARTSAAPI_Open(AARTSAAPI_Handle handle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_Open(handle);
+        record(NativeCall.OPEN, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_Close(AARTSAAPI_Handle handle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_Close(handle);
+        record(NativeCall.CLOSE, start, res);
+        return res;
+    }
+
+    // --- Device discovery ---
+
+    @Override
+    public int AARTSAAPI_RescanDevices(AARTSAAPI_Handle handle, int timeout) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_RescanDevices(handle, timeout);
+        record(NativeCall.RESCAN_DEVICES, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ResetDevices(AARTSAAPI_Handle handle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ResetDevices(handle);
+        record(NativeCall.RESET_DEVICES, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_EnumDevice(AARTSAAPI_Handle handle, WString type, int index, AARTSAAPI_DeviceInfo dinfo) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_EnumDevice(handle, type, index, dinfo);
+        record(NativeCall.ENUM_DEVICE, start, res);
+        return res;
+    }
+
+    // --- Device lifecycle ---
+
+    @Override
+    public int AARTSAAPI_OpenDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle, WString type, WString serialNumber) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_OpenDevice(handle, dhandle, type, serialNumber);
+        record(NativeCall.OPEN_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_CloseDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_CloseDevice(handle, dhandle);
+        record(NativeCall.CLOSE_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConnectDevice(AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConnectDevice(dhandle);
+        record(NativeCall.CONNECT_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_DisconnectDevice(AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_DisconnectDevice(dhandle);
+        record(NativeCall.DISCONNECT_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_StartDevice(AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_StartDevice(dhandle);
+        record(NativeCall.START_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_StopDevice(AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_StopDevice(dhandle);
+        record(NativeCall.STOP_DEVICE, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetDeviceState(AARTSAAPI_Device dhandle) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_GetDeviceState(dhandle);
+        record(NativeCall.GET_DEVICE_STATE, start, res);
+        return res;
+    }
+
+    // --- Data packets ---
+
+    @Override
+    public int AARTSAAPI_AvailPackets(AARTSAAPI_Device dhandle, int channel, IntByReference num) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_AvailPackets(dhandle, channel, num);
+        record(NativeCall.AVAIL_PACKETS, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetPacket(AARTSAAPI_Device dhandle, int channel, int index, AARTSAAPI_Packet packet) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_GetPacket(dhandle, channel, index, packet);
+        record(NativeCall.GET_PACKET, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConsumePackets(AARTSAAPI_Device dhandle, int channel, int num) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConsumePackets(dhandle, channel, num);
+        record(NativeCall.CONSUME_PACKETS, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device dhandle, DoubleByReference stime) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_GetMasterStreamTime(dhandle, stime);
+        record(NativeCall.GET_MASTER_STREAM_TIME, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_SendPacket(AARTSAAPI_Device dhandle, int channel, AARTSAAPI_Packet packet) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_SendPacket(dhandle, channel, packet);
+        record(NativeCall.SEND_PACKET, start, res);
+        return res;
+    }
+
+    // --- Configuration ---
+
+    @Override
+    public int AARTSAAPI_ConfigRoot(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigRoot(dhandle, config);
+        record(NativeCall.CONFIG_ROOT, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigHealth(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigHealth(dhandle, config);
+        record(NativeCall.CONFIG_HEALTH, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFirst(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigFirst(dhandle, group, config);
+        record(NativeCall.CONFIG_FIRST, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigNext(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigNext(dhandle, group, config);
+        record(NativeCall.CONFIG_NEXT, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFind(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config, WString name) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigFind(dhandle, group, config, name);
+        record(NativeCall.CONFIG_FIND, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetName(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] name) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigGetName(dhandle, config, name);
+        record(NativeCall.CONFIG_GET_NAME, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, AARTSAAPI_ConfigInfo cinfo) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigGetInfo(dhandle, config, cinfo);
+        record(NativeCall.CONFIG_GET_INFO, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, double value) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigSetFloat(dhandle, config, value);
+        record(NativeCall.CONFIG_SET_FLOAT, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, DoubleByReference value) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigGetFloat(dhandle, config, value);
+        record(NativeCall.CONFIG_GET_FLOAT, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, WString value) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigSetString(dhandle, config, value);
+        record(NativeCall.CONFIG_SET_STRING, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] value, LongByReference size) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigGetString(dhandle, config, value, size);
+        record(NativeCall.CONFIG_GET_STRING, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, long value) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigSetInteger(dhandle, config, value);
+        record(NativeCall.CONFIG_SET_INTEGER, start, res);
+        return res;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, LongByReference value) {
+        long start = System.nanoTime();
+        int res = lib.AARTSAAPI_ConfigGetInteger(dhandle, config, value);
+        record(NativeCall.CONFIG_GET_INTEGER, start, res);
+        return res;
+    }
+}
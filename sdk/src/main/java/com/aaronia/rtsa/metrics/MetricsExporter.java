@@ -0,0 +1,28 @@
+package com.aaronia.rtsa.metrics;
+
+/**
+ * Receives the state of an {@link RtsaMetrics} registry, e.g. to forward it to a
+ * monitoring system. An export calls {@link #begin}, then {@link #call} for every
+ * native function that was called, {@link #channel} for every channel, and finally
+ * {@link #end}, all on one thread.
+ *
+ * @see RtsaMetrics#export(MetricsExporter)
+ * @see RtsaMetrics#schedule(MetricsExporter, long, java.util.concurrent.TimeUnit)
+ */
+public interface MetricsExporter {
+
+    /**
+     * Start of an export.
+     *
+     * @param timeMillis wall-clock time of the export
+     */
+    default void begin(long timeMillis) {
+    }
+
+    void call(CallMetrics call);
+
+    void channel(DeviceMetrics device, ChannelMetrics channel);
+
+    default void end() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.aaronia.rtsa.metrics;
+
+/**
+ * Functions of the native API, as measured by {@link MeteredLibrary}.
+ */
+public enum NativeCall {
+    INIT("Init"),
+    INIT_WITH_PATH("Init_With_Path"),
+    SHUTDOWN("Shutdown"),
+    VERSION("Version"),
+    OPEN("Open"),
+    CLOSE("Close"),
+    RESCAN_DEVICES("RescanDevices"),
+    RESET_DEVICES("ResetDevices"),
+    ENUM_DEVICE("EnumDevice"),
+    OPEN_DEVICE("OpenDevice"),
+    CLOSE_DEVICE("CloseDevice"),
+    CONNECT_DEVICE("ConnectDevice"),
+    DISCONNECT_DEVICE("DisconnectDevice"),
+    START_DEVICE("StartDevice"),
+    STOP_DEVICE("StopDevice"),
+    GET_DEVICE_STATE("GetDeviceState"),
+    AVAIL_PACKETS("AvailPackets"),
+    GET_PACKET("GetPacket"),
+    CONSUME_PACKETS("ConsumePackets"),
+    GET_MASTER_STREAM_TIME("GetMasterStreamTime"),
+    SEND_PACKET("SendPacket"),
+    CONFIG_ROOT("ConfigRoot"),
+    CONFIG_HEALTH("ConfigHealth"),
+    CONFIG_FIRST("ConfigFirst"),
+    CONFIG_NEXT("ConfigNext"),
+    CONFIG_FIND("ConfigFind"),
+    CONFIG_GET_NAME("ConfigGetName"),
+    CONFIG_GET_INFO("ConfigGetInfo"),
+    CONFIG_SET_FLOAT("ConfigSetFloat"),
+    CONFIG_GET_FLOAT("ConfigGetFloat"),
+    CONFIG_SET_STRING("ConfigSetString"),
+    CONFIG_GET_STRING("ConfigGetString"),
+    CONFIG_SET_INTEGER("ConfigSetInteger"),
+    CONFIG_GET_INTEGER("ConfigGetInteger");
+
+    private final String operation;
+
+    NativeCall(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Function name without the {@code AARTSAAPI_} prefix.
+     */
+    public String getOperation() {
+        return operation;
+    }
+}
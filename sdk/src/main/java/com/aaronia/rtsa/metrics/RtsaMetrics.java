@@ -0,0 +1,266 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of SDK metrics: latency histograms and call/error counts per native function,
+ * and traffic counters per device channel.
+ * <p>
+ * Metrics are collected only for an API initialized with an {@linkplain #instrument
+ * instrumented} library:
+ * <pre>
+ * RtsaMetrics metrics = new RtsaMetrics();
+ * try (RtsaApi api = RtsaApi.init(metrics.instrument(AaroniaRtsaLibrary.INSTANCE), MemorySize.MEDIUM)) {
+ *     metrics.registerMBeans();
+ *     ...
+ * }
+ * </pre>
+ * With {@code -Daaronia.rtsa.metrics=true}, {@link com.aaronia.rtsa.RtsaApi#init(int)} and
+ * {@link com.aaronia.rtsa.RtsaApi#initWithPath(int, String)} do this with the
+ * {@linkplain #getDefault() default registry}. Otherwise the plain library is called
+ * directly and devices skip all counting, so disabled metrics cost nothing.
+ * <p>
+ * Per-second rates are computed by a daemon timer that runs while MBeans are
+ * registered or an exporter is scheduled.
+ */
+public final class RtsaMetrics implements AutoCloseable {
+
+    /** Whether {@code aaronia.rtsa.metrics} is set to {@code true}. */
+    public static final boolean ENABLED = Boolean.getBoolean("aaronia.rtsa.metrics");
+
+    private static final String DOMAIN = "com.aaronia.rtsa";
+    private static final long RATE_INTERVAL_MILLIS = 1000;
+
+    private static RtsaMetrics defaultInstance;
+
+    private final CallMetrics[] calls;
+    private final ConcurrentHashMap<String, DeviceMetrics> devices = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final List<ScheduledFuture<?>> exports = new ArrayList<>();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> rateTask;
+    private boolean mbeans;
+
+    public RtsaMetrics() {
+        NativeCall[] values = NativeCall.values();
+        calls = new CallMetrics[values.length];
+        for (int i = 0; i < values.length; i++) {
+            calls[i] = new CallMetrics(values[i]);
+        }
+    }
+
+    /**
+     * The process-wide registry used when {@link #ENABLED}, with its MBeans registered.
+     */
+    public static synchronized RtsaMetrics getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new RtsaMetrics();
+            defaultInstance.registerMBeans();
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Wrap a library binding so that its calls are measured into this registry.
+     */
+    public AaroniaRtsaLibrary instrument(AaroniaRtsaLibrary lib) {
+        return new MeteredLibrary(lib, this);
+    }
+
+    // --- Access ---
+
+    public CallMetrics getCall(NativeCall call) {
+        return calls[call.ordinal()];
+    }
+
+    public List<CallMetrics> getCalls() {
+        return List.of(calls);
+    }
+
+    /**
+     * Metrics of a device, created on first use.
+     */
+    public DeviceMetrics device(String serialNumber) {
+        DeviceMetrics metrics = devices.get(serialNumber);
+        if (metrics != null) return metrics;
+        return devices.computeIfAbsent(serialNumber, s -> new DeviceMetrics(this, s));
+    }
+
+    public Collection<DeviceMetrics> getDevices() {
+        return Collections.unmodifiableCollection(devices.values());
+    }
+
+    // --- Export ---
+
+    /**
+     * Pass the current state to an exporter. Native functions that were never called
+     * are skipped.
+     */
+    public void export(MetricsExporter exporter) {
+        exporter.begin(System.currentTimeMillis());
+        for (CallMetrics call : calls) {
+            if (call.getCalls() > 0) exporter.call(call);
+        }
+        for (DeviceMetrics device : devices.values()) {
+            for (ChannelMetrics channel : device.getChannels()) {
+                exporter.channel(device, channel);
+            }
+        }
+        exporter.end();
+    }
+
+    /**
+     * Export periodically on the metrics timer thread. An exporter that throws is
+     * called again at the next period.
+     *
+     * @return closes the schedule
+     */
+    public synchronized AutoCloseable schedule(MetricsExporter exporter, long period, TimeUnit unit) {
+        ScheduledFuture<?> task = timer().scheduleAtFixedRate(() -> {
+            try {
+                export(exporter);
+            } catch (RuntimeException ignored) {
+            }
+        }, period, period, unit);
+        exports.add(task);
+        updateRateTimer();
+        return () -> {
+            synchronized (this) {
+                task.cancel(false);
+                if (exports.remove(task)) updateRateTimer();
+            }
+        };
+    }
+
+    // --- JMX ---
+
+    /**
+     * Register MBeans for every native function and every channel, including channels
+     * seen later, with the platform MBean server.
+     *
+     * @throws IllegalStateException if registration fails
+     */
+    public synchronized void registerMBeans() {
+        if (mbeans) return;
+        mbeans = true;
+        for (CallMetrics call : calls) {
+            register("type=NativeCall,name=" + call.getCall().getOperation(), call);
+        }
+        for (DeviceMetrics device : devices.values()) {
+            for (ChannelMetrics channel : device.channels()) {
+                register(channelName(device, channel), channel);
+            }
+        }
+        updateRateTimer();
+    }
+
+    public synchronized void unregisterMBeans() {
+        if (!mbeans) return;
+        mbeans = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (InstanceNotFoundException ignored) {
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot unregister " + name, e);
+            }
+        }
+        registered.clear();
+        updateRateTimer();
+    }
+
+    synchronized void added(DeviceMetrics device, ChannelMetrics channel) {
+        if (mbeans) register(channelName(device, channel), channel);
+    }
+
+    private void register(String properties, Object bean) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+            registered.add(name);
+        } catch (InstanceAlreadyExistsException ignored) {
+            // another registry owns the name
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + properties, e);
+        }
+    }
+
+    private static String channelName(DeviceMetrics device, ChannelMetrics channel) {
+        return "type=Channel,device=" + ObjectName.quote(device.getSerialNumber()) + ",channel=" + channel.getChannel();
+    }
+
+    // --- Rate timer ---
+
+    private ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "rtsa-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return timer;
+    }
+
+    private void updateRateTimer() {
+        boolean needed = mbeans || !exports.isEmpty();
+        if (needed && rateTask == null) {
+            rateTask = timer().scheduleAtFixedRate(this::updateRates, 0, RATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else if (!needed && rateTask != null) {
+            rateTask.cancel(false);
+            rateTask = null;
+        }
+    }
+
+    private void updateRates() {
+        long now = System.nanoTime();
+        for (DeviceMetrics device : devices.values()) {
+            for (ChannelMetrics channel : device.channels()) {
+                channel.updateRates(now);
+            }
+        }
+    }
+
+    /**
+     * Unregister the MBeans and stop the timer and all scheduled exports.
+     */
+    @Override
+    public synchronized void close() {
+        unregisterMBeans();
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+            rateTask = null;
+            exports.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RtsaMetrics{");
+        for (CallMetrics call : calls) {
+            if (call.getCalls() > 0) sb.append("\n  ").append(call);
+        }
+        for (DeviceMetrics device : devices.values()) {
+            sb.append("\n  ").append(device);
+        }
+        return sb.append("\n}").toString();
+    }
+}
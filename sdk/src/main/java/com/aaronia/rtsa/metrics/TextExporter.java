@@ -0,0 +1,41 @@
+package com.aaronia.rtsa.metrics;
+
+import java.io.PrintStream;
+import java.time.Instant;
+
+/**
+ * Writes metrics as one line per native function and per channel, e.g. for logs.
+ */
+public final class TextExporter implements MetricsExporter {
+
+    private final PrintStream out;
+
+    public TextExporter(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(long timeMillis) {
+        out.println("rtsa metrics " + Instant.ofEpochMilli(timeMillis));
+    }
+
+    @Override
+    public void call(CallMetrics call) {
+        out.println("  " + call);
+    }
+
+    @Override
+    public void channel(DeviceMetrics device, ChannelMetrics channel) {
+        out.printf("  %s/%d: %.0f packets/s %.1f MB/s packets=%d dropped=%d overflow=%d discontinuities=%d " +
+                   "queue=%d max=%d sent=%d%n",
+            device.getSerialNumber(), channel.getChannel(), channel.getPacketsPerSecond(),
+            channel.getBytesPerSecond() / 1e6, channel.getPackets(), channel.getDroppedWarnings(),
+            channel.getOverflowWarnings(), channel.getTimeDiscontinuities(), channel.getQueueDepth(),
+            channel.getMaxQueueDepth(), channel.getSentPackets());
+    }
+
+    @Override
+    public void end() {
+        out.flush();
+    }
+}
@@ -0,0 +1,119 @@
+package com.aaronia.rtsa.native_;
+
+import com.sun.jna.Structure;
+
+/**
+ * JNA mapping of AARTSAAPI_ConfigInfo.
+ */
+@Structure.FieldOrder({
+    "cbsize", "name", "title", "type",
+    "minValue", "maxValue", "stepValue",
+    "unit", "options", "disabledOptions"
+})
+public class AARTSAAPI_ConfigInfo extends Structure {
+    public long cbsize;
+    public char[] name = new char[80];
+    public char[] title = new char[120];
+    public int type;
+    public double minValue;
+    public double maxValue;
+    public double stepValue;
+    public char[] unit = new char[10];
+    public char[] options = new char[1000];
+    public long disabledOptions;
+
+    private static final Offsets OFFSETS = new Offsets(new AARTSAAPI_ConfigInfo());
+
+    public AARTSAAPI_ConfigInfo() {
+        super(ALIGN_DEFAULT);
+        cbsize = size();
+    }
+
+    /**
+     * Prepare this structure to be filled by a native call without JNA's reflective
+     * structure synchronization; fields are then decoded on demand with the
+     * {@code read*} methods. Only {@code cbsize} is written.
+     */
+    public void prepareLazy() {
+        setAutoSynch(false);
+        getPointer().setLong(OFFSETS.cbsize, cbsize);
+    }
+
+    public String readName() {
+        return readChars(OFFSETS.name, name.length);
+    }
+
+    public String readTitle() {
+        return readChars(OFFSETS.title, title.length);
+    }
+
+    public int readType() {
+        return getPointer().getInt(OFFSETS.type);
+    }
+
+    public double readMinValue() {
+        return getPointer().getDouble(OFFSETS.minValue);
+    }
+
+    public double readMaxValue() {
+        return getPointer().getDouble(OFFSETS.maxValue);
+    }
+
+    public double readStepValue() {
+        return getPointer().getDouble(OFFSETS.stepValue);
+    }
+
+    public String readUnit() {
+        return readChars(OFFSETS.unit, unit.length);
+    }
+
+    public String readOptions() {
+        return readChars(OFFSETS.options, options.length);
+    }
+
+    public long readDisabledOptions() {
+        return getPointer().getLong(OFFSETS.disabledOptions);
+    }
+
+    private String readChars(long offset, int length) {
+        char[] chars = getPointer().getCharArray(offset, length);
+        int n = 0;
+        while (n < length && chars[n] != 0) n++;
+        return new String(chars, 0, n).trim();
+    }
+
+    public String getName() {
+        return new String(name).trim().replace("\0", "");
+    }
+
+    public String getTitle() {
+        return new String(title).trim().replace("\0", "");
+    }
+
+    public String getUnit() {
+        return new String(unit).trim().replace("\0", "");
+    }
+
+    public String getOptions() {
+        return new String(options).trim().replace("\0", "");
+    }
+
+    private static final class Offsets {
+        final long cbsize, name, title, type, minValue, maxValue, stepValue, unit, options, disabledOptions;
+
+        Offsets(AARTSAAPI_ConfigInfo i) {
+            cbsize = i.fieldOffset("cbsize");
+            name = i.fieldOffset("name");
+            title = i.fieldOffset("title");
+            type = i.fieldOffset("type");
+            minValue = i.fieldOffset("minValue");
+            maxValue = i.fieldOffset("maxValue");
+            stepValue = i.fieldOffset("stepValue");
+            unit = i.fieldOffset("unit");
+            options = i.fieldOffset("options");
+            disabledOptions = i.fieldOffset("disabledOptions");
+        }
+    }
+
+    public static class ByReference extends AARTSAAPI_ConfigInfo implements Structure.ByReference {}
+}
@@ -0,0 +1,207 @@
+package com.aaronia.rtsa.native_;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * JNA mapping of AARTSAAPI_Packet.
+ * <p>
+ * <p>
+ * The cbsize field must be set to the structure size before use.
+ */
+@Structure.FieldOrder({
+    "cbsize", "streamID", "flags",
+    "startTime", "endTime", "startFrequency", "stepFrequency",
+    "spanFrequency", "rbwFrequency",
+    "num", "total", "size", "stride", "fp32", "interleave"
+})
+public class AARTSAAPI_Packet extends Structure {
+    public long cbsize;
+    public long streamID;
+    public long flags;
+
+    public double startTime;
+    public double endTime;
+    public double startFrequency;
+    public double stepFrequency;
+    public double spanFrequency;
+    public double rbwFrequency;
+
+    public long num;
+    public long total;
+    public long size;
+    public long stride;
+    public Pointer fp32;
+
+    public long interleave;
+
+    private static final Offsets OFFSETS = new Offsets(new AARTSAAPI_Packet());
+
+    private Pointer rxPayload;
+
+    public AARTSAAPI_Packet() {
+        super();
+        cbsize = size();
+    }
+
+    /**
+     * Prepare this packet to be filled by a native receive call without JNA's
+     * reflective structure synchronization. Only {@code cbsize} is written.
+     * <p>
+     * Must be followed by {@link #readReceived()} or, if the call did not fill the
+     * packet, {@link #cancelReceive()}; both restore automatic synchronization so the
+     * holder can be passed to other calls such as {@code SendPacket} afterwards.
+     */
+    public void prepareReceive() {
+        setAutoSynch(false);
+        getPointer().setLong(OFFSETS.cbsize, cbsize);
+    }
+
+    /**
+     * End a receive prepared with {@link #prepareReceive()} that did not fill the packet.
+     */
+    public void cancelReceive() {
+        setAutoSynch(true);
+    }
+
+    /**
+     * Copy the native fields after a receive call prepared with {@link #prepareReceive()}.
+     * Reads each field directly from native memory without boxing and reuses a
+     * single payload pointer object across calls.
+     */
+    public void readReceived() {
+        Pointer p = getPointer();
+        streamID = p.getLong(OFFSETS.streamID);
+        flags = p.getLong(OFFSETS.flags);
+        startTime = p.getDouble(OFFSETS.startTime);
+        endTime = p.getDouble(OFFSETS.endTime);
+        startFrequency = p.getDouble(OFFSETS.startFrequency);
+        stepFrequency = p.getDouble(OFFSETS.stepFrequency);
+        spanFrequency = p.getDouble(OFFSETS.spanFrequency);
+        rbwFrequency = p.getDouble(OFFSETS.rbwFrequency);
+        num = p.getLong(OFFSETS.num);
+        total = p.getLong(OFFSETS.total);
+        size = p.getLong(OFFSETS.size);
+        stride = p.getLong(OFFSETS.stride);
+        interleave = p.getLong(OFFSETS.interleave);
+
+        long address = Native.POINTER_SIZE == 8 ? p.getLong(OFFSETS.fp32) : p.getInt(OFFSETS.fp32);
+        if (address == 0) {
+            fp32 = null;
+        } else {
+            if (rxPayload == null) rxPayload = new Pointer(address);
+            else Pointer.nativeValue(rxPayload, address);
+            fp32 = rxPayload;
+        }
+        setAutoSynch(true);
+    }
+
+    /**
+     * Write all fields except {@code cbsize} to native memory the way a native receive
+     * call fills the structure; the inverse of {@link #readReceived()}. Used by
+     * in-process library implementations such as the simulator.
+     */
+    public void writeReceived() {
+        Pointer p = getPointer();
+        p.setLong(OFFSETS.streamID, streamID);
+        p.setLong(OFFSETS.flags, flags);
+        p.setDouble(OFFSETS.startTime, startTime);
+        p.setDouble(OFFSETS.endTime, endTime);
+        p.setDouble(OFFSETS.startFrequency, startFrequency);
+        p.setDouble(OFFSETS.stepFrequency, stepFrequency);
+        p.setDouble(OFFSETS.spanFrequency, spanFrequency);
+        p.setDouble(OFFSETS.rbwFrequency, rbwFrequency);
+        p.setLong(OFFSETS.num, num);
+        p.setLong(OFFSETS.total, total);
+        p.setLong(OFFSETS.size, size);
+        p.setLong(OFFSETS.stride, stride);
+        p.setPointer(OFFSETS.fp32, fp32);
+        p.setLong(OFFSETS.interleave, interleave);
+    }
+
+    /**
+     * Read float samples from the native fp32 pointer.
+     *
+     * @param offset sample offset (in floats)
+     * @param count  number of floats to read
+     * @return float array
+     */
+    public float[] readFloats(int offset, int count) {
+        if (fp32 == null) return new float[0];
+        return fp32.getFloatArray((long) offset * Float.BYTES, count);
+    }
+
+    /**
+     * Copy all metadata fields except {@code cbsize} and {@code fp32} from another packet.
+     */
+    public void copyHeaderFrom(AARTSAAPI_Packet src) {
+        streamID = src.streamID;
+        flags = src.flags;
+        startTime = src.startTime;
+        endTime = src.endTime;
+        startFrequency = src.startFrequency;
+        stepFrequency = src.stepFrequency;
+        spanFrequency = src.spanFrequency;
+        rbwFrequency = src.rbwFrequency;
+        num = src.num;
+        total = src.total;
+        size = src.size;
+        stride = src.stride;
+        interleave = src.interleave;
+    }
+
+    /**
+     * Number of floats spanned by the payload: {@code (num - 1) * stride + size}.
+     */
+    public long payloadFloats() {
+        if (fp32 == null || num <= 0) return 0;
+        return (num - 1) * stride + size;
+    }
+
+    /**
+     * Create a read-only view of float samples directly over the native fp32 buffer.
+     * No data is copied; the view is only valid while the packet is held in the
+     * native queue, i.e. until it is consumed.
+     *
+     * @param offset sample offset (in floats)
+     * @param count  number of floats to map
+     * @return read-only float buffer in native byte order
+     */
+    public FloatBuffer floatView(int offset, int count) {
+        if (fp32 == null) return FloatBuffer.allocate(0).asReadOnlyBuffer();
+        return fp32.getByteBuffer((long) offset * Float.BYTES, (long) count * Float.BYTES)
+            .order(ByteOrder.nativeOrder())
+            .asFloatBuffer()
+            .asReadOnlyBuffer();
+    }
+
+    private static final class Offsets {
+        final long cbsize, streamID, flags;
+        final long startTime, endTime, startFrequency, stepFrequency, spanFrequency, rbwFrequency;
+        final long num, total, size, stride, fp32, interleave;
+
+        Offsets(AARTSAAPI_Packet p) {
+            cbsize = p.fieldOffset("cbsize");
+            streamID = p.fieldOffset("streamID");
+            flags = p.fieldOffset("flags");
+            startTime = p.fieldOffset("startTime");
+            endTime = p.fieldOffset("endTime");
+            startFrequency = p.fieldOffset("startFrequency");
+            stepFrequency = p.fieldOffset("stepFrequency");
+            spanFrequency = p.fieldOffset("spanFrequency");
+            rbwFrequency = p.fieldOffset("rbwFrequency");
+            num = p.fieldOffset("num");
+            total = p.fieldOffset("total");
+            size = p.fieldOffset("size");
+            stride = p.fieldOffset("stride");
+            fp32 = p.fieldOffset("fp32");
+            interleave = p.fieldOffset("interleave");
+        }
+    }
+
+    public static class ByReference extends AARTSAAPI_Packet implements Structure.ByReference {}
+}
@@ -0,0 +1,126 @@
+package com.aaronia.rtsa.native_;
+
+import com.sun.jna.Native;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+
+/**
+ * JNA direct-mapped binding of the Aaronia RTSA API native library.
+ * <p>
+ * Functions are bound once with {@link Native#register(Class, String)} and invoked as
+ * regular native methods, avoiding the reflective proxy dispatch of the interface
+ * mapping returned by {@link Native#load(String, Class)}. Argument conversion follows
+ * the same rules, so structures, {@link WString} and by-reference cells behave identically.
+ * <p>
+ * Obtain via {@link #load(String)}. The native methods belong to the class, so they
+ * are registered once per class loader and against one library only.
+ */
+public final class AaroniaRtsaDirect implements AaroniaRtsaLibrary {
+
+    private static AaroniaRtsaDirect instance;
+    private static String libraryName;
+
+    private AaroniaRtsaDirect() {}
+
+    /**
+     * Register the native methods against the given library and return the binding.
+     *
+     * @param libraryName native library name, e.g. {@code AaroniaRTSAAPI}
+     * @return the direct-mapped library
+     * @throws UnsatisfiedLinkError  if the library or one of its functions cannot be found
+     * @throws IllegalStateException if the methods are already registered against another library
+     */
+    public static synchronized AaroniaRtsaDirect load(String libraryName) {
+        if (instance == null) {
+            Native.register(AaroniaRtsaDirect.class, libraryName);
+            instance = new AaroniaRtsaDirect();
+            AaroniaRtsaDirect.libraryName = libraryName;
+        } else if (!AaroniaRtsaDirect.libraryName.equals(libraryName)) {
+            throw new IllegalStateException("Direct binding already registered against "
+                    + AaroniaRtsaDirect.libraryName + ", cannot load " + libraryName);
+        }
+        return instance;
+    }
+
+    // --- Lifecycle ---
+
+    @Override public native int AARTSAAPI_Init(int memory);
+
+    @Override public native int AARTSAAPI_Init_With_Path(int memory, WString pathXmlLocation);
+
+    @Override public native int AARTSAAPI_Shutdown();
+
+    @Override public native int AARTSAAPI_Version();
+
+    // --- Handle management ---
+
+    @Override public native int AARTSAAPI_Open(AARTSAAPI_Handle handle);
+
+    @Override public native int AARTSAAPI_Close(AARTSAAPI_Handle handle);
+
+    // --- Device discovery ---
+
+    @Override public native int AARTSAAPI_RescanDevices(AARTSAAPI_Handle handle, int timeout);
+
+    @Override public native int AARTSAAPI_ResetDevices(AARTSAAPI_Handle handle);
+
+    @Override public native int AARTSAAPI_EnumDevice(AARTSAAPI_Handle handle, WString type, int index, AARTSAAPI_DeviceInfo dinfo);
+
+    // --- Device management ---
+
+    @Override public native int AARTSAAPI_OpenDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle, WString type, WString serialNumber);
+
+    @Override public native int AARTSAAPI_CloseDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle);
+
+    @Override public native int AARTSAAPI_ConnectDevice(AARTSAAPI_Device dhandle);
+
+    @Override public native int AARTSAAPI_DisconnectDevice(AARTSAAPI_Device dhandle);
+
+    @Override public native int AARTSAAPI_StartDevice(AARTSAAPI_Device dhandle);
+
+    @Override public native int AARTSAAPI_StopDevice(AARTSAAPI_Device dhandle);
+
+    @Override public native int AARTSAAPI_GetDeviceState(AARTSAAPI_Device dhandle);
+
+    // --- Data packets ---
+
+    @Override public native int AARTSAAPI_AvailPackets(AARTSAAPI_Device dhandle, int channel, IntByReference num);
+
+    @Override public native int AARTSAAPI_GetPacket(AARTSAAPI_Device dhandle, int channel, int index, AARTSAAPI_Packet packet);
+
+    @Override public native int AARTSAAPI_ConsumePackets(AARTSAAPI_Device dhandle, int channel, int num);
+
+    @Override public native int AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device dhandle, DoubleByReference stime);
+
+    @Override public native int AARTSAAPI_SendPacket(AARTSAAPI_Device dhandle, int channel, AARTSAAPI_Packet packet);
+
+    // --- Configuration ---
+
+    @Override public native int AARTSAAPI_ConfigRoot(AARTSAAPI_Device dhandle, AARTSAAPI_Config config);
+
+    @Override public native int AARTSAAPI_ConfigHealth(AARTSAAPI_Device dhandle, AARTSAAPI_Config config);
+
+    @Override public native int AARTSAAPI_ConfigFirst(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config);
+
+    @Override public native int AARTSAAPI_ConfigNext(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config);
+
+    @Override public native int AARTSAAPI_ConfigFind(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config, WString name);
+
+    @Override public native int AARTSAAPI_ConfigGetName(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] name);
+
+    @Override public native int AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, AARTSAAPI_ConfigInfo cinfo);
+
+    @Override public native int AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, double value);
+
+    @Override public native int AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, DoubleByReference value);
+
+    @Override public native int AARTSAAPI_ConfigSetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, WString value);
+
+    @Override public native int AARTSAAPI_ConfigGetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] value, LongByReference size);
+
+    @Override public native int AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, long value);
+
+    @Override public native int AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, LongByReference value);
+}
@@ -7,6 +7,8 @@ import com.sun.jna.ptr.DoubleByReference;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.LongByReference;
 
+import java.util.ServiceLoader;
+
 /**
  * JNA interface mapping all functions from the Aaronia RTSA API native library.
  * <p>
@@ -15,12 +17,47 @@ import com.sun.jna.ptr.LongByReference;
  * <p>
  * Set system property {@code aaronia.rtsa.library} to override the library name,
  * or {@code jna.library.path} to add the directory containing the library.
+ * <p>
+ * Set system property {@code aaronia.rtsa.backend} to choose the binding:
+ * {@code direct} (default) uses {@link AaroniaRtsaDirect} and falls back to the
+ * interface mapping if the library cannot be registered; {@code jna} always uses
+ * the reflective interface mapping. Other names are looked up among the
+ * {@link LibraryProvider}s on the class path; the SDK provides {@code sim}, which loads
+ * no native library and uses an in-process {@code com.aaronia.rtsa.sim.RtsaSimulator}
+ * configured from the {@code aaronia.rtsa.sim.*} properties.
  */
 public interface AaroniaRtsaLibrary extends Library {
 
     String LIB_NAME = System.getProperty("aaronia.rtsa.library", "AaroniaRTSAAPI");
 
-    AaroniaRtsaLibrary INSTANCE = Native.load(LIB_NAME, AaroniaRtsaLibrary.class);
+    String BACKEND = System.getProperty("aaronia.rtsa.backend", "direct");
+
+    AaroniaRtsaLibrary INSTANCE = load(LIB_NAME, BACKEND);
+
+    /**
+     * Load the native library with the given binding backend.
+     *
+     * @param libraryName native library name
+     * @param backend     {@code direct}, {@code jna} or the name of a {@link LibraryProvider}
+     * @return the bound library
+     */
+    static AaroniaRtsaLibrary load(String libraryName, String backend) {
+        switch (backend) {
+            case "direct":
+                try {
+                    return AaroniaRtsaDirect.load(libraryName);
+                } catch (UnsatisfiedLinkError e) {
+                    return Native.load(libraryName, AaroniaRtsaLibrary.class);
+                }
+            case "jna":
+                return Native.load(libraryName, AaroniaRtsaLibrary.class);
+            default:
+                for (LibraryProvider provider : ServiceLoader.load(LibraryProvider.class, AaroniaRtsaLibrary.class.getClassLoader())) {
+                    if (provider.name().equals(backend)) return provider.create(libraryName);
+                }
+                throw new IllegalArgumentException("Unknown aaronia.rtsa.backend: " + backend);
+        }
+    }
 
     // --- Lifecycle ---
 
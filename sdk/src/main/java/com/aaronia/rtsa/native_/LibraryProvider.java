@@ -0,0 +1,24 @@
+package com.aaronia.rtsa.native_;
+
+/**
+ * Binding selectable with {@code aaronia.rtsa.backend} besides the built-in {@code direct}
+ * and {@code jna} ones, e.g. the simulator.
+ * <p>
+ * Providers are found with {@link java.util.ServiceLoader} and registered in
+ * {@code META-INF/services/com.aaronia.rtsa.native_.LibraryProvider}, so this package
+ * does not depend on the packages implementing them.
+ */
+public interface LibraryProvider {
+
+    /**
+     * Backend name matched against {@code aaronia.rtsa.backend}.
+     */
+    String name();
+
+    /**
+     * Create the binding.
+     *
+     * @param libraryName native library name, for providers that load one
+     */
+    AaroniaRtsaLibrary create(String libraryName);
+}
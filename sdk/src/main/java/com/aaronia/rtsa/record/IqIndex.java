@@ -0,0 +1,82 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * Layout of the per-packet index sidecar written next to a recording.
+ * <p>
+ * The sidecar is a 32-byte header followed by one fixed-size little-endian record per
+ * packet, so record {@code i} is at {@code HEADER_BYTES + i * RECORD_BYTES}. Records
+ * hold the packet header and the byte offset of its payload in the data file, where
+ * samples are stored as {@code size} floats each with no stride gaps.
+ */
+final class IqIndex {
+
+    static final int MAGIC = 0x52544951; // "RTIQ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 96;
+    static final String SUFFIX = ".idx";
+
+    // Record field offsets
+    static final int OFFSET = 0;
+    static final int NUM = 8;
+    static final int SIZE = 16;
+    static final int TOTAL = 24;
+    static final int FLAGS = 32;
+    static final int STREAM_ID = 40;
+    static final int START_TIME = 48;
+    static final int END_TIME = 56;
+    static final int START_FREQUENCY = 64;
+    static final int STEP_FREQUENCY = 72;
+    static final int SPAN_FREQUENCY = 80;
+    static final int RBW_FREQUENCY = 88;
+
+    private IqIndex() {}
+
+    static Path indexFile(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Header: magic, version, record size, data byte order (0 little, 1 big endian).
+     */
+    static void putHeader(ByteBuffer b, ByteOrder dataOrder) {
+        b.putInt(MAGIC);
+        b.putInt(VERSION);
+        b.putInt(RECORD_BYTES);
+        b.putInt(dataOrder == ByteOrder.BIG_ENDIAN ? 1 : 0);
+        while (b.position() < HEADER_BYTES) b.put((byte) 0);
+    }
+
+    /**
+     * Validate a header and return the data byte order.
+     */
+    static ByteOrder readHeader(ByteBuffer b) throws IOException {
+        if (b.remaining() < HEADER_BYTES || b.getInt(0) != MAGIC) throw new IOException("Not an IQ recording index");
+        int version = b.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported IQ recording index version: " + version);
+        if (b.getInt(8) != RECORD_BYTES) throw new IOException("Unexpected index record size: " + b.getInt(8));
+        return b.getInt(12) == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    static void putRecord(ByteBuffer b, AARTSAAPI_Packet p, long offset) {
+        b.putLong(offset);
+        b.putLong(p.num);
+        b.putLong(p.size);
+        b.putLong(p.total);
+        b.putLong(p.flags);
+        b.putLong(p.streamID);
+        b.putDouble(p.startTime);
+        b.putDouble(p.endTime);
+        b.putDouble(p.startFrequency);
+        b.putDouble(p.stepFrequency);
+        b.putDouble(p.spanFrequency);
+        b.putDouble(p.rbwFrequency);
+    }
+}
@@ -0,0 +1,342 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random-access playback of a recording made with {@link IqRecorder}.
+ * <p>
+ * The index sidecar and the data file are memory-mapped read-only. {@link #seek(double)}
+ * finds the packet covering a time by binary search over the recorded {@code startTime}
+ * values, so its cost grows with the log of the packet count only. {@link #next()} then
+ * streams packets from that point in one reusable {@link AARTSAAPI_Packet} whose
+ * {@code fp32} points straight into the mapped data; only a packet that straddles two
+ * mapping windows is copied, into a buffer reused by the next straddling packet.
+ * Once playback moves to another window, the player drops its references to all
+ * mappings except that window and the one after it. They are unmapped when they become
+ * unreachable, so a long recording played through does not keep every window mapped.
+ * <p>
+ * Times can be re-based with {@link #rebase(double)}, e.g. onto the device's stream time
+ * before passing the packets to {@link com.aaronia.rtsa.RtsaDevice#sendPacket}. The first
+ * packet after a seek is flagged {@link PacketFlags#SEGMENT_START}.
+ * <p>
+ * Packets are only valid until the next call and must not be used after the player is
+ * closed. Not thread-safe.
+ */
+public final class IqPlayer implements AutoCloseable {
+
+    /** Default size of each data mapping window: 1 GiB. */
+    public static final long DEFAULT_WINDOW_BYTES = 1L << 30;
+
+    private final Path dataFile;
+    private final long windowBytes;
+    private final FileChannel data;
+    private final ByteBuffer index;
+    private final int count;
+    private final long dataBytes;
+    private final MappedByteBuffer[] windows;
+    private final long[] windowAddress;
+    /** Window of the last payload; the windows around it stay mapped. */
+    private int currentWindow = -1;
+
+    private final AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+    private final Pointer payload = new Pointer(0);
+    private Memory straddle;
+    /** View of {@code straddle}, made when it is allocated. */
+    private ByteBuffer straddleBuffer;
+
+    private int cursor;
+    /** Samples of the packet at {@code cursor} to skip, set by a seek inside a packet. */
+    private long skip;
+    private boolean segmentStart = true;
+    private double timeOffset;
+
+    private IqPlayer(Path dataFile, long windowBytes) throws IOException {
+        if (windowBytes <= 0 || windowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowBytes: " + windowBytes);
+        }
+        this.dataFile = dataFile;
+        this.windowBytes = windowBytes;
+        try (FileChannel idx = FileChannel.open(IqIndex.indexFile(dataFile), StandardOpenOption.READ)) {
+            long size = idx.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Index too large: " + size);
+            this.index = idx.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (IqIndex.readHeader(index) != ByteOrder.nativeOrder()) {
+            throw new IOException("Recording byte order differs from this platform");
+        }
+        this.count = (index.capacity() - IqIndex.HEADER_BYTES) / IqIndex.RECORD_BYTES;
+
+        this.data = FileChannel.open(dataFile, StandardOpenOption.READ);
+        long end = 0;
+        if (count > 0) {
+            long last = record(count - 1);
+            end = index.getLong((int) last + IqIndex.OFFSET) + payloadBytes(last);
+        }
+        if (data.size() < end) {
+            data.close();
+            throw new IOException("Data file shorter than its index: " + data.size() + " < " + end);
+        }
+        this.dataBytes = end;
+        int n = (int) ((end + windowBytes - 1) / windowBytes);
+        this.windows = new MappedByteBuffer[n];
+        this.windowAddress = new long[n];
+    }
+
+    /**
+     * Open a recording and its index sidecar.
+     */
+    public static IqPlayer open(Path dataFile) throws IOException {
+        return new IqPlayer(dataFile, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Open a recording, mapping its data in windows of the given size.
+     */
+    public static IqPlayer open(Path dataFile, long windowBytes) throws IOException {
+        return new IqPlayer(dataFile, windowBytes);
+    }
+
+    // --- Index ---
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    /** Number of recorded packets. */
+    public int getPacketCount() {
+        return count;
+    }
+
+    /** Payload bytes in the recording. */
+    public long getDataBytes() {
+        return dataBytes;
+    }
+
+    /** Recorded start time of the first packet. */
+    public double getStartTime() {
+        return count == 0 ? 0 : startTime(0);
+    }
+
+    /** Recorded end time of the last packet. */
+    public double getEndTime() {
+        return count == 0 ? 0 : index.getDouble((int) record(count - 1) + IqIndex.END_TIME);
+    }
+
+    /**
+     * Index of the last packet whose recorded start time is at or before {@code time},
+     * or 0 if {@code time} precedes the recording.
+     */
+    public int indexOf(double time) {
+        int lo = 0, hi = count - 1, found = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startTime(mid) <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long record(int i) {
+        return IqIndex.HEADER_BYTES + (long) i * IqIndex.RECORD_BYTES;
+    }
+
+    private double startTime(int i) {
+        return index.getDouble((int) record(i) + IqIndex.START_TIME);
+    }
+
+    private long payloadBytes(long record) {
+        return index.getLong((int) record + IqIndex.NUM) * index.getLong((int) record + IqIndex.SIZE) * Float.BYTES;
+    }
+
+    // --- Positioning ---
+
+    /**
+     * Position playback at the sample nearest to a recorded time. The next packet starts
+     * there, trimmed if the time falls inside a packet.
+     */
+    public void seek(double time) {
+        int i = indexOf(time);
+        seekPacket(i);
+        if (count == 0) return;
+        int r = (int) record(i);
+        double start = index.getDouble(r + IqIndex.START_TIME);
+        double end = index.getDouble(r + IqIndex.END_TIME);
+        long num = index.getLong(r + IqIndex.NUM);
+        if (time > start && end > start && num > 1) {
+            skip = Math.min(num - 1, Math.round((time - start) * num / (end - start)));
+        }
+    }
+
+    /**
+     * Position playback at the start of a packet.
+     */
+    public void seekPacket(int packetIndex) {
+        if (packetIndex < 0 || packetIndex > count) throw new IndexOutOfBoundsException("packet " + packetIndex);
+        cursor = packetIndex;
+        skip = 0;
+        segmentStart = true;
+    }
+
+    /** Index of the packet {@link #next()} returns next. */
+    public int position() {
+        return cursor;
+    }
+
+    /**
+     * Shift output times so that the next packet starts at {@code streamTime}.
+     */
+    public void rebase(double streamTime) {
+        if (cursor >= count) return;
+        int r = (int) record(cursor);
+        double start = index.getDouble(r + IqIndex.START_TIME);
+        double end = index.getDouble(r + IqIndex.END_TIME);
+        long num = index.getLong(r + IqIndex.NUM);
+        double first = num > 0 ? start + skip * (end - start) / num : start;
+        timeOffset = streamTime - first;
+    }
+
+    /**
+     * Remove any re-basing; output times are the recorded ones.
+     */
+    public void clearRebase() {
+        timeOffset = 0;
+    }
+
+    // --- Playback ---
+
+    /**
+     * Next packet of the recording.
+     *
+     * @return the reusable packet, valid until the next call, or null at the end
+     */
+    public AARTSAAPI_Packet next() throws IOException {
+        if (cursor >= count) return null;
+        int r = (int) record(cursor);
+        long offset = index.getLong(r + IqIndex.OFFSET);
+        long num = index.getLong(r + IqIndex.NUM);
+        long size = index.getLong(r + IqIndex.SIZE);
+        double start = index.getDouble(r + IqIndex.START_TIME);
+        double end = index.getDouble(r + IqIndex.END_TIME);
+
+        packet.streamID = index.getLong(r + IqIndex.STREAM_ID);
+        packet.flags = index.getLong(r + IqIndex.FLAGS) | (segmentStart ? PacketFlags.SEGMENT_START : 0);
+        packet.startFrequency = index.getDouble(r + IqIndex.START_FREQUENCY);
+        packet.stepFrequency = index.getDouble(r + IqIndex.STEP_FREQUENCY);
+        packet.spanFrequency = index.getDouble(r + IqIndex.SPAN_FREQUENCY);
+        packet.rbwFrequency = index.getDouble(r + IqIndex.RBW_FREQUENCY);
+        packet.total = index.getLong(r + IqIndex.TOTAL);
+        packet.size = size;
+        packet.stride = size;
+
+        long first = skip;
+        packet.num = num - first;
+        packet.startTime = (num > 0 ? start + first * (end - start) / num : start) + timeOffset;
+        packet.endTime = end + timeOffset;
+        packet.fp32 = packet.num > 0 && size > 0
+            ? payload(offset + first * size * Float.BYTES, packet.num * size * Float.BYTES)
+            : null;
+
+        cursor++;
+        skip = 0;
+        segmentStart = false;
+        return packet;
+    }
+
+    /**
+     * Pointer to {@code bytes} of data at {@code offset}: into the mapping when the range
+     * lies within one window, otherwise a copy. The copy is an absolute bulk put from
+     * each window's mapping into the straddle buffer, so it creates no views.
+     */
+    private Pointer payload(long offset, long bytes) throws IOException {
+        int w = (int) (offset / windowBytes);
+        if (w != currentWindow) retain(w);
+        long within = offset - w * windowBytes;
+        if (within + bytes <= windowBytes) {
+            Pointer.nativeValue(payload, window(w) + within);
+            return payload;
+        }
+
+        if (straddle == null || straddle.size() < bytes) {
+            if (straddle != null) straddle.close();
+            straddle = new Memory(bytes);
+            straddleBuffer = straddle.getByteBuffer(0, bytes);
+        }
+        int done = 0;
+        while (done < bytes) {
+            long at = offset + done;
+            int win = (int) (at / windowBytes);
+            window(win);
+            int from = (int) (at - win * windowBytes);
+            int n = (int) Math.min(bytes - done, windowBytes - from);
+            straddleBuffer.put(done, windows[win], from, n);
+            done += n;
+        }
+        return straddle;
+    }
+
+    /**
+     * Drop the mappings other than window {@code w} and the one after it, which a
+     * straddling packet or the next packets are likely to need.
+     */
+    private void retain(int w) {
+        for (int i = 0; i < windows.length; i++) {
+            if (i != w && i != w + 1 && windows[i] != null) {
+                windows[i] = null;
+                windowAddress[i] = 0;
+            }
+        }
+        currentWindow = w;
+    }
+
+    /** Windows currently mapped. */
+    int mappedWindows() {
+        int n = 0;
+        for (MappedByteBuffer window : windows) {
+            if (window != null) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Native address of a mapping window, mapped on first use.
+     */
+    private long window(int w) throws IOException {
+        if (windows[w] == null) {
+            long start = w * windowBytes;
+            long size = Math.min(windowBytes, dataBytes - start);
+            windows[w] = data.map(FileChannel.MapMode.READ_ONLY, start, size);
+            windowAddress[w] = Pointer.nativeValue(Native.getDirectBufferPointer(windows[w]));
+        }
+        return windowAddress[w];
+    }
+
+    /**
+     * Close the data file. Mappings are released once unreachable; packets returned by
+     * this player must no longer be used.
+     */
+    @Override
+    public void close() throws IOException {
+        if (straddle != null) {
+            straddle.close();
+            straddle = null;
+            straddleBuffer = null;
+        }
+        data.close();
+    }
+}
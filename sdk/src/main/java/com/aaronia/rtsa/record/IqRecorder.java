@@ -0,0 +1,230 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records packet payloads to disk through memory-mapped segments.
+ * <p>
+ * The data file is written through fixed-size memory-mapped segments. Payloads are
+ * read from the native {@code fp32} buffer in chunks into one reused array and
+ * bulk-put into the mapping, so recording creates no buffers per packet. A segment is
+ * mapped when the previous one is full, which extends the file by a whole segment at
+ * a time; the full segment is forced to storage first, so a crash loses at most the
+ * current segment and the unflushed index records. A sidecar index
+ * ({@code <data>.idx}) receives one fixed-size record per packet with its times,
+ * frequencies, flags and data offset, so that readers can seek by time.
+ * <p>
+ * Samples are stored in native byte order as {@code size} floats each; payloads with
+ * a stride larger than their size are compacted in the array before the put. On close
+ * the data file is truncated to the recorded length; where the platform refuses to
+ * truncate a mapped file the padding is left and the index still gives the length.
+ * <p>
+ * Not thread-safe; write from one thread.
+ */
+public final class IqRecorder implements AutoCloseable {
+
+    /** Default size of each mapped data segment: 64 MiB. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    private static final int INDEX_BATCH = 512;
+    /** Floats read per native copy. */
+    private static final int CHUNK_FLOATS = 8192;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final long segmentBytes;
+    private final ByteBuffer indexBuffer =
+        ByteBuffer.allocateDirect(IqIndex.RECORD_BYTES * INDEX_BATCH).order(ByteOrder.LITTLE_ENDIAN);
+
+    private MappedByteBuffer segment;
+    private FloatBuffer segmentFloats;
+    private long segmentStart;
+    private long position;
+    private long packets;
+    private int segments;
+    private float[] chunk = new float[CHUNK_FLOATS];
+    private boolean closed = false;
+
+    private IqRecorder(Path dataFile, long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes % Float.BYTES != 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes: " + segmentBytes);
+        }
+        this.dataFile = dataFile;
+        this.indexFile = IqIndex.indexFile(dataFile);
+        this.segmentBytes = segmentBytes;
+        this.data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                     StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                          StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        ByteBuffer header = ByteBuffer.allocate(IqIndex.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        IqIndex.putHeader(header, ByteOrder.nativeOrder());
+        header.flip();
+        index.write(header);
+        map(0);
+    }
+
+    /**
+     * Create a recording, replacing existing files.
+     */
+    public static IqRecorder create(Path dataFile) throws IOException {
+        return new IqRecorder(dataFile, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Create a recording with a custom mapped segment size, a multiple of 4 bytes.
+     */
+    public static IqRecorder create(Path dataFile, long segmentBytes) throws IOException {
+        return new IqRecorder(dataFile, segmentBytes);
+    }
+
+    /**
+     * Append a packet's payload to the data file and its header to the index.
+     */
+    public void write(AARTSAAPI_Packet packet) throws IOException {
+        if (closed) throw new IllegalStateException("Recorder closed");
+        long offset = position;
+        if (packet.fp32 != null && packet.num > 0 && packet.size > 0) {
+            if (packet.stride == packet.size) {
+                copy(packet);
+            } else {
+                copyStrided(packet);
+            }
+        }
+
+        if (!indexBuffer.hasRemaining()) flushIndex();
+        IqIndex.putRecord(indexBuffer, packet, offset);
+        packets++;
+    }
+
+    private void copy(AARTSAAPI_Packet packet) throws IOException {
+        long floats = packet.num * packet.size;
+        for (long done = 0; done < floats; ) {
+            int n = (int) Math.min(CHUNK_FLOATS, floats - done);
+            packet.fp32.read(done * Float.BYTES, chunk, 0, n);
+            put(n);
+            done += n;
+        }
+    }
+
+    /**
+     * Read whole strided samples a chunk at a time and compact each chunk in place
+     * before putting it.
+     */
+    private void copyStrided(AARTSAAPI_Packet packet) throws IOException {
+        int size = (int) packet.size;
+        int stride = (int) packet.stride;
+        if (chunk.length < size) chunk = new float[size];
+        int perChunk = (chunk.length - size) / stride + 1;
+        for (long first = 0; first < packet.num; ) {
+            int n = (int) Math.min(perChunk, packet.num - first);
+            packet.fp32.read(first * stride * Float.BYTES, chunk, 0, (n - 1) * stride + size);
+            for (int k = 0, p = 0, d = 0; k < n; k++, p += stride) {
+                for (int j = 0; j < size; j++) chunk[d++] = chunk[p + j];
+            }
+            put(n * size);
+            first += n;
+        }
+    }
+
+    /** Bulk-put the first {@code n} floats of the chunk, mapping segments as they fill. */
+    private void put(int n) throws IOException {
+        for (int done = 0; done < n; ) {
+            if (!segmentFloats.hasRemaining()) map(segmentStart + segmentBytes);
+            int count = Math.min(n - done, segmentFloats.remaining());
+            segmentFloats.put(chunk, done, count);
+            done += count;
+        }
+        position += (long) n * Float.BYTES;
+    }
+
+    private void map(long start) throws IOException {
+        if (segment != null) segment.force();
+        segment = data.map(FileChannel.MapMode.READ_WRITE, start, segmentBytes);
+        segmentFloats = segment.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        segmentStart = start;
+        segments++;
+    }
+
+    private void flushIndex() throws IOException {
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) index.write(indexBuffer);
+        indexBuffer.clear();
+    }
+
+    /**
+     * Write buffered index records and force the mapped data to the storage device.
+     */
+    public void flush() throws IOException {
+        if (closed) return;
+        flushIndex();
+        segment.force();
+        index.force(false);
+    }
+
+    // --- Metrics ---
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    public Path getIndexFile() {
+        return indexFile;
+    }
+
+    /** Packets recorded. */
+    public long getPackets() {
+        return packets;
+    }
+
+    /** Payload bytes recorded. */
+    public long getBytesWritten() {
+        return position;
+    }
+
+    /** Data segments mapped so far. */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Flush the index, release the mapping and truncate the data file to its length.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flushIndex();
+            segment.force();
+            segment = null;
+            segmentFloats = null;
+            try {
+                data.truncate(position);
+            } catch (IOException e) {
+                // Still mapped on platforms that forbid it; the index records the length.
+            }
+        } finally {
+            try {
+                index.close();
+            } finally {
+                data.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.dsp.IqOps;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streams IQ packets to a SigMF recording: a {@code .sigmf-data} file and a
+ * {@code .sigmf-meta} JSON file written on close.
+ * <p>
+ * {@link #write(AARTSAAPI_Packet)} only copies the payload into a pooled block; full
+ * blocks are encoded on a background pool, optionally converted to {@code ci16_le} and
+ * gzip-compressed, and appended to the data file in order. When all blocks are in
+ * flight, {@code write} waits for one to be written. The encode buffers and deflaters
+ * are pooled as well, one set per block being encoded or waiting to be written.
+ * <p>
+ * Compressed recordings are written to {@code .sigmf-data.gz} as one gzip member per
+ * block, so plain {@code gunzip} restores the standard data file; the metadata names
+ * it in {@code core:dataset}.
+ * <p>
+ * Packet headers are mapped to metadata as follows. A capture segment starts with the
+ * first packet, after {@link PacketFlags#SEGMENT_START} or
+ * {@link PacketFlags#TIME_DISCONTINUITY}, and on a retune; it records the center
+ * frequency, span and stream time. Packets carrying warning flags or a time
+ * discontinuity become annotations with their sample range, frequency edges, start
+ * time and flag names. The sample rate, taken from {@code stepFrequency}, must not
+ * change within a recording.
+ * <p>
+ * Not thread-safe; write from one thread.
+ */
+public final class SigMfWriter implements AutoCloseable {
+
+    /** Sample formats of the data file. */
+    public enum DataType {
+        CF32_LE("cf32_le", Float.BYTES),
+        CI16_LE("ci16_le", Short.BYTES);
+
+        private final String name;
+        private final int bytesPerValue;
+
+        DataType(String name, int bytesPerValue) {
+            this.name = name;
+            this.bytesPerValue = bytesPerValue;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final String VERSION = "1.0.0";
+    private static final int BLOCK_SAMPLES = 1 << 18;
+    /** Samples read per native copy from a strided payload. */
+    private static final int STRIDED_SAMPLES = 4096;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final long WARNING_FLAGS = PacketFlags.WARN_OVERFLOW | PacketFlags.WARN_DROPPED
+        | PacketFlags.WARN_INACCURATE | PacketFlags.WARN_RESAMPLED | PacketFlags.WARN_DIRECTION
+        | PacketFlags.TIME_DISCONTINUITY;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final Path metaFile;
+    private final Path dataFile;
+    private final DataType dataType;
+    private final boolean compressed;
+    private final ExecutorService pool;
+    private final boolean ownsPool;
+    private final FileChannel data;
+    private final ArrayBlockingQueue<float[]> free;
+    private final ConcurrentLinkedQueue<Encoder> encoders = new ConcurrentLinkedQueue<>();
+
+    private float[] block;
+    private int blockFloats;
+    private float[] strided = new float[0];
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+    private boolean closed = false;
+
+    private float int16FullScale = 1.0f;
+    private int compressionLevel = Deflater.BEST_SPEED;
+    private String description;
+
+    private double sampleRate = Double.NaN;
+    private double center = Double.NaN;
+    private long samples;
+    private long stalls;
+    private final List<String> captures = new ArrayList<>();
+    private final List<String> annotations = new ArrayList<>();
+
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+
+    private SigMfWriter(Path base, DataType dataType, boolean compressed, ExecutorService pool) throws IOException {
+        this.metaFile = base.resolveSibling(base.getFileName() + ".sigmf-meta");
+        this.dataFile = base.resolveSibling(base.getFileName() + (compressed ? ".sigmf-data.gz" : ".sigmf-data"));
+        this.dataType = dataType;
+        this.compressed = compressed;
+        this.ownsPool = pool == null;
+        if (pool == null) {
+            String prefix = "rtsa-sigmf-" + POOL_COUNT.incrementAndGet() + "-";
+            AtomicInteger threads = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+                Thread t = new Thread(r, prefix + threads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.pool = pool;
+
+        int depth = 2 * Runtime.getRuntime().availableProcessors() + 2;
+        this.free = new ArrayBlockingQueue<>(depth);
+        for (int i = 0; i < depth; i++) free.add(new float[2 * BLOCK_SAMPLES]);
+        this.block = free.poll();
+
+        this.data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                     StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Create a recording at {@code base.sigmf-meta} and {@code base.sigmf-data}, replacing
+     * existing files, with encoding on an internal pool.
+     *
+     * @param compressed write {@code base.sigmf-data.gz} instead of the raw data file
+     */
+    public static SigMfWriter create(Path base, DataType dataType, boolean compressed) throws IOException {
+        return new SigMfWriter(base, dataType, compressed, null);
+    }
+
+    /**
+     * Create a recording with encoding on the given executor, which is not shut down on close.
+     */
+    public static SigMfWriter create(Path base, DataType dataType, boolean compressed,
+                                     ExecutorService executor) throws IOException {
+        return new SigMfWriter(base, dataType, compressed, executor);
+    }
+
+    // --- Settings ---
+
+    /**
+     * Float value mapped to the largest {@code ci16} value. Default 1.0.
+     */
+    public SigMfWriter setInt16FullScale(float fullScale) {
+        this.int16FullScale = fullScale;
+        return this;
+    }
+
+    /**
+     * Deflate level of compressed recordings, 1 (fastest) to 9. Default 1, since IQ noise
+     * gains little from higher levels.
+     */
+    public SigMfWriter setCompressionLevel(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level: " + level);
+        }
+        this.compressionLevel = level;
+        return this;
+    }
+
+    public SigMfWriter setDescription(String description) {
+        this.description = description;
+        return this;
+    }
+
+    // --- Writing ---
+
+    /**
+     * Append the IQ samples of a packet.
+     *
+     * @throws IOException if an earlier block failed to encode or write
+     */
+    public void write(AARTSAAPI_Packet packet) throws IOException, InterruptedException {
+        if (closed) throw new IllegalStateException("Writer closed");
+        checkFailure();
+        if (packet.fp32 == null || packet.num <= 0) return;
+        if (packet.size != 2) throw new IllegalArgumentException("Packet does not carry IQ samples: size=" + packet.size);
+        describe(packet);
+
+        int stride = (int) packet.stride;
+        long done = 0;
+        while (done < packet.num) {
+            int n = (int) Math.min(packet.num - done, BLOCK_SAMPLES - blockFloats / 2);
+            if (stride == 2) {
+                packet.fp32.read(done * 2 * Float.BYTES, block, blockFloats, 2 * n);
+            } else {
+                n = Math.min(n, STRIDED_SAMPLES);
+                readStrided(packet, done, n, stride);
+            }
+            blockFloats += 2 * n;
+            done += n;
+            if (blockFloats == block.length) submit();
+        }
+        samples += packet.num;
+    }
+
+    /**
+     * Copy {@code n} samples from {@code first} of a strided payload into the block with
+     * one native read, then compact them.
+     */
+    private void readStrided(AARTSAAPI_Packet packet, long first, int n, int stride) {
+        int floats = (n - 1) * stride + 2;
+        if (strided.length < floats) strided = new float[(STRIDED_SAMPLES - 1) * stride + 2];
+        packet.fp32.read(first * stride * Float.BYTES, strided, 0, floats);
+        for (int k = 0, p = 0, d = blockFloats; k < n; k++, p += stride, d += 2) {
+            block[d] = strided[p];
+            block[d + 1] = strided[p + 1];
+        }
+    }
+
+    private void describe(AARTSAAPI_Packet packet) {
+        if (Double.isNaN(sampleRate)) {
+            sampleRate = packet.stepFrequency;
+        } else if (packet.stepFrequency != sampleRate) {
+            throw new IllegalArgumentException("Sample rate changed from " + sampleRate + " to " + packet.stepFrequency);
+        }
+
+        double packetCenter = packet.startFrequency + packet.spanFrequency / 2;
+        if (captures.isEmpty() || packetCenter != center
+                || (packet.flags & (PacketFlags.SEGMENT_START | PacketFlags.TIME_DISCONTINUITY)) != 0) {
+            center = packetCenter;
+            captures.add("{\"core:sample_start\": " + samples
+                + ", \"core:frequency\": " + number(packetCenter)
+                + ", \"aaronia:span\": " + number(packet.spanFrequency)
+                + ", \"aaronia:start_time\": " + number(packet.startTime) + "}");
+        }
+
+        if ((packet.flags & WARNING_FLAGS) != 0) {
+            annotations.add("{\"core:sample_start\": " + samples
+                + ", \"core:sample_count\": " + packet.num
+                + ", \"core:freq_lower_edge\": " + number(packet.startFrequency)
+                + ", \"core:freq_upper_edge\": " + number(packet.startFrequency + packet.spanFrequency)
+                + ", \"core:label\": " + string(flagNames(packet.flags))
+                + ", \"aaronia:flags\": " + packet.flags
+                + ", \"aaronia:start_time\": " + number(packet.startTime)
+                + ", \"aaronia:rbw\": " + number(packet.rbwFrequency) + "}");
+        }
+    }
+
+    private static String flagNames(long flags) {
+        StringBuilder sb = new StringBuilder();
+        if ((flags & PacketFlags.WARN_OVERFLOW) != 0) sb.append("WARN_OVERFLOW ");
+        if ((flags & PacketFlags.WARN_DROPPED) != 0) sb.append("WARN_DROPPED ");
+        if ((flags & PacketFlags.WARN_INACCURATE) != 0) sb.append("WARN_INACCURATE ");
+        if ((flags & PacketFlags.WARN_RESAMPLED) != 0) sb.append("WARN_RESAMPLED ");
+        if ((flags & PacketFlags.WARN_DIRECTION) != 0) sb.append("WARN_DIRECTION ");
+        if ((flags & PacketFlags.TIME_DISCONTINUITY) != 0) sb.append("TIME_DISCONTINUITY ");
+        return sb.toString().trim();
+    }
+
+    /**
+     * Hand the current block to the pool and take a free one, waiting if none is left.
+     */
+    private void submit() throws InterruptedException {
+        float[] full = block;
+        int floats = blockFloats;
+        CompletableFuture<Encoder> encoded = CompletableFuture.supplyAsync(() -> encode(full, floats), pool);
+        tail = tail.thenCombine(encoded, (v, encoder) -> {
+            try {
+                writeFully(encoder.output);
+            } finally {
+                recycle(encoder);
+            }
+            return null;
+        });
+
+        block = free.poll();
+        if (block == null) {
+            stalls++;
+            block = free.take();
+        }
+        blockFloats = 0;
+    }
+
+    /**
+     * Encode a block with a pooled encoder and return the block to the free list. The
+     * encoder holds the output until it is written.
+     */
+    private Encoder encode(float[] values, int floats) {
+        long start = System.nanoTime();
+        Encoder encoder = encoders.poll();
+        if (encoder == null) encoder = new Encoder();
+        try {
+            encoder.encode(values, floats);
+            rawBytes.addAndGet((long) floats * dataType.bytesPerValue);
+            return encoder;
+        } catch (RuntimeException | Error e) {
+            recycle(encoder);
+            throw e;
+        } finally {
+            free.add(values);
+            encodeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void recycle(Encoder encoder) {
+        encoders.add(encoder);
+    }
+
+    private void writeFully(ByteBuffer bytes) {
+        try {
+            writtenBytes.addAndGet(bytes.remaining());
+            while (bytes.hasRemaining()) data.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (!tail.isCompletedExceptionally()) return;
+        try {
+            tail.join();
+        } catch (CompletionException e) {
+            throw failure(e);
+        }
+    }
+
+    private static IOException failure(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException u) return u.getCause();
+        return new IOException("SigMF block encoding failed", cause);
+    }
+
+    /**
+     * Reusable buffers for encoding one block: the little-endian raw bytes, the
+     * {@code ci16} staging array and, for compressed recordings, the gzip member and
+     * its deflater. {@link #output} is the encoded block, valid until the next encode.
+     */
+    private final class Encoder {
+        final ByteBuffer raw = ByteBuffer.allocate(2 * BLOCK_SAMPLES * dataType.bytesPerValue).order(ByteOrder.LITTLE_ENDIAN);
+        final FloatBuffer rawFloats = raw.asFloatBuffer();
+        final ShortBuffer rawShorts = raw.asShortBuffer();
+        short[] ints;
+        Deflater deflater;
+        final CRC32 crc = new CRC32();
+        byte[] packed = new byte[0];
+        ByteBuffer packedView = ByteBuffer.wrap(packed);
+        ByteBuffer output;
+
+        void encode(float[] values, int floats) {
+            int bytes = floats * dataType.bytesPerValue;
+            if (dataType == DataType.CI16_LE) {
+                if (ints == null) ints = new short[2 * BLOCK_SAMPLES];
+                IqOps.toInt16(values, 0, ints, 0, floats, int16FullScale);
+                rawShorts.clear();
+                rawShorts.put(ints, 0, floats);
+            } else {
+                rawFloats.clear();
+                rawFloats.put(values, 0, floats);
+            }
+            raw.clear().limit(bytes);
+            output = compressed ? gzip(bytes) : raw;
+        }
+
+        /**
+         * One gzip member, as {@code GZIPOutputStream} writes it, with a reused deflater.
+         */
+        private ByteBuffer gzip(int bytes) {
+            if (deflater == null) deflater = new Deflater(compressionLevel, true);
+            deflater.reset();
+            deflater.setLevel(compressionLevel);
+            deflater.setInput(raw.array(), 0, bytes);
+            deflater.finish();
+
+            ensurePacked(GZIP_HEADER.length + bytes / 2);
+            System.arraycopy(GZIP_HEADER, 0, packed, 0, GZIP_HEADER.length);
+            int length = GZIP_HEADER.length;
+            while (!deflater.finished()) {
+                if (length == packed.length) ensurePacked(2 * packed.length);
+                length += deflater.deflate(packed, length, packed.length - length);
+            }
+            crc.reset();
+            crc.update(raw.array(), 0, bytes);
+            ensurePacked(length + 8);
+            packedView.clear();
+            packedView.order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(length, (int) crc.getValue())
+                .putInt(length + 4, bytes);
+            return packedView.limit(length + 8);
+        }
+
+        private void ensurePacked(int capacity) {
+            if (packed.length >= capacity) return;
+            packed = Arrays.copyOf(packed, capacity);
+            packedView = ByteBuffer.wrap(packed);
+        }
+
+        void release() {
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    // --- Metrics ---
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    public Path getMetaFile() {
+        return metaFile;
+    }
+
+    /** IQ samples written. */
+    public long getSamples() {
+        return samples;
+    }
+
+    /** Writes that had to wait for a block to be written. */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /** Encoded bytes in the selected data type, before compression. */
+    public long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    /** Bytes written to the data file. */
+    public long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /** Raw bytes per written byte; 1 for uncompressed recordings. */
+    public double getCompressionRatio() {
+        long written = writtenBytes.get();
+        return written == 0 ? 1 : (double) rawBytes.get() / written;
+    }
+
+    /** Encoding throughput in raw bytes per second of pool time spent encoding. */
+    public double getEncodeThroughput() {
+        long nanos = encodeNanos.get();
+        return nanos == 0 ? 0 : rawBytes.get() * 1e9 / nanos;
+    }
+
+    /**
+     * Write the remaining samples and the metadata file. The metadata is written even if
+     * a block failed to encode or write, describing the packets passed to {@code write}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            try {
+                flushBlocks();
+            } finally {
+                try {
+                    data.close();
+                } finally {
+                    if (ownsPool) pool.shutdown();
+                    Encoder encoder;
+                    while ((encoder = encoders.poll()) != null) encoder.release();
+                }
+            }
+        } catch (Throwable t) {
+            try {
+                Files.writeString(metaFile, metadata(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        Files.writeString(metaFile, metadata(), StandardCharsets.UTF_8);
+    }
+
+    private void flushBlocks() throws IOException {
+        if (blockFloats > 0) {
+            try {
+                submit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing", e);
+            }
+        }
+        try {
+            tail.join();
+        } catch (CompletionException e) {
+            throw failure(e);
+        }
+        data.force(false);
+    }
+
+    private String metadata() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"global\": {\n");
+        sb.append("    \"core:datatype\": ").append(string(dataType.getName())).append(",\n");
+        sb.append("    \"core:sample_rate\": ").append(number(Double.isNaN(sampleRate) ? 0 : sampleRate)).append(",\n");
+        sb.append("    \"core:version\": ").append(string(VERSION)).append(",\n");
+        sb.append("    \"core:num_channels\": 1,\n");
+        sb.append("    \"core:recorder\": ").append(string("Aaronia RTSA SDK for Java")).append(",\n");
+        if (description != null) sb.append("    \"core:description\": ").append(string(description)).append(",\n");
+        if (compressed) sb.append("    \"core:dataset\": ").append(string(dataFile.getFileName().toString())).append(",\n");
+        if (dataType == DataType.CI16_LE) sb.append("    \"aaronia:ci16_full_scale\": ").append(number(int16FullScale)).append(",\n");
+        sb.append("    \"aaronia:compression\": ").append(string(compressed ? "gzip" : "none")).append("\n");
+        sb.append("  },\n");
+        appendArray(sb, "captures", captures);
+        sb.append(",\n");
+        appendArray(sb, "annotations", annotations);
+        sb.append("\n}\n");
+        return sb.toString();
+    }
+
+    private static void appendArray(StringBuilder sb, String name, List<String> items) {
+        sb.append("  \"").append(name).append("\": [");
+        for (int i = 0; i < items.size(); i++) {
+            sb.append(i == 0 ? "\n    " : ",\n    ").append(items.get(i));
+        }
+        sb.append(items.isEmpty() ? "]" : "\n  ]");
+    }
+
+    private static String number(double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) return "null";
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    private static String string(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,464 @@
+package com.aaronia.rtsa.sim;
+
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.native_.AARTSAAPI_Config;
+import com.aaronia.rtsa.native_.AARTSAAPI_ConfigInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Device;
+import com.aaronia.rtsa.native_.AARTSAAPI_DeviceInfo;
+import com.aaronia.rtsa.native_.AARTSAAPI_Handle;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-process implementation of {@link AaroniaRtsaLibrary} backed by simulated devices,
+ * for running the SDK without hardware.
+ * <p>
+ * Covers the whole API: device enumeration, opening by serial number, the state
+ * sequence IDLE, CONNECTING, CONNECTED, STARTING, RUNNING and back, a synthetic config
+ * and health tree, IQ receive packets with noise, tones and drop injection, and
+ * {@code SendPacket} into a per-device {@link SimulatedDevice.TransmitSink}. Results
+ * are written into the passed structures the way the native library writes them, so
+ * the SDK's lazy and allocation-free read paths work unchanged.
+ * <p>
+ * Use it directly with {@link com.aaronia.rtsa.RtsaApi#init(AaroniaRtsaLibrary, int)}, or
+ * select it for {@link AaroniaRtsaLibrary#INSTANCE} with
+ * {@code -Daaronia.rtsa.backend=sim}. The default instance then has
+ * {@code aaronia.rtsa.sim.devices} devices (default 1) named {@code SIM00001},
+ * {@code SIM00002} and so on, paced unless {@code aaronia.rtsa.sim.paced=false}.
+ */
+public final class RtsaSimulator implements AaroniaRtsaLibrary {
+
+    /** Device type of simulated devices. */
+    public static final String DEVICE_TYPE = "spectranv6";
+
+    /** Version reported by {@code AARTSAAPI_Version}: 1.0. */
+    private static final int VERSION = 0x00010000;
+
+    private static final AtomicLong HANDLES = new AtomicLong(0x5100_0000L);
+
+    private final List<SimulatedDevice> devices = new CopyOnWriteArrayList<>();
+    private final Map<Long, Boolean> handles = new ConcurrentHashMap<>();
+    /** Open device sessions; replaced as a whole so the per-packet lookup needs no boxing. */
+    private volatile Sessions sessions = Sessions.EMPTY;
+    private volatile int initialized;
+
+    public RtsaSimulator() {
+    }
+
+    /**
+     * Simulator configured from the {@code aaronia.rtsa.sim.*} system properties.
+     */
+    public static RtsaSimulator fromSystemProperties() {
+        RtsaSimulator sim = new RtsaSimulator();
+        int count = Integer.getInteger("aaronia.rtsa.sim.devices", 1);
+        boolean paced = Boolean.parseBoolean(System.getProperty("aaronia.rtsa.sim.paced", "true"));
+        for (int i = 1; i <= count; i++) {
+            sim.addDevice(String.format("SIM%05d", i)).setPaced(paced).setSeed(i);
+        }
+        return sim;
+    }
+
+    /**
+     * Add a device of type {@link #DEVICE_TYPE}.
+     */
+    public SimulatedDevice addDevice(String serialNumber) {
+        if (getDevice(serialNumber) != null) throw new IllegalArgumentException("Duplicate serial: " + serialNumber);
+        SimulatedDevice device = new SimulatedDevice(serialNumber, DEVICE_TYPE);
+        devices.add(device);
+        return device;
+    }
+
+    /** The device with the given serial number, or null. */
+    public SimulatedDevice getDevice(String serialNumber) {
+        for (SimulatedDevice d : devices) {
+            if (d.getSerialNumber().equals(serialNumber)) return d;
+        }
+        return null;
+    }
+
+    public List<SimulatedDevice> getDevices() {
+        return Collections.unmodifiableList(new ArrayList<>(devices));
+    }
+
+    // --- Handles ---
+
+    /**
+     * Store a new opaque handle in both the Java field and the structure memory.
+     */
+    private static long assign(Structure s, long id) {
+        Pointer p = new Pointer(id);
+        if (s instanceof AARTSAAPI_Device d) d.d = p;
+        else if (s instanceof AARTSAAPI_Handle h) h.d = p;
+        else if (s instanceof AARTSAAPI_Config c) c.d = p;
+        s.getPointer().setPointer(0, p);
+        return id;
+    }
+
+    private static long id(Pointer p) {
+        return p == null ? 0 : Pointer.nativeValue(p);
+    }
+
+    private SimulatedDevice session(AARTSAAPI_Device dhandle) {
+        return dhandle == null ? null : sessions.get(id(dhandle.d));
+    }
+
+    private record Sessions(long[] ids, SimulatedDevice[] devices) {
+
+        static final Sessions EMPTY = new Sessions(new long[0], new SimulatedDevice[0]);
+
+        SimulatedDevice get(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) return devices[i];
+            }
+            return null;
+        }
+
+        Sessions with(long id, SimulatedDevice device) {
+            long[] i = Arrays.copyOf(ids, ids.length + 1);
+            SimulatedDevice[] d = Arrays.copyOf(devices, devices.length + 1);
+            i[ids.length] = id;
+            d[devices.length] = device;
+            return new Sessions(i, d);
+        }
+
+        Sessions without(long id) {
+            int n = 0;
+            long[] i = new long[ids.length];
+            SimulatedDevice[] d = new SimulatedDevice[devices.length];
+            for (int k = 0; k < ids.length; k++) {
+                if (ids[k] == id) continue;
+                i[n] = ids[k];
+                d[n++] = devices[k];
+            }
+            return new Sessions(Arrays.copyOf(i, n), Arrays.copyOf(d, n));
+        }
+    }
+
+    private static SimConfig config(SimulatedDevice device, AARTSAAPI_Config config) {
+        long id = id(config.d);
+        return id > 0 && id <= device.configs.size() ? device.configs.get((int) id - 1) : null;
+    }
+
+    // --- Lifecycle ---
+
+    @Override
+    public synchronized int AARTSAAPI_Init(int memory) {
+        if (memory < 0) return ResultCode.ERROR_INVALID_PARAMETER;
+        initialized++;
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Init_With_Path(int memory, WString pathXmlLocation) {
+        return AARTSAAPI_Init(memory);
+    }
+
+    @Override
+    public synchronized int AARTSAAPI_Shutdown() {
+        if (initialized > 0) initialized--;
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Version() {
+        return VERSION;
+    }
+
+    @Override
+    public int AARTSAAPI_Open(AARTSAAPI_Handle handle) {
+        if (initialized == 0) return ResultCode.ERROR_NOT_INITIALIZED;
+        handles.put(assign(handle, HANDLES.addAndGet(16)), Boolean.TRUE);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_Close(AARTSAAPI_Handle handle) {
+        return handles.remove(id(handle.d)) != null ? ResultCode.OK : ResultCode.ERROR_NOT_OPEN;
+    }
+
+    // --- Device discovery ---
+
+    @Override
+    public int AARTSAAPI_RescanDevices(AARTSAAPI_Handle handle, int timeout) {
+        return handles.containsKey(id(handle.d)) ? ResultCode.OK : ResultCode.ERROR_NOT_OPEN;
+    }
+
+    @Override
+    public int AARTSAAPI_ResetDevices(AARTSAAPI_Handle handle) {
+        return handles.containsKey(id(handle.d)) ? ResultCode.OK : ResultCode.ERROR_NOT_OPEN;
+    }
+
+    @Override
+    public int AARTSAAPI_EnumDevice(AARTSAAPI_Handle handle, WString type, int index, AARTSAAPI_DeviceInfo dinfo) {
+        if (!handles.containsKey(id(handle.d))) return ResultCode.ERROR_NOT_OPEN;
+        int n = 0;
+        for (SimulatedDevice d : devices) {
+            if (!d.getType().equals(type.toString())) continue;
+            if (n++ != index) continue;
+            char[] serial = d.getSerialNumber().toCharArray();
+            Arrays.fill(dinfo.serialNumber, '\0');
+            System.arraycopy(serial, 0, dinfo.serialNumber, 0, Math.min(serial.length, dinfo.serialNumber.length - 1));
+            dinfo.ready = d.isReady();
+            dinfo.boost = d.isBoost();
+            dinfo.superspeed = d.isSuperspeed();
+            dinfo.active = d.isOpen();
+            dinfo.write();
+            return ResultCode.OK;
+        }
+        return ResultCode.EMPTY;
+    }
+
+    // --- Device management ---
+
+    @Override
+    public int AARTSAAPI_OpenDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle, WString type, WString serialNumber) {
+        if (!handles.containsKey(id(handle.d))) return ResultCode.ERROR_NOT_OPEN;
+        String t = type.toString();
+        int slash = t.indexOf('/');
+        String deviceType = slash < 0 ? t : t.substring(0, slash);
+        String mode = slash < 0 ? "" : t.substring(slash + 1);
+        SimulatedDevice device = getDevice(serialNumber.toString());
+        if (device == null || !device.getType().equals(deviceType)) return ResultCode.ERROR_NOT_FOUND;
+        int res = device.openSession(mode);
+        if (res != ResultCode.OK) return res;
+        long id = assign(dhandle, HANDLES.addAndGet(16));
+        synchronized (this) {
+            sessions = sessions.with(id, device);
+        }
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_CloseDevice(AARTSAAPI_Handle handle, AARTSAAPI_Device dhandle) {
+        long id = id(dhandle.d);
+        SimulatedDevice device;
+        synchronized (this) {
+            device = sessions.get(id);
+            if (device == null) return ResultCode.ERROR_NOT_OPEN;
+            sessions = sessions.without(id);
+        }
+        device.closeSession();
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConnectDevice(AARTSAAPI_Device dhandle) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.connect();
+    }
+
+    @Override
+    public int AARTSAAPI_DisconnectDevice(AARTSAAPI_Device dhandle) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.disconnect();
+    }
+
+    @Override
+    public int AARTSAAPI_StartDevice(AARTSAAPI_Device dhandle) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.start();
+    }
+
+    @Override
+    public int AARTSAAPI_StopDevice(AARTSAAPI_Device dhandle) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.stop();
+    }
+
+    @Override
+    public int AARTSAAPI_GetDeviceState(AARTSAAPI_Device dhandle) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.getState();
+    }
+
+    // --- Data packets ---
+
+    @Override
+    public int AARTSAAPI_AvailPackets(AARTSAAPI_Device dhandle, int channel, IntByReference num) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        int available = device.available(channel);
+        if (available < 0) return ResultCode.ERROR_INVALID_CHANNEL;
+        num.setValue(available);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_GetPacket(AARTSAAPI_Device dhandle, int channel, int index, AARTSAAPI_Packet packet) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.fill(channel, index, packet);
+    }
+
+    @Override
+    public int AARTSAAPI_ConsumePackets(AARTSAAPI_Device dhandle, int channel, int num) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.consume(channel, num);
+    }
+
+    @Override
+    public int AARTSAAPI_GetMasterStreamTime(AARTSAAPI_Device dhandle, DoubleByReference stime) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        stime.setValue(device.getMasterStreamTime());
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_SendPacket(AARTSAAPI_Device dhandle, int channel, AARTSAAPI_Packet packet) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? ResultCode.ERROR_NOT_OPEN : device.send(channel, packet);
+    }
+
+    // --- Configuration ---
+
+    @Override
+    public int AARTSAAPI_ConfigRoot(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        assign(config, device.configRoot.id);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigHealth(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        assign(config, device.healthRoot.id);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFirst(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        return navigate(dhandle, group, config, SimConfig::first);
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigNext(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config) {
+        return navigate(dhandle, group, config, SimConfig::next);
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigFind(AARTSAAPI_Device dhandle, AARTSAAPI_Config group, AARTSAAPI_Config config, WString name) {
+        String path = name.toString();
+        return navigate(dhandle, group, config, c -> c.find(path));
+    }
+
+    private int navigate(AARTSAAPI_Device dhandle, AARTSAAPI_Config from, AARTSAAPI_Config to,
+                         Function<SimConfig, SimConfig> step) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        SimConfig start = config(device, from);
+        if (start == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        SimConfig target = step.apply(start);
+        if (target == null) return ResultCode.EMPTY;
+        assign(to, target.id);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetName(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] name) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        SimConfig c = config(device, config);
+        if (c == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        copy(c.name, name);
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInfo(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, AARTSAAPI_ConfigInfo cinfo) {
+        SimulatedDevice device = session(dhandle);
+        if (device == null) return ResultCode.ERROR_NOT_OPEN;
+        SimConfig c = config(device, config);
+        if (c == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        copy(c.name, cinfo.name);
+        copy(c.title, cinfo.title);
+        cinfo.type = c.type.getValue();
+        cinfo.minValue = c.min;
+        cinfo.maxValue = c.max;
+        cinfo.stepValue = c.step;
+        copy(c.unit, cinfo.unit);
+        copy(c.options, cinfo.options);
+        cinfo.disabledOptions = 0;
+        cinfo.write();
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, double value) {
+        SimConfig c = item(dhandle, config);
+        return c == null ? ResultCode.ERROR_INVALID_PARAMETER : c.setFloat(value);
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetFloat(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, DoubleByReference value) {
+        SimConfig c = item(dhandle, config);
+        if (c == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        value.setValue(c.getFloat());
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, WString value) {
+        SimConfig c = item(dhandle, config);
+        return c == null ? ResultCode.ERROR_INVALID_PARAMETER : c.setString(value.toString());
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetString(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, char[] value, LongByReference size) {
+        SimConfig c = item(dhandle, config);
+        if (c == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        String text = c.getString();
+        if (text.length() + 1 > Math.min(size.getValue(), value.length)) {
+            size.setValue(text.length() + 1);
+            return ResultCode.ERROR_BUFFER_SIZE;
+        }
+        copy(text, value);
+        size.setValue(text.length());
+        return ResultCode.OK;
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigSetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, long value) {
+        SimConfig c = item(dhandle, config);
+        return c == null ? ResultCode.ERROR_INVALID_PARAMETER : c.setInteger(value);
+    }
+
+    @Override
+    public int AARTSAAPI_ConfigGetInteger(AARTSAAPI_Device dhandle, AARTSAAPI_Config config, LongByReference value) {
+        SimConfig c = item(dhandle, config);
+        if (c == null) return ResultCode.ERROR_INVALID_PARAMETER;
+        value.setValue(c.getInteger());
+        return ResultCode.OK;
+    }
+
+    private SimConfig item(AARTSAAPI_Device dhandle, AARTSAAPI_Config config) {
+        SimulatedDevice device = session(dhandle);
+        return device == null ? null : config(device, config);
+    }
+
+    /**
+     * Copy a string into a zero-terminated wide character buffer, truncating if needed.
+     */
+    private static void copy(String s, char[] dst) {
+        int n = Math.min(s.length(), dst.length - 1);
+        s.getChars(0, n, dst, 0);
+        Arrays.fill(dst, n, dst.length, '\0');
+    }
+}
@@ -0,0 +1,200 @@
+package com.aaronia.rtsa.sim;
+
+import com.aaronia.rtsa.ConfigType;
+import com.aaronia.rtsa.ResultCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One item of a simulated config tree. Values follow the native rules: numbers are
+ * clamped to their range and step, enums take an option index or name, booleans 0 or 1.
+ * <p>
+ * Items are numbered in creation order within their device; the number doubles as
+ * the opaque config handle.
+ */
+final class SimConfig {
+
+    final int id;
+    final String name;
+    final String title;
+    final ConfigType type;
+    final double min;
+    final double max;
+    final double step;
+    final String unit;
+    final String options;
+    final List<SimConfig> children = new ArrayList<>();
+    SimConfig parent;
+
+    private final String[] optionList;
+    private double number;
+    private long integer;
+    private String text = "";
+
+    private SimConfig(List<SimConfig> registry, String name, String title, ConfigType type,
+                      double min, double max, double step, String unit, String options) {
+        this.id = registry.size() + 1;
+        this.name = name;
+        this.title = title;
+        this.type = type;
+        this.min = min;
+        this.max = max;
+        this.step = step;
+        this.unit = unit;
+        this.options = options;
+        this.optionList = options.isEmpty() ? new String[0] : options.split(";", -1);
+        registry.add(this);
+    }
+
+    // --- Tree construction ---
+
+    static SimConfig group(List<SimConfig> registry, SimConfig parent, String name, String title) {
+        return add(parent, new SimConfig(registry, name, title, ConfigType.GROUP, 0, 0, 0, "", ""));
+    }
+
+    static SimConfig number(List<SimConfig> registry, SimConfig parent, String name, String title,
+                            double value, double min, double max, double step, String unit) {
+        SimConfig c = add(parent, new SimConfig(registry, name, title, ConfigType.NUMBER, min, max, step, unit, ""));
+        c.number = value;
+        return c;
+    }
+
+    static SimConfig enumeration(List<SimConfig> registry, SimConfig parent, String name, String title,
+                                 String options, long value) {
+        SimConfig c = add(parent, new SimConfig(registry, name, title, ConfigType.ENUM, 0, 0, 0, "", options));
+        c.integer = value;
+        return c;
+    }
+
+    static SimConfig bool(List<SimConfig> registry, SimConfig parent, String name, String title, boolean value) {
+        SimConfig c = add(parent, new SimConfig(registry, name, title, ConfigType.BOOL, 0, 1, 1, "", ""));
+        c.integer = value ? 1 : 0;
+        return c;
+    }
+
+    static SimConfig string(List<SimConfig> registry, SimConfig parent, String name, String title, String value) {
+        SimConfig c = add(parent, new SimConfig(registry, name, title, ConfigType.STRING, 0, 0, 0, "", ""));
+        c.text = value;
+        return c;
+    }
+
+    private static SimConfig add(SimConfig parent, SimConfig child) {
+        if (parent != null) {
+            child.parent = parent;
+            parent.children.add(child);
+        }
+        return child;
+    }
+
+    // --- Navigation ---
+
+    SimConfig first() {
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    SimConfig next() {
+        if (parent == null) return null;
+        int i = parent.children.indexOf(this) + 1;
+        return i < parent.children.size() ? parent.children.get(i) : null;
+    }
+
+    /**
+     * Item at a slash-separated path below this group, or null.
+     */
+    SimConfig find(String path) {
+        SimConfig node = this;
+        for (String part : path.split("/")) {
+            if (part.isEmpty()) continue;
+            SimConfig match = null;
+            for (SimConfig child : node.children) {
+                if (child.name.equals(part)) {
+                    match = child;
+                    break;
+                }
+            }
+            if (match == null) return null;
+            node = match;
+        }
+        return node;
+    }
+
+    // --- Values ---
+
+    synchronized double getFloat() {
+        return type == ConfigType.NUMBER ? number : integer;
+    }
+
+    synchronized long getInteger() {
+        return type == ConfigType.NUMBER ? Math.round(number) : integer;
+    }
+
+    synchronized String getString() {
+        switch (type) {
+            case NUMBER: return Double.toString(number);
+            case ENUM:   return integer >= 0 && integer < optionList.length ? optionList[(int) integer] : "";
+            case BOOL:   return integer != 0 ? "true" : "false";
+            case STRING: return text;
+            default:     return "";
+        }
+    }
+
+    synchronized int setFloat(double value) {
+        if (type != ConfigType.NUMBER) return setInteger(Math.round(value));
+        if (Double.isNaN(value)) return ResultCode.ERROR_VALUE_INVALID;
+        double v = Math.max(min, Math.min(max, value));
+        if (step > 0) v = min + Math.round((v - min) / step) * step;
+        number = v;
+        return v == value ? ResultCode.OK : ResultCode.WARNING_VALUE_ADJUSTED;
+    }
+
+    synchronized int setInteger(long value) {
+        switch (type) {
+            case NUMBER:
+                return setFloat(value);
+            case ENUM:
+                if (value < 0 || value >= optionList.length) return ResultCode.ERROR_VALUE_INVALID;
+                integer = value;
+                return ResultCode.OK;
+            case BOOL:
+                if (value != 0 && value != 1) return ResultCode.ERROR_VALUE_INVALID;
+                integer = value;
+                return ResultCode.OK;
+            default:
+                return ResultCode.ERROR_INVALID_PARAMETER;
+        }
+    }
+
+    synchronized int setString(String value) {
+        switch (type) {
+            case STRING:
+                text = value;
+                return ResultCode.OK;
+            case ENUM:
+                for (int i = 0; i < optionList.length; i++) {
+                    if (optionList[i].equals(value)) return setInteger(i);
+                }
+                return parseInteger(value);
+            case BOOL:
+                if (value.equalsIgnoreCase("true")) return setInteger(1);
+                if (value.equalsIgnoreCase("false")) return setInteger(0);
+                return parseInteger(value);
+            case NUMBER:
+                try {
+                    return setFloat(Double.parseDouble(value.trim()));
+                } catch (NumberFormatException e) {
+                    return ResultCode.ERROR_VALUE_MALFORMED;
+                }
+            default:
+                return ResultCode.ERROR_INVALID_PARAMETER;
+        }
+    }
+
+    private int parseInteger(String value) {
+        try {
+            return setInteger(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return ResultCode.ERROR_VALUE_MALFORMED;
+        }
+    }
+}
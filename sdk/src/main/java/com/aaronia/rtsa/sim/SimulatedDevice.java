@@ -0,0 +1,510 @@
+package com.aaronia.rtsa.sim;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A device of a {@link RtsaSimulator}: its signal, timing and fault settings, the
+ * synthetic config and health trees, and the counters of what it produced and received.
+ * <p>
+ * Receive packets are produced lazily when the device is polled, never by a background
+ * thread. In paced mode a packet becomes available once the master stream time passes its
+ * end time and the queue drops new packets when full, flagging the next one that fits
+ * with {@link PacketFlags#WARN_DROPPED}. Unpaced, the queue is refilled on every poll,
+ * so throughput is bounded only by the consumer. Payloads point into a precomputed
+ * {@link Waveform}, so producing a packet copies no samples.
+ * <p>
+ * The sample rate and span follow {@code main/spanfreq} and the center frequency
+ * {@code main/centerfreq}. A retune takes effect from the next produced packet, and a
+ * new span regenerates the waveform. Signal and queue settings take effect on the next
+ * start.
+ * <p>
+ * Settings may be changed from any thread; runtime methods are synchronized per device.
+ */
+public final class SimulatedDevice {
+
+    /**
+     * Receives the packets sent to a simulated device, e.g. to verify or discard them.
+     * The packet and its payload are only valid during the call.
+     */
+    @FunctionalInterface
+    public interface TransmitSink {
+        void accept(int channel, AARTSAAPI_Packet packet);
+    }
+
+    /** Shared time base: like devices on one host, simulated devices agree on stream time. */
+    private static final double EPOCH_SECONDS = System.currentTimeMillis() / 1e3;
+    private static final long EPOCH_NANOS = System.nanoTime();
+
+    private final String serialNumber;
+    private final String type;
+
+    private volatile boolean ready = true;
+    private volatile boolean boost = false;
+    private volatile boolean superspeed = true;
+    private volatile int packetSamples = 4096;
+    private volatile int queueDepth = 256;
+    private volatile boolean paced = true;
+    private volatile int waveformSamples = 1 << 18;
+    private volatile double noiseDbm = -80;
+    private final List<double[]> tones = new ArrayList<>();
+    private volatile double dropProbability = 0;
+    private volatile long transitionNanos = TimeUnit.MILLISECONDS.toNanos(20);
+    private volatile double clockOffset = 0;
+    private volatile long seed = 1;
+    private volatile TransmitSink transmitSink;
+
+    // --- Config trees ---
+
+    final List<SimConfig> configs = new ArrayList<>();
+    final SimConfig configRoot;
+    final SimConfig healthRoot;
+    private final SimConfig centerFreq;
+    private final SimConfig spanFreq;
+
+    // --- Runtime state, guarded by this ---
+
+    private boolean open;
+    private String mode = "";
+    private int state = ResultCode.IDLE;
+    private long stateSince;
+
+    private Waveform waveform;
+    private Random dropRandom;
+    private double lastCenter;
+    private long seqBase;
+    private double timeBase;
+    private long nextSeq;
+    private boolean firstPacket;
+    private boolean pendingDrop;
+
+    private long[] qSeq;
+    private long[] qFlags;
+    private double[] qTime;
+    private double[] qCenter;
+    private Waveform[] qWave;
+    private int qHead;
+    private int qCount;
+
+    // --- Counters ---
+
+    private volatile long produced;
+    private volatile long dropped;
+    private volatile long injectedDrops;
+    private volatile long consumed;
+    private volatile long sentPackets;
+    private volatile long sentSamples;
+
+    SimulatedDevice(String serialNumber, String type) {
+        this.serialNumber = serialNumber;
+        this.type = type;
+
+        configRoot = SimConfig.group(configs, null, "", "Config");
+        SimConfig main = SimConfig.group(configs, configRoot, "main", "Main");
+        centerFreq = SimConfig.number(configs, main, "centerfreq", "Center Frequency", 2440e6, 1e6, 6e9, 1, "Hz");
+        spanFreq = SimConfig.number(configs, main, "spanfreq", "Span Frequency", 50e6, 1e3, 245e6, 1, "Hz");
+        SimConfig.number(configs, main, "reflevel", "Reference Level", -20, -100, 10, 0.5, "dBm");
+        SimConfig.number(configs, main, "transgain", "Transmitter Gain", 0, -100, 10, 0.5, "dB");
+        SimConfig.enumeration(configs, main, "decimation", "Decimation",
+                              "Full;1 / 2;1 / 4;1 / 8;1 / 16;1 / 32;1 / 64;1 / 128;1 / 256;1 / 512", 0);
+        SimConfig device = SimConfig.group(configs, configRoot, "device", "Device");
+        SimConfig.enumeration(configs, device, "receiverchannel", "Receiver Channel",
+                              "Rx1;Rx2;Rx1+Rx2;Rx12;Rx Off;Auto", 0);
+        SimConfig.enumeration(configs, device, "outputformat", "Output Format", "iq;spectra;both;auto", 0);
+        SimConfig.enumeration(configs, device, "receiverclock", "Receiver Clock", "92MHz;122MHz;184MHz;245MHz", 1);
+        SimConfig.enumeration(configs, device, "gaincontrol", "Gain Control", "manual;peak;power", 0);
+        SimConfig.enumeration(configs, device, "usbcompression", "USB Compression", "auto;compressed;raw", 0);
+        SimConfig.bool(configs, device, "gpsenable", "GPS Enable", false);
+        SimConfig.string(configs, device, "serial", "Serial Number", serialNumber);
+
+        healthRoot = SimConfig.group(configs, null, "", "Health");
+        SimConfig.number(configs, healthRoot, "temperature", "Temperature", 42.5, -40, 125, 0.1, "C");
+        SimConfig.number(configs, healthRoot, "voltage", "Voltage", 5.05, 0, 20, 0.01, "V");
+        SimConfig.number(configs, healthRoot, "current", "Current", 1.8, 0, 10, 0.01, "A");
+        SimConfig.string(configs, healthRoot, "usbspeed", "USB Speed", "superspeed");
+    }
+
+    // --- Settings ---
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    /** Device type reported by enumeration, e.g. {@code spectranv6}. */
+    public String getType() {
+        return type;
+    }
+
+    /** Flags reported by enumeration. */
+    public SimulatedDevice setFlags(boolean ready, boolean boost, boolean superspeed) {
+        this.ready = ready;
+        this.boost = boost;
+        this.superspeed = superspeed;
+        return this;
+    }
+
+    /** IQ samples per packet. Default 4096. */
+    public SimulatedDevice setPacketSamples(int packetSamples) {
+        if (packetSamples <= 0) throw new IllegalArgumentException("packetSamples: " + packetSamples);
+        this.packetSamples = packetSamples;
+        return this;
+    }
+
+    /** Packets the receive queue holds. Default 256. */
+    public SimulatedDevice setQueueDepth(int queueDepth) {
+        if (queueDepth <= 0) throw new IllegalArgumentException("queueDepth: " + queueDepth);
+        this.queueDepth = queueDepth;
+        return this;
+    }
+
+    /**
+     * Produce packets at the sample rate in stream time (default), or as fast as they
+     * are consumed. Unpaced packet times run ahead of the master stream time.
+     */
+    public SimulatedDevice setPaced(boolean paced) {
+        this.paced = paced;
+        return this;
+    }
+
+    /** Minimum length of the repeating test signal. Default 256 Ki samples. */
+    public SimulatedDevice setWaveformSamples(int waveformSamples) {
+        if (waveformSamples <= 0) throw new IllegalArgumentException("waveformSamples: " + waveformSamples);
+        this.waveformSamples = waveformSamples;
+        return this;
+    }
+
+    /** Total noise power over the span; negative infinity for none. Default -80 dBm. */
+    public SimulatedDevice setNoiseLevel(double dbm) {
+        this.noiseDbm = dbm;
+        return this;
+    }
+
+    /**
+     * Add a tone at a frequency offset from the center. The offset is rounded to a whole
+     * number of cycles over the waveform.
+     */
+    public SimulatedDevice addTone(double offsetHz, double dbm) {
+        synchronized (tones) {
+            tones.add(new double[]{offsetHz, dbm});
+        }
+        return this;
+    }
+
+    public SimulatedDevice clearTones() {
+        synchronized (tones) {
+            tones.clear();
+        }
+        return this;
+    }
+
+    /** Probability that a produced packet is lost before reaching the queue. Default 0. */
+    public SimulatedDevice setDropProbability(double probability) {
+        if (probability < 0 || probability > 1) throw new IllegalArgumentException("probability: " + probability);
+        this.dropProbability = probability;
+        return this;
+    }
+
+    /** Time spent in each transitional state such as CONNECTING or STARTING. Default 20 ms. */
+    public SimulatedDevice setTransitionDelay(long time, TimeUnit unit) {
+        this.transitionNanos = unit.toNanos(time);
+        return this;
+    }
+
+    /** Offset added to the master stream time, e.g. to model unsynchronized devices. */
+    public SimulatedDevice setClockOffset(double seconds) {
+        this.clockOffset = seconds;
+        return this;
+    }
+
+    /** Seed of the noise and drop generators. Default 1. */
+    public SimulatedDevice setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /** Where sent packets go; null (default) only counts them. */
+    public SimulatedDevice setTransmitSink(TransmitSink sink) {
+        this.transmitSink = sink;
+        return this;
+    }
+
+    // --- Counters ---
+
+    /** Packets that entered the receive queue. */
+    public long getProduced()      { return produced; }
+    /** Packets lost because the receive queue was full. */
+    public long getDropped()       { return dropped; }
+    /** Packets lost by drop injection. */
+    public long getInjectedDrops() { return injectedDrops; }
+    /** Packets consumed from the receive queue. */
+    public long getConsumed()      { return consumed; }
+    /** Packets accepted by {@code SendPacket}. */
+    public long getSentPackets()   { return sentPackets; }
+    /** Samples accepted by {@code SendPacket}. */
+    public long getSentSamples()   { return sentSamples; }
+
+    public synchronized int getState() {
+        advance(System.nanoTime());
+        return state;
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    // --- Lifecycle, called by the simulator ---
+
+    synchronized int openSession(String mode) {
+        if (open) return ResultCode.ERROR_BUSY;
+        open = true;
+        this.mode = mode;
+        state = ResultCode.IDLE;
+        return ResultCode.OK;
+    }
+
+    synchronized void closeSession() {
+        open = false;
+        state = ResultCode.IDLE;
+        clearQueue();
+    }
+
+    synchronized int connect() {
+        advance(System.nanoTime());
+        if (state != ResultCode.IDLE) return state == ResultCode.CONNECTED ? ResultCode.OK : ResultCode.ERROR_BUSY;
+        enter(ResultCode.CONNECTING);
+        return ResultCode.OK;
+    }
+
+    synchronized int disconnect() {
+        advance(System.nanoTime());
+        if (state == ResultCode.IDLE) return ResultCode.OK;
+        clearQueue();
+        enter(ResultCode.DISCONNECTING);
+        return ResultCode.OK;
+    }
+
+    synchronized int start() {
+        advance(System.nanoTime());
+        if (state == ResultCode.RUNNING || state == ResultCode.STARTING) return ResultCode.OK;
+        if (state != ResultCode.CONNECTED && state != ResultCode.CONNECTING) return ResultCode.ERROR_NOT_CONNECTED;
+        enter(ResultCode.STARTING);
+        return ResultCode.OK;
+    }
+
+    synchronized int stop() {
+        advance(System.nanoTime());
+        if (state != ResultCode.RUNNING && state != ResultCode.STARTING) return ResultCode.OK;
+        clearQueue();
+        enter(ResultCode.STOPPING);
+        return ResultCode.OK;
+    }
+
+    private void enter(int newState) {
+        state = newState;
+        stateSince = System.nanoTime();
+    }
+
+    /**
+     * Complete transitional states whose delay has passed and produce due packets.
+     */
+    private void advance(long now) {
+        while (isTransitional(state) && now - stateSince >= transitionNanos) {
+            long at = stateSince + transitionNanos;
+            switch (state) {
+                case ResultCode.CONNECTING: state = ResultCode.CONNECTED; break;
+                case ResultCode.STARTING:   state = ResultCode.RUNNING; beginStream(at); break;
+                case ResultCode.STOPPING:   state = ResultCode.CONNECTED; break;
+                default:                    state = ResultCode.IDLE; break;
+            }
+            stateSince = at;
+        }
+        if (state == ResultCode.RUNNING) produce(now);
+    }
+
+    private static boolean isTransitional(int state) {
+        return state == ResultCode.CONNECTING || state == ResultCode.STARTING
+            || state == ResultCode.STOPPING || state == ResultCode.DISCONNECTING;
+    }
+
+    double streamTime(long nanos) {
+        return EPOCH_SECONDS + clockOffset + (nanos - EPOCH_NANOS) / 1e9;
+    }
+
+    synchronized double getMasterStreamTime() {
+        return streamTime(System.nanoTime());
+    }
+
+    // --- Receive queue ---
+
+    private void beginStream(long atNanos) {
+        int depth = queueDepth;
+        qSeq = new long[depth];
+        qFlags = new long[depth];
+        qTime = new double[depth];
+        qCenter = new double[depth];
+        qWave = new Waveform[depth];
+        qHead = 0;
+        qCount = 0;
+        dropRandom = new Random(seed ^ 0x5DEECE66DL);
+        waveform = null;
+        nextSeq = 0;
+        seqBase = 0;
+        timeBase = streamTime(atNanos);
+        firstPacket = true;
+        pendingDrop = false;
+    }
+
+    private void clearQueue() {
+        if (qWave != null) Arrays.fill(qWave, null);
+        qCount = 0;
+    }
+
+    private Waveform waveform(double rate) {
+        if (waveform == null || waveform.sampleRate != rate) {
+            if (waveform != null) {
+                // Keep packet times continuous across the rate change.
+                timeBase += (nextSeq - seqBase) * (double) waveform.packetSamples / waveform.sampleRate;
+                seqBase = nextSeq;
+            }
+            List<double[]> snapshot;
+            synchronized (tones) {
+                snapshot = new ArrayList<>(tones);
+            }
+            waveform = new Waveform(rate, packetSamples, waveformSamples, snapshot, noiseDbm, seed);
+        }
+        return waveform;
+    }
+
+    private void produce(long now) {
+        if (mode.endsWith("transmitter")) return;
+        Waveform wave = waveform(spanFreq.getFloat());
+        double packetSeconds = wave.packetSamples / wave.sampleRate;
+        long due;
+        if (paced) {
+            due = seqBase + (long) Math.floor((streamTime(now) - timeBase) / packetSeconds);
+        } else {
+            due = nextSeq + (qSeq.length - qCount);
+        }
+        if (due <= nextSeq) return;
+
+        double center = centerFreq.getFloat();
+        double drop = dropProbability;
+        while (nextSeq < due && qCount < qSeq.length) {
+            long seq = nextSeq++;
+            if (drop > 0 && dropRandom.nextDouble() < drop) {
+                injectedDrops++;
+                pendingDrop = true;
+                continue;
+            }
+            long flags = 0;
+            if (firstPacket) {
+                flags |= PacketFlags.STREAM_START | PacketFlags.SEGMENT_START;
+                firstPacket = false;
+            } else if (center != lastCenter) {
+                flags |= PacketFlags.SEGMENT_START;
+            }
+            if (pendingDrop) {
+                flags |= PacketFlags.WARN_DROPPED;
+                pendingDrop = false;
+            }
+            lastCenter = center;
+
+            int slot = (qHead + qCount) % qSeq.length;
+            qSeq[slot] = seq;
+            qFlags[slot] = flags;
+            qTime[slot] = timeBase + (seq - seqBase) * packetSeconds;
+            qCenter[slot] = center;
+            qWave[slot] = wave;
+            qCount++;
+            produced++;
+        }
+        if (nextSeq < due) {
+            dropped += due - nextSeq;
+            nextSeq = due;
+            pendingDrop = true;
+        }
+    }
+
+    synchronized int available(int channel) {
+        if (channel != 0) return -1;
+        advance(System.nanoTime());
+        return state == ResultCode.RUNNING ? qCount : 0;
+    }
+
+    synchronized int fill(int channel, int index, AARTSAAPI_Packet packet) {
+        if (channel != 0) return ResultCode.ERROR_INVALID_CHANNEL;
+        if (index >= qCount) advance(System.nanoTime());
+        if (index < 0 || index >= qCount || state != ResultCode.RUNNING) return ResultCode.EMPTY;
+        int slot = (qHead + index) % qSeq.length;
+        Waveform wave = qWave[slot];
+        double start = qTime[slot];
+        double span = wave.sampleRate;
+
+        packet.streamID = channel;
+        packet.flags = qFlags[slot];
+        packet.startTime = start;
+        packet.endTime = start + wave.packetSamples / wave.sampleRate;
+        packet.startFrequency = qCenter[slot] - span / 2;
+        packet.stepFrequency = wave.sampleRate;
+        packet.spanFrequency = span;
+        packet.rbwFrequency = 0;
+        packet.num = wave.packetSamples;
+        packet.total = wave.packetSamples;
+        packet.size = 2;
+        packet.stride = 2;
+        packet.interleave = 1;
+        packet.fp32 = wave.slice(qSeq[slot]);
+        packet.writeReceived();
+        return ResultCode.OK;
+    }
+
+    synchronized int consume(int channel, int num) {
+        if (channel != 0) return ResultCode.ERROR_INVALID_CHANNEL;
+        if (num < 0) return ResultCode.ERROR_INVALID_PARAMETER;
+        int n = Math.min(num, qCount);
+        for (int i = 0; i < n; i++) {
+            qWave[qHead] = null;
+            qHead = (qHead + 1) % qSeq.length;
+        }
+        qCount -= n;
+        consumed += n;
+        return ResultCode.OK;
+    }
+
+    // --- Transmit ---
+
+    int send(int channel, AARTSAAPI_Packet packet) {
+        TransmitSink sink;
+        synchronized (this) {
+            advance(System.nanoTime());
+            if (!mode.endsWith("transmitter") && !mode.endsWith("transceiver")) return ResultCode.ERROR_INVALID_CHANNEL;
+            if (channel != 0) return ResultCode.ERROR_INVALID_CHANNEL;
+            if (state != ResultCode.RUNNING) return ResultCode.ERROR_NOT_CONNECTED;
+            if (packet.num > 0 && packet.fp32 == null) return ResultCode.ERROR_INVALID_PARAMETER;
+            sentPackets++;
+            sentSamples += Math.max(0, packet.num);
+            sink = transmitSink;
+        }
+        if (sink != null) sink.accept(channel, packet);
+        return ResultCode.OK;
+    }
+
+    // --- Enumeration ---
+
+    boolean isReady()      { return ready; }
+    boolean isBoost()      { return boost; }
+    boolean isSuperspeed() { return superspeed; }
+
+    @Override
+    public String toString() {
+        return "SimulatedDevice{serial=" + serialNumber + ", produced=" + produced + ", consumed=" + consumed +
+               ", dropped=" + dropped + ", injectedDrops=" + injectedDrops + ", sent=" + sentPackets + "}";
+    }
+}
@@ -0,0 +1,21 @@
+package com.aaronia.rtsa.sim;
+
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.aaronia.rtsa.native_.LibraryProvider;
+
+/**
+ * The {@code sim} backend: a {@link RtsaSimulator} configured from the
+ * {@code aaronia.rtsa.sim.*} system properties.
+ */
+public final class SimulatorProvider implements LibraryProvider {
+
+    @Override
+    public String name() {
+        return "sim";
+    }
+
+    @Override
+    public AaroniaRtsaLibrary create(String libraryName) {
+        return RtsaSimulator.fromSystemProperties();
+    }
+}
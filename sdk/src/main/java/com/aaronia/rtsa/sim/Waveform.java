@@ -0,0 +1,79 @@
+package com.aaronia.rtsa.sim;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Periodic IQ test signal in native memory: complex Gaussian noise plus tones.
+ * <p>
+ * The table is a whole number of packets long and tones are rounded to a whole number
+ * of cycles over it, so consecutive packets pointing into successive slices form a
+ * continuous signal. Packets share the table, so handing one out costs no copy and
+ * no allocation.
+ */
+final class Waveform {
+
+    /** Signal power giving 0 dBm: |x|^2 = 1/20. */
+    private static final double ZERO_DBM_POWER = 1.0 / 20;
+    private static final int CHUNK = 4096;
+
+    final double sampleRate;
+    final int packetSamples;
+    private final Memory memory;
+    private final Pointer[] slices;
+
+    Waveform(double sampleRate, int packetSamples, int minSamples, List<double[]> tones,
+             double noiseDbm, long seed) {
+        this.sampleRate = sampleRate;
+        this.packetSamples = packetSamples;
+        int packets = Math.max(1, (minSamples + packetSamples - 1) / packetSamples);
+        long length = (long) packets * packetSamples;
+        long packetBytes = (long) packetSamples * 2 * Float.BYTES;
+        this.memory = new Memory(packets * packetBytes);
+        this.slices = new Pointer[packets];
+        for (int i = 0; i < packets; i++) slices[i] = memory.share(i * packetBytes, packetBytes);
+
+        int n = tones.size();
+        double[] step = new double[n];
+        double[] amplitude = new double[n];
+        for (int t = 0; t < n; t++) {
+            double offset = tones.get(t)[0];
+            if (Math.abs(offset) >= sampleRate / 2) continue;
+            long cycles = Math.round(offset / sampleRate * length);
+            step[t] = 2 * Math.PI * cycles / length;
+            amplitude[t] = Math.sqrt(ZERO_DBM_POWER * Math.pow(10, tones.get(t)[1] / 10));
+        }
+        double sigma = Double.isInfinite(noiseDbm) ? 0 : Math.sqrt(ZERO_DBM_POWER * Math.pow(10, noiseDbm / 10) / 2);
+
+        Random random = new Random(seed);
+        float[] chunk = new float[2 * CHUNK];
+        for (long done = 0; done < length; ) {
+            int count = (int) Math.min(CHUNK, length - done);
+            for (int k = 0; k < count; k++) {
+                long s = done + k;
+                double i = sigma * random.nextGaussian();
+                double q = sigma * random.nextGaussian();
+                for (int t = 0; t < n; t++) {
+                    if (amplitude[t] == 0) continue;
+                    double phase = step[t] * s;
+                    i += amplitude[t] * Math.cos(phase);
+                    q += amplitude[t] * Math.sin(phase);
+                }
+                chunk[2 * k] = (float) i;
+                chunk[2 * k + 1] = (float) q;
+            }
+            memory.write(done * 2 * Float.BYTES, chunk, 0, 2 * count);
+            done += count;
+        }
+    }
+
+    /**
+     * Payload of the packet with the given sequence number.
+     */
+    Pointer slice(long sequence) {
+        return slices[(int) (sequence % slices.length)];
+    }
+}
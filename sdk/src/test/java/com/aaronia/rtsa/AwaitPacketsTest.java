@@ -0,0 +1,99 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wake-up latency of {@link RtsaDevice#awaitPackets} against a paced 1 kHz simulated source:
+ * the time from a packet's end, when the simulator queues it, to the waiter seeing it.
+ * The bounds leave room for a loaded machine; a 1 ms sleep loop fails the median.
+ */
+class AwaitPacketsTest {
+
+    private static final int SAMPLES = 1000;
+    private static final double SAMPLE_RATE = 1e6;
+    private static final int WAKEUPS = 500;
+
+    private static final double P50_BOUND = 300e-6;
+    private static final double P99_BOUND = 5e-3;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> s.setPacketSamples(SAMPLES),
+                                 d -> d.configSetFloat("main/spanfreq", SAMPLE_RATE));
+        device = sim.device();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void platformThreadLatencyPercentiles() throws Exception {
+        assertPercentiles(measure());
+    }
+
+    @Test
+    void virtualThreadLatencyPercentiles() throws Exception {
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                result.set(measure());
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        }).join();
+        if (result.get() instanceof Throwable t) throw new AssertionError(t);
+        assertPercentiles((double[]) result.get());
+    }
+
+    @Test
+    void timeoutReturnsWhatIsAvailable() throws InterruptedException {
+        device.stop();
+        long start = System.nanoTime();
+        assertEquals(0, device.awaitPackets(0, 1, 20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    /** Latencies in seconds, sorted; the newest queued packet is measured after each wake-up. */
+    private double[] measure() throws InterruptedException {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        double[] latency = new double[WAKEUPS];
+        drain();
+        for (int i = 0; i < WAKEUPS; i++) {
+            int n = device.awaitPackets(0, 1, 1, TimeUnit.SECONDS);
+            double now = device.getMasterStreamTime();
+            assertTrue(n > 0, "timed out");
+            assertTrue(device.getPacket(0, n - 1, packet));
+            latency[i] = now - packet.endTime;
+            device.consumePackets(0, n);
+        }
+        Arrays.sort(latency);
+        return latency;
+    }
+
+    private void drain() {
+        device.consumePackets(0, device.availablePackets(0));
+    }
+
+    private static void assertPercentiles(double[] sorted) {
+        double p50 = sorted[sorted.length / 2];
+        double p99 = sorted[sorted.length * 99 / 100];
+        String summary = String.format("p50 %.1f us, p99 %.1f us", p50 * 1e6, p99 * 1e6);
+        assertTrue(p50 < P50_BOUND, summary);
+        assertTrue(p99 < P99_BOUND, summary);
+    }
+}
@@ -0,0 +1,98 @@
+package com.aaronia.rtsa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Native calls behind {@link RtsaDevice#configFind} as its handle cache hits and is invalidated.
+ */
+class ConfigCacheTest {
+
+    private static final String PATH = "main/centerfreq";
+
+    private final CountingLibrary counter = new CountingLibrary();
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, counter::wrap, d -> { });
+        device = sim.device();
+        counter.reset();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void repeatedLookupsResolveOnce() {
+        RtsaConfig first = device.configFind(PATH);
+        assertNotNull(first);
+        assertEquals(1, counter.calls("ConfigRoot"));
+        assertEquals(1, counter.calls("ConfigFind"));
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(first, device.configFind(PATH));
+            device.configSetFloat(PATH, 100e6 + i * 1e6);
+        }
+        assertEquals(1, counter.calls("ConfigRoot"));
+        assertEquals(1, counter.calls("ConfigFind"));
+        assertEquals(10, counter.sets());
+        assertEquals(109e6, first.getFloat());
+    }
+
+    @Test
+    void missingPathsAreNotCached() {
+        assertNull(device.configFind("main/nosuchitem"));
+        assertNull(device.configFind("main/nosuchitem"));
+        assertEquals(2, counter.calls("ConfigFind"));
+    }
+
+    @Test
+    void reconnectResolvesAgain() {
+        RtsaConfig before = device.configFind(PATH);
+        device.stop();
+        device.disconnect();
+        device.connect();
+        counter.reset();
+
+        RtsaConfig after = device.configFind(PATH);
+        assertNotSame(before, after);
+        assertEquals(1, counter.calls("ConfigRoot"));
+        assertEquals(1, counter.calls("ConfigFind"));
+    }
+
+    @Test
+    void invalidateResolvesAgain() {
+        device.configFind(PATH);
+        device.configFind("device/receiverchannel");
+        device.invalidateConfigCache();
+        counter.reset();
+
+        device.configFind(PATH);
+        device.configFind("device/receiverchannel");
+        assertEquals(1, counter.calls("ConfigRoot"));
+        assertEquals(2, counter.calls("ConfigFind"));
+    }
+
+    @Test
+    void closedDeviceHandsOutNoCachedHandle() {
+        assertNotNull(device.configFind(PATH));
+        device.close();
+        counter.reset();
+
+        assertThrows(RtsaException.class, () -> device.configFind(PATH));
+        assertEquals(1, counter.calls("ConfigRoot"));
+        assertEquals(0, counter.sets());
+    }
+}
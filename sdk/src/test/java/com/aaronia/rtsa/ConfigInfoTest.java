@@ -0,0 +1,46 @@
+package com.aaronia.rtsa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigInfoTest {
+
+    private SimDevices sim;
+    private ConfigInfo info;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> { });
+        info = sim.device().configFind("device/receiverchannel").getInfo();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void enumOptionsAreDecoded() {
+        assertEquals(ConfigType.ENUM, info.getType());
+        assertEquals(List.of("Rx1", "Rx2", "Rx1+Rx2", "Rx12", "Rx Off", "Auto"), info.getOptionList());
+        assertTrue(info.getDisabledOptionSet().isEmpty());
+    }
+
+    @Test
+    void disabledOptionSetIsTheCallersCopy() {
+        BitSet disabled = info.getDisabledOptionSet();
+        disabled.set(1);
+
+        assertTrue(info.getDisabledOptionSet().isEmpty());
+        assertFalse(info.isOptionDisabled(1));
+        assertEquals(0, info.getDisabledOptions());
+    }
+}
@@ -0,0 +1,115 @@
+package com.aaronia.rtsa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshots of the simulator's config tree and the native calls their diff-based apply costs.
+ */
+class ConfigSnapshotTest {
+
+    private final CountingLibrary counter = new CountingLibrary();
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, counter::wrap, d -> { });
+        device = sim.device();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void captureKeepsValuesInTreeOrder() {
+        ConfigSnapshot snapshot = device.snapshotConfig();
+        assertEquals(ConfigType.NUMBER, snapshot.get("main/centerfreq").getType());
+        assertEquals(2440e6, snapshot.get("main/centerfreq").getNumber());
+        assertEquals(ConfigType.ENUM, snapshot.get("device/receiverchannel").getType());
+        assertEquals(ConfigType.BOOL, snapshot.get("device/gpsenable").getType());
+        assertEquals(SimDevices.SERIAL, snapshot.get("device/serial").getText());
+        assertFalse(snapshot.getEntries().containsKey("main"), "groups carry no value");
+
+        List<String> paths = List.copyOf(snapshot.getEntries().keySet());
+        assertTrue(paths.indexOf("main/centerfreq") < paths.indexOf("device/receiverchannel"));
+    }
+
+    @Test
+    void diffApplySetsOnlyChangedItems() {
+        ConfigSnapshot base = device.snapshotConfig();
+        device.configSetFloat("main/centerfreq", 100e6);
+        device.configSetInteger("device/receiverchannel", 2);
+        ConfigSnapshot changed = device.snapshotConfig();
+
+        List<ConfigSnapshot.Entry> diff = base.diff(changed);
+        assertEquals(List.of("main/centerfreq", "device/receiverchannel"),
+                     diff.stream().map(ConfigSnapshot.Entry::getPath).toList());
+
+        counter.reset();
+        assertEquals(2, device.applyConfig(base, changed));
+        assertEquals(2, counter.sets());
+        assertEquals(0, counter.gets(), "a diff apply reads nothing");
+        assertEquals(0, counter.calls("ConfigFind"), "both paths were resolved before");
+
+        assertTrue(device.snapshotConfig().diff(base).isEmpty());
+        assertTrue(base.diff(device.snapshotConfig()).isEmpty());
+    }
+
+    @Test
+    void applyReadsEveryItemAndSetsOnlyChanged() {
+        ConfigSnapshot base = device.snapshotConfig();
+        device.configSetFloat("main/reflevel", -30);
+        counter.reset();
+
+        assertEquals(1, device.applyConfig(base));
+        assertEquals(1, counter.sets());
+        assertEquals(base.size(), counter.gets());
+        assertEquals(-20, device.configFind("main/reflevel").getFloat());
+        assertEquals(0, device.applyConfig(base));
+    }
+
+    @Test
+    void serializedSnapshotRoundTrips() throws IOException {
+        ConfigSnapshot snapshot = device.snapshotConfig();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.writeTo(bytes);
+        ConfigSnapshot read = ConfigSnapshot.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(snapshot.size(), read.size());
+        assertEquals(List.copyOf(snapshot.getEntries().keySet()), List.copyOf(read.getEntries().keySet()));
+        assertTrue(read.diff(snapshot).isEmpty());
+    }
+
+    @Test
+    void itemsMissingOnTheDeviceAreSkipped() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0x52544353);
+        data.writeByte(1);
+        data.writeInt(2);
+        data.writeUTF("main/nosuchitem");
+        data.writeByte(ConfigType.NUMBER.getValue());
+        data.writeDouble(1);
+        data.writeUTF("main/centerfreq");
+        data.writeByte(ConfigType.NUMBER.getValue());
+        data.writeDouble(1e9);
+        ConfigSnapshot target = ConfigSnapshot.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(1, device.applyConfig(target, device.snapshotConfig()));
+        assertEquals(1e9, device.configFind("main/centerfreq").getFloat());
+    }
+}
@@ -0,0 +1,51 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts library calls by method name on their way to a delegate, to check how many
+ * native calls an operation costs.
+ */
+final class CountingLibrary {
+
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+    /** Wrap a library so that its calls are counted here. */
+    AaroniaRtsaLibrary wrap(AaroniaRtsaLibrary delegate) {
+        return (AaroniaRtsaLibrary) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{AaroniaRtsaLibrary.class}, (proxy, method, args) -> {
+                calls.computeIfAbsent(method.getName(), name -> new AtomicLong()).incrementAndGet();
+                try {
+                    return method.invoke(delegate, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    /** Calls of a method without its {@code AARTSAAPI_} prefix, e.g. {@code ConfigFind}. */
+    long calls(String method) {
+        AtomicLong count = calls.get("AARTSAAPI_" + method);
+        return count == null ? 0 : count.get();
+    }
+
+    /** Calls of all config value setters. */
+    long sets() {
+        return calls("ConfigSetFloat") + calls("ConfigSetInteger") + calls("ConfigSetString");
+    }
+
+    /** Calls of all config value getters. */
+    long gets() {
+        return calls("ConfigGetFloat") + calls("ConfigGetInteger") + calls("ConfigGetString");
+    }
+
+    void reset() {
+        calls.clear();
+    }
+}
@@ -0,0 +1,135 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.aaronia.rtsa.sim.RtsaSimulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceGroupTest {
+
+    private static final String TYPE = "spectranv6/iqreceiver";
+    private static final List<String> SERIALS = List.of("SIM00001", "SIM00002", "SIM00003");
+    private static final double[] CLOCK_OFFSETS = {0, 5, -3};
+
+    private RtsaSimulator sim;
+    private RtsaApi api;
+
+    @BeforeEach
+    void open() {
+        sim = new RtsaSimulator();
+        for (int i = 0; i < SERIALS.size(); i++) {
+            sim.addDevice(SERIALS.get(i)).setPacketSamples(1000).setClockOffset(CLOCK_OFFSETS[i])
+               .setTransitionDelay(5, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @AfterEach
+    void close() {
+        if (api != null) api.close();
+    }
+
+    @Test
+    void mergesSimulatedDevicesOnAlignedClocks() throws InterruptedException {
+        api = RtsaApi.init(sim, MemorySize.MEDIUM);
+        try (DeviceGroup group = new DeviceGroup(api, TYPE, SERIALS)) {
+            group.setConfigurer(d -> d.configSetFloat("main/spanfreq", 1e6)).setAlignClocks(true);
+            group.start(5, TimeUnit.SECONDS);
+
+            double last = Double.NEGATIVE_INFINITY;
+            long decreasing = 0;
+            for (int i = 0; i < 300; i++) {
+                AARTSAAPI_Packet packet = group.poll(1, TimeUnit.SECONDS);
+                assertNotNull(packet, "merged stream stalled");
+                if (packet.startTime < last) decreasing++;
+                else last = packet.startTime;
+            }
+
+            long outOfOrder = 0;
+            for (DeviceGroup.Member m : group.getMembers()) {
+                assertTrue(m.getPackets() > 0, m.toString());
+                assertEquals(CLOCK_OFFSETS[m.getIndex()], m.getClockOffset(), 1e-3, m.toString());
+                assertEquals(ResultCode.RUNNING, m.getState());
+                outOfOrder += m.getOutOfOrder();
+            }
+            assertEquals(decreasing, outOfOrder);
+            assertTrue(outOfOrder < 3, "out of order: " + outOfOrder);
+        }
+    }
+
+    @Test
+    void failedBringUpClosesTheOthers() {
+        api = RtsaApi.init(sim, MemorySize.MEDIUM);
+        DeviceGroup group = new DeviceGroup(api, TYPE, List.of("SIM00001", "SIM00099", "SIM00002"));
+        assertThrows(RtsaException.class, () -> group.start(5, TimeUnit.SECONDS));
+        assertTrue(group.getMember(0).getDevice().isClosed());
+        assertTrue(group.getMember(2).getDevice().isClosed());
+    }
+
+    @Test
+    void closeRunsEveryStepAndReportsFailures() throws InterruptedException {
+        AaroniaRtsaLibrary failingStop = (AaroniaRtsaLibrary) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{AaroniaRtsaLibrary.class}, (proxy, method, args) -> {
+                if (method.getName().equals("AARTSAAPI_StopDevice")) throw new IllegalStateException("StopDevice");
+                try {
+                    return method.invoke(sim, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        api = RtsaApi.init(failingStop, MemorySize.MEDIUM);
+        DeviceGroup group = new DeviceGroup(api, TYPE, SERIALS);
+        group.start(5, TimeUnit.SECONDS);
+
+        RuntimeException thrown = assertThrows(IllegalStateException.class, group::close);
+        assertEquals("StopDevice", thrown.getMessage());
+        assertEquals(SERIALS.size() - 1, thrown.getSuppressed().length);
+        for (DeviceGroup.Member m : group.getMembers()) {
+            assertTrue(m.getDevice().isClosed(), m.toString());
+        }
+    }
+
+    @Test
+    void interruptedStartClosesDevicesWithoutHanging() throws Exception {
+        api = RtsaApi.init(sim, MemorySize.MEDIUM);
+        DeviceGroup group = new DeviceGroup(api, TYPE, SERIALS);
+        group.setConfigurer(d -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                throw new RtsaException("configure interrupted", ResultCode.ERROR);
+            }
+        });
+
+        CompletableFuture<Throwable> result = new CompletableFuture<>();
+        Thread starter = new Thread(() -> {
+            try {
+                group.start(5, TimeUnit.SECONDS);
+                result.complete(null);
+            } catch (Throwable t) {
+                result.complete(t);
+            }
+        });
+        starter.start();
+        while (group.getMembers().stream().anyMatch(m -> m.getDevice() == null)) Thread.sleep(1);
+        starter.interrupt();
+
+        assertInstanceOf(InterruptedException.class, result.get(5, TimeUnit.SECONDS));
+        for (DeviceGroup.Member m : group.getMembers()) {
+            assertTrue(m.getDevice().isClosed(), m.toString());
+        }
+    }
+}
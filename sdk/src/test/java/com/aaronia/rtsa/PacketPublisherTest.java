@@ -0,0 +1,96 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketPublisherTest {
+
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> s.setPaced(false).setPacketSamples(256));
+        device = sim.device();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void closeFromOnNextCompletes() throws Exception {
+        PacketPublisher publisher = device.publisher(0);
+        Probe probe = new Probe(p -> publisher.close());
+        publisher.subscribe(probe);
+
+        assertNull(probe.done.get(5, TimeUnit.SECONDS));
+        assertEquals(1, probe.received.get());
+    }
+
+    @Test
+    void throwingOnNextIsReportedAndOthersContinue() throws Exception {
+        PacketPublisher publisher = device.publisher(0);
+        IllegalStateException failure = new IllegalStateException("onNext");
+        Probe failing = new Probe(p -> { throw failure; });
+        Probe healthy = new Probe(p -> { });
+        publisher.subscribe(failing);
+        publisher.subscribe(healthy);
+
+        assertSame(failure, failing.done.get(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (healthy.received.get() < 100 && System.nanoTime() < deadline) Thread.sleep(1);
+        assertTrue(healthy.received.get() >= 100);
+        assertEquals(1, failing.received.get());
+
+        publisher.close();
+        assertNull(healthy.done.get(5, TimeUnit.SECONDS));
+    }
+
+    /** Requests unbounded demand; {@code done} completes with null on completion or the error. */
+    private static final class Probe implements Flow.Subscriber<AARTSAAPI_Packet> {
+
+        final CompletableFuture<Throwable> done = new CompletableFuture<>();
+        final AtomicInteger received = new AtomicInteger();
+        private final Consumer<AARTSAAPI_Packet> onNext;
+
+        Probe(Consumer<AARTSAAPI_Packet> onNext) {
+            this.onNext = onNext;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(AARTSAAPI_Packet packet) {
+            received.incrementAndGet();
+            onNext.accept(packet);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
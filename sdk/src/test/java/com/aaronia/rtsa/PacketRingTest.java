@@ -0,0 +1,117 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketRingTest {
+
+    private static final int SAMPLES = 64;
+
+    private final Memory payload = new Memory(2L * SAMPLES * Float.BYTES);
+    private final AARTSAAPI_Packet src = new AARTSAAPI_Packet();
+    private PacketRing ring;
+
+    @AfterEach
+    void free() {
+        if (ring != null) ring.free();
+        payload.close();
+    }
+
+    @Test
+    void depthRoundsUpToPowerOfTwo() {
+        ring = new PacketRing(5, 2 * SAMPLES);
+        assertEquals(8, ring.capacity());
+    }
+
+    @Test
+    void copiesHeaderAndPayload() {
+        ring = new PacketRing(4, 2 * SAMPLES);
+        fill(7);
+        assertTrue(ring.offer(src, false));
+        fill(8);
+
+        AARTSAAPI_Packet slot = ring.poll();
+        assertEquals(7, slot.startTime);
+        assertEquals(SAMPLES, slot.num);
+        assertArrayEquals(samples(7), slot.readFloats(0, 2 * SAMPLES));
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void fullRingRejectsNewest() {
+        ring = new PacketRing(4, 2 * SAMPLES);
+        for (int i = 0; i < 4; i++) {
+            fill(i);
+            assertTrue(ring.offer(src, false));
+        }
+        fill(4);
+        assertFalse(ring.offer(src, false));
+        assertEquals(4, ring.size());
+        assertEquals(4, ring.highWater());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.poll().startTime);
+        }
+    }
+
+    @Test
+    void dropOldestKeepsNewest() {
+        ring = new PacketRing(4, 2 * SAMPLES);
+        for (int i = 0; i < 10; i++) {
+            fill(i);
+            assertTrue(ring.offer(src, true));
+        }
+        assertEquals(6, ring.droppedOldest());
+        for (int i = 6; i < 10; i++) {
+            AARTSAAPI_Packet slot = ring.poll();
+            assertEquals(i, slot.startTime);
+            assertArrayEquals(samples(i), slot.readFloats(0, 2 * SAMPLES));
+        }
+    }
+
+    @Test
+    void heldSlotIsNotOverwritten() {
+        ring = new PacketRing(2, 2 * SAMPLES);
+        fill(0);
+        ring.offer(src, true);
+        fill(1);
+        ring.offer(src, true);
+        AARTSAAPI_Packet held = ring.poll();
+
+        fill(2);
+        assertFalse(ring.offer(src, true), "would overwrite the slot being read");
+        assertEquals(0, held.startTime);
+        assertArrayEquals(samples(0), held.readFloats(0, 2 * SAMPLES));
+
+        ring.release();
+        assertTrue(ring.offer(src, true));
+        assertEquals(1, ring.poll().startTime);
+        assertSame(held, ring.poll());
+        assertEquals(2, held.startTime);
+    }
+
+    private void fill(int n) {
+        src.startTime = n;
+        src.endTime = n + 1;
+        src.num = SAMPLES;
+        src.total = SAMPLES;
+        src.size = 2;
+        src.stride = 2;
+        src.fp32 = payload;
+        payload.write(0, samples(n), 0, 2 * SAMPLES);
+    }
+
+    private static float[] samples(int n) {
+        float[] f = new float[2 * SAMPLES];
+        for (int i = 0; i < f.length; i++) f[i] = n * 1000 + i;
+        return f;
+    }
+}
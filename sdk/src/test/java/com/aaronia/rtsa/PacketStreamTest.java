@@ -0,0 +1,135 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.aaronia.rtsa.sim.SimulatedDevice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streaming mode against an unpaced simulated device, whose queue refills as fast as it drains.
+ */
+class PacketStreamTest {
+
+    private static final int SAMPLES = 256;
+    private static final int PACKETS = 2_000;
+
+    private SimDevices devices;
+    private SimulatedDevice sim;
+    private RtsaDevice device;
+    private double packetSeconds;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        devices = SimDevices.running(SimDevices.RECEIVER, s -> s.setPaced(false).setPacketSamples(SAMPLES).setQueueDepth(32));
+        sim = devices.sim();
+        device = devices.device();
+        devices.awaitPackets(0, 1);
+        AARTSAAPI_Packet first = device.getPacket(0, 0);
+        packetSeconds = first.endTime - first.startTime;
+    }
+
+    @AfterEach
+    void close() {
+        devices.close();
+    }
+
+    @Test
+    void blockDeliversEveryPacketInOrder() throws InterruptedException {
+        PacketStream stream = device.openStream(0, 8, 2 * SAMPLES, BackpressurePolicy.BLOCK);
+        try {
+            double previous = Double.NaN;
+            for (int i = 0; i < PACKETS; i++) {
+                AARTSAAPI_Packet p = stream.poll(1, TimeUnit.SECONDS);
+                assertNotNull(p, "packet " + i);
+                assertEquals(SAMPLES, p.num);
+                if (!Double.isNaN(previous)) {
+                    // Epoch stream times carry only a few significant digits of a short packet.
+                    assertEquals(packetSeconds, p.startTime - previous, 4 * Math.ulp(p.startTime), "gap before packet " + i);
+                }
+                previous = p.startTime;
+                if (i % 256 == 0) Thread.sleep(1);
+            }
+            assertEquals(0, stream.getDroppedNewest());
+            assertEquals(0, stream.getDroppedOldest());
+            assertEquals(0, stream.getDroppedHeld());
+            assertEquals(0, stream.getDroppedOversize());
+            assertEquals(8, stream.getCapacity());
+            assertTrue(stream.getMaxOccupancy() <= stream.getCapacity());
+        } finally {
+            stream.close();
+        }
+        assertTrue(stream.getDrained() >= PACKETS);
+        assertEquals(0, sim.getDropped());
+    }
+
+    @Test
+    void dropNewestDropsUnderSlowConsumer() throws InterruptedException {
+        assertDropsInOrder(BackpressurePolicy.DROP_NEWEST);
+    }
+
+    @Test
+    void dropOldestDropsUnderSlowConsumer() throws InterruptedException {
+        assertDropsInOrder(BackpressurePolicy.DROP_OLDEST);
+    }
+
+    @Test
+    void oversizePacketsAreCounted() throws InterruptedException {
+        try (PacketStream stream = device.openStream(0, 8, SAMPLES, BackpressurePolicy.BLOCK)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SimDevices.TIMEOUT_SECONDS);
+            while (stream.getDroppedOversize() == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertTrue(stream.getDroppedOversize() > 0);
+            assertNull(stream.poll());
+        }
+    }
+
+    @Test
+    void closeStopsDrainThread() throws InterruptedException {
+        PacketStream stream = device.openStream(0, 8, 2 * SAMPLES, BackpressurePolicy.DROP_NEWEST);
+        assertNotNull(stream.poll(1, TimeUnit.SECONDS));
+        stream.close();
+        assertFalse(stream.isRunning());
+        assertNull(stream.poll());
+    }
+
+    private void assertDropsInOrder(BackpressurePolicy policy) throws InterruptedException {
+        try (PacketStream stream = device.openStream(0, 4, 2 * SAMPLES, policy)) {
+            double previous = Double.NEGATIVE_INFINITY;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (dropped(stream, policy) == 0 && System.nanoTime() < deadline) {
+                AARTSAAPI_Packet p = stream.poll(1, TimeUnit.SECONDS);
+                assertNotNull(p);
+                assertTrue(p.startTime > previous, "packets out of order");
+                previous = p.startTime;
+                stream.release();
+                Thread.sleep(2);
+            }
+            assertTrue(dropped(stream, policy) > 0);
+            if (policy == BackpressurePolicy.DROP_NEWEST) {
+                assertEquals(0, stream.getDroppedOldest());
+                assertEquals(0, stream.getDroppedHeld());
+            } else {
+                assertEquals(0, stream.getDroppedNewest(), "held-slot drops are counted apart");
+            }
+            assertTrue(stream.getMaxOccupancy() <= stream.getCapacity());
+        }
+    }
+
+    /**
+     * Drops attributed to the policy. {@code DROP_OLDEST} also drops the newest packet
+     * while the oldest one is held by the consumer.
+     */
+    private static long dropped(PacketStream stream, BackpressurePolicy policy) {
+        return policy == BackpressurePolicy.DROP_OLDEST
+               ? stream.getDroppedOldest() + stream.getDroppedHeld()
+               : stream.getDroppedNewest();
+    }
+}
@@ -0,0 +1,199 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketTimingMonitorTest {
+
+    private static final double RATE = 1e6;
+    private static final int SAMPLES = 1000;
+    private static final double PACKET_SECONDS = SAMPLES / RATE;
+    /** An epoch-like start, where timestamps resolve about 0.24 us. */
+    private static final double START = 1.7e9;
+    /** Tolerance of latencies, which are differences of such timestamps. */
+    private static final double RESOLUTION = 1e-6;
+
+    private final AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+
+    @Test
+    void continuousRunHasNoGaps() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor();
+        for (int i = 0; i < 10; i++) accept(monitor, 0, START + i * PACKET_SECONDS, 0);
+
+        PacketTimingMonitor.Stream stream = monitor.getStream(0);
+        assertEquals(10, stream.getPackets());
+        assertEquals(10 * SAMPLES, stream.getSamples());
+        assertEquals(0, stream.getGaps());
+        assertEquals(0, stream.getOverlaps());
+        assertEquals(RATE, stream.getSampleRate(), 1);
+        assertEquals(START + 10 * PACKET_SECONDS, stream.getExpectedStartTime());
+        assertEquals(0, monitor.getGaps());
+    }
+
+    @Test
+    void gapsAreCountedWhetherFlaggedOrNot() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor();
+        double t = START;
+        for (int i = 0; i < 5; i++, t += PACKET_SECONDS) accept(monitor, 0, t, 0);
+        t += 500 / RATE;
+        accept(monitor, 0, t, PacketFlags.WARN_DROPPED);
+        t += PACKET_SECONDS + 2000 / RATE;
+        accept(monitor, 0, t, 0);
+
+        PacketTimingMonitor.Stream stream = monitor.getStream(0);
+        assertEquals(2, stream.getGaps());
+        assertEquals(1, stream.getUnflaggedGaps());
+        assertEquals(1, stream.getFlaggedDrops());
+        assertEquals(2500, stream.getGapSamples());
+        assertEquals(2500 / RATE, stream.getGapSeconds(), 1e-6);
+        assertEquals(2000 / RATE, stream.getMaxGapSeconds(), 1e-6);
+        assertEquals(2, monitor.getGaps());
+        assertEquals(2500, monitor.getGapSamples());
+    }
+
+    @Test
+    void earlierStartIsAnOverlap() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor();
+        accept(monitor, 0, START, 0);
+        accept(monitor, 0, START + PACKET_SECONDS, 0);
+        accept(monitor, 0, START + 2 * PACKET_SECONDS - 100 / RATE, 0);
+
+        PacketTimingMonitor.Stream stream = monitor.getStream(0);
+        assertEquals(1, stream.getOverlaps());
+        assertEquals(100 / RATE, stream.getOverlapSeconds(), 1e-6);
+        assertEquals(0, stream.getGaps());
+    }
+
+    @Test
+    void streamStartBeginsNewExpectation() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor();
+        accept(monitor, 0, START, 0);
+        accept(monitor, 0, START + PACKET_SECONDS, 0);
+        double restart = START + 60;
+        accept(monitor, 0, restart, PacketFlags.STREAM_START);
+        accept(monitor, 0, restart + PACKET_SECONDS, 0);
+        accept(monitor, 0, restart - 30, PacketFlags.STREAM_START);
+
+        PacketTimingMonitor.Stream stream = monitor.getStream(0);
+        assertEquals(0, stream.getGaps());
+        assertEquals(0, stream.getOverlaps());
+        assertEquals(restart - 30 + PACKET_SECONDS, stream.getExpectedStartTime());
+    }
+
+    @Test
+    void streamsBeyondTheMaximumAreUntracked() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor(2, 4);
+        for (int i = 0; i < 3; i++) {
+            for (long id = 1; id <= 3; id++) accept(monitor, id, START + i * PACKET_SECONDS, 0);
+        }
+
+        assertEquals(9, monitor.getPackets());
+        assertEquals(3, monitor.getUntrackedPackets());
+        List<PacketTimingMonitor.Stream> streams = monitor.getStreams();
+        assertEquals(2, streams.size());
+        assertEquals(1, streams.get(0).getStreamId());
+        assertEquals(2, streams.get(1).getStreamId());
+        assertSame(streams.get(1), monitor.getStream(2));
+        assertNull(monitor.getStream(3));
+        assertEquals(0, monitor.getGaps(), "streams interleave without gaps");
+    }
+
+    @Test
+    void latencyWindowWraps() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor(1, 4);
+        assertTrue(Double.isNaN(monitor.getLatency()));
+        assertTrue(Double.isNaN(monitor.getWindowMeanLatency()));
+
+        for (int i = 1; i <= 10; i++) latency(monitor, i, i * 1e-3);
+        assertEquals(10, monitor.getLatencySamples());
+        assertEquals(10e-3, monitor.getLatency(), RESOLUTION);
+        assertEquals(1e-3, monitor.getMinLatency(), RESOLUTION);
+        assertEquals(10e-3, monitor.getMaxLatency(), RESOLUTION);
+        assertEquals(8.5e-3, monitor.getWindowMeanLatency(), RESOLUTION);
+        assertEquals(10e-3, monitor.getWindowMaxLatency(), RESOLUTION);
+        // Nine steps of 1 ms, each closing 1/16 of the distance to it.
+        assertEquals(1e-3 * (1 - Math.pow(15.0 / 16, 9)), monitor.getLatencyJitter(), RESOLUTION);
+
+        for (int i = 11; i <= 14; i++) latency(monitor, i, 0.5e-3);
+        assertEquals(0.5e-3, monitor.getWindowMeanLatency(), RESOLUTION);
+        assertEquals(0.5e-3, monitor.getWindowMaxLatency(), RESOLUTION, "older values left the window");
+        assertEquals(10e-3, monitor.getMaxLatency(), RESOLUTION);
+        assertEquals(0.5e-3, monitor.getMinLatency(), RESOLUTION);
+    }
+
+    @Test
+    void latencyIntervalSkipsMeasurements() {
+        PacketTimingMonitor monitor = new PacketTimingMonitor();
+        monitor.setLatencyInterval(3);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i % 3 == 0, monitor.latencyDue(), "packet " + i);
+            latency(monitor, i, 1e-3);
+        }
+        assertEquals(3, monitor.getLatencySamples());
+
+        accept(monitor, 0, START + 9 * PACKET_SECONDS, 0);
+        assertEquals(3, monitor.getLatencySamples(), "no host time, no measurement");
+    }
+
+    @Test
+    void simulatorDropsShowAsFlaggedGaps() throws InterruptedException {
+        PacketTimingMonitor monitor;
+        double first = Double.NaN, end = 0, packetSeconds = 0;
+        long read = 0, samples = 0, flagged = 0;
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER,
+                s -> s.setPaced(false).setDropProbability(0.2).setSeed(7), d -> d.timingMonitor(0))) {
+            RtsaDevice device = sim.device();
+            monitor = device.timingMonitor(0);
+            while (read < 200) {
+                int available = device.availablePackets(0);
+                for (int i = 0; i < available; i++) {
+                    AARTSAAPI_Packet p = device.getPacket(0, i);
+                    if (read++ == 0) first = p.startTime;
+                    else if ((p.flags & PacketFlags.WARN_DROPPED) != 0) flagged++;
+                    end = p.endTime;
+                    packetSeconds = p.endTime - p.startTime;
+                    samples = p.num;
+                }
+                device.consumePackets(0, available);
+            }
+            assertTrue(sim.sim().getInjectedDrops() > 0);
+        }
+
+        long missing = Math.round((end - first) / packetSeconds) - read;
+        PacketTimingMonitor.Stream stream = monitor.getStream(0);
+        assertEquals(read, monitor.getPackets());
+        assertTrue(stream.getGaps() > 0);
+        // A drop before the first packet flags it too, but there is no gap to see yet.
+        assertEquals(flagged, stream.getGaps(), "each run of drops flags the next packet");
+        assertEquals(0, stream.getUnflaggedGaps());
+        assertEquals(missing * packetSeconds, stream.getGapSeconds(), stream.getGaps() * RESOLUTION);
+        // Samples are counted at a period measured from the timestamps of short runs.
+        assertEquals(missing * samples, stream.getGapSamples(), missing * samples * 0.01);
+    }
+
+    /** Account a packet measured {@code latency} seconds after its end. */
+    private void latency(PacketTimingMonitor monitor, int index, double latency) {
+        fill(0, START + index * PACKET_SECONDS, 0);
+        monitor.accept(packet, packet.endTime + latency);
+    }
+
+    private void accept(PacketTimingMonitor monitor, long streamId, double startTime, long flags) {
+        fill(streamId, startTime, flags);
+        monitor.accept(packet, Double.NaN);
+    }
+
+    private void fill(long streamId, double startTime, long flags) {
+        packet.streamID = streamId;
+        packet.startTime = startTime;
+        packet.endTime = startTime + PACKET_SECONDS;
+        packet.num = SAMPLES;
+        packet.flags = flags;
+    }
+}
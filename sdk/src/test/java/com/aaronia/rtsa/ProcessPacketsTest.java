@@ -0,0 +1,61 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProcessPacketsTest {
+
+    private static final int BATCH = 8;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+    private final AARTSAAPI_Packet[] holders = new AARTSAAPI_Packet[BATCH];
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> s.setPaced(false).setPacketSamples(256));
+        device = sim.device();
+        sim.awaitPackets(0, BATCH);
+        for (int i = 0; i < BATCH; i++) holders[i] = new AARTSAAPI_Packet();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void consumesWholeBatch() {
+        List<Double> times = new ArrayList<>();
+        assertEquals(BATCH, device.processPackets(0, holders, p -> times.add(p.startTime)));
+        assertEquals(BATCH, times.size());
+
+        double next = device.getPacket(0, 0).startTime;
+        assertEquals(times.get(BATCH - 1) + (times.get(1) - times.get(0)), next, 4 * Math.ulp(next));
+    }
+
+    @Test
+    void throwingHandlerLeavesUnprocessedPacketsQueued() {
+        List<Double> times = new ArrayList<>();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+            device.processPackets(0, holders, p -> {
+                if (times.size() == 3) throw new IllegalStateException("handler");
+                times.add(p.startTime);
+            }));
+        assertEquals("handler", e.getMessage());
+        assertEquals(3, times.size());
+
+        List<Double> retried = new ArrayList<>();
+        device.processPackets(0, holders, p -> retried.add(p.startTime));
+        double step = times.get(1) - times.get(0);
+        assertEquals(times.get(2) + step, retried.get(0), 4 * Math.ulp(step + times.get(2)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The receive loop into a reused holder must not allocate once compiled.
+ */
+class ReceiveAllocationTest {
+
+    private static final int READS = 50_000;
+    private static final int ROUNDS = 10;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> s.setPaced(false));
+        device = sim.device();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void receiveIntoHolderAllocatesNothing() {
+        com.sun.management.ThreadMXBean mx = threadMXBean();
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+
+        // The first rounds run interpreted and allocate; a compiled round must not.
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && best > 0; round++) {
+            long before = mx.getCurrentThreadAllocatedBytes();
+            int reads = receive(packet);
+            long bytes = mx.getCurrentThreadAllocatedBytes() - before;
+            assertEquals(READS, reads);
+            best = Math.min(best, bytes);
+        }
+        assertEquals(0, best, "bytes allocated for " + READS + " reads");
+    }
+
+    @Test
+    void holderSynchronizesAgainAfterReceive() throws InterruptedException {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        sim.awaitPackets(0, 1);
+        assertTrue(device.getPacket(0, 0, packet));
+        assertTrue(packet.getAutoRead());
+        assertTrue(packet.getAutoWrite());
+        assertTrue(packet.num > 0);
+
+        device.stop();
+        device.consumePackets(0, device.availablePackets(0));
+        assertFalse(device.getPacket(0, 0, packet));
+        assertTrue(packet.getAutoRead());
+        assertTrue(packet.getAutoWrite());
+    }
+
+    private int receive(AARTSAAPI_Packet packet) {
+        int reads = 0;
+        while (reads < READS) {
+            if (device.availablePackets(0) == 0) continue;
+            if (device.getPacket(0, 0, packet)) {
+                device.consumePackets(0, 1);
+                reads++;
+            }
+        }
+        return reads;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        assumeTrue(mx instanceof com.sun.management.ThreadMXBean, "no per-thread allocation counter");
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) mx;
+        assumeTrue(hotspot.isThreadAllocatedMemorySupported(), "no per-thread allocation counter");
+        hotspot.setThreadAllocatedMemoryEnabled(true);
+        return hotspot;
+    }
+}
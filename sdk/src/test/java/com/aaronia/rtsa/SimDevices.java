@@ -0,0 +1,139 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.aaronia.rtsa.sim.RtsaSimulator;
+import com.aaronia.rtsa.sim.SimulatedDevice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * One simulated device opened, connected and started in a fresh {@link RtsaApi}. Closing
+ * it closes the device, then the API. Waits are bounded so a stuck simulator fails the
+ * test instead of hanging the build.
+ */
+public final class SimDevices implements AutoCloseable {
+
+    public static final String SERIAL = "SIM00001";
+    public static final String RECEIVER = "spectranv6/iqreceiver";
+    public static final String TRANSMITTER = "spectranv6/iqtransmitter";
+
+    /** Bound of every wait, generous for a loaded build machine. */
+    public static final long TIMEOUT_SECONDS = 5;
+
+    private final SimulatedDevice sim;
+    private final RtsaApi api;
+    private final RtsaDevice device;
+
+    private SimDevices(SimulatedDevice sim, RtsaApi api, RtsaDevice device) {
+        this.sim = sim;
+        this.api = api;
+        this.device = device;
+    }
+
+    /**
+     * Bring up a device of the given type with no transition delay.
+     *
+     * @param type  device type, e.g. {@link #RECEIVER}
+     * @param setup simulator settings applied before the API is initialized
+     */
+    public static SimDevices running(String type, Consumer<SimulatedDevice> setup) throws InterruptedException {
+        return running(type, setup, device -> { });
+    }
+
+    /**
+     * Bring up a device of the given type with no transition delay.
+     *
+     * @param type      device type, e.g. {@link #RECEIVER}
+     * @param setup     simulator settings applied before the API is initialized
+     * @param configure device config applied before connecting
+     */
+    public static SimDevices running(String type, Consumer<SimulatedDevice> setup, Consumer<RtsaDevice> configure)
+            throws InterruptedException {
+        return running(type, setup, UnaryOperator.identity(), configure);
+    }
+
+    /**
+     * Bring up a device of the given type with no transition delay, calling the
+     * simulator through a wrapper such as {@link CountingLibrary}.
+     *
+     * @param type      device type, e.g. {@link #RECEIVER}
+     * @param setup     simulator settings applied before the API is initialized
+     * @param library   wraps the simulator into the library the API is initialized with
+     * @param configure device config applied before connecting
+     */
+    public static SimDevices running(String type, Consumer<SimulatedDevice> setup,
+                                     UnaryOperator<AaroniaRtsaLibrary> library, Consumer<RtsaDevice> configure)
+            throws InterruptedException {
+        RtsaSimulator simulator = new RtsaSimulator();
+        SimulatedDevice sim = simulator.addDevice(SERIAL).setTransitionDelay(0, TimeUnit.MILLISECONDS);
+        setup.accept(sim);
+        RtsaApi api = RtsaApi.init(library.apply(simulator), MemorySize.MEDIUM);
+        RtsaDevice device = null;
+        try {
+            device = api.openDevice(type, SERIAL);
+            configure.accept(device);
+            device.connect();
+            device.start();
+            awaitState(device, ResultCode.RUNNING);
+            return new SimDevices(sim, api, device);
+        } catch (Throwable t) {
+            if (device != null) device.close();
+            api.close();
+            throw t;
+        }
+    }
+
+    public SimulatedDevice sim() {
+        return sim;
+    }
+
+    public RtsaApi api() {
+        return api;
+    }
+
+    public RtsaDevice device() {
+        return device;
+    }
+
+    /**
+     * Wait until at least {@code min} packets are queued on a channel.
+     *
+     * @return the number of queued packets
+     * @throws AssertionError if they do not arrive within {@link #TIMEOUT_SECONDS}
+     */
+    public int awaitPackets(int channel, int min) throws InterruptedException {
+        int available = device.awaitPackets(channel, min, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (available < min) {
+            throw new AssertionError(available + " of " + min + " packets after " + TIMEOUT_SECONDS + " s");
+        }
+        return available;
+    }
+
+    /**
+     * Wait until a device reports the given state.
+     *
+     * @throws AssertionError if it does not within {@link #TIMEOUT_SECONDS}
+     */
+    public static void awaitState(RtsaDevice device, int state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        int current;
+        while ((current = device.getDeviceState()) != state) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError(device.getSerialNumber() + " still in state " + current
+                                         + " after " + TIMEOUT_SECONDS + " s, expected " + state);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            device.close();
+        } finally {
+            api.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.aaronia.rtsa;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransmitBufferPoolTest {
+
+    private static final int SAMPLES = 1024;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+    private TransmitBufferPool pool;
+    private final AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.TRANSMITTER, s -> { });
+        device = sim.device();
+        pool = device.transmitBufferPool();
+        packet.num = SAMPLES;
+        packet.size = 2;
+        packet.stride = 2;
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void bufferIsReusedAfterItsEndTime() throws InterruptedException {
+        send(pool.lease(2 * SAMPLES), 0.01);
+        assertEquals(1, pool.getInFlight());
+        Thread.sleep(20);
+        pool.lease(2 * SAMPLES).release();
+        assertEquals(1, pool.getAllocations());
+        assertEquals(0, pool.getInFlight());
+        assertEquals(1, pool.getFree());
+    }
+
+    @Test
+    void failedSendReleasesLease() {
+        TransmitBuffer buffer = pool.lease(2 * SAMPLES);
+        packet.startTime = device.getMasterStreamTime();
+        packet.endTime = packet.startTime + 0.01;
+        assertThrows(RtsaException.class, () -> device.sendPacket(1, packet, buffer));
+        assertEquals(0, pool.getLeased());
+        assertEquals(0, pool.getInFlight());
+        assertEquals(1, pool.getFree());
+        assertThrows(IllegalStateException.class, buffer::pointer);
+    }
+
+    @Test
+    void leakDetectionIsOptIn() throws InterruptedException {
+        assertFalse(pool.isLeakDetection());
+        assertNull(pool.lease(2 * SAMPLES).cleanable);
+
+        pool.setLeakDetection(true);
+        pool.lease(2 * SAMPLES);
+        for (int i = 0; i < 100 && pool.getLeaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, pool.getLeaks());
+        assertEquals(1, pool.getLeased(), "the undetected lease stays leased");
+    }
+
+    @Test
+    void closeWaitsForInFlightBuffers() {
+        send(pool.lease(2 * SAMPLES), 0.2);
+        long start = System.nanoTime();
+        pool.close();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(0, pool.getInFlight());
+    }
+
+    @Test
+    void deviceCloseFreesPoolAfterClosingDevice() {
+        send(pool.lease(2 * SAMPLES), 5);
+        long start = System.nanoTime();
+        device.close();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "no wait once the device is closed");
+        assertEquals(0, pool.getInFlight());
+        assertThrows(IllegalStateException.class, () -> pool.lease(2 * SAMPLES));
+    }
+
+    private void send(TransmitBuffer buffer, double seconds) {
+        packet.startTime = device.getMasterStreamTime();
+        packet.endTime = packet.startTime + seconds;
+        device.sendPacket(0, packet, buffer);
+    }
+}
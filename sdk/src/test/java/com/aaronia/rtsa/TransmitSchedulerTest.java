@@ -0,0 +1,119 @@
+package com.aaronia.rtsa;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Packet times, flags and pacing of a scheduler sending 1 ms packets to a simulated transmitter.
+ */
+class TransmitSchedulerTest {
+
+    private static final double SAMPLE_RATE = 1e6;
+    private static final int SAMPLES = 1000;
+    private static final double PACKET_SECONDS = SAMPLES / SAMPLE_RATE;
+    private static final double START_DELAY = 0.05;
+    private static final double QUEUE_AHEAD = 0.02;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+    private TransmitScheduler scheduler;
+    private final Memory iq = new Memory(2L * SAMPLES * Float.BYTES);
+
+    /** Flags, start and end time of every packet the device received. */
+    private final List<long[]> flags = new ArrayList<>();
+    private final List<double[]> times = new ArrayList<>();
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.TRANSMITTER, s -> s.setTransmitSink((channel, packet) -> {
+            flags.add(new long[]{packet.flags});
+            times.add(new double[]{packet.startTime, packet.endTime});
+        }));
+        device = sim.device();
+        scheduler = device.transmitScheduler(0, 2430e6, SAMPLE_RATE);
+        scheduler.setStartDelay(START_DELAY);
+        scheduler.setQueueAhead(QUEUE_AHEAD);
+        iq.clear();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void firstPacketStartsStreamAfterStartDelay() throws InterruptedException {
+        double before = device.getMasterStreamTime();
+        double start = scheduler.send(iq, SAMPLES);
+        assertEquals(before + START_DELAY, start, 2e-3);
+        assertEquals(PacketFlags.STREAM_START | PacketFlags.SEGMENT_START, flags.get(0)[0]);
+        assertEquals(start + PACKET_SECONDS, times.get(0)[1], 1e-9);
+        assertEquals(start + PACKET_SECONDS, scheduler.getNextStartTime(), 1e-9);
+    }
+
+    @Test
+    void sendsArePacedToQueueAhead() throws InterruptedException {
+        int packets = 100;
+        // Checked after the loop: a first assertion message costs more than the queue holds.
+        double[] levels = new double[packets];
+        long begin = System.nanoTime();
+        for (int i = 0; i < packets; i++) {
+            scheduler.send(iq, SAMPLES);
+            levels[i] = scheduler.getQueueLevel();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        assertEquals(0, scheduler.getUnderruns());
+        assertTrue(scheduler.getMinimumLead() > 0);
+        for (int i = 1; i < packets; i++) {
+            assertTrue(levels[i] <= QUEUE_AHEAD + PACKET_SECONDS + 1e-3, "queue level " + levels[i]);
+            assertEquals(times.get(i - 1)[1], times.get(i)[0], "packet " + i + " is not contiguous");
+            assertEquals(0, flags.get(i)[0], "packet " + i);
+        }
+        double expected = START_DELAY + (packets - 1) * PACKET_SECONDS - QUEUE_AHEAD;
+        assertTrue(elapsed >= expected - 2e-3, "sent " + packets + " packets in " + elapsed + " s");
+        assertEquals(packets, scheduler.getPacketsSent());
+        assertEquals((long) packets * SAMPLES, scheduler.getSamplesSent());
+    }
+
+    @Test
+    void underrunReschedulesNewSegment() throws InterruptedException {
+        scheduler.send(iq, SAMPLES);
+        scheduler.awaitDrained();
+        Thread.sleep(10);
+
+        double before = device.getMasterStreamTime();
+        double lost = before - scheduler.getNextStartTime();
+        double start = scheduler.send(iq, SAMPLES);
+
+        assertEquals(1, scheduler.getUnderruns());
+        assertTrue(scheduler.getUnderrunSeconds() >= lost, scheduler.getUnderrunSeconds() + " < " + lost);
+        assertTrue(scheduler.getUnderrunSeconds() < lost + 5e-3, String.valueOf(scheduler.getUnderrunSeconds()));
+        assertEquals(before + START_DELAY, start, 2e-3);
+        assertEquals(PacketFlags.SEGMENT_START, flags.get(1)[0]);
+    }
+
+    @Test
+    void sendFinalEndsStream() throws InterruptedException {
+        scheduler.send(iq, SAMPLES);
+        double last = scheduler.sendFinal(iq, SAMPLES);
+
+        assertEquals(times.get(0)[1], last);
+        assertEquals(PacketFlags.SEGMENT_END | PacketFlags.STREAM_END, flags.get(1)[0]);
+        assertThrows(IllegalStateException.class, () -> scheduler.send(iq, SAMPLES));
+        assertEquals(2, sim.sim().getSentPackets());
+
+        scheduler.awaitDrained();
+        assertTrue(device.getMasterStreamTime() >= last + PACKET_SECONDS);
+        assertEquals(0, scheduler.getQueueLevel());
+    }
+}
@@ -0,0 +1,183 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DspPipelineTest {
+
+    private static final int SAMPLES = 256;
+
+    @Test
+    void channelsRunInParallelAndStayInOrder() throws Exception {
+        int channels = 4, packets = 200;
+        List<List<Double>> seen = new ArrayList<>();
+        for (int c = 0; c < channels; c++) seen.add(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger(), maxRunning = new AtomicInteger();
+
+        try (DspPipeline pipeline = new DspPipeline(channels, 8)) {
+            pipeline.addStage(channel -> packet -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                work(TimeUnit.MICROSECONDS.toNanos(200));
+                running.decrementAndGet();
+                return true;
+            }).setSink((channel, packet) -> seen.get(channel).add(packet.startTime));
+
+            Thread[] submitters = new Thread[channels];
+            for (int c = 0; c < channels; c++) {
+                int channel = c;
+                submitters[c] = new Thread(() -> {
+                    AARTSAAPI_Packet packet = packet(SAMPLES);
+                    try {
+                        for (int i = 0; i < packets; i++) {
+                            packet.startTime = i;
+                            pipeline.submit(channel, packet);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                submitters[c].start();
+            }
+            for (Thread t : submitters) t.join();
+            assertTrue(pipeline.awaitIdle(10, TimeUnit.SECONDS));
+
+            for (int c = 0; c < channels; c++) {
+                assertEquals(packets, pipeline.getProcessed(c));
+                assertEquals(0, pipeline.getOutOfOrder(c));
+                for (int i = 0; i < packets; i++) assertEquals(i, seen.get(c).get(i), "channel " + c);
+            }
+            assertTrue(maxRunning.get() > 1, "channels never overlapped");
+            assertTrue(maxRunning.get() <= channels);
+        }
+    }
+
+    /**
+     * Four workers run the channels' stages concurrently. The stages sleep, so this shows
+     * overlap rather than CPU scaling; DspPipelineBenchmark measures that.
+     */
+    @Test
+    void workersRunChannelsConcurrently() throws Exception {
+        long serial = elapsed(1), parallel = elapsed(4);
+        assertTrue(parallel < serial * 0.6, String.format("1 worker %d ms, 4 workers %d ms",
+            TimeUnit.NANOSECONDS.toMillis(serial), TimeUnit.NANOSECONDS.toMillis(parallel)));
+    }
+
+    @Test
+    void concurrentSubmitToOneChannelIsRejected() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        try (DspPipeline pipeline = new DspPipeline(1, 1)) {
+            pipeline.addStage(channel -> packet -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            });
+            AARTSAAPI_Packet packet = packet(SAMPLES);
+            pipeline.submit(0, packet);
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            // The only block is held by the stage, so this submitter waits inside submit.
+            Thread waiting = new Thread(() -> {
+                try {
+                    pipeline.submit(0, packet(SAMPLES));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiting.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pipeline.getStalls(0) == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertEquals(1, pipeline.getStalls(0));
+
+            assertThrows(IllegalStateException.class, () -> pipeline.submit(0, packet));
+            pipeline.submit(1, packet);
+
+            release.countDown();
+            waiting.join();
+            assertTrue(pipeline.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(3, pipeline.getProcessed(0) + pipeline.getProcessed(1));
+        }
+    }
+
+    @Test
+    void outOfOrderSourceIsCounted() throws Exception {
+        try (DspPipeline pipeline = new DspPipeline(1, 4)) {
+            AARTSAAPI_Packet packet = packet(SAMPLES);
+            for (double t : new double[]{0, 2, 1, 3}) {
+                packet.startTime = t;
+                pipeline.submit(0, packet);
+            }
+            packet.streamID = 1;
+            packet.startTime = 0;
+            pipeline.submit(0, packet);
+            assertTrue(pipeline.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(1, pipeline.getOutOfOrder(0));
+        }
+    }
+
+    @Test
+    void payloadIsCopied() throws Exception {
+        float[] seen = new float[2 * SAMPLES];
+        try (DspPipeline pipeline = new DspPipeline(1, 2)) {
+            pipeline.setSink((channel, packet) -> packet.fp32.read(0, seen, 0, seen.length));
+            AARTSAAPI_Packet packet = packet(SAMPLES);
+            float[] sent = new float[2 * SAMPLES];
+            for (int k = 0; k < sent.length; k++) sent[k] = k;
+            packet.fp32.write(0, sent, 0, sent.length);
+            pipeline.submit(0, packet);
+            packet.fp32.write(0, new float[sent.length], 0, sent.length);
+            assertTrue(pipeline.awaitIdle(5, TimeUnit.SECONDS));
+            assertArrayEquals(sent, seen);
+        }
+    }
+
+    /** Time to push 4 channels of 50 packets through a 1 ms stage. */
+    private static long elapsed(int parallelism) throws Exception {
+        try (DspPipeline pipeline = new DspPipeline(parallelism, 64)) {
+            pipeline.addStage(channel -> packet -> {
+                work(TimeUnit.MILLISECONDS.toNanos(1));
+                return true;
+            });
+            AARTSAAPI_Packet packet = packet(SAMPLES);
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++) {
+                for (int c = 0; c < 4; c++) pipeline.submit(c, packet);
+            }
+            assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS));
+            return System.nanoTime() - start;
+        }
+    }
+
+    /** Stage work that sleeps, so overlap does not depend on the machine's core count. */
+    private static void work(long nanos) {
+        try {
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanos), (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AARTSAAPI_Packet packet(int samples) {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = new Memory((long) samples * 2 * Float.BYTES);
+        packet.num = samples;
+        packet.size = 2;
+        packet.stride = 2;
+        return packet;
+    }
+}
@@ -0,0 +1,91 @@
+package com.aaronia.rtsa.dsp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link Fft} on both kernel implementations against a naive DFT in double precision.
+ */
+class FftTest {
+
+    static final int[] SIZES = {2, 4, 8, 16, 32, 64, 128, 256, 1024, 4096};
+
+    /** RMS error relative to the RMS output; float rounding over 12 stages stays far below. */
+    static final double TOLERANCE = 1e-6;
+
+    @Test
+    void scalarMatchesDft() {
+        for (int size : SIZES) assertMatchesDft(new Fft(size, new ScalarKernels()));
+    }
+
+    @Test
+    void vectorMatchesDft() {
+        for (int size : SIZES) assertMatchesDft(new Fft(size, new VectorKernels()));
+    }
+
+    @Test
+    void defaultKernelsAreVectorized() {
+        assertTrue(Fft.isVectorized(), "tests run with --add-modules jdk.incubator.vector");
+    }
+
+    @Test
+    void impulseIsFlat() {
+        Fft fft = new Fft(64);
+        float[] re = new float[64], im = new float[64];
+        re[0] = 1;
+        fft.transform(re, im);
+        for (int k = 0; k < 64; k++) {
+            assertEquals(1, re[k], 1e-6, "bin " + k);
+            assertEquals(0, im[k], 1e-6, "bin " + k);
+        }
+    }
+
+    @Test
+    void sizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new Fft(1));
+        assertThrows(IllegalArgumentException.class, () -> new Fft(48));
+    }
+
+    private static void assertMatchesDft(Fft fft) {
+        int n = fft.getSize();
+        Random random = new Random(n);
+        float[] re = new float[n], im = new float[n];
+        for (int i = 0; i < n; i++) {
+            re[i] = random.nextFloat() * 2 - 1;
+            im[i] = random.nextFloat() * 2 - 1;
+        }
+        double[][] expected = dft(re, im);
+        fft.transform(re, im);
+
+        double error = 0, signal = 0;
+        for (int k = 0; k < n; k++) {
+            double dr = re[k] - expected[0][k], di = im[k] - expected[1][k];
+            error += dr * dr + di * di;
+            signal += expected[0][k] * expected[0][k] + expected[1][k] * expected[1][k];
+        }
+        double relative = Math.sqrt(error / signal);
+        assertTrue(relative < TOLERANCE, "size " + n + ": relative error " + relative);
+    }
+
+    private static double[][] dft(float[] re, float[] im) {
+        int n = re.length;
+        double[][] out = new double[2][n];
+        for (int k = 0; k < n; k++) {
+            double sr = 0, si = 0;
+            for (int t = 0; t < n; t++) {
+                double angle = -2 * Math.PI * ((long) k * t % n) / n;
+                double c = Math.cos(angle), s = Math.sin(angle);
+                sr += re[t] * c - im[t] * s;
+                si += re[t] * s + im[t] * c;
+            }
+            out[0][k] = sr;
+            out[1][k] = si;
+        }
+        return out;
+    }
+}
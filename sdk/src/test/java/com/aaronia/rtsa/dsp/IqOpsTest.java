@@ -0,0 +1,179 @@
+package com.aaronia.rtsa.dsp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link IqOps} against the scalar kernels, over lengths around the vector width and
+ * with offsets, so both the vector loops and their scalar tails are covered.
+ */
+class IqOpsTest {
+
+    static final int[] SIZES = {0, 1, 3, 4, 7, 8, 15, 16, 17, 31, 32, 33, 63, 64, 65, 1000, 4099};
+    static final int OFFSET = 3;
+
+    /** {@code toDbm} may differ in the last bits of {@code log10}. */
+    static final float DBM_TOLERANCE = 1e-4f;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    @Test
+    void runsVectorized() {
+        assertTrue(IqOps.isVectorized(), "tests run with --add-modules jdk.incubator.vector");
+    }
+
+    @Test
+    void deinterleave() {
+        for (int n : SIZES) {
+            float[] iq = iq(n, n);
+            float[] i = new float[n + OFFSET], q = new float[n + OFFSET];
+            float[] ri = new float[n + OFFSET], rq = new float[n + OFFSET];
+            IqOps.deinterleave(iq, 2 * OFFSET, i, q, OFFSET, n);
+            scalar.deinterleave(iq, 2 * OFFSET, ri, rq, OFFSET, n);
+            assertArrayEquals(ri, i, "n=" + n);
+            assertArrayEquals(rq, q, "n=" + n);
+        }
+    }
+
+    @Test
+    void interleave() {
+        for (int n : SIZES) {
+            float[] i = random(n + OFFSET, n), q = random(n + OFFSET, n + 1);
+            float[] iq = new float[2 * (n + OFFSET)], ref = new float[2 * (n + OFFSET)];
+            IqOps.interleave(i, q, OFFSET, iq, 2 * OFFSET, n);
+            scalar.interleave(i, q, OFFSET, ref, 2 * OFFSET, n);
+            assertArrayEquals(ref, iq, "n=" + n);
+        }
+    }
+
+    @Test
+    void power() {
+        for (int n : SIZES) {
+            float[] iq = iq(n, n);
+            float[] out = new float[n + OFFSET], ref = new float[n + OFFSET];
+            IqOps.power(iq, 2 * OFFSET, out, OFFSET, n);
+            scalar.power(iq, 2 * OFFSET, ref, OFFSET, n);
+            assertArrayEquals(ref, out, "n=" + n);
+        }
+    }
+
+    @Test
+    void magnitude() {
+        for (int n : SIZES) {
+            float[] iq = iq(n, n);
+            float[] out = new float[n + OFFSET], ref = new float[n + OFFSET];
+            IqOps.magnitude(iq, 2 * OFFSET, out, OFFSET, n);
+            scalar.magnitude(iq, 2 * OFFSET, ref, OFFSET, n);
+            assertArrayEquals(ref, out, "n=" + n);
+        }
+    }
+
+    @Test
+    void powerDbm() {
+        for (int n : SIZES) {
+            float[] iq = iq(n, n);
+            float[] out = new float[n + OFFSET], ref = new float[n + OFFSET];
+            IqOps.powerDbm(iq, 2 * OFFSET, out, OFFSET, n);
+            scalar.power(iq, 2 * OFFSET, ref, OFFSET, n);
+            scalar.toDbm(ref, OFFSET, ref, OFFSET, n);
+            assertArrayEquals(ref, out, DBM_TOLERANCE, "n=" + n);
+        }
+    }
+
+    @Test
+    void toDbmOfZeroAndFullScale() {
+        float[] power = {0f, 1f / 20, 1f, 1e-12f, 0f, 0f, 0f, 0f, 0f};
+        float[] out = new float[power.length];
+        IqOps.toDbm(power, 0, out, 0, power.length);
+        assertEquals(Float.NEGATIVE_INFINITY, out[0]);
+        assertEquals(0f, out[1], DBM_TOLERANCE);
+        assertEquals(10 * (float) Math.log10(20), out[2], DBM_TOLERANCE);
+        assertEquals(-120 + 10 * (float) Math.log10(20), out[3], DBM_TOLERANCE);
+    }
+
+    @Test
+    void scale() {
+        for (int n : SIZES) {
+            float[] data = random(n + OFFSET, n);
+            float[] ref = data.clone();
+            IqOps.scale(data, OFFSET, n, 0.75f);
+            scalar.scale(ref, OFFSET, n, 0.75f);
+            assertArrayEquals(ref, data, "n=" + n);
+        }
+    }
+
+    @Test
+    void toInt16() {
+        for (int n : SIZES) {
+            // Values up to twice full scale exercise saturation.
+            float[] src = random(n + OFFSET, n);
+            for (int k = 0; k < src.length; k++) src[k] *= 2;
+            short[] dst = new short[n + OFFSET], ref = new short[n + OFFSET];
+            IqOps.toInt16(src, OFFSET, dst, OFFSET, n, 1f);
+            scalar.toInt16(src, OFFSET, ref, OFFSET, n, Short.MAX_VALUE / 1f);
+            assertArrayEquals(ref, dst, "n=" + n);
+        }
+    }
+
+    @Test
+    void toInt16RoundsHalfAwayFromZeroAndSaturates() {
+        float unit = 1f / Short.MAX_VALUE;
+        float[] src = {0.5f * unit, -0.5f * unit, 1.5f * unit, -1.5f * unit, 2f, -2f, 1f, -1f,
+                       0.49f * unit, -0.49f * unit, 0f, 0f, 0f, 0f, 0f, 0f, 0f};
+        short[] dst = new short[src.length];
+        IqOps.toInt16(src, 0, dst, 0, src.length, 1f);
+        assertArrayEquals(new short[]{1, -1, 2, -2, Short.MAX_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, -Short.MAX_VALUE,
+                                      0, 0, 0, 0, 0, 0, 0, 0, 0}, dst);
+    }
+
+    @Test
+    void fromInt16() {
+        for (int n : SIZES) {
+            short[] src = new short[n + OFFSET];
+            Random random = new Random(n);
+            for (int k = 0; k < src.length; k++) src[k] = (short) random.nextInt();
+            float[] dst = new float[n + OFFSET], ref = new float[n + OFFSET];
+            IqOps.fromInt16(src, OFFSET, dst, OFFSET, n, 1f);
+            scalar.fromInt16(src, OFFSET, ref, OFFSET, n, 1f / Short.MAX_VALUE);
+            assertArrayEquals(ref, dst, "n=" + n);
+        }
+    }
+
+    @Test
+    void int16RoundTripIsWithinHalfAStep() {
+        float[] src = random(1000, 7);
+        for (int k = 0; k < src.length; k++) src[k] = Math.max(-1f, Math.min(1f, src[k]));
+        short[] packed = new short[src.length];
+        float[] back = new float[src.length];
+        IqOps.toInt16(src, 0, packed, 0, src.length, 1f);
+        IqOps.fromInt16(packed, 0, back, 0, src.length, 1f);
+        assertArrayEquals(src, back, 0.5f / Short.MAX_VALUE + 1e-7f);
+    }
+
+    @Test
+    void rejectsOutOfRange() {
+        float[] iq = new float[16];
+        float[] out = new float[8];
+        assertThrows(IndexOutOfBoundsException.class, () -> IqOps.power(iq, 2, out, 0, 8));
+        assertThrows(IndexOutOfBoundsException.class, () -> IqOps.power(iq, 0, out, 1, 8));
+        assertThrows(IndexOutOfBoundsException.class, () -> IqOps.toInt16(iq, 0, new short[4], 0, 8, 1f));
+    }
+
+    /** {@code n} IQ pairs after {@link #OFFSET} leading pairs, roughly within full scale. */
+    static float[] iq(int n, long seed) {
+        return random(2 * (n + OFFSET), seed);
+    }
+
+    static float[] random(int length, long seed) {
+        Random random = new Random(seed);
+        float[] data = new float[length];
+        for (int k = 0; k < length; k++) data[k] = (float) (random.nextGaussian() * 0.3);
+        return data;
+    }
+}
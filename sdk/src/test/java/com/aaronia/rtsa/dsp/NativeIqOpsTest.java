@@ -0,0 +1,152 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+
+import static com.aaronia.rtsa.dsp.IqOpsTest.random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link NativeIqOps} over native payloads against {@link IqOps} on heap copies, with a
+ * chunk that does not divide the sample count and with strided payloads.
+ */
+class NativeIqOpsTest {
+
+    private static final int SAMPLES = 1001;
+    private static final int OFFSET = 5;
+    private static final int[] CHUNKS = {7, 64, 4096};
+    private static final int[] STRIDES = {2, 3, 4};
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    @Test
+    void power() {
+        forEachLayout((ops, packet, iq) -> {
+            float[] out = new float[SAMPLES + OFFSET], ref = new float[SAMPLES + OFFSET];
+            assertEquals(SAMPLES, ops.power(packet, out, OFFSET));
+            scalar.power(iq, 0, ref, OFFSET, SAMPLES);
+            assertArrayEquals(ref, out);
+        });
+    }
+
+    @Test
+    void magnitude() {
+        forEachLayout((ops, packet, iq) -> {
+            float[] out = new float[SAMPLES + OFFSET], ref = new float[SAMPLES + OFFSET];
+            assertEquals(SAMPLES, ops.magnitude(packet, out, OFFSET));
+            scalar.magnitude(iq, 0, ref, OFFSET, SAMPLES);
+            assertArrayEquals(ref, out);
+        });
+    }
+
+    @Test
+    void powerDbm() {
+        forEachLayout((ops, packet, iq) -> {
+            float[] out = new float[SAMPLES + OFFSET], ref = new float[SAMPLES + OFFSET];
+            assertEquals(SAMPLES, ops.powerDbm(packet, out, OFFSET));
+            scalar.power(iq, 0, ref, OFFSET, SAMPLES);
+            scalar.toDbm(ref, OFFSET, ref, OFFSET, SAMPLES);
+            assertArrayEquals(ref, out, IqOpsTest.DBM_TOLERANCE);
+        });
+    }
+
+    @Test
+    void deinterleave() {
+        forEachLayout((ops, packet, iq) -> {
+            float[] i = new float[SAMPLES + OFFSET], q = new float[SAMPLES + OFFSET];
+            float[] ri = new float[SAMPLES + OFFSET], rq = new float[SAMPLES + OFFSET];
+            assertEquals(SAMPLES, ops.deinterleave(packet, i, q, OFFSET));
+            scalar.deinterleave(iq, 0, ri, rq, OFFSET, SAMPLES);
+            assertArrayEquals(ri, i);
+            assertArrayEquals(rq, q);
+        });
+    }
+
+    @Test
+    void packetToInt16() {
+        forEachLayout((ops, packet, iq) -> {
+            short[] dst = new short[2 * SAMPLES + OFFSET], ref = new short[2 * SAMPLES + OFFSET];
+            assertEquals(2 * SAMPLES, ops.toInt16(packet, dst, OFFSET, 0.5f));
+            scalar.toInt16(iq, 0, ref, OFFSET, 2 * SAMPLES, Short.MAX_VALUE / 0.5f);
+            assertArrayEquals(ref, dst);
+        });
+    }
+
+    @Test
+    void bufferScaleAndInt16() {
+        for (int chunk : CHUNKS) {
+            NativeIqOps ops = new NativeIqOps(chunk);
+            float[] data = random(SAMPLES, chunk);
+            Memory buffer = new Memory((long) SAMPLES * Float.BYTES);
+            buffer.write(0, data, 0, SAMPLES);
+
+            ops.scale(buffer, SAMPLES, 1.5f);
+            scalar.scale(data, 0, SAMPLES, 1.5f);
+            assertArrayEquals(data, buffer.getFloatArray(0, SAMPLES), "chunk=" + chunk);
+
+            short[] dst = new short[SAMPLES + OFFSET], ref = new short[SAMPLES + OFFSET];
+            ops.toInt16(buffer, dst, OFFSET, SAMPLES, 1f);
+            IqOps.toInt16(data, 0, ref, OFFSET, SAMPLES, 1f);
+            assertArrayEquals(ref, dst, "chunk=" + chunk);
+
+            ops.fromInt16(dst, OFFSET, SAMPLES, buffer, 1f);
+            float[] back = new float[SAMPLES];
+            IqOps.fromInt16(dst, OFFSET, back, 0, SAMPLES, 1f);
+            assertArrayEquals(back, buffer.getFloatArray(0, SAMPLES), "chunk=" + chunk);
+        }
+    }
+
+    @Test
+    void emptyPacketWritesNothing() {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        assertEquals(0, new NativeIqOps().power(packet, new float[0], 0));
+    }
+
+    @Test
+    void rejectsNonIqPacketAndShortOutput() {
+        NativeIqOps ops = new NativeIqOps();
+        AARTSAAPI_Packet packet = packet(random(2 * SAMPLES, 1), 2);
+        assertThrows(IndexOutOfBoundsException.class, () -> ops.power(packet, new float[SAMPLES], 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> ops.toInt16(packet, new short[SAMPLES], 0, 1f));
+        packet.size = 1;
+        assertThrows(IllegalArgumentException.class, () -> ops.power(packet, new float[SAMPLES], 0));
+    }
+
+    private interface Check {
+        void run(NativeIqOps ops, AARTSAAPI_Packet packet, float[] iq);
+    }
+
+    /** Runs a check for every chunk and stride, passing the packet's samples as compact IQ pairs. */
+    private static void forEachLayout(Check check) {
+        for (int chunk : CHUNKS) {
+            for (int stride : STRIDES) {
+                float[] iq = random(2 * SAMPLES, 31L * chunk + stride);
+                float[] payload = new float[(SAMPLES - 1) * stride + 2];
+                for (int k = 0; k < SAMPLES; k++) {
+                    payload[k * stride] = iq[2 * k];
+                    payload[k * stride + 1] = iq[2 * k + 1];
+                    for (int pad = 2; pad < stride && k < SAMPLES - 1; pad++) payload[k * stride + pad] = Float.NaN;
+                }
+                try {
+                    check.run(new NativeIqOps(chunk), packet(payload, stride), iq);
+                } catch (AssertionError e) {
+                    throw new AssertionError("chunk=" + chunk + " stride=" + stride, e);
+                }
+            }
+        }
+    }
+
+    private static AARTSAAPI_Packet packet(float[] payload, int stride) {
+        Memory memory = new Memory((long) payload.length * Float.BYTES);
+        memory.write(0, payload, 0, payload.length);
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = memory;
+        packet.num = SAMPLES;
+        packet.size = 2;
+        packet.stride = stride;
+        return packet;
+    }
+}
@@ -0,0 +1,54 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResamplerTest {
+
+    @Test
+    void totalFollowsOutputCountInPlace() {
+        Resampler resampler = Resampler.decimator(8);
+        AARTSAAPI_Packet packet = packet(4096, 4096);
+        for (int i = 0; i < 3; i++) {
+            packet.num = packet.total = 4096;
+            int produced = resampler.process(packet, packet);
+            assertEquals(produced, packet.num);
+            assertEquals(packet.num, packet.total);
+        }
+    }
+
+    @Test
+    void partialBlockTotalIsRescaled() {
+        Resampler resampler = new Resampler(3, 4);
+        AARTSAAPI_Packet in = packet(4000, 10000);
+        AARTSAAPI_Packet out = packet((int) resampler.maxOutputSamples(in.num), 0);
+        resampler.process(in, out);
+        assertEquals(7500, out.total);
+        assertEquals(10000, in.total, "input untouched");
+    }
+
+    @Test
+    void emptyPacketHasNoTotal() {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        Resampler.decimator(8).process(packet, packet);
+        assertEquals(0, packet.num);
+        assertEquals(0, packet.total);
+    }
+
+    private static AARTSAAPI_Packet packet(int samples, long total) {
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        Memory memory = new Memory((long) samples * 2 * Float.BYTES);
+        memory.clear();
+        packet.fp32 = memory;
+        packet.num = samples;
+        packet.total = total;
+        packet.size = 2;
+        packet.stride = 2;
+        packet.stepFrequency = 1e6;
+        packet.spanFrequency = 0.8e6;
+        return packet;
+    }
+}
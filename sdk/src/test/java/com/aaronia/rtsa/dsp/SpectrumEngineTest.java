@@ -0,0 +1,190 @@
+package com.aaronia.rtsa.dsp;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpectrumEngineTest {
+
+    private static final int SIZE = 1024;
+    private static final double SAMPLE_RATE = 1e6;
+    private static final double CENTER = 100e6;
+    private static final double SPAN = 0.8e6;
+
+    @Test
+    void toneLandsOnItsBinAtItsLevel() {
+        for (int k : new int[]{100, -200, 0}) {
+            Spectrum spectrum = single(new SpectrumEngine(SIZE, WindowFunction.HANN, 0, 1),
+                                       packet(tone(SIZE, k, -10), 2, 0));
+            int peak = spectrum.peakBin();
+            assertEquals(SIZE / 2 + k, peak, "tone at bin offset " + k);
+            assertEquals(CENTER + k * SAMPLE_RATE / SIZE, spectrum.frequency(peak), 1e-6);
+            assertEquals(-10, spectrum.getDbm(peak), 0.01);
+            // A Hann window spreads an on-bin tone into its neighbours at -6 dB and nowhere else.
+            assertEquals(-16.02, spectrum.getDbm(peak + 1), 0.05);
+            assertTrue(spectrum.getDbm((peak + SIZE / 4) % SIZE) < -100);
+        }
+    }
+
+    @Test
+    void binsAreLabelledFromThePacketHeader() {
+        AARTSAAPI_Packet packet = packet(tone(SIZE, 0, -10), 2, 0);
+        packet.rbwFrequency = 3e3;
+        packet.streamID = 7;
+        Spectrum spectrum = single(new SpectrumEngine(SIZE, WindowFunction.BLACKMAN_HARRIS, 0, 1), packet);
+
+        assertEquals(CENTER, spectrum.getCenterFrequency());
+        assertEquals(SAMPLE_RATE, spectrum.getSampleRate());
+        assertEquals(SAMPLE_RATE / SIZE, spectrum.getBinWidth());
+        assertEquals(CENTER - SAMPLE_RATE / 2, spectrum.frequency(0));
+        assertEquals(CENTER + SAMPLE_RATE / 2 - SAMPLE_RATE / SIZE, spectrum.frequency(SIZE - 1));
+        assertEquals(spectrum.getBinWidth() * WindowFunction.BLACKMAN_HARRIS.noiseBandwidth(SIZE),
+                     spectrum.getResolutionBandwidth(), 1e-9);
+        assertEquals(3e3, spectrum.getDeviceRbw());
+        assertEquals(7, spectrum.getStreamID());
+    }
+
+    @Test
+    void stridedPayloadGivesTheSameSpectrum() {
+        float[] iq = tone(SIZE, 37, -20);
+        float[] contiguous = single(new SpectrumEngine(SIZE, WindowFunction.HANN, 0, 1), packet(iq, 2, 0)).power.clone();
+        float[] strided = single(new SpectrumEngine(SIZE, WindowFunction.HANN, 0, 1), packet(iq, 3, 0)).power.clone();
+        assertArrayEquals(contiguous, strided);
+    }
+
+    @Test
+    void welchSegmentsOverlapAndCarryAcrossPackets() {
+        int averages = 4;
+        SpectrumEngine engine = new SpectrumEngine(SIZE, WindowFunction.HANN, 0.5, averages);
+        assertEquals(SIZE / 2, engine.getHop());
+
+        // Packets of 300 samples, so segments straddle packet boundaries.
+        float[] noise = noise(20 * SIZE, 1, 1);
+        List<double[]> times = new ArrayList<>();
+        int packetSamples = 300;
+        for (int first = 0; first + packetSamples <= noise.length / 2; first += packetSamples) {
+            float[] chunk = new float[2 * packetSamples];
+            System.arraycopy(noise, 2 * first, chunk, 0, chunk.length);
+            engine.accept(packet(chunk, 2, first / SAMPLE_RATE), s -> {
+                assertEquals(averages, s.getAverages());
+                times.add(new double[]{s.getStartTime(), s.getEndTime()});
+            });
+        }
+
+        int samples = (noise.length / 2 / packetSamples) * packetSamples;
+        int segments = (samples - SIZE) / engine.getHop() + 1;
+        assertEquals(segments / averages, times.size());
+        double averageSeconds = (SIZE + (averages - 1) * engine.getHop()) / SAMPLE_RATE;
+        for (int i = 0; i < times.size(); i++) {
+            double start = i * averages * engine.getHop() / SAMPLE_RATE;
+            assertEquals(start, times.get(i)[0], 1e-9, "spectrum " + i);
+            assertEquals(start + averageSeconds, times.get(i)[1], 1e-9, "spectrum " + i);
+        }
+    }
+
+    @Test
+    void averagingReducesNoiseVariance() {
+        double variance = 0.01;
+        double[] single = spread(noiseSpectrum(1, variance));
+        double[] averaged = spread(noiseSpectrum(64, variance));
+
+        // Per-bin noise power is the sample variance times the window's noise bandwidth over N.
+        double expected = variance * WindowFunction.HANN.noiseBandwidth(SIZE) / SIZE;
+        assertEquals(expected, averaged[0], expected * 0.05);
+        // Power of one periodogram bin is exponentially distributed: deviation equals mean.
+        assertTrue(single[1] / single[0] > 0.8, "single " + single[1] / single[0]);
+        assertTrue(averaged[1] / averaged[0] < 0.25, "averaged " + averaged[1] / averaged[0]);
+    }
+
+    @Test
+    void segmentStartDiscardsPartialAverage() {
+        SpectrumEngine engine = new SpectrumEngine(SIZE, WindowFunction.HANN, 0, 2);
+        List<Double> starts = new ArrayList<>();
+        float[] noise = noise(SIZE, 0.1, 2);
+
+        assertEquals(0, engine.accept(packet(noise, 2, 0), s -> starts.add(s.getStartTime())));
+        AARTSAAPI_Packet restart = packet(noise, 2, 1);
+        restart.flags = PacketFlags.SEGMENT_START;
+        assertEquals(0, engine.accept(restart, s -> starts.add(s.getStartTime())));
+        assertEquals(1, engine.accept(packet(noise, 2, 1 + SIZE / SAMPLE_RATE), s -> starts.add(s.getStartTime())));
+        assertEquals(List.of(1.0), starts);
+
+        AARTSAAPI_Packet retuned = packet(noise, 2, 2);
+        retuned.startFrequency += 1e6;
+        assertEquals(0, engine.accept(retuned, s -> starts.add(s.getStartTime())));
+        assertEquals(1, starts.size(), "a retune also discards the partial average");
+    }
+
+    /** Mean and standard deviation of the bin powers. */
+    private static double[] spread(float[] power) {
+        double sum = 0, squares = 0;
+        for (float p : power) {
+            sum += p;
+            squares += (double) p * p;
+        }
+        double mean = sum / power.length;
+        return new double[]{mean, Math.sqrt(squares / power.length - mean * mean)};
+    }
+
+    private static float[] noiseSpectrum(int averages, double variance) {
+        SpectrumEngine engine = new SpectrumEngine(SIZE, WindowFunction.HANN, 0, averages);
+        return single(engine, packet(noise(SIZE * averages, variance, averages), 2, 0)).power.clone();
+    }
+
+    private static Spectrum single(SpectrumEngine engine, AARTSAAPI_Packet packet) {
+        Spectrum[] out = new Spectrum[1];
+        assertEquals(1, engine.accept(packet, s -> out[0] = s));
+        return out[0];
+    }
+
+    /** Complex tone on bin offset {@code k} at the given level, where |x|^2 = 1/20 is 0 dBm. */
+    private static float[] tone(int samples, int k, double dbm) {
+        double amplitude = Math.sqrt(Math.pow(10, dbm / 10) / 20);
+        float[] iq = new float[2 * samples];
+        for (int n = 0; n < samples; n++) {
+            double phase = 2 * Math.PI * ((long) k * n % SIZE) / SIZE;
+            iq[2 * n] = (float) (amplitude * Math.cos(phase));
+            iq[2 * n + 1] = (float) (amplitude * Math.sin(phase));
+        }
+        return iq;
+    }
+
+    /** Complex white Gaussian noise with total variance {@code variance} per sample. */
+    private static float[] noise(int samples, double variance, long seed) {
+        Random random = new Random(seed);
+        double sigma = Math.sqrt(variance / 2);
+        float[] iq = new float[2 * samples];
+        for (int k = 0; k < iq.length; k++) iq[k] = (float) (random.nextGaussian() * sigma);
+        return iq;
+    }
+
+    private static AARTSAAPI_Packet packet(float[] iq, int stride, double startTime) {
+        int samples = iq.length / 2;
+        Memory memory = new Memory((long) samples * stride * Float.BYTES);
+        memory.clear();
+        for (int k = 0; k < samples; k++) {
+            memory.setFloat((long) k * stride * Float.BYTES, iq[2 * k]);
+            memory.setFloat(((long) k * stride + 1) * Float.BYTES, iq[2 * k + 1]);
+        }
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = memory;
+        packet.num = samples;
+        packet.size = 2;
+        packet.stride = stride;
+        packet.startTime = startTime;
+        packet.endTime = startTime + samples / SAMPLE_RATE;
+        packet.stepFrequency = SAMPLE_RATE;
+        packet.spanFrequency = SPAN;
+        packet.startFrequency = CENTER - SPAN / 2;
+        return packet;
+    }
+}
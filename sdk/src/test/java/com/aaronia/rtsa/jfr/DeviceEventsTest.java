@@ -0,0 +1,172 @@
+package com.aaronia.rtsa.jfr;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.ResultCode;
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.SimDevices;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Device, receive and transmit events of a simulated device, each recorded on its own
+ * while the others' code paths run too.
+ */
+class DeviceEventsTest {
+
+    private static final String DEVICE_STATE = "com.aaronia.rtsa.DeviceState";
+    private static final String PACKET_RECEIVED = "com.aaronia.rtsa.PacketReceived";
+    private static final String TRANSMIT_QUEUE = "com.aaronia.rtsa.TransmitQueue";
+
+    private static final List<String> EVENTS = List.of(DEVICE_STATE, PACKET_RECEIVED, TRANSMIT_QUEUE);
+
+    private static final int PACKETS = 5;
+    private static final int SAMPLES = 1024;
+
+    @TempDir
+    Path dir;
+
+    /** Stream time from before the first packet was sent until after the last. */
+    private double sendSeconds;
+
+    @Test
+    void deviceStateChangesAreRecorded() throws Exception {
+        List<RecordedEvent> events = record(DEVICE_STATE, this::receive);
+        assertTrue(events.size() >= 2, events.toString());
+
+        assertNull(events.get(0).getString("previousState"), "the first query has no previous state");
+        for (int i = 0; i < events.size(); i++) {
+            RecordedEvent event = events.get(i);
+            assertEquals(SimDevices.SERIAL, event.getString("serialNumber"));
+            if (i > 0) assertEquals(events.get(i - 1).getString("state"), event.getString("previousState"));
+        }
+        RecordedEvent stopped = events.get(events.size() - 1);
+        assertEquals(ResultCode.toString(ResultCode.RUNNING), stopped.getString("previousState"));
+        assertEquals(ResultCode.toString(ResultCode.CONNECTED), stopped.getString("state"));
+    }
+
+    @Test
+    void receivedPacketsAreRecordedOnce() throws Exception {
+        List<AARTSAAPI_Packet> packets = new ArrayList<>();
+        List<RecordedEvent> events = record(PACKET_RECEIVED, () -> packets.addAll(receive()));
+
+        assertEquals(PACKETS, events.size(), "each packet is read twice but recorded once");
+        for (int i = 0; i < PACKETS; i++) {
+            RecordedEvent event = events.get(i);
+            AARTSAAPI_Packet packet = packets.get(i);
+            assertEquals(0, event.getInt("channel"));
+            assertEquals(packet.streamID, event.getLong("streamId"));
+            assertEquals(packet.num, event.getLong("samples"));
+            assertEquals(packet.flags, event.getLong("flags"));
+            assertEquals(packet.startTime, event.getDouble("streamTime"));
+            assertFalse(event.getDuration("latency").isNegative(), "a queued packet has ended");
+        }
+    }
+
+    @Test
+    void transmitQueueLevelIsRecorded() throws Exception {
+        List<RecordedEvent> events = record(TRANSMIT_QUEUE, this::transmit);
+
+        assertEquals(2, events.size());
+        RecordedEvent ahead = events.get(0);
+        assertEquals(0, ahead.getInt("channel"));
+        assertEquals(SAMPLES, ahead.getLong("samples"));
+        assertFalse(ahead.getBoolean("late"));
+        double level = ahead.getDuration("queueLevel").toNanos() / 1e9;
+        assertTrue(level <= 0.1 && level >= 0.1 - sendSeconds, "queued " + level + " s ahead");
+
+        RecordedEvent late = events.get(1);
+        assertTrue(late.getBoolean("late"));
+        assertTrue(late.getDuration("queueLevel").isNegative(), "the late packet ended in the past");
+    }
+
+    /**
+     * Receive {@link #PACKETS} packets, each read twice, then stop the device.
+     *
+     * @return copies of the packet headers
+     */
+    private List<AARTSAAPI_Packet> receive() throws Exception {
+        List<AARTSAAPI_Packet> packets = new ArrayList<>();
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER, s -> { })) {
+            RtsaDevice device = sim.device();
+            sim.awaitPackets(0, PACKETS);
+            for (int i = 0; i < PACKETS; i++) {
+                AARTSAAPI_Packet packet = device.getPacket(0, i);
+                device.getPacket(0, i);
+                packets.add(packet);
+            }
+            device.stop();
+            SimDevices.awaitState(device, ResultCode.CONNECTED);
+        }
+        return packets;
+    }
+
+    /**
+     * Send one packet 0.1 s ahead of the stream time and one that started 0.1 s ago.
+     */
+    private void transmit() throws Exception {
+        try (SimDevices sim = SimDevices.running(SimDevices.TRANSMITTER, s -> { });
+             Memory memory = new Memory(2L * SAMPLES * Float.BYTES)) {
+            RtsaDevice device = sim.device();
+            memory.clear();
+            AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+            packet.fp32 = memory;
+            packet.num = SAMPLES;
+            packet.size = 2;
+            packet.stride = 2;
+            packet.flags = PacketFlags.SEGMENT_START | PacketFlags.SEGMENT_END;
+
+            double now = device.getMasterStreamTime();
+            packet.startTime = now + 0.09;
+            packet.endTime = now + 0.1;
+            device.sendPacket(0, packet);
+            packet.startTime = now - 0.1;
+            packet.endTime = now - 0.09;
+            device.sendPacket(0, packet);
+            sendSeconds = device.getMasterStreamTime() - now;
+        }
+    }
+
+    /**
+     * Run an action under a recording with only the named event of {@link #EVENTS}
+     * enabled, and return those events. Events of the other types would fail the test.
+     */
+    private List<RecordedEvent> record(String name, Action action) throws Exception {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                if (event.equals(name)) recording.enable(event);
+                else recording.disable(event);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            String type = event.getEventType().getName();
+            if (!type.startsWith("com.aaronia.rtsa.")) continue;
+            assertEquals(name, type, "only the enabled event is recorded");
+            events.add(event);
+        }
+        return events;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+}
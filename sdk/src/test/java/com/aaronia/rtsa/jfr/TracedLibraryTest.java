@@ -0,0 +1,51 @@
+package com.aaronia.rtsa.jfr;
+
+import com.aaronia.rtsa.MemorySize;
+import com.aaronia.rtsa.RtsaApi;
+import com.aaronia.rtsa.native_.AaroniaRtsaLibrary;
+import com.aaronia.rtsa.sim.RtsaSimulator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracedLibraryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tracingIsOptIn() throws Exception {
+        assertFalse(TracedLibrary.ENABLED);
+        assertEquals(0, nativeCalls(new RtsaSimulator()).size());
+    }
+
+    @Test
+    void wrappedBindingEmitsNativeCalls() throws Exception {
+        List<RecordedEvent> events = nativeCalls(new TracedLibrary(new RtsaSimulator()));
+        assertTrue(events.stream().anyMatch(e -> e.getString("operation").equals("Init")), events.toString());
+        assertTrue(events.stream().anyMatch(e -> e.getString("operation").equals("Version")), events.toString());
+    }
+
+    private List<RecordedEvent> nativeCalls(AaroniaRtsaLibrary lib) throws Exception {
+        Path file = dir.resolve("calls.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.aaronia.rtsa.NativeCall");
+            recording.start();
+            try (RtsaApi api = RtsaApi.init(lib, MemorySize.SMALL)) {
+                api.getVersion();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+}
@@ -0,0 +1,74 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.SimDevices;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Channel counters of a metered simulator device.
+ */
+class ChannelMetricsTest {
+
+    @Test
+    void packetReadTwiceIsCountedOnce() throws InterruptedException {
+        RtsaMetrics metrics = new RtsaMetrics();
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, metrics::instrument, d -> { })) {
+            RtsaDevice device = sim.device();
+            sim.awaitPackets(0, 2);
+            ChannelMetrics channel = metrics.device(SimDevices.SERIAL).channel(0);
+
+            AARTSAAPI_Packet first = device.getPacket(0, 0);
+            long samples = first.num;
+            device.getPacket(0, 0);
+            assertEquals(1, channel.getPackets());
+            assertEquals(samples, channel.getSamples());
+            assertEquals(first.payloadFloats() * Float.BYTES, channel.getBytes());
+
+            device.getPacket(0, 1);
+            device.getPacket(0, 0);
+            assertEquals(2, channel.getPackets(), "an earlier packet read again is not counted");
+
+            device.consumePackets(0, 1);
+            device.getPacket(0, 0);
+            assertEquals(2, channel.getPackets(), "the second packet moved to index 0");
+            device.getPacket(0, 1);
+            assertEquals(3, channel.getPackets());
+        }
+    }
+
+    @Test
+    void warningFlagsAreCounted() {
+        ChannelMetrics channel = new ChannelMetrics(3);
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.flags = PacketFlags.WARN_DROPPED | PacketFlags.TIME_DISCONTINUITY;
+        channel.received(packet);
+        packet.flags = PacketFlags.WARN_OVERFLOW;
+        channel.received(packet);
+        packet.flags = 0;
+        channel.received(packet);
+
+        assertEquals(3, channel.getPackets());
+        assertEquals(1, channel.getDroppedWarnings());
+        assertEquals(1, channel.getOverflowWarnings());
+        assertEquals(1, channel.getTimeDiscontinuities());
+    }
+
+    @Test
+    void queueDepthKeepsTheLastAndTheMaximum() throws InterruptedException {
+        RtsaMetrics metrics = new RtsaMetrics();
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, metrics::instrument, d -> { })) {
+            int available = sim.awaitPackets(0, 3);
+            ChannelMetrics channel = metrics.device(SimDevices.SERIAL).channel(0);
+            assertTrue(channel.getQueueDepth() >= 3, "depth " + channel.getQueueDepth());
+            assertTrue(channel.getMaxQueueDepth() >= available);
+
+            sim.device().consumePackets(0, sim.device().availablePackets(0));
+            assertTrue(channel.getMaxQueueDepth() >= available, "the maximum survives draining");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.aaronia.rtsa.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsRoundTripWithinOneSixteenth() {
+        for (int exponent = 0; exponent < 40; exponent++) {
+            long power = 1L << exponent;
+            for (long value : new long[]{power - 1, power, power + power / 3, 2 * power - 1}) {
+                int bucket = LatencyHistogram.bucket(value);
+                long highest = LatencyHistogram.highestValue(bucket);
+                assertTrue(highest >= value, value + " above its bucket's top " + highest);
+                if (value < 32) {
+                    assertEquals(value, highest, "linear values have their own bucket");
+                } else {
+                    assertTrue(highest - value <= value / 16, value + " reported as " + highest);
+                }
+                assertEquals(bucket, LatencyHistogram.bucket(highest), "top of bucket " + bucket);
+                if (bucket < LatencyHistogram.BUCKETS - 1) {
+                    assertEquals(bucket + 1, LatencyHistogram.bucket(highest + 1), "above bucket " + bucket);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hugeValuesLandInTheLastBucket() {
+        int last = LatencyHistogram.BUCKETS - 1;
+        assertEquals(last, LatencyHistogram.bucket(LatencyHistogram.highestValue(last)));
+        assertEquals(last, LatencyHistogram.bucket(1L << 40));
+        assertEquals(last, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesAreBucketTopsCappedAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100; v++) histogram.record(v);
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(101, snapshot.getCount());
+        assertEquals(5050 / 101.0, snapshot.getMean(), 1e-9);
+        assertEquals(100, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(0), "negative values count as 0");
+        assertEquals(20, snapshot.getValueAtPercentile(20));
+        assertEquals(LatencyHistogram.highestValue(LatencyHistogram.bucket(50)), snapshot.getValueAtPercentile(50));
+        assertEquals(100, snapshot.getValueAtPercentile(99.5), "capped at the maximum");
+        assertEquals(100, snapshot.getValueAtPercentile(100));
+        assertEquals(0, new LatencyHistogram().snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    void minusKeepsOnlyLaterRecordings() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) histogram.record(10);
+        LatencyHistogram.Snapshot base = histogram.snapshot();
+        for (int i = 0; i < 10; i++) histogram.record(1000);
+        LatencyHistogram.Snapshot delta = histogram.snapshot().minus(base);
+
+        assertEquals(10, delta.getCount());
+        assertEquals(1000, delta.getMean());
+        assertEquals(1000, delta.getMax());
+        assertEquals(1000, delta.getValueAtPercentile(1));
+        assertEquals(10, base.getValueAtPercentile(99), "the base is unchanged");
+    }
+}
@@ -0,0 +1,56 @@
+package com.aaronia.rtsa.metrics;
+
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.RtsaException;
+import com.aaronia.rtsa.SimDevices;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls, error results and latencies a {@link MeteredLibrary} records from the simulator.
+ */
+class MeteredLibraryTest {
+
+    @Test
+    void errorResultsAreCountedAndStatusResultsAreNot() throws InterruptedException {
+        RtsaMetrics metrics = new RtsaMetrics();
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, metrics::instrument, d -> { })) {
+            RtsaDevice device = sim.device();
+            CallMetrics find = metrics.getCall(NativeCall.CONFIG_FIND);
+            long calls = find.getCalls();
+
+            assertNotNull(device.configFind("main/centerfreq"));
+            // A missing item returns EMPTY, a status rather than an error.
+            assertNull(device.configFind("main/nosuchitem"));
+            assertEquals(calls + 2, find.getCalls());
+            assertEquals(0, find.getErrors());
+
+            CallMetrics get = metrics.getCall(NativeCall.GET_PACKET);
+            assertThrows(RtsaException.class, () -> device.getPacket(1, 0), "the receiver has one channel");
+            assertEquals(1, get.getCalls());
+            assertEquals(1, get.getErrors());
+        }
+        assertEquals(1, metrics.getCall(NativeCall.INIT).getCalls());
+        assertEquals(1, metrics.getCall(NativeCall.OPEN_DEVICE).getCalls());
+        assertEquals(1, metrics.getCall(NativeCall.CLOSE_DEVICE).getCalls());
+        assertEquals(0, metrics.getCall(NativeCall.OPEN_DEVICE).getErrors());
+    }
+
+    @Test
+    void latencyIsRecordedPerCall() throws InterruptedException {
+        RtsaMetrics metrics = new RtsaMetrics();
+        try (SimDevices sim = SimDevices.running(SimDevices.RECEIVER, s -> { }, metrics::instrument, d -> { })) {
+            for (int i = 0; i < 100; i++) sim.device().getMasterStreamTime();
+        }
+        LatencyHistogram.Snapshot latency = metrics.getCall(NativeCall.GET_MASTER_STREAM_TIME).getLatency();
+        assertEquals(100, latency.getCount());
+        assertTrue(latency.getMax() > 0);
+        assertTrue(latency.getValueAtPercentile(50) <= latency.getMax());
+        assertEquals(1, metrics.getCall(NativeCall.START_DEVICE).getCalls());
+    }
+}
@@ -0,0 +1,21 @@
+package com.aaronia.rtsa.native_;
+
+import com.aaronia.rtsa.sim.RtsaSimulator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AaroniaRtsaLibraryTest {
+
+    @Test
+    void simBackendIsFoundThroughServiceLoader() {
+        assertInstanceOf(RtsaSimulator.class, AaroniaRtsaLibrary.load(AaroniaRtsaLibrary.LIB_NAME, "sim"));
+        assertInstanceOf(RtsaSimulator.class, AaroniaRtsaLibrary.INSTANCE, "surefire selects the sim backend");
+    }
+
+    @Test
+    void unknownBackendIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AaroniaRtsaLibrary.load(AaroniaRtsaLibrary.LIB_NAME, "nope"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.PacketFlags;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IqPlayerTest {
+
+    /** 3000 bytes per packet, so packets straddle the windows. Packet i spans times i to i + 1. */
+    private static final int SAMPLES = 375;
+    private static final int PACKETS = 100;
+    private static final long WINDOW_BYTES = 8192;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void windowsBehindTheCursorAreReleased() throws IOException {
+        Path file = dir.resolve("capture.iq");
+        record(file);
+
+        try (IqPlayer player = IqPlayer.open(file, WINDOW_BYTES)) {
+            for (int pass = 0; pass < 2; pass++) {
+                player.seekPacket(0);
+                for (int i = 0; i < PACKETS; i++) {
+                    AARTSAAPI_Packet packet = player.next();
+                    assertEquals(value(i, 0), packet.fp32.getFloat(0), "packet " + i);
+                    assertEquals(value(i, 2 * SAMPLES - 1),
+                                 packet.fp32.getFloat((2L * SAMPLES - 1) * Float.BYTES), "packet " + i);
+                    assertTrue(player.mappedWindows() <= 2, "mapped windows: " + player.mappedWindows());
+                }
+                assertNull(player.next());
+            }
+        }
+    }
+
+    @Test
+    void seekInsidePacketTrimsLeadingSamples() throws IOException {
+        Path file = dir.resolve("capture.iq");
+        record(file);
+
+        try (IqPlayer player = IqPlayer.open(file, WINDOW_BYTES)) {
+            player.seek(10.4);
+            assertEquals(10, player.position());
+            AARTSAAPI_Packet packet = player.next();
+            int skip = 150;
+            assertEquals(SAMPLES - skip, packet.num);
+            assertEquals(value(10, 2 * skip), packet.fp32.getFloat(0));
+            assertEquals(value(10, 2 * SAMPLES - 1),
+                         packet.fp32.getFloat((2L * (SAMPLES - skip) - 1) * Float.BYTES));
+            assertEquals(10.4, packet.startTime, 1e-12);
+            assertEquals(11, packet.endTime);
+
+            packet = player.next();
+            assertEquals(SAMPLES, packet.num);
+            assertEquals(value(11, 0), packet.fp32.getFloat(0));
+            assertEquals(11, packet.startTime);
+
+            player.seek(-5);
+            assertEquals(0, player.position());
+            assertEquals(SAMPLES, player.next().num, "a time before the recording starts at its first sample");
+        }
+    }
+
+    @Test
+    void firstPacketAfterSeekStartsSegment() throws IOException {
+        Path file = dir.resolve("capture.iq");
+        record(file);
+
+        try (IqPlayer player = IqPlayer.open(file, WINDOW_BYTES)) {
+            assertTrue(isSegmentStart(player.next()), "first packet after open");
+            assertFalse(isSegmentStart(player.next()));
+
+            player.seekPacket(5);
+            assertTrue(isSegmentStart(player.next()), "first packet after seekPacket");
+            assertFalse(isSegmentStart(player.next()));
+
+            player.seek(30.5);
+            assertTrue(isSegmentStart(player.next()), "first packet after seek");
+            assertFalse(isSegmentStart(player.next()));
+        }
+    }
+
+    @Test
+    void rebaseShiftsTimesFromTheNextSample() throws IOException {
+        Path file = dir.resolve("capture.iq");
+        record(file);
+
+        try (IqPlayer player = IqPlayer.open(file, WINDOW_BYTES)) {
+            player.seek(20.2);
+            player.rebase(1000);
+            AARTSAAPI_Packet packet = player.next();
+            assertEquals(1000, packet.startTime, 1e-9);
+            assertEquals(1000.8, packet.endTime, 1e-9);
+            packet = player.next();
+            assertEquals(1000.8, packet.startTime, 1e-9);
+            assertEquals(1001.8, packet.endTime, 1e-9);
+
+            player.clearRebase();
+            packet = player.next();
+            assertEquals(22, packet.startTime);
+            assertEquals(23, packet.endTime);
+        }
+    }
+
+    private static boolean isSegmentStart(AARTSAAPI_Packet packet) {
+        return (packet.flags & PacketFlags.SEGMENT_START) != 0;
+    }
+
+    /** Recorded value of float {@code k} of packet {@code i}. */
+    private static float value(int i, int k) {
+        return i * 1000 + k;
+    }
+
+    private static void record(Path file) throws IOException {
+        Memory memory = new Memory(2L * SAMPLES * Float.BYTES);
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = memory;
+        packet.num = SAMPLES;
+        packet.size = 2;
+        packet.stride = 2;
+        try (IqRecorder recorder = IqRecorder.create(file)) {
+            for (int i = 0; i < PACKETS; i++) {
+                for (int k = 0; k < 2 * SAMPLES; k++) memory.setFloat((long) k * Float.BYTES, value(i, k));
+                packet.startTime = i;
+                packet.endTime = i + 1;
+                recorder.write(packet);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.RtsaDevice;
+import com.aaronia.rtsa.SimDevices;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IqRecorderTest {
+
+    private static final int SAMPLES = 256;
+    private static final int PACKETS = 200;
+    /** Not a multiple of the packet size, so payloads straddle segments. */
+    private static final long SEGMENT_BYTES = 10_000;
+
+    @TempDir
+    Path dir;
+
+    private SimDevices sim;
+    private RtsaDevice device;
+
+    @BeforeEach
+    void open() throws InterruptedException {
+        sim = SimDevices.running(SimDevices.RECEIVER, s -> s.setPaced(false).setPacketSamples(SAMPLES));
+        device = sim.device();
+    }
+
+    @AfterEach
+    void close() {
+        sim.close();
+    }
+
+    @Test
+    void recordsSimulatedStreamAcrossSegments() throws Exception {
+        Path file = dir.resolve("capture.iq");
+        List<float[]> payloads = new ArrayList<>();
+        List<Double> startTimes = new ArrayList<>();
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+
+        try (IqRecorder recorder = IqRecorder.create(file, SEGMENT_BYTES)) {
+            while (payloads.size() < PACKETS) {
+                sim.awaitPackets(0, 1);
+                assertTrue(device.getPacket(0, 0, packet));
+                recorder.write(packet);
+                payloads.add(packet.readFloats(0, (int) (packet.num * packet.size)));
+                startTimes.add(packet.startTime);
+                device.consumePackets(0, 1);
+            }
+            assertEquals(PACKETS, recorder.getPackets());
+            assertEquals(PACKETS * SAMPLES * 2L * Float.BYTES, recorder.getBytesWritten());
+            assertTrue(recorder.getSegments() > 1);
+        }
+        assertEquals(PACKETS * SAMPLES * 2L * Float.BYTES, Files.size(file));
+
+        try (IqPlayer player = IqPlayer.open(file)) {
+            assertEquals(PACKETS, player.getPacketCount());
+            for (int i = 0; i < PACKETS; i++) {
+                AARTSAAPI_Packet played = player.next();
+                assertEquals(startTimes.get(i), played.startTime, "packet " + i);
+                assertEquals(SAMPLES, played.num);
+                assertArrayEquals(payloads.get(i), played.readFloats(0, 2 * SAMPLES), "packet " + i);
+            }
+            assertNull(player.next());
+        }
+    }
+
+    @Test
+    void largePayloadsCrossChunksAndSegments() throws IOException {
+        for (int stride : new int[]{2, 3}) record(dir.resolve("stride" + stride + ".iq"), 10_000, stride);
+    }
+
+    @Test
+    void compactsStridedPayloads() throws IOException {
+        record(dir.resolve("strided.iq"), 1000, 3);
+    }
+
+    /** Record one packet with the given stride and check that it plays back compacted. */
+    private static void record(Path file, int samples, int stride) throws IOException {
+        Memory memory = new Memory((long) samples * stride * Float.BYTES);
+        float[] expected = new float[2 * samples];
+        for (int k = 0; k < samples; k++) {
+            memory.setFloat((long) k * stride * Float.BYTES, k);
+            memory.setFloat(((long) k * stride + 1) * Float.BYTES, -k);
+            if (stride > 2) memory.setFloat(((long) k * stride + 2) * Float.BYTES, Float.NaN);
+            expected[2 * k] = k;
+            expected[2 * k + 1] = -k;
+        }
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = memory;
+        packet.num = samples;
+        packet.size = 2;
+        packet.stride = stride;
+        packet.stepFrequency = 1e6;
+        packet.endTime = samples / 1e6;
+
+        try (IqRecorder recorder = IqRecorder.create(file, SEGMENT_BYTES)) {
+            recorder.write(packet);
+        }
+        try (IqPlayer player = IqPlayer.open(file)) {
+            AARTSAAPI_Packet played = player.next();
+            assertEquals(2, played.stride);
+            assertArrayEquals(expected, played.readFloats(0, 2 * samples), "stride " + stride);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.aaronia.rtsa.record;
+
+import com.aaronia.rtsa.dsp.IqOps;
+import com.aaronia.rtsa.native_.AARTSAAPI_Packet;
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SigMfWriterTest {
+
+    /** Over two encode blocks per recording. */
+    private static final int PACKET_SAMPLES = 100_000;
+    private static final int PACKETS = 6;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compressedInt16RoundTrip() throws Exception {
+        float[] iq = new float[2 * PACKET_SAMPLES * PACKETS];
+        try (SigMfWriter sigmf = SigMfWriter.create(dir.resolve("gz"), SigMfWriter.DataType.CI16_LE, true)) {
+            sigmf.setInt16FullScale(0.5f);
+            writePackets(sigmf, iq, 2);
+            sigmf.close();
+            assertEquals(iq.length / 2, sigmf.getSamples());
+            assertTrue(sigmf.getCompressionRatio() > 1);
+        }
+
+        short[] expected = new short[iq.length];
+        IqOps.toInt16(iq, 0, expected, 0, iq.length, 0.5f);
+        ByteBuffer raw;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(dir.resolve("gz.sigmf-data.gz")))) {
+            raw = ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        short[] actual = new short[raw.remaining() / Short.BYTES];
+        raw.asShortBuffer().get(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void stridedFloatRoundTrip() throws Exception {
+        float[] iq = new float[2 * PACKET_SAMPLES * PACKETS];
+        try (SigMfWriter sigmf = SigMfWriter.create(dir.resolve("cf32"), SigMfWriter.DataType.CF32_LE, false)) {
+            writePackets(sigmf, iq, 3);
+        }
+
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("cf32.sigmf-data"))).order(ByteOrder.LITTLE_ENDIAN);
+        float[] actual = new float[raw.remaining() / Float.BYTES];
+        raw.asFloatBuffer().get(actual);
+        assertArrayEquals(iq, actual);
+        assertTrue(Files.readString(dir.resolve("cf32.sigmf-meta")).contains("\"core:datatype\": \"cf32_le\""));
+    }
+
+    @Test
+    void metadataIsWrittenWhenFlushFails() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SigMfWriter sigmf = SigMfWriter.create(dir.resolve("failed"), SigMfWriter.DataType.CF32_LE, false, executor);
+        writePackets(sigmf, new float[2 * 1000], 2);
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, sigmf::close);
+        assertTrue(Files.readString(sigmf.getMetaFile()).contains("\"core:sample_rate\": 1000000"));
+    }
+
+    /**
+     * Write {@code iq.length / 2} random samples in packets of {@link #PACKET_SAMPLES} or
+     * fewer with the given stride, filling {@code iq} with what was written.
+     */
+    private static void writePackets(SigMfWriter sigmf, float[] iq, int stride) throws IOException, InterruptedException {
+        Random random = new Random(stride);
+        for (int k = 0; k < iq.length; k++) iq[k] = (float) (random.nextGaussian() * 0.1);
+
+        int samples = Math.min(PACKET_SAMPLES, iq.length / 2);
+        Memory memory = new Memory((long) samples * stride * Float.BYTES);
+        AARTSAAPI_Packet packet = new AARTSAAPI_Packet();
+        packet.fp32 = memory;
+        packet.size = 2;
+        packet.stride = stride;
+        packet.num = samples;
+        packet.stepFrequency = 1e6;
+        packet.spanFrequency = 0.8e6;
+        packet.startFrequency = 100e6;
+        for (int first = 0; first < iq.length / 2; first += samples) {
+            for (int k = 0; k < samples; k++) {
+                memory.setFloat((long) k * stride * Float.BYTES, iq[2 * (first + k)]);
+                memory.setFloat(((long) k * stride + 1) * Float.BYTES, iq[2 * (first + k) + 1]);
+            }
+            packet.startTime = first / packet.stepFrequency;
+            sigmf.write(packet);
+        }
+    }
+}